@@ -0,0 +1,124 @@
+package jchess.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.controllers.chessboardcontrollers.FourPlayerChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
+import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.gamelogic.pieces.Piece;
+
+/**
+ * Fixed mid-game positions the benchmarks run on. The benchmarks select a
+ * variant by its name through a JMH parameter.
+ */
+public final class BenchmarkPositions
+{
+	public static final String TWO_PLAYER = "TWO_PLAYER";
+	public static final String FOUR_PLAYER = "FOUR_PLAYER";
+
+	/** Italian game up to both sides castling short: from x, from y, to x, to y */
+	private static final int[][] TWO_PLAYER_GAME = {
+			{ 4, 6, 4, 4 }, { 4, 1, 4, 3 },
+			{ 6, 7, 5, 5 }, { 1, 0, 2, 2 },
+			{ 5, 7, 2, 4 }, { 5, 0, 2, 3 },
+			{ 2, 6, 2, 5 }, { 6, 0, 5, 2 },
+			{ 3, 6, 3, 5 }, { 3, 1, 3, 2 },
+			{ 4, 7, 6, 7 }, { 4, 0, 6, 0 } };
+
+	/** Plies of the four player game, chosen with a fixed seed */
+	private static final int FOUR_PLAYER_PLIES = 24;
+	private static final long FOUR_PLAYER_SEED = 2017;
+
+	private BenchmarkPositions()
+	{
+	}
+
+	/**
+	 * Creates a controller of the start position of a variant.
+	 * @param variant {@link #TWO_PLAYER} or {@link #FOUR_PLAYER}
+	 * @return Controller with the first player to move
+	 */
+	public static IChessboardController createStartPosition(String variant)
+	{
+		if(TWO_PLAYER.equals(variant))
+		{
+			return new TwoPlayerChessboardController(null, TwoPlayerChessboardFactory.getInstance(),
+					new Player("p1", Color.WHITE), new Player("p2", Color.BLACK));
+		} else if(FOUR_PLAYER.equals(variant))
+		{
+			return new FourPlayerChessboardController(null, FourPlayerChessboardFactory.getInstance(),
+					new Player("p1", Color.WHITE), new Player("p2", Color.RED), new Player("p3", Color.BLACK),
+					new Player("p4", Color.GOLDEN));
+		}
+		throw new IllegalArgumentException("Unknown variant " + variant + "!");
+	}
+
+	/**
+	 * Creates a controller of the mid-game position of a variant. The moves
+	 * leading to it are entered into the controller's history.
+	 * @param variant {@link #TWO_PLAYER} or {@link #FOUR_PLAYER}
+	 * @return Controller of the mid-game position
+	 */
+	public static IChessboardController createMidGame(String variant)
+	{
+		IChessboardController controller = createStartPosition(variant);
+		try
+		{
+			if(TWO_PLAYER.equals(variant))
+			{
+				for(int[] move : TWO_PLAYER_GAME)
+				{
+					controller.move(controller.getBoard().getField(move[0], move[1]),
+							controller.getBoard().getField(move[2], move[3]));
+					controller.switchToNextPlayer();
+				}
+			} else
+			{
+				Random random = new Random(FOUR_PLAYER_SEED);
+				for(int ply = 0; ply < FOUR_PLAYER_PLIES; ply++)
+				{
+					List<Move> moves = getSortedMoves(controller);
+					Move move = moves.get(random.nextInt(moves.size()));
+					controller.move(move.getFrom(), move.getTo());
+					controller.switchToNextPlayer();
+				}
+			}
+		} catch(IllegalMoveException exc)
+		{
+			throw new IllegalStateException("Benchmark game contains an illegal move!", exc);
+		}
+		return controller;
+	}
+
+	/**
+	 * The order of the pieces depends on identity hash codes, so the moves
+	 * are sorted to keep the seeded game the same from run to run.
+	 */
+	private static List<Move> getSortedMoves(IChessboardController controller)
+	{
+		List<Move> moves = new ArrayList<Move>();
+		for(Piece piece : controller.getBoard().getPieces(controller.getActivePlayer()))
+		{
+			moves.addAll(controller.getPossibleMoves(piece, true));
+		}
+		Collections.sort(moves, new Comparator<Move>()
+		{
+			@Override
+			public int compare(Move first, Move second)
+			{
+				return first.toString().compareTo(second.toString());
+			}
+		});
+		return moves;
+	}
+}
@@ -0,0 +1,71 @@
+package jchess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.models.ChessboardModel;
+import jchess.gamelogic.models.IChessboardModel;
+
+/**
+ * Benchmarks copying the board models holding the mid-game positions of
+ * {@link BenchmarkPositions}. The factories create
+ * {@link jchess.gamelogic.models.ArrayChessboardModel}s; the same position is
+ * also transferred into a map based {@link ChessboardModel} to compare both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessboardModelBenchmark
+{
+	@Param({ BenchmarkPositions.TWO_PLAYER, BenchmarkPositions.FOUR_PLAYER })
+	public String variant;
+
+	private IChessboardModel arrayBoard;
+	private IChessboardModel mapBoard;
+
+	@Setup
+	public void setUp()
+	{
+		arrayBoard = BenchmarkPositions.createMidGame(variant).getBoard();
+
+		mapBoard = new ChessboardModel();
+		for(Field field : arrayBoard.getFields())
+		{
+			mapBoard.addField(field);
+		}
+		for(Field field : arrayBoard.getFields())
+		{
+			if(arrayBoard.getPiece(field) != null)
+			{
+				mapBoard.setPiece(field, arrayBoard.getPiece(field).copy());
+			}
+		}
+	}
+
+	@Benchmark
+	public IChessboardModel copyArrayModel()
+	{
+		return arrayBoard.copy();
+	}
+
+	@Benchmark
+	public IChessboardModel copyMapModel()
+	{
+		return mapBoard.copy();
+	}
+}
@@ -0,0 +1,94 @@
+package jchess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.pieces.Piece;
+
+/**
+ * Benchmarks the move generation and check detection of the controllers on
+ * the mid-game positions of {@link BenchmarkPositions}. None of them changes
+ * the position.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ControllerBenchmark
+{
+	@Param({ BenchmarkPositions.TWO_PLAYER, BenchmarkPositions.FOUR_PLAYER })
+	public String variant;
+
+	private IChessboardController controller;
+	private Player activePlayer;
+	private Piece[] pieces;
+
+	@Setup
+	public void setUp()
+	{
+		controller = BenchmarkPositions.createMidGame(variant);
+		activePlayer = controller.getActivePlayer();
+		pieces = controller.getBoard().getPieces(activePlayer).toArray(new Piece[0]);
+	}
+
+	/**
+	 * Generates the legal moves of all pieces of the active player.
+	 */
+	@Benchmark
+	public int getPossibleMoves()
+	{
+		int count = 0;
+		for(Piece piece : pieces)
+		{
+			count += controller.getPossibleMoves(piece, true).size();
+		}
+		return count;
+	}
+
+	/**
+	 * Generates the threatened fields of all pieces of the active player.
+	 */
+	@Benchmark
+	public int getPossibleThreats()
+	{
+		int count = 0;
+		for(Piece piece : pieces)
+		{
+			count += controller.getPossibleThreats(piece, true).size();
+		}
+		return count;
+	}
+
+	@Benchmark
+	public boolean isChecked()
+	{
+		return controller.isChecked(activePlayer);
+	}
+
+	@Benchmark
+	public boolean isCheckmated()
+	{
+		return controller.isCheckmated(activePlayer);
+	}
+
+	@Benchmark
+	public boolean isStalemate()
+	{
+		return controller.isStalemate();
+	}
+}
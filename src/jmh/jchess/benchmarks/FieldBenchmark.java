@@ -0,0 +1,60 @@
+package jchess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jchess.gamelogic.field.Field;
+
+/**
+ * Benchmarks parsing the designations of all fields of the two and four
+ * player boards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldBenchmark
+{
+	@Param({ BenchmarkPositions.TWO_PLAYER, BenchmarkPositions.FOUR_PLAYER })
+	public String variant;
+
+	private String[] designations;
+
+	@Setup
+	public void setUp()
+	{
+		int size = BenchmarkPositions.TWO_PLAYER.equals(variant) ? 8 : 14;
+		designations = new String[size * size];
+		for(int x = 0; x < size; x++)
+		{
+			for(int y = 0; y < size; y++)
+			{
+				designations[x * size + y] = new Field(x, y).toString();
+			}
+		}
+	}
+
+	@Benchmark
+	public int getFieldFromDesignation()
+	{
+		int sum = 0;
+		for(String designation : designations)
+		{
+			sum += Field.getFieldFromDesignation(designation).getPosX();
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,60 @@
+package jchess.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import jchess.gamelogic.controllers.IChessboardController;
+
+/**
+ * Benchmarks replaying the games leading to the mid-game positions of
+ * {@link BenchmarkPositions} from their notation, as done when loading a
+ * saved game.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HistoryBenchmark
+{
+	@Param({ BenchmarkPositions.TWO_PLAYER, BenchmarkPositions.FOUR_PLAYER })
+	public String variant;
+
+	private String game;
+	private IChessboardController controller;
+
+	@Setup(Level.Trial)
+	public void setUpGame()
+	{
+		game = BenchmarkPositions.createMidGame(variant).getHistory().getMovesAsString();
+	}
+
+	/**
+	 * Every replay needs a fresh start position.
+	 */
+	@Setup(Level.Invocation)
+	public void setUpController()
+	{
+		controller = BenchmarkPositions.createStartPosition(variant);
+	}
+
+	@Benchmark
+	public long setMoves()
+	{
+		controller.getHistory().setMoves(game);
+		return controller.getBoard().getZobristKey();
+	}
+}
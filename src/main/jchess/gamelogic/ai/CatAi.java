@@ -1,6 +1,9 @@
 package jchess.gamelogic.ai;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
@@ -16,30 +19,75 @@ import jchess.gamelogic.pieces.Piece;
 import jchess.gamelogic.pieces.PieceFactory;
 import jchess.gamelogic.pieces.PieceFactory.PieceType;
 import jchess.gamelogic.pieces.SleepingCat;
+import jchess.util.ArgumentChecker;
 import jchess.util.Direction;
 
 /**
- * Class responsible for controlling the Cat movement on the board.
+ * Class responsible for controlling the Cat movement on the board. Where the
+ * cat moves is left to an {@link ICatPolicy}; all random decisions of a game
+ * are drawn from one random number generator, so a game replays exactly with
+ * the same seed and the same moves of the players.
  */
 
 public class CatAi implements ICatAi
 {
 	private static final int DEFAULT_SLEEP_TIME = 2;
 	private static final int DEFAULT_RESPAWN_TIME = 2;
+	/** Orders moves by target field, so the order does not depend on hashes */
+	private static final Comparator<Move> TARGET_ORDER = new Comparator<Move>()
+	{
+		@Override
+		public int compare(Move first, Move second)
+		{
+			if(first.getTo().getPosY() != second.getTo().getPosY())
+			{
+				return first.getTo().getPosY() - second.getTo().getPosY();
+			}
+			return first.getTo().getPosX() - second.getTo().getPosX();
+		}
+	};
 	private IChessboardModel board;
 	private Piece cat;
 	private IChessboardController chessboard;
 	private Player aiPlayer;
 	private int turnsToRespawn;
 	private int turnsToWakeUp;
+	private final ICatPolicy policy;
+	private final Random random;
 	
+	/**
+	 * Creates a randomly moving cat with a seed of its own.
+	 * 
+	 * @param chessboard
+	 *            controller of the game
+	 * @param aiPlayer
+	 *            player of the cat
+	 */
 	public CatAi(IChessboardController chessboard, Player aiPlayer)
 	{
+		this(chessboard, aiPlayer, new RandomCatPolicy(), System.nanoTime());
+	}
+	
+	/**
+	 * @param chessboard
+	 *            controller of the game
+	 * @param aiPlayer
+	 *            player of the cat
+	 * @param policy
+	 *            strategy choosing the cat's moves
+	 * @param seed
+	 *            seed of the random decisions of the game
+	 */
+	public CatAi(IChessboardController chessboard, Player aiPlayer, ICatPolicy policy, long seed)
+	{
+		ArgumentChecker.checkForNull(chessboard, aiPlayer, policy);
 		this.chessboard = chessboard;
 		board = chessboard.getBoard();
 		turnsToWakeUp = DEFAULT_SLEEP_TIME;
 		turnsToRespawn = DEFAULT_RESPAWN_TIME;
 		this.aiPlayer = aiPlayer;
+		this.policy = policy;
+		this.random = new Random(seed);
 		spawnCat();
 	}
 	
@@ -84,7 +132,7 @@ public class CatAi implements ICatAi
 	{
 		PieceFactory factory = PieceFactory.getInstance();
 		board.setPiece(getRandomField(board.getEmptyFields()),
-		        factory.buildPiece(aiPlayer, new Direction(0, -1), PieceType.CAT));
+		        factory.buildPiece(aiPlayer, Direction.of(0, -1), PieceType.CAT));
 		for(Piece piece : board.getPieces(aiPlayer))
 		{
 			cat = piece;
@@ -104,7 +152,7 @@ public class CatAi implements ICatAi
 	private void spawnCat(PieceType type, Field field)
 	{
 		PieceFactory factory = PieceFactory.getInstance();
-		board.setPiece(field, factory.buildPiece(aiPlayer, new Direction(0, -1), type));
+		board.setPiece(field, factory.buildPiece(aiPlayer, Direction.of(0, -1), type));
 		for(Piece piece : board.getPieces(aiPlayer))
 		{
 			cat = piece;
@@ -190,6 +238,18 @@ public class CatAi implements ICatAi
 		changeBehaviour();
 	}
 	
+	@Override
+	public int getTurnsToWakeUp()
+	{
+		return turnsToWakeUp;
+	}
+	
+	@Override
+	public int getTurnsToRespawn()
+	{
+		return turnsToRespawn;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -205,27 +265,25 @@ public class CatAi implements ICatAi
 	{
 		if(canMove())
 		{
-			return getRandomThreateningMove() != null;
+			return !removeKingCapture(chessboard.getThreateningMoves(cat, aiPlayer)).isEmpty();
 		}
 		return false;
 	}
 	
 	public Field getRandomThreateningMove()
 	{
-		List<Move> moves = new ArrayList<Move>();
-		moves.addAll(removeKingCapture(chessboard.getThreateningMoves(cat, aiPlayer)));
+		List<Move> moves = removeKingCapture(chessboard.getThreateningMoves(cat, aiPlayer));
 		if(!moves.isEmpty())
 		{
-			return getRandomMove(moves).getTo();
+			return policy.chooseMove(chessboard, cat, moves, random).getTo();
 		}
 		return null;
 	}
 	
 	public Field getRandomNormalMove()
 	{
-		List<Move> moves = new ArrayList<Move>();
-		moves.addAll(removeKingCapture(chessboard.getPossibleMoves(cat, false)));
-		return getRandomMove(moves).getTo();
+		List<Move> moves = removeKingCapture(chessboard.getPossibleMoves(cat, false));
+		return policy.chooseMove(chessboard, cat, moves, random).getTo();
 	}
 	
 	/**
@@ -233,21 +291,21 @@ public class CatAi implements ICatAi
 	 * 
 	 * @param moves
 	 *            set of possible moves cat can move
-	 * @return moves without a king capturing move
+	 * @return moves without a king capturing move, sorted by target field
 	 */
-	private Set<Move> removeKingCapture(Set<Move> moves)
+	private List<Move> removeKingCapture(Set<Move> moves)
 	{
-		for(Move move : moves)
+		List<Move> allowedMoves = new ArrayList<Move>(moves);
+		for(Iterator<Move> iterator = allowedMoves.iterator(); iterator.hasNext();)
 		{
-			if((board.getPiece(move.getTo()) != null))
+			Piece target = board.getPiece(iterator.next().getTo());
+			if(target != null && target.getBehaviour() instanceof King)
 			{
-				if(board.getPiece(move.getTo()).getBehaviour() instanceof King)
-				{
-					moves.remove(move);
-				}
+				iterator.remove();
 			}
 		}
-		return moves;
+		Collections.sort(allowedMoves, TARGET_ORDER);
+		return allowedMoves;
 	}
 	
 	/*
@@ -269,9 +327,7 @@ public class CatAi implements ICatAi
 	@Override
 	public Move getRandomMove(List<Move> moves)
 	{
-		Random random = new Random();
-		Move randomMove = moves.get(random.nextInt(moves.size()));
-		return randomMove;
+		return moves.get(random.nextInt(moves.size()));
 	}
 	
 	/*
@@ -282,9 +338,7 @@ public class CatAi implements ICatAi
 	@Override
 	public Field getRandomField(List<Field> fields)
 	{
-		Random random = new Random();
-		Field randomField = fields.get(random.nextInt(fields.size()));
-		return randomField;
+		return fields.get(random.nextInt(fields.size()));
 	}
 	
 }
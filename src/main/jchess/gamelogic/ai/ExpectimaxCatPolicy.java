@@ -0,0 +1,337 @@
+package jchess.gamelogic.ai;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.AiFourPlayerChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IBoardFactory;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.pieces.King;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+
+/**
+ * A cat hunting the leading player. The policy looks two cat turns ahead
+ * with a shallow expectimax search: the cat's own moves are maximized, the
+ * moves of the players in between are chance nodes, each averaged over a few
+ * moves drawn at random. A capture scores the value of the captured piece,
+ * fully if it belongs to the player with the most material and only a tenth
+ * otherwise. As the cat falls asleep after a capture, nothing is expected of
+ * it beyond.
+ * <p>
+ * The search works on a copy of the board and stops expanding chance nodes
+ * once its node budget is spent; they are then judged by the best capture
+ * the cat would have right away. All moves are sorted before drawing from
+ * them or breaking ties, as they are generated in an order depending on
+ * hashes; so the same random numbers give the same decisions.
+ */
+public class ExpectimaxCatPolicy implements ICatPolicy
+{
+	/** Moves made during one decision at most by default */
+	public static final int DEFAULT_NODE_BUDGET = 2000;
+
+	/** Cat turns searched, including the current one */
+	private static final int DEPTH = 2;
+	/** Moves drawn for every player between two cat turns */
+	private static final int SAMPLES = 3;
+	/** Weight of captures of pieces of players other than the leader */
+	private static final double OTHER_WEIGHT = 0.1;
+	private static final int PLAYERS = 4;
+	/** Values in centipawns by ordinal of the piece type */
+	private static final int[] PIECE_VALUES = new int[PieceType.values().length];
+
+	static
+	{
+		PIECE_VALUES[PieceType.PAWN.ordinal()] = 100;
+		PIECE_VALUES[PieceType.KNIGHT.ordinal()] = 320;
+		PIECE_VALUES[PieceType.BISHOP.ordinal()] = 330;
+		PIECE_VALUES[PieceType.ROOK.ordinal()] = 500;
+		PIECE_VALUES[PieceType.QUEEN.ordinal()] = 900;
+	}
+
+	/** Orders moves by origin and target square */
+	private static final Comparator<Move> SQUARE_ORDER = new Comparator<Move>()
+	{
+		@Override
+		public int compare(Move first, Move second)
+		{
+			int byFrom = EncodedMove.square(first.getFrom()) - EncodedMove.square(second.getFrom());
+			return (byFrom != 0) ? byFrom : EncodedMove.square(first.getTo()) - EncodedMove.square(second.getTo());
+		}
+	};
+
+	private final int nodeBudget;
+
+	public ExpectimaxCatPolicy()
+	{
+		this(DEFAULT_NODE_BUDGET);
+	}
+
+	/**
+	 * @param nodeBudget
+	 *            Moves the search makes at most for one decision
+	 * @throws IllegalArgumentException
+	 *             if the budget is negative
+	 */
+	public ExpectimaxCatPolicy(int nodeBudget)
+	{
+		if(nodeBudget < 0)
+		{
+			throw new IllegalArgumentException("The node budget must not be negative!");
+		}
+		this.nodeBudget = nodeBudget;
+	}
+
+	public int getNodeBudget()
+	{
+		return nodeBudget;
+	}
+
+	@Override
+	public Move chooseMove(IChessboardController chessboard, Piece cat, List<Move> moves, Random random)
+	{
+		if(moves.size() == 1)
+		{
+			return moves.get(0);
+		}
+
+		List<Move> sorted = new ArrayList<Move>(moves);
+		Collections.sort(sorted, SQUARE_ORDER);
+		Search search = new Search(chessboard, cat.getPlayer(), random);
+		Move best = sorted.get(0);
+		double bestValue = -1;
+		for(Move move : sorted)
+		{
+			double value = search.evaluateCatMove(search.toCopy(move), DEPTH);
+			if(value > bestValue)
+			{
+				best = move;
+				bestValue = value;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * State of one decision: a controller of its own on a copy of the
+	 * board, the leader and the nodes made so far.
+	 */
+	private class Search
+	{
+		private final IChessboardModel board;
+		private final IChessboardController controller;
+		private final Player[] players = new Player[PLAYERS + 1];
+		private final Player catPlayer;
+		private final Random random;
+		private final MoveList moves = new MoveList();
+		private Player leader;
+		private int nodes;
+
+		Search(IChessboardController chessboard, Player catPlayer, Random random)
+		{
+			this.catPlayer = catPlayer;
+			this.random = random;
+			players[chessboard.getPlayerIndex(catPlayer)] = catPlayer;
+			for(Player player : chessboard.getEnemies(catPlayer))
+			{
+				players[chessboard.getPlayerIndex(player)] = player;
+			}
+
+			final IChessboardModel copy = chessboard.getBoard().copy();
+			controller = new AiFourPlayerChessboardController(null, new IBoardFactory()
+			{
+				@Override
+				public IChessboardModel createChessboard(List<Player> players)
+				{
+					return copy;
+				}
+			}, players[0], players[1], players[2], players[3], players[4]);
+			board = copy;
+
+			int most = -1;
+			for(Player player : players)
+			{
+				int material = this.getMaterial(player);
+				if(player != catPlayer && material > most)
+				{
+					leader = player;
+					most = material;
+				}
+			}
+		}
+
+		/**
+		 * @return The same move on the copy of the board
+		 */
+		Move toCopy(Move move)
+		{
+			return EncodedMove.toMove(EncodedMove.fromMove(move), board);
+		}
+
+		/**
+		 * @return Expected value of a move of the cat on the copy
+		 */
+		double evaluateCatMove(Move move, int depth)
+		{
+			nodes++;
+			Piece captured = board.getPiece(move.getTo());
+			if(captured != null)
+			{
+				// The cat sleeps after capturing
+				return this.getCaptureValue(captured);
+			}
+			if(depth <= 1)
+			{
+				return 0;
+			}
+
+			UndoToken token = board.makeMove(move);
+			double value = this.evaluatePlayers(0, depth - 1);
+			board.unmakeMove(token);
+			return value;
+		}
+
+		/**
+		 * Chance node of a player's turn between two cat turns.
+		 */
+		private double evaluatePlayers(int index, int depth)
+		{
+			if(index == PLAYERS)
+			{
+				return this.evaluateCatTurn(depth);
+			}
+			if(nodes >= nodeBudget)
+			{
+				return this.getBestCapture();
+			}
+
+			Player player = players[index];
+			moves.clear();
+			controller.getPossibleMoves(player, moves);
+			if(moves.isEmpty())
+			{
+				return this.evaluatePlayers(index + 1, depth);
+			}
+			moves.sort();
+
+			int[] drawn = new int[Math.min(SAMPLES, moves.size())];
+			for(int i = 0; i < drawn.length; i++)
+			{
+				drawn[i] = moves.get(random.nextInt(moves.size()));
+			}
+			double sum = 0;
+			for(int move : drawn)
+			{
+				nodes++;
+				UndoToken token = board.makeMove(EncodedMove.toMove(move, board));
+				sum += this.evaluatePlayers(index + 1, depth);
+				board.unmakeMove(token);
+			}
+			return sum / drawn.length;
+		}
+
+		/**
+		 * Max node of the cat's turn.
+		 */
+		private double evaluateCatTurn(int depth)
+		{
+			Piece cat = this.getCat();
+			if(cat == null)
+			{
+				return 0;
+			}
+			double best = 0;
+			for(Move move : this.getCatMoves(cat))
+			{
+				best = Math.max(best, this.evaluateCatMove(move, depth));
+			}
+			return best;
+		}
+
+		/**
+		 * Value of the best capture the cat could make right away.
+		 */
+		private double getBestCapture()
+		{
+			Piece cat = this.getCat();
+			double best = 0;
+			if(cat != null)
+			{
+				for(Move move : this.getCatMoves(cat))
+				{
+					Piece captured = board.getPiece(move.getTo());
+					if(captured != null)
+					{
+						best = Math.max(best, this.getCaptureValue(captured));
+					}
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Moves of the cat without king captures, sorted by square; captures
+		 * only if there are any, as the cat has to capture then.
+		 */
+		private List<Move> getCatMoves(Piece cat)
+		{
+			List<Move> captures = new ArrayList<Move>();
+			List<Move> others = new ArrayList<Move>();
+			for(Move move : controller.getPossibleMoves(cat, false))
+			{
+				Piece target = board.getPiece(move.getTo());
+				if(target == null)
+				{
+					others.add(move);
+				} else if(!(target.getBehaviour() instanceof King))
+				{
+					captures.add(move);
+				}
+			}
+			List<Move> catMoves = captures.isEmpty() ? others : captures;
+			Collections.sort(catMoves, SQUARE_ORDER);
+			return catMoves;
+		}
+
+		/**
+		 * @return The awake cat or null if it is captured or sleeping
+		 */
+		private Piece getCat()
+		{
+			for(Piece piece : board.getPieces(catPlayer))
+			{
+				if(PieceFactory.getInstance().getType(piece) == PieceType.CAT)
+				{
+					return piece;
+				}
+			}
+			return null;
+		}
+
+		private double getCaptureValue(Piece piece)
+		{
+			int value = PIECE_VALUES[PieceFactory.getInstance().getType(piece).ordinal()];
+			return (piece.getPlayer() == leader) ? value : OTHER_WEIGHT * value;
+		}
+
+		private int getMaterial(Player player)
+		{
+			int material = 0;
+			for(Piece piece : board.getPieces(player))
+			{
+				material += PIECE_VALUES[PieceFactory.getInstance().getType(piece).ordinal()];
+			}
+			return material;
+		}
+	}
+}
@@ -32,7 +32,8 @@ public interface ICatAi
 	public Field getCurrentPosition();
 	
 	/**
-	 * Method which gets a list of moves and chooses a random element from it.
+	 * Method which gets a list of moves and chooses a random element from it
+	 * with the random number generator of the game.
 	 * 
 	 * @param moves
 	 *            List of moves
@@ -42,7 +43,8 @@ public interface ICatAi
 	public Move getRandomMove(List<Move> moves);
 	
 	/**
-	 * Method which gets a list of fields and chooses a random element from it.
+	 * Method which gets a list of fields and chooses a random element from it
+	 * with the random number generator of the game.
 	 * 
 	 * @param fields
 	 *            List of fields
@@ -82,15 +84,15 @@ public interface ICatAi
 	public boolean canCapture();
 	
 	/**
-	 * Finds a random move that can capture an enemy piece.
+	 * Lets the cat's policy choose a move that can capture an enemy piece.
 	 * 
-	 * @return field of the capturing piece
+	 * @return field of the capturing piece or null if there is none
 	 */
 	
 	public Field getRandomThreateningMove();
 	
 	/**
-	 * Finds a random move.
+	 * Lets the cat's policy choose a move.
 	 * 
 	 * @return field of the target move
 	 */
@@ -103,4 +105,20 @@ public interface ICatAi
 	
 	public void sleepCat();
 	
+	/**
+	 * Gets the number of cat turns until a sleeping cat wakes up.
+	 * 
+	 * @return turns until the cat wakes up
+	 */
+	
+	public int getTurnsToWakeUp();
+	
+	/**
+	 * Gets the number of cat turns until a captured cat respawns.
+	 * 
+	 * @return turns until the cat respawns
+	 */
+	
+	public int getTurnsToRespawn();
+	
 }
\ No newline at end of file
@@ -0,0 +1,33 @@
+package jchess.gamelogic.ai;
+
+import java.util.List;
+import java.util.Random;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.pieces.Piece;
+
+/**
+ * Strategy deciding where the cat moves. The cat's rules stay with
+ * {@link CatAi}: it decides whether the cat captures and hands the policy
+ * only the moves the cat is allowed to make.
+ */
+public interface ICatPolicy
+{
+	/**
+	 * Chooses one of the cat's moves.
+	 * 
+	 * @param chessboard
+	 *            Controller of the game, must not be changed
+	 * @param cat
+	 *            The cat piece
+	 * @param moves
+	 *            Moves to choose from, never empty and sorted by target
+	 *            field
+	 * @param random
+	 *            Random number generator of the game, the only source of
+	 *            randomness a policy may use
+	 * @return One of the given moves
+	 */
+	public Move chooseMove(IChessboardController chessboard, Piece cat, List<Move> moves, Random random);
+}
@@ -0,0 +1,20 @@
+package jchess.gamelogic.ai;
+
+import java.util.List;
+import java.util.Random;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.pieces.Piece;
+
+/**
+ * The original cat: every allowed move is equally likely.
+ */
+public class RandomCatPolicy implements ICatPolicy
+{
+	@Override
+	public Move chooseMove(IChessboardController chessboard, Piece cat, List<Move> moves, Random random)
+	{
+		return moves.get(random.nextInt(moves.size()));
+	}
+}
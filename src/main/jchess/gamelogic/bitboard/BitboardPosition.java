@@ -0,0 +1,1187 @@
+package jchess.gamelogic.bitboard;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.models.ArrayChessboardModel;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.pieces.Bishop;
+import jchess.gamelogic.pieces.IPieceBehaviour;
+import jchess.gamelogic.pieces.King;
+import jchess.gamelogic.pieces.Knight;
+import jchess.gamelogic.pieces.Pawn;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.gamelogic.pieces.Queen;
+import jchess.gamelogic.pieces.Rook;
+import jchess.util.Direction;
+
+/**
+ * Bitboard representation of a two player position with its own move
+ * generator. It follows the rules of the {@link jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController}:
+ * white starts at the bottom (y = 7) and moves towards y = 0, and castling
+ * rights as well as pawn double steps depend on whether a piece has moved
+ * yet. Those moved flags are kept as a bitboard of unmoved pieces.
+ * Moves are encoded as ints (see {@link #encode(int, int, int)}) and can be
+ * converted to and from {@link Move} objects of a matching board model.
+ * <p>
+ * The position keeps a Zobrist key of its pieces, unmoved flags, en passant
+ * square and side to move which is updated with every move. The keys are
+ * generated from a fixed seed, so equal positions have equal keys in every
+ * instance and run.
+ * <p>
+ * Given a table of square values (see {@link #setSquareValues(int[][])}),
+ * the position also sums up the values of the pieces of each side with
+ * every piece put on or taken off a square.
+ */
+public class BitboardPosition
+{
+	public static final int WHITE = 0;
+	public static final int BLACK = 1;
+
+	public static final int PAWN = 0;
+	public static final int KNIGHT = 1;
+	public static final int BISHOP = 2;
+	public static final int ROOK = 3;
+	public static final int QUEEN = 4;
+	public static final int KING = 5;
+	public static final int NO_PIECE = -1;
+
+	public static final int FLAG_QUIET = 0;
+	public static final int FLAG_DOUBLE_PUSH = 1;
+	public static final int FLAG_SHORT_CASTLING = 2;
+	public static final int FLAG_LONG_CASTLING = 3;
+	public static final int FLAG_CAPTURE = 4;
+	public static final int FLAG_EN_PASSANT = 5;
+	/** Set for promotions; the lower two bits hold the promoted type */
+	public static final int FLAG_PROMOTION = 8;
+
+	/** Encodes no move; a move from a square to itself never occurs */
+	public static final int NO_MOVE = 0;
+	/** Upper bound of the number of moves in any position */
+	public static final int MAX_MOVES = 256;
+
+	static final PieceType[] PROMOTION_TYPES = { PieceType.KNIGHT, PieceType.BISHOP, PieceType.ROOK,
+			PieceType.QUEEN };
+	private static final PieceType[] PIECE_TYPES = { PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP,
+			PieceType.ROOK, PieceType.QUEEN, PieceType.KING };
+	private static final String FEN_PIECES = "PNBRQKpnbrqk";
+	private static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -";
+
+	private static final long KEY_SEED = 0x426974626F617264L;
+	/** Zobrist keys by piece code and square */
+	private static final long[][] PIECE_KEYS = new long[12][Bitboards.SQUARES];
+	/** Keys of unmoved pieces by square; the piece keys already tell the side */
+	private static final long[] UNMOVED_KEYS = new long[Bitboards.SQUARES];
+	/** Keys of the en passant square */
+	private static final long[] EN_PASSANT_KEYS = new long[Bitboards.SQUARES];
+	private static final long BLACK_TO_MOVE_KEY;
+
+	static
+	{
+		Random random = new Random(KEY_SEED);
+		for(long[] keys : PIECE_KEYS)
+		{
+			for(int square = 0; square < Bitboards.SQUARES; square++)
+			{
+				keys[square] = random.nextLong();
+			}
+		}
+		for(int square = 0; square < Bitboards.SQUARES; square++)
+		{
+			UNMOVED_KEYS[square] = random.nextLong();
+			EN_PASSANT_KEYS[square] = random.nextLong();
+		}
+		BLACK_TO_MOVE_KEY = random.nextLong();
+	}
+
+	private final long[][] pieces = new long[2][6];
+	private final long[] occupancy = new long[2];
+	/** Piece codes (side * 6 + type) by square */
+	private final int[] squares = new int[Bitboards.SQUARES];
+	private long unmoved;
+	private int sideToMove;
+	/** Square a pawn moves to when capturing en passant or -1 */
+	private int enPassantSquare = -1;
+	private long key;
+	/** Values by piece code and square or null */
+	private int[][] squareValues;
+	private final int[] scores = new int[2];
+
+	private int ply;
+	private int[] capturedStack = new int[64];
+	private long[] unmovedStack = new long[64];
+	private int[] enPassantStack = new int[64];
+	private long[] keyStack = new long[64];
+	/** Buffer of {@link #isPseudoLegal(int)} */
+	private final int[] pieceMoves = new int[MAX_MOVES];
+
+	/**
+	 * Creates an empty position with white to move.
+	 */
+	public BitboardPosition()
+	{
+		Arrays.fill(squares, NO_PIECE);
+	}
+
+	/**
+	 * Creates the start position of regular chess.
+	 * @return Start position
+	 */
+	public static BitboardPosition startPosition()
+	{
+		return fromFen(START_FEN);
+	}
+
+	public static int encode(int from, int to, int flags)
+	{
+		return from | (to << 6) | (flags << 12);
+	}
+
+	public static int getFrom(int move)
+	{
+		return move & 0x3F;
+	}
+
+	public static int getTo(int move)
+	{
+		return (move >>> 6) & 0x3F;
+	}
+
+	public static int getFlags(int move)
+	{
+		return move >>> 12;
+	}
+
+	public static boolean isCapture(int move)
+	{
+		return (getFlags(move) & FLAG_CAPTURE) != 0;
+	}
+
+	public static boolean isPromotion(int move)
+	{
+		return (getFlags(move) & FLAG_PROMOTION) != 0;
+	}
+
+	/**
+	 * Returns the piece type a pawn is promoted to.
+	 * @param move Promotion move
+	 * @return One of KNIGHT, BISHOP, ROOK or QUEEN
+	 */
+	public static int getPromotionType(int move)
+	{
+		return KNIGHT + (getFlags(move) & 3);
+	}
+
+	private static int code(int side, int type)
+	{
+		return side * 6 + type;
+	}
+
+	public int getSideToMove()
+	{
+		return sideToMove;
+	}
+
+	public int getEnPassantSquare()
+	{
+		return enPassantSquare;
+	}
+
+	/**
+	 * Returns the piece code (side * 6 + type) on the square.
+	 * @param square Square index
+	 * @return Piece code or NO_PIECE
+	 */
+	public int getPiece(int square)
+	{
+		return squares[square];
+	}
+
+	public long getPieces(int side, int type)
+	{
+		return pieces[side][type];
+	}
+
+	public long getOccupancy(int side)
+	{
+		return occupancy[side];
+	}
+
+	public long getUnmoved()
+	{
+		return unmoved;
+	}
+
+	/**
+	 * Returns the Zobrist key of the position, which is kept up to date by
+	 * {@link #makeMove(int)} and {@link #unmakeMove(int)}.
+	 * @return Key of the position
+	 */
+	public long getKey()
+	{
+		return key;
+	}
+
+	/**
+	 * Sets the values the scores of the sides are summed up from and
+	 * computes the scores of the current position.
+	 * @param values Values by piece code (side * 6 + type) and square, or
+	 *            null to stop keeping scores
+	 */
+	public void setSquareValues(int[][] values)
+	{
+		this.squareValues = values;
+		scores[WHITE] = this.computeScore(WHITE);
+		scores[BLACK] = this.computeScore(BLACK);
+	}
+
+	/**
+	 * Returns the sum of the square values of the side's pieces, which is
+	 * kept up to date by {@link #makeMove(int)} and {@link #unmakeMove(int)}.
+	 * @param side Side to get the score of
+	 * @return Score of the side or 0 without square values
+	 */
+	public int getScore(int side)
+	{
+		return scores[side];
+	}
+
+	/**
+	 * Computes the score of a side from scratch.
+	 * @param side Side to compute the score of
+	 * @return Score of the side
+	 */
+	int computeScore(int side)
+	{
+		if(squareValues == null)
+		{
+			return 0;
+		}
+		int result = 0;
+		for(int square = 0; square < Bitboards.SQUARES; square++)
+		{
+			int code = squares[square];
+			if(code != NO_PIECE && code / 6 == side)
+			{
+				result += squareValues[code][square];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Computes the Zobrist key of the position from scratch.
+	 * @return Key of the position
+	 */
+	long computeKey()
+	{
+		long result = 0L;
+		for(int square = 0; square < Bitboards.SQUARES; square++)
+		{
+			if(squares[square] != NO_PIECE)
+			{
+				result ^= PIECE_KEYS[squares[square]][square];
+			}
+		}
+		for(long bits = unmoved; bits != 0L; bits &= bits - 1)
+		{
+			result ^= UNMOVED_KEYS[Long.numberOfTrailingZeros(bits)];
+		}
+		if(enPassantSquare >= 0)
+		{
+			result ^= EN_PASSANT_KEYS[enPassantSquare];
+		}
+		return (sideToMove == BLACK) ? result ^ BLACK_TO_MOVE_KEY : result;
+	}
+
+	private void put(int square, int code)
+	{
+		long bit = 1L << square;
+		pieces[code / 6][code % 6] |= bit;
+		occupancy[code / 6] |= bit;
+		squares[square] = code;
+		key ^= PIECE_KEYS[code][square];
+		if(squareValues != null)
+		{
+			scores[code / 6] += squareValues[code][square];
+		}
+	}
+
+	private void remove(int square)
+	{
+		int code = squares[square];
+		long bit = 1L << square;
+		pieces[code / 6][code % 6] &= ~bit;
+		occupancy[code / 6] &= ~bit;
+		squares[square] = NO_PIECE;
+		key ^= PIECE_KEYS[code][square];
+		if(squareValues != null)
+		{
+			scores[code / 6] -= squareValues[code][square];
+		}
+	}
+
+	/**
+	 * Checks whether a square is attacked by any piece of the given side.
+	 * @param square Square to check
+	 * @param side Attacking side
+	 * @return True if attacked
+	 */
+	public boolean isAttacked(int square, int side)
+	{
+		long[] attacker = pieces[side];
+		long occupied = occupancy[WHITE] | occupancy[BLACK];
+
+		// Pawns attack a square if a pawn of the other side on it would
+		// attack them
+		return (Bitboards.PAWN_ATTACKS[side ^ 1][square] & attacker[PAWN]) != 0L
+				|| (Bitboards.KNIGHT_ATTACKS[square] & attacker[KNIGHT]) != 0L
+				|| (Bitboards.KING_ATTACKS[square] & attacker[KING]) != 0L
+				|| (Bitboards.bishopAttacks(square, occupied) & (attacker[BISHOP] | attacker[QUEEN])) != 0L
+				|| (Bitboards.rookAttacks(square, occupied) & (attacker[ROOK] | attacker[QUEEN])) != 0L;
+	}
+
+	/**
+	 * Finds all pieces of both sides attacking a square, seen through the
+	 * given occupancy.
+	 * @param square Attacked square
+	 * @param occupied Occupied squares; pieces off it do not attack or block
+	 * @return Squares of the attacking pieces
+	 */
+	private long getAttackers(int square, long occupied)
+	{
+		long bishops = pieces[WHITE][BISHOP] | pieces[BLACK][BISHOP] | pieces[WHITE][QUEEN] | pieces[BLACK][QUEEN];
+		long rooks = pieces[WHITE][ROOK] | pieces[BLACK][ROOK] | pieces[WHITE][QUEEN] | pieces[BLACK][QUEEN];
+		long attackers = (Bitboards.PAWN_ATTACKS[BLACK][square] & pieces[WHITE][PAWN])
+				| (Bitboards.PAWN_ATTACKS[WHITE][square] & pieces[BLACK][PAWN])
+				| (Bitboards.KNIGHT_ATTACKS[square] & (pieces[WHITE][KNIGHT] | pieces[BLACK][KNIGHT]))
+				| (Bitboards.KING_ATTACKS[square] & (pieces[WHITE][KING] | pieces[BLACK][KING]))
+				| (Bitboards.bishopAttacks(square, occupied) & bishops)
+				| (Bitboards.rookAttacks(square, occupied) & rooks);
+		return attackers & occupied;
+	}
+
+	/**
+	 * Statically evaluates the exchange a capture starts on its target
+	 * square: both sides keep capturing there with their least valuable
+	 * attacker, including sliders behind the pieces that captured before,
+	 * and each side may stop when going on would lose material. Pins,
+	 * checks and en passant recaptures are not considered.
+	 * @param move Capture of the side to move
+	 * @param values Values by piece type; the king's should be high enough
+	 *            that it only captures into undefended squares
+	 * @return Material the side to move wins, negative if it loses some
+	 */
+	public int staticExchange(int move, int[] values)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int[] gains = new int[32];
+		int depth = 0;
+		int victim = squares[to];
+		gains[0] = (victim == NO_PIECE) ? ((getFlags(move) == FLAG_EN_PASSANT) ? values[PAWN] : 0)
+				: values[victim % 6];
+
+		long occupied = occupancy[WHITE] | occupancy[BLACK];
+		if(getFlags(move) == FLAG_EN_PASSANT)
+		{
+			occupied &= ~(1L << (to + ((sideToMove == WHITE) ? Bitboards.SIZE : -Bitboards.SIZE)));
+		}
+		int side = sideToMove;
+		int onSquare = squares[from] % 6;
+		long attacker = 1L << from;
+		while(depth < gains.length - 1)
+		{
+			depth++;
+			// Speculative gain if the piece on the square is captured next
+			gains[depth] = values[onSquare] - gains[depth - 1];
+			if(Math.max(-gains[depth - 1], gains[depth]) < 0)
+			{
+				break;
+			}
+			occupied &= ~attacker;
+			side ^= 1;
+
+			long attackers = this.getAttackers(to, occupied) & occupancy[side];
+			if(attackers == 0L)
+			{
+				break;
+			}
+			// Types are tried from pawn to king, i.e. least valuable first
+			onSquare = PAWN;
+			while((attackers & pieces[side][onSquare]) == 0L)
+			{
+				onSquare++;
+			}
+			attacker = Long.lowestOneBit(attackers & pieces[side][onSquare]);
+		}
+		while(--depth > 0)
+		{
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+		}
+		return gains[0];
+	}
+
+	/**
+	 * Checks whether the king of the given side is attacked. Positions
+	 * without a king are never in check.
+	 * @param side Side to check
+	 * @return True if in check
+	 */
+	public boolean isInCheck(int side)
+	{
+		long king = pieces[side][KING];
+		return king != 0L && this.isAttacked(Long.numberOfTrailingZeros(king), side ^ 1);
+	}
+
+	/**
+	 * Generates all legal moves of the side to move.
+	 * @param moves Buffer of at least {@link #MAX_MOVES} entries
+	 * @return Number of moves written to the buffer
+	 */
+	public int generateMoves(int[] moves)
+	{
+		int count = this.generatePseudoLegalMoves(moves);
+		int side = sideToMove;
+		int legal = 0;
+
+		for(int i = 0; i < count; i++)
+		{
+			this.makeMove(moves[i]);
+			if(!this.isInCheck(side))
+			{
+				moves[legal++] = moves[i];
+			}
+			this.unmakeMove(moves[i]);
+		}
+
+		return legal;
+	}
+
+	/**
+	 * Generates all moves of the side to move without checking whether they
+	 * leave the own king in check.
+	 * @param moves Buffer of at least {@link #MAX_MOVES} entries
+	 * @return Number of moves written to the buffer
+	 */
+	public int generatePseudoLegalMoves(int[] moves)
+	{
+		return this.generate(moves, 0, true, true, -1L);
+	}
+
+	/**
+	 * Generates the captures and promotions of the side to move without
+	 * checking whether they leave the own king in check.
+	 * @param moves Buffer of at least {@link #MAX_MOVES} entries
+	 * @return Number of moves written to the buffer
+	 */
+	public int generateNoisyMoves(int[] moves)
+	{
+		return this.generate(moves, 0, true, false, -1L);
+	}
+
+	/**
+	 * Generates the moves of the side to move which neither capture nor
+	 * promote, without checking whether they leave the own king in check.
+	 * @param moves Buffer of at least {@link #MAX_MOVES} entries
+	 * @return Number of moves written to the buffer
+	 */
+	public int generateQuietMoves(int[] moves)
+	{
+		return this.generate(moves, 0, false, true, -1L);
+	}
+
+	/**
+	 * Checks whether a move, e.g. one found in another position, is among the
+	 * moves {@link #generatePseudoLegalMoves(int[])} generates here. Only the
+	 * moves of the piece on the origin square are generated for that.
+	 * @param move Encoded move
+	 * @return True if the move can be made in this position
+	 */
+	public boolean isPseudoLegal(int move)
+	{
+		int from = getFrom(move);
+		if(squares[from] == NO_PIECE || squares[from] / 6 != sideToMove)
+		{
+			return false;
+		}
+		int count = this.generate(pieceMoves, 0, true, true, 1L << from);
+		for(int i = 0; i < count; i++)
+		{
+			if(pieceMoves[i] == move)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Generates pseudo-legal moves of the side to move.
+	 * @param moves Buffer to write to
+	 * @param count Number of moves in the buffer already
+	 * @param noisy Whether to generate captures and promotions
+	 * @param quiet Whether to generate all other moves
+	 * @param fromMask Squares to generate the moves of the pieces on
+	 * @return Number of moves in the buffer
+	 */
+	private int generate(int[] moves, int count, boolean noisy, boolean quiet, long fromMask)
+	{
+		int side = sideToMove;
+		long own = occupancy[side];
+		long enemy = occupancy[side ^ 1];
+		long occupied = own | enemy;
+		long allowed = (noisy ? enemy : 0L) | (quiet ? ~occupied : 0L);
+		count = this.generatePawnMoves(moves, count, side, enemy, occupied, noisy, quiet, fromMask);
+
+		for(int type = KNIGHT; type <= KING; type++)
+		{
+			long remaining = pieces[side][type] & fromMask;
+			while(remaining != 0L)
+			{
+				int from = Long.numberOfTrailingZeros(remaining);
+				remaining &= remaining - 1;
+
+				long targets;
+				switch(type)
+				{
+				case KNIGHT:
+					targets = Bitboards.KNIGHT_ATTACKS[from];
+					break;
+				case BISHOP:
+					targets = Bitboards.bishopAttacks(from, occupied);
+					break;
+				case ROOK:
+					targets = Bitboards.rookAttacks(from, occupied);
+					break;
+				case QUEEN:
+					targets = Bitboards.queenAttacks(from, occupied);
+					break;
+				default:
+					targets = Bitboards.KING_ATTACKS[from];
+					break;
+				}
+				targets &= allowed;
+
+				while(targets != 0L)
+				{
+					int to = Long.numberOfTrailingZeros(targets);
+					targets &= targets - 1;
+					moves[count++] = encode(from, to, ((enemy >>> to) & 1L) != 0L ? FLAG_CAPTURE : FLAG_QUIET);
+				}
+			}
+		}
+
+		if(quiet && (pieces[side][KING] & fromMask) != 0L)
+		{
+			count = this.generateCastlingMoves(moves, count, side, occupied);
+		}
+		return count;
+	}
+
+	private int generatePawnMoves(int[] moves, int count, int side, long enemy, long occupied, boolean noisy,
+			boolean quiet, long fromMask)
+	{
+		int forward = (side == WHITE) ? -Bitboards.SIZE : Bitboards.SIZE;
+		int promotionRank = (side == WHITE) ? 0 : Bitboards.SIZE - 1;
+
+		long remaining = pieces[side][PAWN] & fromMask;
+		while(remaining != 0L)
+		{
+			int from = Long.numberOfTrailingZeros(remaining);
+			remaining &= remaining - 1;
+			int y = Bitboards.y(from);
+
+			// Pawns standing on the last rank (only in odd setups) are stuck
+			if(y == promotionRank)
+			{
+				continue;
+			}
+
+			int one = from + forward;
+			boolean promotes = Bitboards.y(one) == promotionRank;
+			if(((occupied >>> one) & 1L) == 0L)
+			{
+				if(promotes)
+				{
+					if(noisy)
+					{
+						count = addPromotions(moves, count, from, one, false);
+					}
+				} else if(quiet)
+				{
+					moves[count++] = encode(from, one, FLAG_QUIET);
+
+					int two = one + forward;
+					if(((unmoved >>> from) & 1L) != 0L && two >= 0 && two < Bitboards.SQUARES
+							&& ((occupied >>> two) & 1L) == 0L)
+					{
+						moves[count++] = encode(from, two, FLAG_DOUBLE_PUSH);
+					}
+				}
+			}
+			if(!noisy)
+			{
+				continue;
+			}
+
+			long captures = Bitboards.PAWN_ATTACKS[side][from] & enemy;
+			while(captures != 0L)
+			{
+				int to = Long.numberOfTrailingZeros(captures);
+				captures &= captures - 1;
+				if(promotes)
+				{
+					count = addPromotions(moves, count, from, to, true);
+				} else
+				{
+					moves[count++] = encode(from, to, FLAG_CAPTURE);
+				}
+			}
+
+			if(enPassantSquare >= 0 && ((Bitboards.PAWN_ATTACKS[side][from] >>> enPassantSquare) & 1L) != 0L)
+			{
+				moves[count++] = encode(from, enPassantSquare, FLAG_EN_PASSANT);
+			}
+		}
+
+		return count;
+	}
+
+	private static int addPromotions(int[] moves, int count, int from, int to, boolean capture)
+	{
+		int flags = FLAG_PROMOTION | (capture ? FLAG_CAPTURE : 0);
+		for(int type = QUEEN; type >= KNIGHT; type--)
+		{
+			moves[count++] = encode(from, to, flags | (type - KNIGHT));
+		}
+		return count;
+	}
+
+	/**
+	 * Generates castling moves the way the controller does: the king and the
+	 * rook have to be unmoved, the fields between them empty, and neither the
+	 * king's field nor the two fields it crosses may be attacked.
+	 */
+	private int generateCastlingMoves(int[] moves, int count, int side, long occupied)
+	{
+		long king = pieces[side][KING] & unmoved;
+		if(king == 0L)
+		{
+			return count;
+		}
+
+		int from = Long.numberOfTrailingZeros(king);
+		int x = Bitboards.x(from);
+		long rooks = pieces[side][ROOK] & unmoved;
+		int enemy = side ^ 1;
+
+		// Short castling with the rook three fields to the right
+		if(x + 3 < Bitboards.SIZE && ((rooks >>> (from + 3)) & 1L) != 0L
+				&& ((occupied >>> (from + 1)) & 1L) == 0L && ((occupied >>> (from + 2)) & 1L) == 0L
+				&& !this.isAttacked(from, enemy) && !this.isAttacked(from + 1, enemy)
+				&& !this.isAttacked(from + 2, enemy))
+		{
+			moves[count++] = encode(from, from + 2, FLAG_SHORT_CASTLING);
+		}
+
+		// Long castling with the rook four fields to the left
+		if(x - 4 >= 0 && ((rooks >>> (from - 4)) & 1L) != 0L
+				&& ((occupied >>> (from - 1)) & 1L) == 0L && ((occupied >>> (from - 2)) & 1L) == 0L
+				&& ((occupied >>> (from - 3)) & 1L) == 0L
+				&& !this.isAttacked(from, enemy) && !this.isAttacked(from - 1, enemy)
+				&& !this.isAttacked(from - 2, enemy))
+		{
+			moves[count++] = encode(from, from - 2, FLAG_LONG_CASTLING);
+		}
+
+		return count;
+	}
+
+	private void pushState(int captured)
+	{
+		if(ply == capturedStack.length)
+		{
+			capturedStack = Arrays.copyOf(capturedStack, 2 * ply);
+			unmovedStack = Arrays.copyOf(unmovedStack, 2 * ply);
+			enPassantStack = Arrays.copyOf(enPassantStack, 2 * ply);
+			keyStack = Arrays.copyOf(keyStack, 2 * ply);
+		}
+		capturedStack[ply] = captured;
+		unmovedStack[ply] = unmoved;
+		enPassantStack[ply] = enPassantSquare;
+		keyStack[ply] = key;
+		ply++;
+	}
+
+	/**
+	 * Makes a move generated for this position.
+	 * @param move Encoded move
+	 */
+	public void makeMove(int move)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int flags = getFlags(move);
+		int side = sideToMove;
+		int moved = squares[from];
+
+		// The key is saved before the captured piece is taken off
+		this.pushState(NO_PIECE);
+		int captured = NO_PIECE;
+		if(flags == FLAG_EN_PASSANT)
+		{
+			int passed = to - ((side == WHITE) ? -Bitboards.SIZE : Bitboards.SIZE);
+			captured = squares[passed];
+			this.remove(passed);
+		} else if((flags & FLAG_CAPTURE) != 0)
+		{
+			captured = squares[to];
+			this.remove(to);
+		}
+		capturedStack[ply - 1] = captured;
+		long previousUnmoved = unmoved;
+
+		this.remove(from);
+		this.put(to, ((flags & FLAG_PROMOTION) != 0) ? code(side, getPromotionType(move)) : moved);
+		unmoved &= ~((1L << from) | (1L << to));
+
+		if(flags == FLAG_SHORT_CASTLING)
+		{
+			this.remove(from + 3);
+			this.put(from + 1, code(side, ROOK));
+			unmoved &= ~(1L << (from + 3));
+		} else if(flags == FLAG_LONG_CASTLING)
+		{
+			this.remove(from - 4);
+			this.put(from - 1, code(side, ROOK));
+			unmoved &= ~(1L << (from - 4));
+		}
+		for(long bits = previousUnmoved ^ unmoved; bits != 0L; bits &= bits - 1)
+		{
+			key ^= UNMOVED_KEYS[Long.numberOfTrailingZeros(bits)];
+		}
+
+		if(enPassantSquare >= 0)
+		{
+			key ^= EN_PASSANT_KEYS[enPassantSquare];
+		}
+		enPassantSquare = (flags == FLAG_DOUBLE_PUSH) ? (from + to) / 2 : -1;
+		if(enPassantSquare >= 0)
+		{
+			key ^= EN_PASSANT_KEYS[enPassantSquare];
+		}
+		sideToMove = side ^ 1;
+		key ^= BLACK_TO_MOVE_KEY;
+	}
+
+	/**
+	 * Reverts the last move made.
+	 * @param move Encoded move which was made last
+	 */
+	public void unmakeMove(int move)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int flags = getFlags(move);
+		int side = sideToMove ^ 1;
+
+		ply--;
+		int captured = capturedStack[ply];
+		unmoved = unmovedStack[ply];
+		enPassantSquare = enPassantStack[ply];
+		sideToMove = side;
+
+		int moved = ((flags & FLAG_PROMOTION) != 0) ? code(side, PAWN) : squares[to];
+		this.remove(to);
+		this.put(from, moved);
+
+		if(flags == FLAG_EN_PASSANT)
+		{
+			this.put(to - ((side == WHITE) ? -Bitboards.SIZE : Bitboards.SIZE), captured);
+		} else if(captured != NO_PIECE)
+		{
+			this.put(to, captured);
+		}
+
+		if(flags == FLAG_SHORT_CASTLING)
+		{
+			this.remove(from + 1);
+			this.put(from + 3, code(side, ROOK));
+		} else if(flags == FLAG_LONG_CASTLING)
+		{
+			this.remove(from - 1);
+			this.put(from - 4, code(side, ROOK));
+		}
+		key = keyStack[ply];
+	}
+
+	/**
+	 * Creates the position from a board model of the two player layout.
+	 * @param board Board model with 8x8 fields
+	 * @param white Player moving towards y = 0
+	 * @param black Player moving towards y = 7
+	 * @param sideToMove Player to move
+	 * @return Position of the board
+	 * @throws IllegalArgumentException if the board does not fit the two
+	 *             player layout
+	 */
+	public static BitboardPosition fromChessboard(IChessboardModel board, Player white, Player black,
+			Player sideToMove)
+	{
+		BitboardPosition position = new BitboardPosition();
+
+		for(int square = 0; square < Bitboards.SQUARES; square++)
+		{
+			Field field = board.getField(Bitboards.x(square), Bitboards.y(square));
+			if(field == null)
+			{
+				throw new IllegalArgumentException("Board is missing field " + Bitboards.x(square) + "|"
+						+ Bitboards.y(square) + "!");
+			}
+
+			Piece piece = board.getPiece(field);
+			if(piece == null)
+			{
+				continue;
+			}
+
+			int side;
+			if(piece.getPlayer() == white)
+			{
+				side = WHITE;
+			} else if(piece.getPlayer() == black)
+			{
+				side = BLACK;
+			} else
+			{
+				throw new IllegalArgumentException("Piece " + piece + " belongs to neither player!");
+			}
+
+			int type = getType(piece.getBehaviour());
+			if(type == PAWN && ((Pawn) piece.getBehaviour()).getForwardDirection().getY() != ((side == WHITE) ? -1 : 1))
+			{
+				throw new IllegalArgumentException("Pawn on " + field + " moves in the wrong direction!");
+			}
+
+			position.put(square, code(side, type));
+			if(!piece.hasMoved())
+			{
+				position.unmoved |= 1L << square;
+			}
+		}
+
+		position.sideToMove = (sideToMove == black) ? BLACK : WHITE;
+
+		// Only the opponent's pawn can be taken en passant
+		Player opponent = (position.sideToMove == WHITE) ? black : white;
+		Field passed = board.getEnPassantField(opponent);
+		if(passed != null)
+		{
+			int behind = (position.sideToMove == WHITE) ? -1 : 1;
+			position.enPassantSquare = Bitboards.square(passed.getPosX(), passed.getPosY() + behind);
+		}
+
+		position.key = position.computeKey();
+		return position;
+	}
+
+	/**
+	 * Creates a board model of the two player layout holding this position.
+	 * Pieces not marked as unmoved in this position are marked as moved, the
+	 * pawn which can be taken en passant is registered with the board and
+	 * the side to move is set as the board's active player.
+	 * @param white Player moving towards y = 0
+	 * @param black Player moving towards y = 7
+	 * @return Board model with 8x8 fields
+	 */
+	public IChessboardModel toChessboard(Player white, Player black)
+	{
+		IChessboardModel board = new ArrayChessboardModel(Bitboards.SIZE, Bitboards.SIZE);
+		for(int x = 0; x < Bitboards.SIZE; x++)
+		{
+			for(int y = 0; y < Bitboards.SIZE; y++)
+			{
+				board.addField(Field.of(x, y));
+			}
+		}
+
+		PieceFactory factory = PieceFactory.getInstance();
+		for(int square = 0; square < Bitboards.SQUARES; square++)
+		{
+			int code = squares[square];
+			if(code == NO_PIECE)
+			{
+				continue;
+			}
+
+			Player player = (code / 6 == WHITE) ? white : black;
+			Direction forward = Direction.of(0, (code / 6 == WHITE) ? -1 : 1);
+			Piece piece = factory.buildPiece(player, forward, PIECE_TYPES[code % 6]);
+			if((unmoved & (1L << square)) == 0L)
+			{
+				piece.markAsMoved();
+			}
+			board.setPiece(board.getField(Bitboards.x(square), Bitboards.y(square)), piece);
+		}
+
+		if(enPassantSquare >= 0)
+		{
+			// The pawn stands one field beyond the passed square
+			int behind = (sideToMove == WHITE) ? 1 : -1;
+			board.setEnPassantField((sideToMove == WHITE) ? black : white,
+					board.getField(Bitboards.x(enPassantSquare), Bitboards.y(enPassantSquare) + behind));
+		}
+		board.setActivePlayer((sideToMove == WHITE) ? white : black);
+
+		return board;
+	}
+
+	/**
+	 * Returns the piece type of a behaviour.
+	 * @throws IllegalArgumentException for pieces not part of regular chess
+	 */
+	static int getType(IPieceBehaviour behaviour)
+	{
+		if(behaviour instanceof Pawn)
+		{
+			return PAWN;
+		} else if(behaviour instanceof Knight)
+		{
+			return KNIGHT;
+		} else if(behaviour instanceof Bishop)
+		{
+			return BISHOP;
+		} else if(behaviour instanceof Rook)
+		{
+			return ROOK;
+		} else if(behaviour instanceof Queen)
+		{
+			return QUEEN;
+		} else if(behaviour instanceof King)
+		{
+			return KING;
+		}
+		throw new IllegalArgumentException("Unsupported piece " + behaviour.getClass().getSimpleName() + "!");
+	}
+
+	/**
+	 * Converts an encoded move of this position to a {@link Move} on the
+	 * given board, which has to contain the same position.
+	 * @param move Encoded move
+	 * @param board Board model matching this position
+	 * @return Move for the board
+	 */
+	public Move toMove(int move, IChessboardModel board)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int flags = getFlags(move);
+
+		Field fromField = board.getField(Bitboards.x(from), Bitboards.y(from));
+		Field toField = board.getField(Bitboards.x(to), Bitboards.y(to));
+		Piece movedPiece = board.getPiece(fromField);
+
+		Piece taken = board.getPiece(toField);
+		if(flags == FLAG_EN_PASSANT)
+		{
+			int passed = to - ((sideToMove == WHITE) ? -Bitboards.SIZE : Bitboards.SIZE);
+			taken = board.getPiece(board.getField(Bitboards.x(passed), Bitboards.y(passed)));
+		}
+
+		CastlingType castling = CastlingType.NONE;
+		if(flags == FLAG_SHORT_CASTLING)
+		{
+			castling = CastlingType.SHORT_CASTLING;
+		} else if(flags == FLAG_LONG_CASTLING)
+		{
+			castling = CastlingType.LONG_CASTLING;
+		}
+
+		Piece promoted = null;
+		if(isPromotion(move))
+		{
+			promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
+					PROMOTION_TYPES[getPromotionType(move) - KNIGHT]);
+		}
+
+		return new Move(fromField, toField, movedPiece, taken, castling, flags == FLAG_EN_PASSANT, promoted);
+	}
+
+	/**
+	 * Finds the encoded legal move matching a {@link Move}. Moves without a
+	 * promoted piece reaching the last rank (as generated by the
+	 * controllers) match the queen promotion.
+	 * @param move Move to look up
+	 * @return Encoded move or {@link #NO_MOVE} if the move is not legal
+	 */
+	public int fromMove(Move move)
+	{
+		int from = Bitboards.square(move.getFrom().getPosX(), move.getFrom().getPosY());
+		int to = Bitboards.square(move.getTo().getPosX(), move.getTo().getPosY());
+		int promotion = (move.getPromotedPiece() == null) ? QUEEN : getType(move.getPromotedPiece().getBehaviour());
+
+		int[] moves = new int[MAX_MOVES];
+		int count = this.generateMoves(moves);
+		for(int i = 0; i < count; i++)
+		{
+			if(getFrom(moves[i]) == from && getTo(moves[i]) == to
+					&& (!isPromotion(moves[i]) || getPromotionType(moves[i]) == promotion))
+			{
+				return moves[i];
+			}
+		}
+		return NO_MOVE;
+	}
+
+	/**
+	 * Creates a position from its Forsyth-Edwards notation. The first rank of
+	 * the notation is y = 0. Castling rights are expressed by leaving the
+	 * king and rook unmoved, and pawns on their initial rank are unmoved.
+	 * Move counters are ignored.
+	 * @param fen Position in FEN
+	 * @return Position
+	 * @throws IllegalArgumentException if the notation is malformed
+	 */
+	public static BitboardPosition fromFen(String fen)
+	{
+		String[] parts = fen.trim().split("\\s+");
+		if(parts.length < 2)
+		{
+			throw new IllegalArgumentException("Malformed FEN: " + fen);
+		}
+
+		BitboardPosition position = new BitboardPosition();
+		int x = 0;
+		int y = 0;
+		for(char c : parts[0].toCharArray())
+		{
+			if(c == '/')
+			{
+				x = 0;
+				y++;
+			} else if(Character.isDigit(c))
+			{
+				x += c - '0';
+			} else
+			{
+				int code = FEN_PIECES.indexOf(c);
+				if(code < 0 || x >= Bitboards.SIZE || y >= Bitboards.SIZE)
+				{
+					throw new IllegalArgumentException("Malformed FEN: " + fen);
+				}
+				position.put(Bitboards.square(x, y), code);
+				x++;
+			}
+		}
+
+		position.sideToMove = parts[1].equals("b") ? BLACK : WHITE;
+
+		// Pawns on their initial rank may still move two fields
+		position.unmoved = (position.pieces[WHITE][PAWN] & 0x00FF000000000000L)
+				| (position.pieces[BLACK][PAWN] & 0x000000000000FF00L);
+		String castling = (parts.length > 2) ? parts[2] : "-";
+		position.addCastlingRight(castling, 'K', WHITE, 7, 7);
+		position.addCastlingRight(castling, 'Q', WHITE, 7, 0);
+		position.addCastlingRight(castling, 'k', BLACK, 0, 7);
+		position.addCastlingRight(castling, 'q', BLACK, 0, 0);
+
+		if(parts.length > 3 && !parts[3].equals("-"))
+		{
+			int epX = parts[3].charAt(0) - 'a';
+			int epY = Bitboards.SIZE - (parts[3].charAt(1) - '0');
+			position.enPassantSquare = Bitboards.square(epX, epY);
+		}
+
+		position.key = position.computeKey();
+		return position;
+	}
+
+	private void addCastlingRight(String castling, char right, int side, int y, int rookX)
+	{
+		int kingSquare = Bitboards.square(4, y);
+		int rookSquare = Bitboards.square(rookX, y);
+		if(castling.indexOf(right) >= 0 && squares[kingSquare] == code(side, KING)
+				&& squares[rookSquare] == code(side, ROOK))
+		{
+			unmoved |= (1L << kingSquare) | (1L << rookSquare);
+		}
+	}
+
+	/**
+	 * Returns the Forsyth-Edwards notation of the position. Castling rights
+	 * are derived from unmoved kings and rooks on their initial fields.
+	 * @return Position in FEN
+	 */
+	public String toFen()
+	{
+		StringBuilder fen = new StringBuilder();
+		for(int y = 0; y < Bitboards.SIZE; y++)
+		{
+			int empty = 0;
+			for(int x = 0; x < Bitboards.SIZE; x++)
+			{
+				int code = squares[Bitboards.square(x, y)];
+				if(code == NO_PIECE)
+				{
+					empty++;
+				} else
+				{
+					if(empty > 0)
+					{
+						fen.append(empty);
+						empty = 0;
+					}
+					fen.append(FEN_PIECES.charAt(code));
+				}
+			}
+			if(empty > 0)
+			{
+				fen.append(empty);
+			}
+			if(y < Bitboards.SIZE - 1)
+			{
+				fen.append('/');
+			}
+		}
+
+		fen.append(sideToMove == WHITE ? " w " : " b ");
+
+		int length = fen.length();
+		appendCastlingRight(fen, 'K', WHITE, 7, 7);
+		appendCastlingRight(fen, 'Q', WHITE, 7, 0);
+		appendCastlingRight(fen, 'k', BLACK, 0, 7);
+		appendCastlingRight(fen, 'q', BLACK, 0, 0);
+		if(fen.length() == length)
+		{
+			fen.append('-');
+		}
+
+		if(enPassantSquare >= 0)
+		{
+			fen.append(' ').append((char) ('a' + Bitboards.x(enPassantSquare)))
+					.append(Bitboards.SIZE - Bitboards.y(enPassantSquare));
+		} else
+		{
+			fen.append(" -");
+		}
+
+		return fen.toString();
+	}
+
+	private void appendCastlingRight(StringBuilder fen, char right, int side, int y, int rookX)
+	{
+		long required = (1L << Bitboards.square(4, y)) | (1L << Bitboards.square(rookX, y));
+		if((unmoved & required) == required && squares[Bitboards.square(4, y)] == code(side, KING)
+				&& squares[Bitboards.square(rookX, y)] == code(side, ROOK))
+		{
+			fen.append(right);
+		}
+	}
+}
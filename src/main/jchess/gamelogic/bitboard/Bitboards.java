@@ -0,0 +1,222 @@
+package jchess.gamelogic.bitboard;
+
+import java.util.Random;
+
+/**
+ * Precomputed attack tables for 8x8 bitboards.
+ * Squares are numbered row by row in the board's own coordinates, i.e. the
+ * square of the field (x|y) is y * 8 + x. The a8 corner of the two player
+ * board (0|0) therefore is bit 0 and white's pawns move towards lower bits.
+ * Slider attacks are looked up with magic bitboards; the magic numbers are
+ * searched once with a fixed seed when the class is loaded.
+ */
+public final class Bitboards
+{
+	public static final int SIZE = 8;
+	public static final int SQUARES = SIZE * SIZE;
+
+	public static final long[] KNIGHT_ATTACKS = new long[SQUARES];
+	public static final long[] KING_ATTACKS = new long[SQUARES];
+	/** Pawn attacks by side (0 moves towards y = 0, 1 towards y = 7) */
+	public static final long[][] PAWN_ATTACKS = new long[2][SQUARES];
+
+	private static final int[][] ROOK_DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+	private static final int[][] BISHOP_DIRECTIONS = { { 1, 1 }, { 1, -1 }, { -1, 1 }, { -1, -1 } };
+	private static final int[][] KNIGHT_STEPS = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 },
+			{ -2, -1 }, { -2, 1 }, { -1, 2 } };
+
+	private static final long MAGIC_SEED = 0x6A43686573734DL;
+
+	private static final long[] ROOK_MASKS = new long[SQUARES];
+	private static final long[] ROOK_MAGICS = new long[SQUARES];
+	private static final int[] ROOK_SHIFTS = new int[SQUARES];
+	private static final long[][] ROOK_TABLE = new long[SQUARES][];
+
+	private static final long[] BISHOP_MASKS = new long[SQUARES];
+	private static final long[] BISHOP_MAGICS = new long[SQUARES];
+	private static final int[] BISHOP_SHIFTS = new int[SQUARES];
+	private static final long[][] BISHOP_TABLE = new long[SQUARES][];
+
+	static
+	{
+		for(int square = 0; square < SQUARES; square++)
+		{
+			int x = x(square);
+			int y = y(square);
+
+			for(int[] step : KNIGHT_STEPS)
+			{
+				KNIGHT_ATTACKS[square] |= bit(x + step[0], y + step[1]);
+			}
+			for(int dx = -1; dx <= 1; dx++)
+			{
+				for(int dy = -1; dy <= 1; dy++)
+				{
+					if(dx != 0 || dy != 0)
+					{
+						KING_ATTACKS[square] |= bit(x + dx, y + dy);
+					}
+				}
+			}
+			PAWN_ATTACKS[0][square] = bit(x - 1, y - 1) | bit(x + 1, y - 1);
+			PAWN_ATTACKS[1][square] = bit(x - 1, y + 1) | bit(x + 1, y + 1);
+		}
+
+		Random random = new Random(MAGIC_SEED);
+		for(int square = 0; square < SQUARES; square++)
+		{
+			initMagic(square, ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_TABLE, random);
+			initMagic(square, BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_TABLE, random);
+		}
+	}
+
+	private Bitboards()
+	{
+	}
+
+	public static int square(int x, int y)
+	{
+		return y * SIZE + x;
+	}
+
+	public static int x(int square)
+	{
+		return square & (SIZE - 1);
+	}
+
+	public static int y(int square)
+	{
+		return square >>> 3;
+	}
+
+	/**
+	 * Returns the bit of the given coordinates or 0 if they are off the board.
+	 */
+	private static long bit(int x, int y)
+	{
+		if(x < 0 || y < 0 || x >= SIZE || y >= SIZE)
+		{
+			return 0L;
+		}
+		return 1L << square(x, y);
+	}
+
+	public static long rookAttacks(int square, long occupied)
+	{
+		int index = (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+		return ROOK_TABLE[square][index];
+	}
+
+	public static long bishopAttacks(int square, long occupied)
+	{
+		int index = (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+		return BISHOP_TABLE[square][index];
+	}
+
+	public static long queenAttacks(int square, long occupied)
+	{
+		return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+	}
+
+	/**
+	 * Computes slider attacks by walking the rays; only used to fill the
+	 * magic tables.
+	 */
+	private static long slidingAttacks(int square, long occupied, int[][] directions)
+	{
+		long attacks = 0L;
+		for(int[] dir : directions)
+		{
+			int x = x(square) + dir[0];
+			int y = y(square) + dir[1];
+			long b;
+			while((b = bit(x, y)) != 0L)
+			{
+				attacks |= b;
+				if((occupied & b) != 0L)
+				{
+					break;
+				}
+				x += dir[0];
+				y += dir[1];
+			}
+		}
+		return attacks;
+	}
+
+	/**
+	 * Computes the relevant occupancy mask of a slider, i.e. its rays without
+	 * the last square on the board edge.
+	 */
+	private static long relevantMask(int square, int[][] directions)
+	{
+		long mask = 0L;
+		for(int[] dir : directions)
+		{
+			int x = x(square) + dir[0];
+			int y = y(square) + dir[1];
+			while(bit(x + dir[0], y + dir[1]) != 0L)
+			{
+				mask |= bit(x, y);
+				x += dir[0];
+				y += dir[1];
+			}
+		}
+		return mask;
+	}
+
+	private static void initMagic(int square, int[][] directions, long[] masks, long[] magics, int[] shifts,
+			long[][] tables, Random random)
+	{
+		long mask = relevantMask(square, directions);
+		int bits = Long.bitCount(mask);
+		int size = 1 << bits;
+
+		// Enumerate all subsets of the mask (Carry-Rippler)
+		long[] occupancies = new long[size];
+		long[] attacks = new long[size];
+		long subset = 0L;
+		for(int i = 0; i < size; i++)
+		{
+			occupancies[i] = subset;
+			attacks[i] = slidingAttacks(square, subset, directions);
+			subset = (subset - mask) & mask;
+		}
+
+		long[] table = new long[size];
+		int[] epoch = new int[size];
+		int attempt = 0;
+		while(true)
+		{
+			long magic = random.nextLong() & random.nextLong() & random.nextLong();
+			if(Long.bitCount((mask * magic) >>> 56) < 6)
+			{
+				continue;
+			}
+
+			attempt++;
+			boolean collision = false;
+			for(int i = 0; i < size && !collision; i++)
+			{
+				int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+				if(epoch[index] != attempt)
+				{
+					epoch[index] = attempt;
+					table[index] = attacks[i];
+				} else if(table[index] != attacks[i])
+				{
+					collision = true;
+				}
+			}
+
+			if(!collision)
+			{
+				masks[square] = mask;
+				magics[square] = magic;
+				shifts[square] = 64 - bits;
+				tables[square] = table;
+				return;
+			}
+		}
+	}
+}
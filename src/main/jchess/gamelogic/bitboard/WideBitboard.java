@@ -0,0 +1,212 @@
+package jchess.gamelogic.bitboard;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-width 256 bit set for boards of up to 16x16 fields.
+ * The square of the field (x|y) is y * 16 + x. Since rows are 16 squares
+ * wide, boards of up to 14 columns always have two unused columns to the
+ * right; shifting by up to two columns therefore never wraps a bit onto a
+ * valid square of a neighbouring row, as long as the result is masked with
+ * the board's validity mask.
+ */
+public final class WideBitboard
+{
+	public static final int WIDTH = 16;
+	public static final int SQUARES = WIDTH * WIDTH;
+	private static final int WORDS = SQUARES / 64;
+
+	private final long[] words = new long[WORDS];
+
+	public WideBitboard()
+	{
+	}
+
+	public WideBitboard(WideBitboard other)
+	{
+		System.arraycopy(other.words, 0, words, 0, WORDS);
+	}
+
+	public static int square(int x, int y)
+	{
+		return y * WIDTH + x;
+	}
+
+	public static int x(int square)
+	{
+		return square & (WIDTH - 1);
+	}
+
+	public static int y(int square)
+	{
+		return square >>> 4;
+	}
+
+	public boolean get(int square)
+	{
+		return ((words[square >>> 6] >>> square) & 1L) != 0L;
+	}
+
+	public void set(int square)
+	{
+		words[square >>> 6] |= 1L << square;
+	}
+
+	public void clear(int square)
+	{
+		words[square >>> 6] &= ~(1L << square);
+	}
+
+	public void clear()
+	{
+		Arrays.fill(words, 0L);
+	}
+
+	public boolean isEmpty()
+	{
+		return (words[0] | words[1] | words[2] | words[3]) == 0L;
+	}
+
+	public int cardinality()
+	{
+		return Long.bitCount(words[0]) + Long.bitCount(words[1]) + Long.bitCount(words[2])
+				+ Long.bitCount(words[3]);
+	}
+
+	/**
+	 * Returns the first set square at or after the given one.
+	 * @param from Square to start at
+	 * @return Square index or -1 if there is none
+	 */
+	public int nextSetBit(int from)
+	{
+		if(from >= SQUARES)
+		{
+			return -1;
+		}
+
+		int word = from >>> 6;
+		long bits = words[word] & (-1L << from);
+		while(true)
+		{
+			if(bits != 0L)
+			{
+				return (word << 6) + Long.numberOfTrailingZeros(bits);
+			}
+			if(++word == WORDS)
+			{
+				return -1;
+			}
+			bits = words[word];
+		}
+	}
+
+	public boolean intersects(WideBitboard other)
+	{
+		return ((words[0] & other.words[0]) | (words[1] & other.words[1]) | (words[2] & other.words[2])
+				| (words[3] & other.words[3])) != 0L;
+	}
+
+	public WideBitboard and(WideBitboard other)
+	{
+		for(int i = 0; i < WORDS; i++)
+		{
+			words[i] &= other.words[i];
+		}
+		return this;
+	}
+
+	public WideBitboard or(WideBitboard other)
+	{
+		for(int i = 0; i < WORDS; i++)
+		{
+			words[i] |= other.words[i];
+		}
+		return this;
+	}
+
+	public WideBitboard andNot(WideBitboard other)
+	{
+		for(int i = 0; i < WORDS; i++)
+		{
+			words[i] &= ~other.words[i];
+		}
+		return this;
+	}
+
+	/**
+	 * Shifts all squares by the given offset and drops those leaving the
+	 * mask. Column offsets must lie within [-2, 2] (see class comment).
+	 * @param dx Column offset
+	 * @param dy Row offset
+	 * @param mask Validity mask of the board
+	 * @return Shifted set (a new instance)
+	 */
+	public WideBitboard shift(int dx, int dy, WideBitboard mask)
+	{
+		if(dx < -2 || dx > 2)
+		{
+			throw new IllegalArgumentException("Column offset " + dx + " would wrap around rows!");
+		}
+
+		WideBitboard shifted = new WideBitboard();
+		int offset = dy * WIDTH + dx;
+		if(offset >= 0)
+		{
+			shiftLeft(words, shifted.words, offset);
+		} else
+		{
+			shiftRight(words, shifted.words, -offset);
+		}
+		return shifted.and(mask);
+	}
+
+	private static void shiftLeft(long[] source, long[] target, int bits)
+	{
+		int wordShift = bits >>> 6;
+		int bitShift = bits & 63;
+		for(int i = WORDS - 1; i >= wordShift; i--)
+		{
+			long value = source[i - wordShift] << bitShift;
+			if(bitShift != 0 && i - wordShift - 1 >= 0)
+			{
+				value |= source[i - wordShift - 1] >>> (64 - bitShift);
+			}
+			target[i] = value;
+		}
+	}
+
+	private static void shiftRight(long[] source, long[] target, int bits)
+	{
+		int wordShift = bits >>> 6;
+		int bitShift = bits & 63;
+		for(int i = 0; i < WORDS - wordShift; i++)
+		{
+			long value = source[i + wordShift] >>> bitShift;
+			if(bitShift != 0 && i + wordShift + 1 < WORDS)
+			{
+				value |= source[i + wordShift + 1] << (64 - bitShift);
+			}
+			target[i] = value;
+		}
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if(obj == this)
+		{
+			return true;
+		} else if(!(obj instanceof WideBitboard))
+		{
+			return false;
+		}
+		return Arrays.equals(words, ((WideBitboard) obj).words);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(words);
+	}
+}
@@ -0,0 +1,865 @@
+package jchess.gamelogic.bitboard;
+
+import static jchess.gamelogic.bitboard.BitboardPosition.BISHOP;
+import static jchess.gamelogic.bitboard.BitboardPosition.FLAG_CAPTURE;
+import static jchess.gamelogic.bitboard.BitboardPosition.FLAG_DOUBLE_PUSH;
+import static jchess.gamelogic.bitboard.BitboardPosition.FLAG_EN_PASSANT;
+import static jchess.gamelogic.bitboard.BitboardPosition.FLAG_LONG_CASTLING;
+import static jchess.gamelogic.bitboard.BitboardPosition.FLAG_PROMOTION;
+import static jchess.gamelogic.bitboard.BitboardPosition.FLAG_QUIET;
+import static jchess.gamelogic.bitboard.BitboardPosition.FLAG_SHORT_CASTLING;
+import static jchess.gamelogic.bitboard.BitboardPosition.KING;
+import static jchess.gamelogic.bitboard.BitboardPosition.KNIGHT;
+import static jchess.gamelogic.bitboard.BitboardPosition.NO_PIECE;
+import static jchess.gamelogic.bitboard.BitboardPosition.PAWN;
+import static jchess.gamelogic.bitboard.BitboardPosition.QUEEN;
+import static jchess.gamelogic.bitboard.BitboardPosition.ROOK;
+
+import java.util.Arrays;
+import java.util.List;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.pieces.Pawn;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.util.Direction;
+
+/**
+ * Position on the plus-shaped 14x14 board of four player chess, based on
+ * {@link WideBitboard}s. The move generator follows the rules of the
+ * {@link jchess.gamelogic.controllers.chessboardcontrollers.FourPlayerChessboardController}:
+ * the players (in turn order) start at the bottom, left, top and right and
+ * their pawns move in four different directions. Besides not leaving the
+ * own king in check, a move must not open up an "unfair check", i.e. a new
+ * check between two players other than the moving one.
+ * Piece types and move flags are the ones of {@link BitboardPosition}; moves
+ * use eight bits for each square since the squares don't fit into six.
+ */
+public class WidePosition
+{
+	public static final int PLAYERS = 4;
+	public static final int SIZE = 14;
+	public static final int MAX_MOVES = 512;
+
+	/** Forward directions of the pawns by player */
+	private static final int[][] FORWARD = { { 0, -1 }, { 1, 0 }, { 0, 1 }, { -1, 0 } };
+	/** Straight directions first, diagonal ones after */
+	private static final int[][] DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 }, { 1, 1 }, { 1, -1 },
+			{ -1, 1 }, { -1, -1 } };
+	private static final int[][] KNIGHT_STEPS = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 },
+			{ -2, -1 }, { -2, 1 }, { -1, 2 } };
+
+	/** Valid squares of the plus-shaped board */
+	public static final WideBitboard VALID = new WideBitboard();
+
+	private static final int[][] KNIGHT_TARGETS = new int[WideBitboard.SQUARES][];
+	private static final int[][] KING_TARGETS = new int[WideBitboard.SQUARES][];
+	/** Squares attacked by a pawn of the player standing on the square */
+	private static final int[][][] PAWN_TARGETS = new int[PLAYERS][WideBitboard.SQUARES][];
+	/** Squares from which a pawn of the player attacks the square */
+	private static final int[][][] PAWN_ATTACKERS = new int[PLAYERS][WideBitboard.SQUARES][];
+	/** Squares in each direction up to the edge of the board */
+	private static final int[][][] RAYS = new int[WideBitboard.SQUARES][DIRECTIONS.length][];
+
+	static
+	{
+		for(int y = 0; y < SIZE; y++)
+		{
+			for(int x = 0; x < SIZE; x++)
+			{
+				if((x >= 3 && x < 11) || (y >= 3 && y < 11))
+				{
+					VALID.set(WideBitboard.square(x, y));
+				}
+			}
+		}
+
+		for(int square = VALID.nextSetBit(0); square >= 0; square = VALID.nextSetBit(square + 1))
+		{
+			WideBitboard single = new WideBitboard();
+			single.set(square);
+
+			WideBitboard knight = new WideBitboard();
+			for(int[] step : KNIGHT_STEPS)
+			{
+				knight.or(single.shift(step[0], step[1], VALID));
+			}
+			KNIGHT_TARGETS[square] = toArray(knight);
+
+			WideBitboard king = new WideBitboard();
+			for(int[] dir : DIRECTIONS)
+			{
+				king.or(single.shift(dir[0], dir[1], VALID));
+			}
+			KING_TARGETS[square] = toArray(king);
+
+			for(int player = 0; player < PLAYERS; player++)
+			{
+				int[] forward = FORWARD[player];
+				int sideX = Math.abs(forward[1]);
+				int sideY = Math.abs(forward[0]);
+
+				WideBitboard targets = single.shift(forward[0] + sideX, forward[1] + sideY, VALID)
+						.or(single.shift(forward[0] - sideX, forward[1] - sideY, VALID));
+				PAWN_TARGETS[player][square] = toArray(targets);
+
+				WideBitboard attackers = single.shift(-forward[0] + sideX, -forward[1] + sideY, VALID)
+						.or(single.shift(-forward[0] - sideX, -forward[1] - sideY, VALID));
+				PAWN_ATTACKERS[player][square] = toArray(attackers);
+			}
+
+			for(int dir = 0; dir < DIRECTIONS.length; dir++)
+			{
+				int[] ray = new int[SIZE];
+				int length = 0;
+				WideBitboard current = single;
+				while(!(current = current.shift(DIRECTIONS[dir][0], DIRECTIONS[dir][1], VALID)).isEmpty())
+				{
+					ray[length++] = current.nextSetBit(0);
+				}
+				RAYS[square][dir] = Arrays.copyOf(ray, length);
+			}
+		}
+	}
+
+	private final WideBitboard[][] pieces = new WideBitboard[PLAYERS][6];
+	private final WideBitboard[] occupancy = new WideBitboard[PLAYERS];
+	private final int[] squares = new int[WideBitboard.SQUARES];
+	private final WideBitboard unmoved = new WideBitboard();
+	/** Field of each player's pawn which moved two fields with their latest move or -1 */
+	private final int[] enPassant = { -1, -1, -1, -1 };
+	private int sideToMove;
+
+	private int ply;
+	private int[] capturedStack = new int[64];
+	private int[] enPassantStack = new int[64];
+	/** Moved flags of the squares touched by a move: from, to and the rook */
+	private int[] unmovedStack = new int[64];
+
+	/** Pieces checking each player before the move being tested */
+	private final WideBitboard[] preExistingChecks = new WideBitboard[PLAYERS];
+	private final WideBitboard checkers = new WideBitboard();
+
+	/**
+	 * Creates an empty position with the first player to move.
+	 */
+	public WidePosition()
+	{
+		Arrays.fill(squares, NO_PIECE);
+		for(int player = 0; player < PLAYERS; player++)
+		{
+			occupancy[player] = new WideBitboard();
+			preExistingChecks[player] = new WideBitboard();
+			for(int type = PAWN; type <= KING; type++)
+			{
+				pieces[player][type] = new WideBitboard();
+			}
+		}
+	}
+
+	private static int[] toArray(WideBitboard set)
+	{
+		int[] array = new int[set.cardinality()];
+		int i = 0;
+		for(int square = set.nextSetBit(0); square >= 0; square = set.nextSetBit(square + 1))
+		{
+			array[i++] = square;
+		}
+		return array;
+	}
+
+	public static int encode(int from, int to, int flags)
+	{
+		return from | (to << 8) | (flags << 16);
+	}
+
+	public static int getFrom(int move)
+	{
+		return move & 0xFF;
+	}
+
+	public static int getTo(int move)
+	{
+		return (move >>> 8) & 0xFF;
+	}
+
+	public static int getFlags(int move)
+	{
+		return move >>> 16;
+	}
+
+	private static int code(int player, int type)
+	{
+		return player * 6 + type;
+	}
+
+	private static int forwardOffset(int player)
+	{
+		return FORWARD[player][1] * WideBitboard.WIDTH + FORWARD[player][0];
+	}
+
+	/**
+	 * Checks whether a pawn of the player reaches the last line on the
+	 * square, which is the base line of the opposite player.
+	 */
+	private static boolean isPromotionSquare(int player, int square)
+	{
+		switch(player)
+		{
+		case 0:
+			return WideBitboard.y(square) == 0;
+		case 1:
+			return WideBitboard.x(square) == SIZE - 1;
+		case 2:
+			return WideBitboard.y(square) == SIZE - 1;
+		default:
+			return WideBitboard.x(square) == 0;
+		}
+	}
+
+	public int getSideToMove()
+	{
+		return sideToMove;
+	}
+
+	public int getPiece(int square)
+	{
+		return squares[square];
+	}
+
+	public WideBitboard getPieces(int player, int type)
+	{
+		return pieces[player][type];
+	}
+
+	public WideBitboard getOccupancy(int player)
+	{
+		return occupancy[player];
+	}
+
+	private void put(int square, int code)
+	{
+		pieces[code / 6][code % 6].set(square);
+		occupancy[code / 6].set(square);
+		squares[square] = code;
+	}
+
+	private void remove(int square)
+	{
+		int code = squares[square];
+		pieces[code / 6][code % 6].clear(square);
+		occupancy[code / 6].clear(square);
+		squares[square] = NO_PIECE;
+	}
+
+	/**
+	 * Checks whether a piece of the given type and owner stands on the square.
+	 */
+	private boolean isPiece(int square, int player, int type)
+	{
+		return squares[square] == code(player, type);
+	}
+
+	/**
+	 * Collects all pieces of other players attacking the square.
+	 * @param square Attacked square
+	 * @param player Player whose pieces are ignored
+	 * @param target Set to write the attackers' squares to
+	 * @return The target set
+	 */
+	private WideBitboard collectAttackers(int square, int player, WideBitboard target)
+	{
+		target.clear();
+
+		for(int from : KNIGHT_TARGETS[square])
+		{
+			int code = squares[from];
+			if(code != NO_PIECE && code % 6 == KNIGHT && code / 6 != player)
+			{
+				target.set(from);
+			}
+		}
+		for(int from : KING_TARGETS[square])
+		{
+			int code = squares[from];
+			if(code != NO_PIECE && code % 6 == KING && code / 6 != player)
+			{
+				target.set(from);
+			}
+		}
+		for(int enemy = 0; enemy < PLAYERS; enemy++)
+		{
+			if(enemy != player)
+			{
+				for(int from : PAWN_ATTACKERS[enemy][square])
+				{
+					if(this.isPiece(from, enemy, PAWN))
+					{
+						target.set(from);
+					}
+				}
+			}
+		}
+		for(int dir = 0; dir < DIRECTIONS.length; dir++)
+		{
+			int slider = (dir < 4) ? ROOK : BISHOP;
+			for(int from : RAYS[square][dir])
+			{
+				int code = squares[from];
+				if(code != NO_PIECE)
+				{
+					if(code / 6 != player && (code % 6 == slider || code % 6 == QUEEN))
+					{
+						target.set(from);
+					}
+					break;
+				}
+			}
+		}
+
+		return target;
+	}
+
+	/**
+	 * Checks whether the square is attacked by any player but the given one.
+	 */
+	private boolean isAttacked(int square, int player)
+	{
+		return !this.collectAttackers(square, player, checkers).isEmpty();
+	}
+
+	private int getKingSquare(int player)
+	{
+		return pieces[player][KING].nextSetBit(0);
+	}
+
+	/**
+	 * Checks whether the player's king is attacked.
+	 * @param player Player to check
+	 * @return True if in check
+	 */
+	public boolean isInCheck(int player)
+	{
+		int king = this.getKingSquare(player);
+		return king >= 0 && this.isAttacked(king, player);
+	}
+
+	/**
+	 * Generates all legal moves of the side to move.
+	 * @param moves Buffer of at least {@link #MAX_MOVES} entries
+	 * @return Number of moves written to the buffer
+	 */
+	public int generateMoves(int[] moves)
+	{
+		for(int player = 0; player < PLAYERS; player++)
+		{
+			int king = this.getKingSquare(player);
+			if(king >= 0)
+			{
+				this.collectAttackers(king, player, preExistingChecks[player]);
+			} else
+			{
+				preExistingChecks[player].clear();
+			}
+		}
+
+		int count = this.generatePseudoLegalMoves(moves);
+		int mover = sideToMove;
+		int legal = 0;
+
+		for(int i = 0; i < count; i++)
+		{
+			this.makeMove(moves[i]);
+			if(this.isLegalAfterMove(mover))
+			{
+				moves[legal++] = moves[i];
+			}
+			this.unmakeMove(moves[i]);
+		}
+
+		return legal;
+	}
+
+	/**
+	 * Checks the position after a move for checks of the moving player and
+	 * unfair checks between other players.
+	 */
+	private boolean isLegalAfterMove(int mover)
+	{
+		for(int player = 0; player < PLAYERS; player++)
+		{
+			int king = this.getKingSquare(player);
+			if(king < 0)
+			{
+				continue;
+			}
+
+			this.collectAttackers(king, player, checkers);
+			if(player != mover)
+			{
+				// The moving player may check others; already existing checks
+				// are not unfair either
+				checkers.andNot(occupancy[mover]).andNot(preExistingChecks[player]);
+			}
+			if(!checkers.isEmpty())
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Generates all moves of the side to move without checking for checks.
+	 * @param moves Buffer of at least {@link #MAX_MOVES} entries
+	 * @return Number of moves written to the buffer
+	 */
+	public int generatePseudoLegalMoves(int[] moves)
+	{
+		int player = sideToMove;
+		WideBitboard own = occupancy[player];
+		int count = 0;
+
+		for(int type = PAWN; type <= KING; type++)
+		{
+			WideBitboard set = pieces[player][type];
+			for(int from = set.nextSetBit(0); from >= 0; from = set.nextSetBit(from + 1))
+			{
+				switch(type)
+				{
+				case PAWN:
+					count = this.generatePawnMoves(moves, count, player, from);
+					break;
+				case KNIGHT:
+					count = this.addTargets(moves, count, from, KNIGHT_TARGETS[from], own);
+					break;
+				case KING:
+					count = this.addTargets(moves, count, from, KING_TARGETS[from], own);
+					break;
+				default:
+					int first = (type == BISHOP) ? 4 : 0;
+					int last = (type == ROOK) ? 4 : DIRECTIONS.length;
+					for(int dir = first; dir < last; dir++)
+					{
+						for(int to : RAYS[from][dir])
+						{
+							if(squares[to] == NO_PIECE)
+							{
+								moves[count++] = encode(from, to, FLAG_QUIET);
+							} else
+							{
+								if(!own.get(to))
+								{
+									moves[count++] = encode(from, to, FLAG_CAPTURE);
+								}
+								break;
+							}
+						}
+					}
+					break;
+				}
+			}
+		}
+
+		return this.generateCastlingMoves(moves, count, player);
+	}
+
+	private int addTargets(int[] moves, int count, int from, int[] targets, WideBitboard own)
+	{
+		for(int to : targets)
+		{
+			if(squares[to] == NO_PIECE)
+			{
+				moves[count++] = encode(from, to, FLAG_QUIET);
+			} else if(!own.get(to))
+			{
+				moves[count++] = encode(from, to, FLAG_CAPTURE);
+			}
+		}
+		return count;
+	}
+
+	private int generatePawnMoves(int[] moves, int count, int player, int from)
+	{
+		int forward = forwardOffset(player);
+		int one = from + forward;
+
+		if(one >= 0 && one < WideBitboard.SQUARES && VALID.get(one) && squares[one] == NO_PIECE)
+		{
+			if(isPromotionSquare(player, one))
+			{
+				count = addPromotions(moves, count, from, one, false);
+			} else
+			{
+				moves[count++] = encode(from, one, FLAG_QUIET);
+
+				int two = one + forward;
+				if(unmoved.get(from) && two >= 0 && two < WideBitboard.SQUARES && VALID.get(two)
+						&& squares[two] == NO_PIECE)
+				{
+					moves[count++] = encode(from, two, FLAG_DOUBLE_PUSH);
+				}
+			}
+		}
+
+		for(int to : PAWN_TARGETS[player][from])
+		{
+			int code = squares[to];
+			if(code != NO_PIECE && code / 6 != player)
+			{
+				if(isPromotionSquare(player, to))
+				{
+					count = addPromotions(moves, count, from, to, true);
+				} else
+				{
+					moves[count++] = encode(from, to, FLAG_CAPTURE);
+				}
+			} else if(code == NO_PIECE)
+			{
+				// Only pawns of the opposite player pass the field diagonally
+				// in front of the pawn
+				int opposite = player ^ 2;
+				int passed = to - forward;
+				if(enPassant[opposite] == passed && this.isPiece(passed, opposite, PAWN))
+				{
+					moves[count++] = encode(from, to, FLAG_EN_PASSANT);
+				}
+			}
+		}
+
+		return count;
+	}
+
+	private static int addPromotions(int[] moves, int count, int from, int to, boolean capture)
+	{
+		int flags = FLAG_PROMOTION | (capture ? FLAG_CAPTURE : 0);
+		for(int type = QUEEN; type >= KNIGHT; type--)
+		{
+			moves[count++] = encode(from, to, flags | (type - KNIGHT));
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the square offset along which the player's king castles. Kings
+	 * on the top and bottom line castle horizontally, the others vertically.
+	 */
+	private static int castlingOffset(int kingSquare)
+	{
+		int y = WideBitboard.y(kingSquare);
+		return (y == 0 || y == SIZE - 1) ? 1 : WideBitboard.WIDTH;
+	}
+
+	private int generateCastlingMoves(int[] moves, int count, int player)
+	{
+		int king = this.getKingSquare(player);
+		if(king < 0 || !unmoved.get(king))
+		{
+			return count;
+		}
+
+		int dir = castlingOffset(king);
+		if(this.canCastle(player, king, dir, 3))
+		{
+			moves[count++] = encode(king, king + 2 * dir, FLAG_SHORT_CASTLING);
+		}
+		if(this.canCastle(player, king, -dir, 4))
+		{
+			moves[count++] = encode(king, king - 2 * dir, FLAG_LONG_CASTLING);
+		}
+		return count;
+	}
+
+	/**
+	 * Checks castling with the rook the given distance away: the rook has to
+	 * be unmoved, the fields in between empty and neither the king's field
+	 * nor the two it crosses may be attacked.
+	 */
+	private boolean canCastle(int player, int king, int dir, int distance)
+	{
+		int rook = king + distance * dir;
+		// Horizontal castling must not wrap into another row
+		boolean sameLine = (Math.abs(dir) != 1) || (WideBitboard.y(rook) == WideBitboard.y(king));
+		if(!sameLine || rook < 0 || rook >= WideBitboard.SQUARES || !VALID.get(rook)
+				|| !this.isPiece(rook, player, ROOK) || !unmoved.get(rook))
+		{
+			return false;
+		}
+
+		for(int i = 1; i < distance; i++)
+		{
+			if(squares[king + i * dir] != NO_PIECE)
+			{
+				return false;
+			}
+		}
+
+		return !this.isAttacked(king, player) && !this.isAttacked(king + dir, player)
+				&& !this.isAttacked(king + 2 * dir, player);
+	}
+
+	private void pushState(int captured, int unmovedBits)
+	{
+		if(ply == capturedStack.length)
+		{
+			capturedStack = Arrays.copyOf(capturedStack, 2 * ply);
+			enPassantStack = Arrays.copyOf(enPassantStack, 2 * ply);
+			unmovedStack = Arrays.copyOf(unmovedStack, 2 * ply);
+		}
+		capturedStack[ply] = captured;
+		enPassantStack[ply] = enPassant[sideToMove];
+		unmovedStack[ply] = unmovedBits;
+		ply++;
+	}
+
+	private int getRookSquare(int king, int flags, boolean target)
+	{
+		int dir = castlingOffset(king);
+		if(flags == FLAG_SHORT_CASTLING)
+		{
+			return target ? king + dir : king + 3 * dir;
+		}
+		return target ? king - dir : king - 4 * dir;
+	}
+
+	/**
+	 * Makes a move generated for this position and passes the turn to the
+	 * next player.
+	 * @param move Encoded move
+	 */
+	public void makeMove(int move)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int flags = getFlags(move);
+		int player = sideToMove;
+		int moved = squares[from];
+		boolean castling = flags == FLAG_SHORT_CASTLING || flags == FLAG_LONG_CASTLING;
+		int rookFrom = castling ? this.getRookSquare(from, flags, false) : from;
+
+		int captured = NO_PIECE;
+		if(flags == FLAG_EN_PASSANT)
+		{
+			int passed = to - forwardOffset(player);
+			captured = squares[passed];
+			this.remove(passed);
+		} else if((flags & FLAG_CAPTURE) != 0)
+		{
+			captured = squares[to];
+			this.remove(to);
+		}
+
+		int unmovedBits = (unmoved.get(from) ? 1 : 0) | (unmoved.get(to) ? 2 : 0) | (unmoved.get(rookFrom) ? 4 : 0);
+		this.pushState(captured, unmovedBits);
+
+		this.remove(from);
+		this.put(to, ((flags & FLAG_PROMOTION) != 0) ? code(player, KNIGHT + (flags & 3)) : moved);
+		unmoved.clear(from);
+		unmoved.clear(to);
+
+		if(castling)
+		{
+			this.remove(rookFrom);
+			this.put(this.getRookSquare(from, flags, true), code(player, ROOK));
+			unmoved.clear(rookFrom);
+		}
+
+		enPassant[player] = (flags == FLAG_DOUBLE_PUSH) ? to : -1;
+		sideToMove = (player + 1) % PLAYERS;
+	}
+
+	/**
+	 * Reverts the last move made.
+	 * @param move Encoded move which was made last
+	 */
+	public void unmakeMove(int move)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int flags = getFlags(move);
+		int player = (sideToMove + PLAYERS - 1) % PLAYERS;
+		sideToMove = player;
+
+		ply--;
+		int captured = capturedStack[ply];
+		enPassant[player] = enPassantStack[ply];
+		int unmovedBits = unmovedStack[ply];
+
+		int moved = ((flags & FLAG_PROMOTION) != 0) ? code(player, PAWN) : squares[to];
+		this.remove(to);
+		this.put(from, moved);
+
+		if(flags == FLAG_EN_PASSANT)
+		{
+			this.put(to - forwardOffset(player), captured);
+		} else if(captured != NO_PIECE)
+		{
+			this.put(to, captured);
+		}
+
+		int rookFrom = from;
+		if(flags == FLAG_SHORT_CASTLING || flags == FLAG_LONG_CASTLING)
+		{
+			rookFrom = this.getRookSquare(from, flags, false);
+			this.remove(this.getRookSquare(from, flags, true));
+			this.put(rookFrom, code(player, ROOK));
+		}
+
+		if((unmovedBits & 2) != 0)
+		{
+			unmoved.set(to);
+		}
+		if((unmovedBits & 4) != 0)
+		{
+			unmoved.set(rookFrom);
+		}
+		if((unmovedBits & 1) != 0)
+		{
+			unmoved.set(from);
+		}
+	}
+
+	/**
+	 * Creates the position from a board model of the four player layout.
+	 * @param board Board model with the plus-shaped fields
+	 * @param players Players in turn order, starting with the one at the
+	 *            bottom
+	 * @param sideToMove Player to move
+	 * @return Position of the board
+	 * @throws IllegalArgumentException if the board does not fit the layout
+	 */
+	public static WidePosition fromChessboard(IChessboardModel board, List<Player> players, Player sideToMove)
+	{
+		if(players.size() != PLAYERS)
+		{
+			throw new IllegalArgumentException("Four player positions need four players!");
+		}
+
+		WidePosition position = new WidePosition();
+		for(int square = VALID.nextSetBit(0); square >= 0; square = VALID.nextSetBit(square + 1))
+		{
+			Field field = board.getField(WideBitboard.x(square), WideBitboard.y(square));
+			if(field == null)
+			{
+				throw new IllegalArgumentException("Board is missing field " + WideBitboard.x(square) + "|"
+						+ WideBitboard.y(square) + "!");
+			}
+
+			Piece piece = board.getPiece(field);
+			if(piece == null)
+			{
+				continue;
+			}
+
+			int player = players.indexOf(piece.getPlayer());
+			if(player < 0)
+			{
+				throw new IllegalArgumentException("Piece " + piece + " belongs to no player of the game!");
+			}
+
+			int type = BitboardPosition.getType(piece.getBehaviour());
+			if(type == PAWN)
+			{
+				Direction forward = ((Pawn) piece.getBehaviour()).getForwardDirection();
+				if(forward.getX() != FORWARD[player][0] || forward.getY() != FORWARD[player][1])
+				{
+					throw new IllegalArgumentException("Pawn on " + field + " moves in the wrong direction!");
+				}
+			}
+
+			position.put(square, code(player, type));
+			if(!piece.hasMoved())
+			{
+				position.unmoved.set(square);
+			}
+		}
+
+		for(int player = 0; player < PLAYERS; player++)
+		{
+			Field passed = board.getEnPassantField(players.get(player));
+			if(passed != null)
+			{
+				position.enPassant[player] = WideBitboard.square(passed.getPosX(), passed.getPosY());
+			}
+		}
+		position.sideToMove = Math.max(0, players.indexOf(sideToMove));
+
+		return position;
+	}
+
+	/**
+	 * Converts an encoded move of this position to a {@link Move} on the
+	 * given board, which has to contain the same position.
+	 * @param move Encoded move
+	 * @param board Board model matching this position
+	 * @return Move for the board
+	 */
+	public Move toMove(int move, IChessboardModel board)
+	{
+		int from = getFrom(move);
+		int to = getTo(move);
+		int flags = getFlags(move);
+
+		Field fromField = board.getField(WideBitboard.x(from), WideBitboard.y(from));
+		Field toField = board.getField(WideBitboard.x(to), WideBitboard.y(to));
+		Piece movedPiece = board.getPiece(fromField);
+
+		Piece taken = board.getPiece(toField);
+		if(flags == FLAG_EN_PASSANT)
+		{
+			int passed = to - forwardOffset(sideToMove);
+			taken = board.getPiece(board.getField(WideBitboard.x(passed), WideBitboard.y(passed)));
+		}
+
+		CastlingType castling = CastlingType.NONE;
+		if(flags == FLAG_SHORT_CASTLING)
+		{
+			castling = CastlingType.SHORT_CASTLING;
+		} else if(flags == FLAG_LONG_CASTLING)
+		{
+			castling = CastlingType.LONG_CASTLING;
+		}
+
+		Piece promoted = null;
+		if((flags & FLAG_PROMOTION) != 0)
+		{
+			promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
+					BitboardPosition.PROMOTION_TYPES[flags & 3]);
+		}
+
+		return new Move(fromField, toField, movedPiece, taken, castling, flags == FLAG_EN_PASSANT, promoted);
+	}
+
+	/**
+	 * Finds the encoded legal move matching a {@link Move}. Moves without a
+	 * promoted piece reaching the last line (as generated by the
+	 * controllers) match the queen promotion.
+	 * @param move Move to look up
+	 * @return Encoded move or {@link BitboardPosition#NO_MOVE} if the move is
+	 *         not legal
+	 */
+	public int fromMove(Move move)
+	{
+		int from = WideBitboard.square(move.getFrom().getPosX(), move.getFrom().getPosY());
+		int to = WideBitboard.square(move.getTo().getPosX(), move.getTo().getPosY());
+		int promotion = (move.getPromotedPiece() == null) ? QUEEN
+				: BitboardPosition.getType(move.getPromotedPiece().getBehaviour());
+
+		int[] moves = new int[MAX_MOVES];
+		int count = this.generateMoves(moves);
+		for(int i = 0; i < count; i++)
+		{
+			int flags = getFlags(moves[i]);
+			if(getFrom(moves[i]) == from && getTo(moves[i]) == to
+					&& ((flags & FLAG_PROMOTION) == 0 || KNIGHT + (flags & 3) == promotion))
+			{
+				return moves[i];
+			}
+		}
+		return BitboardPosition.NO_MOVE;
+	}
+}
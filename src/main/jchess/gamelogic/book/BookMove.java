@@ -0,0 +1,58 @@
+package jchess.gamelogic.book;
+
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IChessboardModel;
+
+/**
+ * Move of an {@link OpeningBook} with its weight, the number of games of the
+ * book it was played in.
+ */
+public final class BookMove
+{
+	private final int move;
+	private final int weight;
+
+	/**
+	 * @param move
+	 *            Encoded move (see {@link EncodedMove})
+	 * @param weight
+	 *            Weight of the move
+	 */
+	public BookMove(int move, int weight)
+	{
+		this.move = move;
+		this.weight = weight;
+	}
+
+	/**
+	 * @return Encoded move
+	 */
+	public int getMove()
+	{
+		return move;
+	}
+
+	public int getWeight()
+	{
+		return weight;
+	}
+
+	/**
+	 * Creates the move on the board of the position it was looked up for.
+	 *
+	 * @param board
+	 *            Board of the position
+	 * @return Move with the pieces of the board
+	 */
+	public Move toMove(IChessboardModel board)
+	{
+		return EncodedMove.toMove(move, board);
+	}
+
+	@Override
+	public String toString()
+	{
+		return EncodedMove.toString(move) + " (" + weight + ")";
+	}
+}
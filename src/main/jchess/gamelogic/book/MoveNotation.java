@@ -0,0 +1,202 @@
+package jchess.gamelogic.book;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Notations of the moves read into opening books. Both name the target field
+ * of a move and as much of the piece and its field as needed, e.g. "Nb1-c3"
+ * or "Nc3", "exd5", "e8=Q" and "O-O"; they differ in the way the ranks are
+ * counted. A move is read by matching it against the legal moves of the
+ * position, so it yields the move as encoded by the controller (see
+ * {@link EncodedMove}).
+ */
+public enum MoveNotation
+{
+	/**
+	 * Notation of the games saved by the game controllers, ranks counted from
+	 * the top of the board (see {@link Field#toString()})
+	 */
+	SAVED
+	{
+		@Override
+		int getY(int rank, int height)
+		{
+			return rank - 1;
+		}
+	},
+	/**
+	 * Standard algebraic notation as found in PGN files, ranks counted from
+	 * the bottom of the board
+	 */
+	ALGEBRAIC
+	{
+		@Override
+		int getY(int rank, int height)
+		{
+			return height - rank;
+		}
+	};
+
+	/** Target field at the end of a move; files repeat a letter, e.g. "aa" */
+	private static final Pattern TARGET = Pattern.compile("(([a-z])\\2*)(\\d+)$");
+	/** File and rank naming the field of the moved piece */
+	private static final Pattern ORIGIN = Pattern.compile("^(([a-z])\\2*)?(\\d+)?$");
+	private static final Pattern PROMOTION = Pattern.compile("=?([QRBN])$");
+
+	/**
+	 * Converts a rank to the y coordinate of a field.
+	 *
+	 * @param rank
+	 *            Rank as written, starting at 1
+	 * @param height
+	 *            Height of the board
+	 * @return y coordinate
+	 */
+	abstract int getY(int rank, int height);
+
+	/**
+	 * Reads a move of the active player. Check and annotation symbols are
+	 * ignored. A promotion without a piece promotes to a queen, as the saved
+	 * games do not name the piece.
+	 *
+	 * @param controller
+	 *            Controller of the position the move is made in
+	 * @param text
+	 *            Move in this notation
+	 * @return Encoded legal move
+	 * @throws IllegalMoveException
+	 *             If the text names no legal move or more than one
+	 */
+	public int parse(IChessboardController controller, String text) throws IllegalMoveException
+	{
+		ArgumentChecker.checkForNull(controller, text);
+		String move = text.replace("(e.p)", "").replace("e.p.", "").replaceAll("[+#!?]+$", "");
+
+		MoveList moves = new MoveList();
+		controller.getPossibleMoves(controller.getActivePlayer(), moves);
+		if(move.equals("O-O") || move.equals("0-0"))
+		{
+			return this.find(text, moves, EncodedMove.FLAG_SHORT_CASTLING);
+		} else if(move.equals("O-O-O") || move.equals("0-0-0"))
+		{
+			return this.find(text, moves, EncodedMove.FLAG_LONG_CASTLING);
+		}
+
+		PieceType promotion = null;
+		Matcher promotionMatcher = PROMOTION.matcher(move);
+		if(promotionMatcher.find() && promotionMatcher.start() > 0)
+		{
+			promotion = this.getPieceType(promotionMatcher.group(1));
+			move = move.substring(0, promotionMatcher.start());
+		}
+
+		Matcher target = TARGET.matcher(move);
+		if(!target.find())
+		{
+			throw new IllegalMoveException("No target field in move " + text);
+		}
+		int height = controller.getBoard().getGeometry().getHeight();
+		int toX = this.getX(target.group(1));
+		int toY = this.getY(Integer.parseInt(target.group(3)), height);
+
+		// What remains is the piece, its field or part of it and a separator
+		String origin = move.substring(0, target.start()).replaceAll("[-x:]$", "");
+		PieceType piece = PieceType.PAWN;
+		if(!origin.isEmpty() && Character.isUpperCase(origin.charAt(0)))
+		{
+			piece = this.getPieceType(origin.substring(0, 1));
+			origin = origin.substring(1);
+		}
+		Matcher originMatcher = ORIGIN.matcher(origin);
+		if(!originMatcher.matches())
+		{
+			throw new IllegalMoveException("Cannot read move " + text);
+		}
+		int fromX = (originMatcher.group(1) == null) ? -1 : this.getX(originMatcher.group(1));
+		int fromY = (originMatcher.group(3) == null) ? -1
+				: this.getY(Integer.parseInt(originMatcher.group(3)), height);
+
+		int found = EncodedMove.NONE;
+		PieceFactory factory = PieceFactory.getInstance();
+		for(int i = 0; i < moves.size(); i++)
+		{
+			int candidate = moves.get(i);
+			int from = EncodedMove.getFrom(candidate);
+			int to = EncodedMove.getTo(candidate);
+			if(EncodedMove.x(to) != toX || EncodedMove.y(to) != toY
+					|| (fromX >= 0 && EncodedMove.x(from) != fromX) || (fromY >= 0 && EncodedMove.y(from) != fromY)
+					|| EncodedMove.hasFlag(candidate, EncodedMove.FLAG_SHORT_CASTLING)
+					|| EncodedMove.hasFlag(candidate, EncodedMove.FLAG_LONG_CASTLING))
+			{
+				continue;
+			}
+			Field field = controller.getBoard().getField(EncodedMove.x(from), EncodedMove.y(from));
+			if(factory.getType(controller.getBoard().getPiece(field)) != piece)
+			{
+				continue;
+			}
+			if(EncodedMove.isPromotion(candidate)
+					&& EncodedMove.getPromotedType(candidate) != ((promotion != null) ? promotion : PieceType.QUEEN))
+			{
+				continue;
+			}
+			if(found != EncodedMove.NONE)
+			{
+				throw new IllegalMoveException("Ambiguous move " + text);
+			}
+			found = candidate;
+		}
+		if(found == EncodedMove.NONE)
+		{
+			throw new IllegalMoveException("No legal move " + text);
+		}
+		return found;
+	}
+
+	/**
+	 * Finds the castling move with the given flag.
+	 */
+	private int find(String text, MoveList moves, int flag) throws IllegalMoveException
+	{
+		for(int i = 0; i < moves.size(); i++)
+		{
+			if(EncodedMove.hasFlag(moves.get(i), flag))
+			{
+				return moves.get(i);
+			}
+		}
+		throw new IllegalMoveException("No legal move " + text);
+	}
+
+	private int getX(String file) throws IllegalMoveException
+	{
+		Field field = Field.getFieldFromDesignation(file + "1");
+		if(field == null)
+		{
+			throw new IllegalMoveException("Unknown file " + file);
+		}
+		return field.getPosX();
+	}
+
+	private PieceType getPieceType(String symbol) throws IllegalMoveException
+	{
+		for(PieceType type : PieceType.values())
+		{
+			if(type.getSymbol().equals(symbol))
+			{
+				return type;
+			}
+		}
+		throw new IllegalMoveException("Unknown piece " + symbol);
+	}
+}
@@ -0,0 +1,169 @@
+package jchess.gamelogic.book;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.MoveList;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Opening book written by {@link OpeningBookBuilder}, mapped into memory
+ * read only: positions are looked up by a binary search on the file's pages
+ * without reading the book onto the heap.
+ * <p>
+ * The file starts with a header of four ints: {@link #MAGIC},
+ * {@link #VERSION}, the number of players of the variant and the number of
+ * entries. Every entry holds the Zobrist key of a position (see
+ * {@link jchess.gamelogic.models.IChessboardModel#getZobristKey()}) as a
+ * long, an encoded move and its weight as ints. The entries are sorted by
+ * key and the moves of a position by descending weight. All numbers are big
+ * endian.
+ * <p>
+ * A book covers one variant; books of two and four players are kept in
+ * separate files. Instances are thread safe.
+ */
+public class OpeningBook
+{
+	/** "JCBK" */
+	public static final int MAGIC = 0x4A43424B;
+	public static final int VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int ENTRY_SIZE = 16;
+
+	private final ByteBuffer buffer;
+	private final int playerCount;
+	private final int size;
+
+	/**
+	 * Maps a book into memory.
+	 *
+	 * @param file
+	 *            Book file
+	 * @throws IOException
+	 *             If the file cannot be read or is no valid book
+	 */
+	public OpeningBook(File file) throws IOException
+	{
+		ArgumentChecker.checkForNull(file);
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long length = channel.size();
+			if(length < HEADER_SIZE || length > Integer.MAX_VALUE)
+			{
+				throw new IOException("Invalid size of opening book " + file + ": " + length);
+			}
+			// The mapping stays valid after the channel is closed
+			this.buffer = channel.map(MapMode.READ_ONLY, 0, length);
+		}
+
+		if(buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION)
+		{
+			throw new IOException("No opening book of version " + VERSION + ": " + file);
+		}
+		this.playerCount = buffer.getInt(8);
+		this.size = buffer.getInt(12);
+		if(size < 0 || buffer.capacity() != HEADER_SIZE + (long) size * ENTRY_SIZE)
+		{
+			throw new IOException("Truncated opening book " + file);
+		}
+	}
+
+	/**
+	 * @return Number of players of the book's variant
+	 */
+	public int getPlayerCount()
+	{
+		return playerCount;
+	}
+
+	/**
+	 * @return Number of entries
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Looks up the moves of a position.
+	 *
+	 * @param key
+	 *            Zobrist key of the position
+	 * @return Moves of the position by descending weight, empty if the book
+	 *         does not know it
+	 */
+	public List<BookMove> getMoves(long key)
+	{
+		// Find the first entry of the key
+		int low = 0;
+		int high = size;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(this.getKey(middle) < key)
+			{
+				low = middle + 1;
+			} else
+			{
+				high = middle;
+			}
+		}
+
+		List<BookMove> moves = new ArrayList<BookMove>();
+		for(int i = low; i < size && this.getKey(i) == key; i++)
+		{
+			int offset = HEADER_SIZE + i * ENTRY_SIZE;
+			moves.add(new BookMove(buffer.getInt(offset + 8), buffer.getInt(offset + 12)));
+		}
+		return moves;
+	}
+
+	/**
+	 * Looks up the moves of the active player in the position of a game.
+	 * Moves which are not legal, as the key of another position may be the
+	 * same, are left out.
+	 *
+	 * @param controller
+	 *            Controller of the game
+	 * @return Moves of the position by descending weight, empty if the book
+	 *         does not know it
+	 * @throws IllegalArgumentException
+	 *             If the game is of another variant than the book
+	 */
+	public List<BookMove> getMoves(IChessboardController controller)
+	{
+		ArgumentChecker.checkForNull(controller);
+		if(controller.getPlayerCount() != playerCount)
+		{
+			throw new IllegalArgumentException("Book of " + playerCount + " players cannot be used for a game of "
+					+ controller.getPlayerCount() + "!");
+		}
+
+		List<BookMove> moves = this.getMoves(controller.getBoard().getZobristKey());
+		if(!moves.isEmpty())
+		{
+			MoveList legal = new MoveList();
+			controller.getPossibleMoves(controller.getActivePlayer(), legal);
+			for(int i = moves.size() - 1; i >= 0; i--)
+			{
+				if(!legal.contains(moves.get(i).getMove()))
+				{
+					moves.remove(i);
+				}
+			}
+		}
+		return moves;
+	}
+
+	private long getKey(int index)
+	{
+		return buffer.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+	}
+}
@@ -0,0 +1,318 @@
+package jchess.gamelogic.book;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.controllers.chessboardcontrollers.FourPlayerChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
+import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.util.ArgumentChecker;
+import jchess.util.FileMapParser;
+
+/**
+ * Builds an {@link OpeningBook} of the two or four player variant from
+ * games saved by the game (see
+ * {@link jchess.gamelogic.game.IGame#save(FileMapParser)}) and from PGN files.
+ * Every game is replayed from the start position up to a number of plies;
+ * each move played counts once towards the weight of the move in its
+ * position. A game with a move which cannot be read adds its moves up to
+ * that one.
+ */
+public class OpeningBookBuilder
+{
+	private static Logger log = Logger.getLogger(OpeningBookBuilder.class.getName());
+
+	/** Type of the saved games, e.g. "Game2p" or "Game4pTimed" */
+	private static final Pattern EVENT = Pattern.compile("Game(\\d+)p.*");
+
+	private final int playerCount;
+	private final int maxPlies;
+	/** Number of games of each move by the key of its position */
+	private final Map<Long, Map<Integer, Integer>> positions = new TreeMap<Long, Map<Integer, Integer>>();
+	private int gameCount;
+
+	/**
+	 * @param playerCount
+	 *            Number of players of the variant, 2 or 4
+	 * @param maxPlies
+	 *            Number of moves of each game added to the book
+	 */
+	public OpeningBookBuilder(int playerCount, int maxPlies)
+	{
+		if(playerCount != 2 && playerCount != 4)
+		{
+			throw new IllegalArgumentException("Books are built for two or four players, not " + playerCount + "!");
+		}
+		if(maxPlies < 1)
+		{
+			throw new IllegalArgumentException("Number of plies must be at least 1, was " + maxPlies + "!");
+		}
+		this.playerCount = playerCount;
+		this.maxPlies = maxPlies;
+	}
+
+	/**
+	 * Adds the games of a file, read as PGN if its name ends with ".pgn" and
+	 * as a saved game otherwise.
+	 *
+	 * @param file
+	 *            File to read
+	 * @return Number of games added
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	public int addFile(File file) throws IOException
+	{
+		ArgumentChecker.checkForNull(file);
+		if(file.getName().toLowerCase().endsWith(".pgn"))
+		{
+			try(Reader reader = new BufferedReader(new FileReader(file)))
+			{
+				return this.addPgn(reader);
+			}
+		}
+		FileMapParser parser = new FileMapParser();
+		parser.load(file);
+		return this.addSavedGame(parser) ? 1 : 0;
+	}
+
+	/**
+	 * Adds the games of a PGN text.
+	 *
+	 * @param reader
+	 *            Reader of the text
+	 * @return Number of games added
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	public int addPgn(Reader reader) throws IOException
+	{
+		ArgumentChecker.checkForNull(reader);
+		int added = 0;
+		for(List<String> moves : PgnReader.readGames(reader))
+		{
+			if(this.addGame(moves, MoveNotation.ALGEBRAIC))
+			{
+				added++;
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Adds a saved game if it is of the book's variant.
+	 *
+	 * @param parser
+	 *            Parser the game has been loaded with
+	 * @return True if the game was added
+	 */
+	public boolean addSavedGame(FileMapParser parser)
+	{
+		ArgumentChecker.checkForNull(parser);
+		String event = parser.getProperty("Event");
+		Matcher matcher = EVENT.matcher((event != null) ? event : "");
+		if(!matcher.matches() || Integer.parseInt(matcher.group(1)) != playerCount)
+		{
+			log.log(Level.INFO, "Skipping saved game of type " + event);
+			return false;
+		}
+		String moves = parser.getProperty("Moves");
+		if(moves == null)
+		{
+			return false;
+		}
+
+		// Moves are numbered by rounds, e.g. "1. e7-e5 e2-e4 2. ..."
+		List<String> tokens = new ArrayList<String>();
+		for(String token : moves.trim().split("\\s+"))
+		{
+			if(!token.isEmpty() && !token.matches("\\d+\\."))
+			{
+				tokens.add(token);
+			}
+		}
+		return this.addGame(tokens, MoveNotation.SAVED);
+	}
+
+	/**
+	 * Replays a game from the start position and adds its moves.
+	 *
+	 * @param moves
+	 *            Moves of the game
+	 * @param notation
+	 *            Notation of the moves
+	 * @return True if at least one move was added
+	 */
+	public boolean addGame(List<String> moves, MoveNotation notation)
+	{
+		ArgumentChecker.checkForNull(moves, notation);
+		IChessboardController controller = this.createStartPosition();
+		int plies = 0;
+		for(String text : moves)
+		{
+			if(plies == maxPlies)
+			{
+				break;
+			}
+			try
+			{
+				int move = notation.parse(controller, text);
+				this.count(controller.getBoard().getZobristKey(), move);
+				controller.move(EncodedMove.toMove(move, controller.getBoard()));
+				controller.switchToNextPlayer();
+				plies++;
+			} catch(IllegalMoveException exc)
+			{
+				log.log(Level.WARNING, "Cannot read move " + (plies + 1) + " of a game: " + exc.getMessage());
+				break;
+			}
+		}
+		if(plies > 0)
+		{
+			gameCount++;
+		}
+		return plies > 0;
+	}
+
+	/**
+	 * @return Number of games added
+	 */
+	public int getGameCount()
+	{
+		return gameCount;
+	}
+
+	/**
+	 * @return Number of positions of the book
+	 */
+	public int getPositionCount()
+	{
+		return positions.size();
+	}
+
+	/**
+	 * Writes the book in the format read by {@link OpeningBook}.
+	 *
+	 * @param file
+	 *            File to write
+	 * @throws IOException
+	 *             If writing fails
+	 */
+	public void write(File file) throws IOException
+	{
+		ArgumentChecker.checkForNull(file);
+		int size = 0;
+		for(Map<Integer, Integer> moves : positions.values())
+		{
+			size += moves.size();
+		}
+
+		try(DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file))))
+		{
+			output.writeInt(OpeningBook.MAGIC);
+			output.writeInt(OpeningBook.VERSION);
+			output.writeInt(playerCount);
+			output.writeInt(size);
+			// The tree map is ordered by key like the binary search
+			for(Map.Entry<Long, Map<Integer, Integer>> position : positions.entrySet())
+			{
+				List<Map.Entry<Integer, Integer>> moves = new ArrayList<Map.Entry<Integer, Integer>>(
+						position.getValue().entrySet());
+				Collections.sort(moves, new Comparator<Map.Entry<Integer, Integer>>()
+				{
+					@Override
+					public int compare(Map.Entry<Integer, Integer> first, Map.Entry<Integer, Integer> second)
+					{
+						int byWeight = Integer.compare(second.getValue(), first.getValue());
+						return (byWeight != 0) ? byWeight : Integer.compare(first.getKey(), second.getKey());
+					}
+				});
+				for(Map.Entry<Integer, Integer> move : moves)
+				{
+					output.writeLong(position.getKey());
+					output.writeInt(move.getKey());
+					output.writeInt(move.getValue());
+				}
+			}
+		}
+	}
+
+	private void count(long key, int move)
+	{
+		Map<Integer, Integer> moves = positions.get(key);
+		if(moves == null)
+		{
+			moves = new HashMap<Integer, Integer>();
+			positions.put(key, moves);
+		}
+		Integer weight = moves.get(move);
+		moves.put(move, (weight == null) ? 1 : weight + 1);
+	}
+
+	/**
+	 * Creates a controller of the start position without a view, with the
+	 * players as set up for new games.
+	 */
+	private IChessboardController createStartPosition()
+	{
+		if(playerCount == 2)
+		{
+			return new TwoPlayerChessboardController(null, TwoPlayerChessboardFactory.getInstance(),
+					new Player("p1", Color.WHITE), new Player("p2", Color.BLACK));
+		}
+		return new FourPlayerChessboardController(null, FourPlayerChessboardFactory.getInstance(),
+				new Player("p1", Color.WHITE), new Player("p2", Color.RED), new Player("p3", Color.BLACK),
+				new Player("p4", Color.GOLDEN));
+	}
+
+	/**
+	 * Builds a book from saved games and PGN files.
+	 * Usage: OpeningBookBuilder &lt;players&gt; &lt;plies&gt; &lt;book&gt;
+	 * &lt;file&gt;...
+	 * @param args Number of players of the variant, number of plies of each
+	 *            game to add, the book file to write and the files to read
+	 * @throws IOException If reading or writing fails
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 4)
+		{
+			System.out.println("Usage: OpeningBookBuilder <players> <plies> <book> <file>...");
+			System.out.println("  Files ending with .pgn are read as PGN, others as saved games");
+			return;
+		}
+
+		OpeningBookBuilder builder = new OpeningBookBuilder(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+		for(String name : Arrays.asList(args).subList(3, args.length))
+		{
+			builder.addFile(new File(name));
+		}
+		builder.write(new File(args[2]));
+		System.out.println(builder.getGameCount() + " games, " + builder.getPositionCount() + " positions written to "
+				+ args[2]);
+	}
+}
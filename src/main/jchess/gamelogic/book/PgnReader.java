@@ -0,0 +1,144 @@
+package jchess.gamelogic.book;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the moves of the games in a PGN file. Tags, comments, variations,
+ * move numbers and numeric annotation glyphs are skipped; a game ends with
+ * its result or with the tags of the next game. Games starting from a set up
+ * position (with a FEN tag) are left out, as a book is built from the start
+ * position.
+ */
+final class PgnReader
+{
+	private static final String FEN_TAG = "FEN";
+
+	private final Reader reader;
+	private final List<List<String>> games = new ArrayList<List<String>>();
+	private List<String> moves = new ArrayList<String>();
+	private boolean setUp;
+
+	private PgnReader(Reader reader)
+	{
+		this.reader = reader;
+	}
+
+	/**
+	 * Reads all games.
+	 *
+	 * @param reader
+	 *            Reader of the PGN text
+	 * @return Moves of each game in standard algebraic notation
+	 * @throws IOException
+	 *             If reading fails
+	 */
+	static List<List<String>> readGames(Reader reader) throws IOException
+	{
+		PgnReader pgn = new PgnReader(reader);
+		pgn.read();
+		return pgn.games;
+	}
+
+	private void read() throws IOException
+	{
+		StringBuilder token = new StringBuilder();
+		int variationDepth = 0;
+		int c;
+		while((c = reader.read()) >= 0)
+		{
+			if(c == '{' || c == ';' || c == '[' || c == '(' || c == ')' || Character.isWhitespace(c))
+			{
+				this.addToken(token.toString(), variationDepth);
+				token.setLength(0);
+			}
+
+			if(c == '{')
+			{
+				this.skipTo('}');
+			} else if(c == ';')
+			{
+				this.skipTo('\n');
+			} else if(c == '[')
+			{
+				this.readTag();
+			} else if(c == '(')
+			{
+				variationDepth++;
+			} else if(c == ')')
+			{
+				variationDepth = Math.max(0, variationDepth - 1);
+			} else if(!Character.isWhitespace(c))
+			{
+				token.append((char) c);
+			}
+		}
+		this.addToken(token.toString(), variationDepth);
+		this.endGame();
+	}
+
+	/**
+	 * Takes note of a token of the move text outside of comments.
+	 */
+	private void addToken(String token, int variationDepth)
+	{
+		if(token.isEmpty() || variationDepth > 0 || token.startsWith("$"))
+		{
+			return;
+		}
+		if(token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*"))
+		{
+			this.endGame();
+			return;
+		}
+
+		// Move numbers may stick to the move, e.g. "12.e4" or "12...e5"
+		String move = token.replaceFirst("^\\d+\\.+", "");
+		if(!move.isEmpty())
+		{
+			moves.add(move);
+		}
+	}
+
+	/**
+	 * Reads a tag; tags after move text start the next game.
+	 */
+	private void readTag() throws IOException
+	{
+		if(!moves.isEmpty())
+		{
+			this.endGame();
+		}
+		StringBuilder tag = new StringBuilder();
+		int c;
+		while((c = reader.read()) >= 0 && c != ']')
+		{
+			tag.append((char) c);
+		}
+		if(tag.toString().trim().startsWith(FEN_TAG + " "))
+		{
+			setUp = true;
+		}
+	}
+
+	private void endGame()
+	{
+		if(!moves.isEmpty() && !setUp)
+		{
+			games.add(moves);
+		}
+		moves = new ArrayList<String>();
+		setUp = false;
+	}
+
+	private void skipTo(char end) throws IOException
+	{
+		int c;
+		while((c = reader.read()) >= 0 && c != end)
+		{
+			// Skip the comment
+		}
+	}
+}
@@ -0,0 +1,330 @@
+package jchess.gamelogic.controllers;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import jchess.gamelogic.engine.IEngine;
+import jchess.gamelogic.engine.ISearchListener;
+import jchess.gamelogic.engine.SearchLimits;
+import jchess.gamelogic.engine.SearchResult;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.views.AnalysisView;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Lets an engine analyse the position of a game without limits on a thread
+ * of its own and shows its progress in an {@link AnalysisView}. Each
+ * analysis searches a copy of the position (see
+ * {@link IChessboardController#copyPosition()}) and starts over after every
+ * move. It pauses while the view is not showing, e.g. while the tab of its
+ * game is in the background, and ends for good once the view is removed.
+ * <p>
+ * The engine reports to the analysis thread. The view picks up the latest
+ * report {@link #UPDATES_PER_SECOND} times a second on the event dispatch
+ * thread, which never waits for the engine: a running search is only asked
+ * to stop, and reports of a search asked to stop are dropped.
+ */
+public class AnalysisController implements IMoveHandler
+{
+	private static Logger log = Logger.getLogger(AnalysisController.class.getName());
+
+	/** Rate of the updates of the view */
+	public static final int UPDATES_PER_SECOND = 4;
+
+	private static final SearchLimits NO_LIMITS = new SearchLimits(0, 0, 0);
+
+	private final IChessboardController chessboard;
+	private final IEngine engine;
+	private final AnalysisView view;
+	private final Timer timer;
+	private final Thread thread;
+
+	/** Guards the state shared with the analysis thread below */
+	private final Object lock = new Object();
+	/** Copy of the position to analyse next or null */
+	private IChessboardController position;
+	/** Number of the latest analysis; searches of older ones are stale */
+	private int generation;
+	/** Number of the analysis the engine is searching */
+	private int running = -1;
+	/** Latest report not shown yet or null */
+	private SearchResult latest;
+	private boolean paused = true;
+	private boolean finished;
+
+	/**
+	 * Creates a paused analysis, which resumes as soon as its view is shown.
+	 * The analysis is the move handler of the controller.
+	 *
+	 * @param chessboard
+	 *            Controller of the game
+	 * @param engine
+	 *            Engine used for the analysis only
+	 */
+	public AnalysisController(IChessboardController chessboard, IEngine engine)
+	{
+		ArgumentChecker.checkForNull(chessboard, engine);
+		this.chessboard = chessboard;
+		this.engine = engine;
+		this.view = new AnalysisView();
+		this.timer = new Timer(1000 / UPDATES_PER_SECOND, new ActionListener()
+		{
+			@Override
+			public void actionPerformed(ActionEvent event)
+			{
+				AnalysisController.this.showLatest();
+			}
+		});
+		this.thread = new Thread(new AnalysisThread(), "Analysis");
+		this.thread.setDaemon(true);
+
+		engine.setSearchListener(new ISearchListener()
+		{
+			@Override
+			public void onProgress(SearchResult result)
+			{
+				AnalysisController.this.report(result);
+			}
+		});
+		chessboard.setMoveHandler(this);
+		view.addHierarchyListener(new HierarchyListener()
+		{
+			@Override
+			public void hierarchyChanged(HierarchyEvent event)
+			{
+				if((event.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) != 0 && !view.isDisplayable())
+				{
+					AnalysisController.this.shutdown();
+				} else if((event.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0)
+				{
+					if(view.isShowing())
+					{
+						AnalysisController.this.resume();
+					} else
+					{
+						AnalysisController.this.pause();
+					}
+				}
+			}
+		});
+		view.showPaused();
+	}
+
+	/**
+	 * Returns the view of the analysis.
+	 *
+	 * @return analysis view
+	 */
+	public AnalysisView getView()
+	{
+		return view;
+	}
+
+	/**
+	 * Starts the analysis of the current position unless it has been shut
+	 * down. Must be called on the event dispatch thread.
+	 */
+	public void resume()
+	{
+		synchronized(lock)
+		{
+			if(finished || !paused)
+			{
+				return;
+			}
+			paused = false;
+		}
+		if(thread.getState() == Thread.State.NEW)
+		{
+			thread.start();
+		}
+		timer.start();
+		this.restart();
+	}
+
+	/**
+	 * Stops the running search and waits for {@link #resume()}. Must be
+	 * called on the event dispatch thread.
+	 */
+	public void pause()
+	{
+		synchronized(lock)
+		{
+			if(paused)
+			{
+				return;
+			}
+			paused = true;
+			this.cancel();
+		}
+		timer.stop();
+		view.showPaused();
+	}
+
+	/**
+	 * Starts the analysis over on the current position. Has no effect while
+	 * paused. Must be called on the event dispatch thread.
+	 */
+	public void restart()
+	{
+		if(this.isPaused())
+		{
+			return;
+		}
+		IChessboardController copy = chessboard.copyPosition();
+		synchronized(lock)
+		{
+			this.cancel();
+			position = copy;
+			lock.notifyAll();
+		}
+		view.clear();
+	}
+
+	/**
+	 * Ends the analysis for good and lets its thread finish. Must be called
+	 * on the event dispatch thread.
+	 */
+	public void shutdown()
+	{
+		synchronized(lock)
+		{
+			paused = true;
+			finished = true;
+			this.cancel();
+			lock.notifyAll();
+		}
+		timer.stop();
+		chessboard.setMoveHandler(null);
+	}
+
+	public boolean isPaused()
+	{
+		synchronized(lock)
+		{
+			return paused;
+		}
+	}
+
+	/**
+	 * Starts the analysis over once the turn has passed to the next player.
+	 */
+	@Override
+	public void onMove(Move move)
+	{
+		SwingUtilities.invokeLater(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				AnalysisController.this.restart();
+			}
+		});
+	}
+
+	/**
+	 * Makes the running search stale and asks the engine to stop it. The
+	 * lock must be held.
+	 */
+	private void cancel()
+	{
+		generation++;
+		position = null;
+		latest = null;
+		engine.stop();
+	}
+
+	/**
+	 * Keeps a report of the engine for the view; stops the search if it is
+	 * stale, as a stop request made just before it started is lost.
+	 */
+	private void report(SearchResult result)
+	{
+		synchronized(lock)
+		{
+			if(running != generation)
+			{
+				engine.stop();
+				return;
+			}
+			latest = result;
+		}
+	}
+
+	/**
+	 * @return Latest report not shown yet or null
+	 */
+	SearchResult getLatest()
+	{
+		synchronized(lock)
+		{
+			return latest;
+		}
+	}
+
+	private void showLatest()
+	{
+		SearchResult result;
+		synchronized(lock)
+		{
+			result = latest;
+			latest = null;
+		}
+		if(result != null)
+		{
+			view.showResult(result);
+		}
+	}
+
+	/**
+	 * Analyses the positions handed over one after the other until the
+	 * analysis is shut down.
+	 */
+	private class AnalysisThread implements Runnable
+	{
+		@Override
+		public void run()
+		{
+			while(true)
+			{
+				IChessboardController next;
+				synchronized(lock)
+				{
+					while(!finished && position == null)
+					{
+						try
+						{
+							lock.wait();
+						} catch(InterruptedException exc)
+						{
+							return;
+						}
+					}
+					if(finished)
+					{
+						return;
+					}
+					next = position;
+					position = null;
+					running = generation;
+				}
+
+				try
+				{
+					// The final result tells about positions without any move
+					AnalysisController.this.report(engine.search(next, NO_LIMITS));
+				} catch(RuntimeException exc)
+				{
+					log.log(Level.WARNING, "Analysis failed!", exc);
+				}
+			}
+		}
+	}
+}
@@ -95,6 +95,25 @@ public class GameClockController
 		}
 	}
 	
+	/**
+	 * Returns the time left on the clock of a player.
+	 * 
+	 * @param player
+	 *            Player of the clock
+	 * @return Seconds left
+	 */
+	public int getSecondsLeft(Player player)
+	{
+		for(Clock clock : clocks.getClocks())
+		{
+			if(clock.getPlayer() == player)
+			{
+				return clock.getSecondsLeft();
+			}
+		}
+		throw new IllegalArgumentException("No clock for player " + player);
+	}
+	
 	/**
 	 * Method of checking is the time of the game is not over.
 	 */
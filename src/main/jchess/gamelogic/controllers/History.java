@@ -54,6 +54,7 @@ public class History extends AbstractTableModel implements IHistory
 	
 	private ArrayList<String> move = new ArrayList<String>();
 	private MyDefaultTableModel tableModel;
+	/** Created with the view on first use, so copies for engines have none */
 	private HistoryView view;
 	private JTable table;
 	private Map<Player, List<Move>> moveHistory;
@@ -67,8 +68,6 @@ public class History extends AbstractTableModel implements IHistory
 		this.players = players;
 		this.chessboard = chessboard;
 		this.tableModel = new MyDefaultTableModel();
-		this.table = new JTable(this.tableModel);
-		this.view = new HistoryView(this.table, players.size());
 		this.moveHistory = new HashMap<>();
 		this.lastMove = null;
 		//this.table.setMinimumSize(new Dimension(100, 100));
@@ -119,13 +118,16 @@ public class History extends AbstractTableModel implements IHistory
 	protected void addMove2Table(String str)
 	{
 		int currentColumn = chessboard.getPlayerIndex(chessboard.getActivePlayer());
-		if(currentColumn == 0) {
+		// Histories of copied positions may start with any player
+		if(currentColumn == 0 || currentRowCount == 0) {
 			this.addRow();
 			this.currentRowCount++;
 		}
 		this.tableModel.setValueAt(str, currentRowCount - 1, currentColumn);
 		
-		this.table.scrollRectToVisible(table.getCellRect(table.getRowCount() - 1, 0, true));
+		if(this.table != null) {
+			this.table.scrollRectToVisible(table.getCellRect(table.getRowCount() - 1, 0, true));
+		}
 	}
 
 	@Override
@@ -158,7 +160,9 @@ public class History extends AbstractTableModel implements IHistory
 		this.move.add(moveString);
 		this.addMove2Table(moveString);
 		
-		this.view.scrollRectToVisible(new Rectangle(0, this.view.getHeight() - 2, 1, 1));
+		if(this.view != null) {
+			this.view.scrollRectToVisible(new Rectangle(0, this.view.getHeight() - 2, 1, 1));
+		}
 	}
 	
 	/**
@@ -174,9 +178,19 @@ public class History extends AbstractTableModel implements IHistory
 		this.currentRowCount = 0;
 	}
 
+	/**
+	 * Returns the view of the history, which is created on the first call.
+	 * Must be called on the event dispatch thread.
+	 * 
+	 * @return history view
+	 */
 	@Override
 	public HistoryView getView()
 	{
+		if(this.view == null) {
+			this.table = new JTable(this.tableModel);
+			this.view = new HistoryView(this.table, players.size());
+		}
 		return this.view;
 	}
 	
@@ -4,8 +4,10 @@ import java.util.NoSuchElementException;
 import java.util.Set;
 
 import jchess.gamelogic.Player;
+import jchess.gamelogic.field.EncodedMove;
 import jchess.gamelogic.field.Field;
 import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.MoveList;
 import jchess.gamelogic.models.IChessboardModel;
 import jchess.gamelogic.pieces.Piece;
 import jchess.gamelogic.views.IChessboardView;
@@ -62,6 +64,19 @@ public interface IChessboardController extends LoadSaveable
 	 */
 	public Set<Move> getPossibleMoves(Piece piece, boolean careForCheck);
 	
+	/**
+	 * Adds the legal moves of all pieces of a player to a list of encoded
+	 * moves (see {@link EncodedMove}). Unlike
+	 * {@link #getPossibleMoves(Piece, boolean)} a pawn reaching its promotion
+	 * line yields one move per piece type it can be promoted to.
+	 * 
+	 * @param player
+	 *            Player to get moves for
+	 * @param moves
+	 *            List the moves are added to
+	 */
+	public void getPossibleMoves(Player player, MoveList moves);
+	
 	/**
 	 * Returns the set of fields which currently threaten the given piece.
 	 * 
@@ -127,4 +142,35 @@ public interface IChessboardController extends LoadSaveable
 	 *             if the proposed move is not valid
 	 */
 	public boolean move(Field begin, Field end) throws IllegalMoveException;
+	
+	/**
+	 * Carries out a complete move, e.g. one chosen by an engine. Unlike
+	 * {@link #move(Field, Field)} the user is not asked for the piece a pawn
+	 * is promoted to; it is taken from the move (a queen if there is none).
+	 * 
+	 * @param move
+	 *            Move of the active player
+	 * @throws IllegalMoveException
+	 *             if the move is not valid
+	 */
+	public boolean move(Move move) throws IllegalMoveException;
+	
+	/**
+	 * Sets the handler told about every move carried out by
+	 * {@link #move(Field, Field)} or {@link #move(Move)}.
+	 * 
+	 * @param handler
+	 *            Handler or null for none
+	 */
+	public void setMoveHandler(IMoveHandler handler);
+	
+	/**
+	 * Creates a controller of the same rules and players on a copy of the
+	 * board with the same player to move. It has no view and starts with an
+	 * empty history, so engines may search it on another thread while the
+	 * game goes on.
+	 * 
+	 * @return Controller of the copied position
+	 */
+	public IChessboardController copyPosition();
 }
\ No newline at end of file
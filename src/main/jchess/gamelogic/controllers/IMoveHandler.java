@@ -0,0 +1,15 @@
+package jchess.gamelogic.controllers;
+
+import jchess.gamelogic.field.Move;
+
+public interface IMoveHandler
+{
+	/**
+	 * Called after a move was carried out on the board, before the turn is
+	 * handed to the next player.
+	 * 
+	 * @param move
+	 *            Move carried out
+	 */
+	public void onMove(Move move);
+}
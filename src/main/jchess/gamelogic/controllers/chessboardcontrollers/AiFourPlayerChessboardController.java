@@ -1,6 +1,7 @@
 package jchess.gamelogic.controllers.chessboardcontrollers;
 
 import java.util.Arrays;
+import java.util.List;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.field.Field;
@@ -25,6 +26,13 @@ public class AiFourPlayerChessboardController extends RegularChessboardControlle
 		
 	}
 	
+	@Override
+	protected RegularChessboardController createController(IBoardFactory boardFactory, List<Player> players)
+	{
+		return new AiFourPlayerChessboardController(null, boardFactory, players.get(0), players.get(1),
+		        players.get(2), players.get(3), players.get(4));
+	}
+	
 	@Override
 	protected Move getRookMoveForCastling(Piece piece, CastlingType type)
 	{
@@ -21,6 +21,7 @@
 package jchess.gamelogic.controllers.chessboardcontrollers;
 
 import java.util.Arrays;
+import java.util.List;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.field.Field;
@@ -51,6 +52,13 @@ public class FourPlayerChessboardController extends RegularChessboardController
 				Arrays.asList(new Player[]{white, red, black, golden}));
 	}
 	
+	@Override
+	protected RegularChessboardController createController(IBoardFactory boardFactory, List<Player> players)
+	{
+		return new FourPlayerChessboardController(null, boardFactory, players.get(0), players.get(1),
+				players.get(2), players.get(3));
+	}
+	
 	@Override
 	protected Move getRookMoveForCastling(Piece piece, CastlingType type) {
 		Field field = getBoard().getField(piece);
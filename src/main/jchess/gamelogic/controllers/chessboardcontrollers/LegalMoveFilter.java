@@ -0,0 +1,292 @@
+package jchess.gamelogic.controllers.chessboardcontrollers;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.pieces.King;
+import jchess.gamelogic.pieces.Piece;
+import jchess.util.Direction;
+
+/**
+ * Decides whether moves of one player leave a king in check without making
+ * them on the board. The check rays of all pieces are walked once per
+ * position; from them the filter knows
+ * <ul>
+ * <li>the pieces checking the moving player and the fields which block or
+ * capture them,</li>
+ * <li>the pieces of the moving player pinned to one of its kings,</li>
+ * <li>the pieces of the moving player standing between another player's
+ * piece and a third player's king; moving them away would open up an unfair
+ * check,</li>
+ * <li>the pieces checking each player before the move.</li>
+ * </ul>
+ * Moves of kings, en passant moves and moves capturing a king change the
+ * position in ways the rays do not describe; those still have to be
+ * simulated (see {@link #needsSimulation(Move)}).
+ */
+final class LegalMoveFilter
+{
+	private final IChessboardModel board;
+	private final Player movingPlayer;
+
+	/** Pieces checking each player before the move */
+	private final Map<Player, Set<Piece>> preExistingChecks = new HashMap<Player, Set<Piece>>();
+
+	/**
+	 * Fields which resolve all checks of the moving player's kings, null if
+	 * there are none
+	 */
+	private Set<Field> checkResolvingFields;
+
+	/**
+	 * Fields a piece of the moving player standing on the key may move to
+	 * without opening a check of the moving player or an unfair check
+	 */
+	private final Map<Field, Set<Field>> restrictedFields = new HashMap<Field, Set<Field>>();
+
+	/**
+	 * @param board
+	 *            Board in its current position
+	 * @param movingPlayer
+	 *            Player whose moves are filtered
+	 * @param players
+	 *            All players of the game
+	 */
+	LegalMoveFilter(IChessboardModel board, Player movingPlayer, List<Player> players)
+	{
+		this.board = board;
+		this.movingPlayer = movingPlayer;
+
+		Set<Player> kingOwners = new HashSet<Player>();
+		for(Player player : players)
+		{
+			preExistingChecks.put(player, new HashSet<Piece>());
+			for(Piece piece : board.getPieces(player))
+			{
+				if(piece.getBehaviour() instanceof King)
+				{
+					kingOwners.add(player);
+				}
+			}
+		}
+
+		List<UnfairLine> unfairLines = new ArrayList<UnfairLine>();
+		for(Player player : players)
+		{
+			// Only pieces which have a king of another player to check
+			if(kingOwners.isEmpty() || (kingOwners.size() == 1 && kingOwners.contains(player)))
+			{
+				continue;
+			}
+			for(Piece piece : board.getPieces(player))
+			{
+				for(Direction dir : piece.getBehaviour().getCapturingMovements())
+				{
+					this.scanRay(piece, dir, unfairLines);
+				}
+			}
+		}
+
+		// A piece already checking a player cannot check them unfairly
+		for(UnfairLine line : unfairLines)
+		{
+			Set<Piece> checking = preExistingChecks.get(line.king.getPlayer());
+			if(checking == null || !checking.contains(line.attacker))
+			{
+				this.restrict(line.blocker, line.fields);
+			}
+		}
+	}
+
+	/**
+	 * Walks one capturing direction of a piece the way the controller looks
+	 * for threatened fields and records the checks, pins and unfair check
+	 * lines it finds.
+	 */
+	private void scanRay(Piece attacker, Direction dir, List<UnfairLine> unfairLines)
+	{
+		Field attackerField = board.getField(attacker);
+		Player owner = attacker.getPlayer();
+
+		if(!attacker.getBehaviour().canMoveMultipleSteps())
+		{
+			// Single steps can only be resolved by capturing the attacker
+			Field target = board.getFieldInDirection(attackerField, dir);
+			Piece attacked = (target == null) ? null : board.getPiece(target);
+			if(this.isEnemyKing(attacked, owner))
+			{
+				this.addCheck(attacker, attacked, attackerField, new HashSet<Field>());
+			}
+			return;
+		}
+
+		Set<Field> between = new HashSet<Field>();
+		Piece blocker = null;
+		Field blockerField = null;
+		for(Field field : board.getFieldsInDirection(attackerField, dir))
+		{
+			Piece current = board.getPiece(field);
+			if(current == null)
+			{
+				between.add(field);
+				continue;
+			}
+
+			if(blocker == null)
+			{
+				if(this.isEnemyKing(current, owner))
+				{
+					this.addCheck(attacker, current, attackerField, between);
+					return;
+				}
+				if(current.getPlayer() == owner || current.getPlayer() != movingPlayer || owner == movingPlayer)
+				{
+					// Only pieces of the moving player can open up a line of
+					// another player
+					return;
+				}
+				blocker = current;
+				blockerField = field;
+				between.add(field);
+			} else
+			{
+				if(this.isEnemyKing(current, owner))
+				{
+					// The blocker itself may not move onto the king's field
+					between.remove(blockerField);
+					between.add(attackerField);
+					if(current.getPlayer() == movingPlayer)
+					{
+						// Pinned to its own king
+						this.restrict(blockerField, between);
+					} else
+					{
+						between.add(field);
+						unfairLines.add(new UnfairLine(attacker, blockerField, current, between));
+					}
+				}
+				return;
+			}
+		}
+	}
+
+	private boolean isEnemyKing(Piece piece, Player attacker)
+	{
+		return piece != null && piece.getBehaviour() instanceof King && piece.getPlayer() != attacker;
+	}
+
+	private void addCheck(Piece attacker, Piece king, Field attackerField, Set<Field> between)
+	{
+		Set<Piece> checking = preExistingChecks.get(king.getPlayer());
+		if(checking != null)
+		{
+			checking.add(attacker);
+		}
+
+		if(king.getPlayer() == movingPlayer)
+		{
+			Set<Field> resolving = new HashSet<Field>(between);
+			resolving.add(attackerField);
+			if(checkResolvingFields == null)
+			{
+				checkResolvingFields = resolving;
+			} else
+			{
+				checkResolvingFields.retainAll(resolving);
+			}
+		}
+	}
+
+	private void restrict(Field field, Set<Field> allowed)
+	{
+		Set<Field> restriction = restrictedFields.get(field);
+		if(restriction == null)
+		{
+			restrictedFields.put(field, new HashSet<Field>(allowed));
+		} else
+		{
+			restriction.retainAll(allowed);
+		}
+	}
+
+	/**
+	 * @return Player whose moves are filtered
+	 */
+	Player getMovingPlayer()
+	{
+		return movingPlayer;
+	}
+
+	/**
+	 * @return Map containing the set of pieces checking each player before
+	 *         the move
+	 */
+	Map<Player, Set<Piece>> getPreExistingChecks()
+	{
+		return preExistingChecks;
+	}
+
+	/**
+	 * Checks whether a move has to be made on the board to decide its
+	 * legality. This is the case for moves of kings (including castling), en
+	 * passant moves and moves capturing a king.
+	 *
+	 * @param move
+	 *            Move of the moving player
+	 * @return True if {@link #isLegal(Move)} cannot decide the move
+	 */
+	boolean needsSimulation(Move move)
+	{
+		return move.getMovedPiece().getBehaviour() instanceof King || move.wasEnPassant()
+				|| move.getCastlingMove() != CastlingType.NONE
+				|| (move.getTakenPiece() != null && move.getTakenPiece().getBehaviour() instanceof King);
+	}
+
+	/**
+	 * Checks whether a move leaves the moving player in check or opens up an
+	 * unfair check. Only valid for moves not needing simulation.
+	 *
+	 * @param move
+	 *            Move of the moving player
+	 * @return True if the move is legal
+	 */
+	boolean isLegal(Move move)
+	{
+		if(checkResolvingFields != null && !checkResolvingFields.contains(move.getTo()))
+		{
+			return false;
+		}
+
+		Set<Field> restriction = restrictedFields.get(move.getFrom());
+		return restriction == null || restriction.contains(move.getTo());
+	}
+
+	/**
+	 * Line from a piece over a single piece of the moving player to a third
+	 * player's king.
+	 */
+	private static class UnfairLine
+	{
+		private final Piece attacker;
+		private final Field blocker;
+		private final Piece king;
+		private final Set<Field> fields;
+
+		UnfairLine(Piece attacker, Field blocker, Piece king, Set<Field> fields)
+		{
+			this.attacker = attacker;
+			this.blocker = blocker;
+			this.king = king;
+			this.fields = fields;
+		}
+	}
+}
@@ -1,26 +1,29 @@
 package jchess.gamelogic.controllers.chessboardcontrollers;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import jchess.JChessApp;
 import jchess.gamelogic.Player;
 import jchess.gamelogic.controllers.History;
 import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IMoveHandler;
 import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.field.EncodedMove;
 import jchess.gamelogic.field.Field;
 import jchess.gamelogic.field.Move;
 import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.field.MoveList;
 import jchess.gamelogic.models.IBoardFactory;
 import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
 import jchess.gamelogic.pieces.King;
 import jchess.gamelogic.pieces.Pawn;
 import jchess.gamelogic.pieces.Piece;
@@ -28,12 +31,15 @@ import jchess.gamelogic.pieces.PieceFactory;
 import jchess.gamelogic.pieces.PieceFactory.PieceType;
 import jchess.gamelogic.views.IChessboardView;
 import jchess.gamelogic.views.factories.IChessboardViewFactory;
+import jchess.util.ArgumentChecker;
 import jchess.util.Direction;
 import jchess.util.FileMapParser;
 
 public abstract class RegularChessboardController implements IChessboardController
 {
 	private static Logger log = Logger.getLogger(RegularChessboardController.class.getName());
+	private static final PieceType[] PROMOTION_TYPES = { PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP,
+	        PieceType.KNIGHT };
 	
 	private IChessboardModel board;
 	private IChessboardView view;
@@ -43,6 +49,11 @@ public abstract class RegularChessboardController implements IChessboardControll
 	
 	private History movesHistory;
 	
+	private LegalMoveFilter legalMoveFilter;
+	private long legalMoveFilterKey;
+	
+	private IMoveHandler moveHandler;
+	
 	public RegularChessboardController(IChessboardViewFactory viewFactory, IBoardFactory boardFactory,
 	        List<Player> players)
 	{
@@ -54,6 +65,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 		this.players = players;
 		this.movesHistory = new History(this, players);
 		this.currPlayerIndex = 0;
+		this.board.setActivePlayer(this.getActivePlayer());
 	}
 	
 	@Override
@@ -132,6 +144,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 		{
 			currPlayerIndex = 0;
 		}
+		board.setActivePlayer(this.getActivePlayer());
 	}
 	
 	/*
@@ -147,6 +160,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 		{
 			currPlayerIndex = players.size() - 1;
 		}
+		board.setActivePlayer(this.getActivePlayer());
 	}
 	
 	/*
@@ -173,24 +187,21 @@ public abstract class RegularChessboardController implements IChessboardControll
 			// Pawns only have one direction anyway
 			Direction forward = piece.getBehaviour().getNormalMovements().iterator().next();
 			Field pawnField = board.getField(piece);
-			try {
-    			Field inFrontOfPawn = new Field(pawnField.getPosX() + forward.getX(), pawnField.getPosY() + forward.getY());
-    			
-    			// Pawns cannot jump over pieces even at the start
-    			if(board.getPiece(inFrontOfPawn) == null)
-    			{
-    				Field twoFieldMove = new Field(pawnField.getPosX() + 2 * forward.getX(),
-    				        pawnField.getPosY() + 2 * forward.getY());
-    				
-    				// AND they cannot capture pieces with this move either
-    				if(board.getPiece(twoFieldMove) == null) {
-    					possibleMoves.add(new Move(pawnField, twoFieldMove, piece,
-    							null, CastlingType.NONE, true, null));
-    				}
-    				
-    			}
-			} catch(IllegalArgumentException exc) {
-				// The field is invalid (and thus doesn't exist)
+			// Fields which are not part of the board are null
+			Field inFrontOfPawn = board.getField(pawnField.getPosX() + forward.getX(),
+					pawnField.getPosY() + forward.getY());
+			
+			// Pawns cannot jump over pieces even at the start
+			if(inFrontOfPawn != null && board.getPiece(inFrontOfPawn) == null)
+			{
+				Field twoFieldMove = board.getField(pawnField.getPosX() + 2 * forward.getX(),
+				        pawnField.getPosY() + 2 * forward.getY());
+				
+				// AND they cannot capture pieces with this move either
+				if(twoFieldMove != null && board.getPiece(twoFieldMove) == null) {
+					possibleMoves.add(new Move(pawnField, twoFieldMove, piece,
+							null, CastlingType.NONE, false, null));
+				}
 			}
 		}
 		
@@ -203,23 +214,49 @@ public abstract class RegularChessboardController implements IChessboardControll
 		return possibleMoves;
 	}
 	
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * jchess.gamelogic.field.IChessboardController#getPossibleMoves(jchess.
+	 * gamelogic.Player, jchess.gamelogic.field.MoveList)
+	 */
+	@Override
+	public void getPossibleMoves(Player player, MoveList moves)
+	{
+		for(Piece piece : board.getPieces(player))
+		{
+			for(Move move : this.getPossibleMoves(piece, true))
+			{
+				int encoded = EncodedMove.fromMove(move);
+				if(this.checkForPromotion(piece, move.getTo()))
+				{
+					for(PieceType type : PROMOTION_TYPES)
+					{
+						moves.add(EncodedMove.withPromotion(encoded, type));
+					}
+				} else
+				{
+					moves.add(encoded);
+				}
+			}
+		}
+	}
+	
 	@Override
 	public Set<Field> getPossibleThreats(Piece piece, boolean careForCheck)
 	{
 		Set<Field> threateningFields = new HashSet<Field>();
 		Field target = board.getField(piece);
 		
-		for(Player enemy : players)
+		for(Player enemy : this.getEnemies(piece.getPlayer()))
 		{
-			if(enemy != this.getActivePlayer())
+			for(Piece enemyPiece : board.getAttackers(target, enemy))
 			{
-				// Iterate over all pieces of the player
-				for(Piece enemyPiece : board.getPieces(enemy))
+				// The attack is only a threat if the capture is a legal move
+				if(!careForCheck || this.canMoveTo(enemyPiece, target))
 				{
-					if(this.getPossibleMoves(enemyPiece, careForCheck).contains(target))
-					{
-						threateningFields.add(board.getField(enemyPiece));
-					}
+					threateningFields.add(board.getField(enemyPiece));
 				}
 			}
 		}
@@ -227,6 +264,18 @@ public abstract class RegularChessboardController implements IChessboardControll
 		return threateningFields;
 	}
 	
+	private boolean canMoveTo(Piece piece, Field target)
+	{
+		for(Move move : this.getPossibleMoves(piece, true))
+		{
+			if(move.getTo().equals(target))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	/**
 	 * Removes all fields from the set that would leave the player in a check.
 	 * 
@@ -237,60 +286,96 @@ public abstract class RegularChessboardController implements IChessboardControll
 	 */
 	private void removeMovesResultingInCheck(Piece piece, Set<Move> moves)
 	{
-		// For each move we need to simuate the future board state and see
-		// if we're in check
-		
-		// First store the pre-existing checks of other players
-		Map<Player, Set<Piece>> preExistingChecks = new HashMap<Player, Set<Piece>>();
-		for(Player player : this.players)
-		{
-			preExistingChecks.put(player, this.getPiecesCheckingPlayer(player));
-		}
-		
-		// Store the part of the state that we cannot simply revert
-		Field activeField = null;
-		if(this.getView() != null)
-		{
-			activeField = this.getView().getActiveSquare();
-		}
+		LegalMoveFilter filter = this.getLegalMoveFilter(piece.getPlayer());
 		
 		for(Iterator<Move> fieldIterator = moves.iterator(); fieldIterator.hasNext();)
 		{
 			// We need to use the iterator instead of foreach to be able to
 			// use .remove()
-			Move currMove = fieldIterator.next();
-			Field currField = currMove.getTo();
-			
-			// Simulate the board state
-			IChessboardModel tempModel = board;
-			board = board.copy();
-			
-			try
+			if(!this.isLegalMove(fieldIterator.next(), filter))
 			{
-				this.move(tempModel.getField(piece), currField, false, false, false);
-			} catch(IllegalMoveException exc)
-			{
-				// Should not happen
-				log.log(Level.SEVERE, "Unexpected error while simulating move!", exc);
+				fieldIterator.remove();
 			}
-			
+		}
+	}
+	
+	/**
+	 * Returns the legality filter of the current position for a player. The
+	 * filter is kept until the position or the player changes, so the pieces
+	 * of a player share it.
+	 * 
+	 * @param player
+	 *            Player making the moves
+	 * @return Filter of the current position
+	 */
+	private LegalMoveFilter getLegalMoveFilter(Player player)
+	{
+		long key = board.getZobristKey();
+		if(legalMoveFilter == null || legalMoveFilterKey != key || legalMoveFilter.getMovingPlayer() != player)
+		{
+			legalMoveFilter = new LegalMoveFilter(board, player, players);
+			legalMoveFilterKey = key;
+		}
+		return legalMoveFilter;
+	}
+	
+	/**
+	 * Checks whether a move leaves the moving player in check or opens up an
+	 * unfair check. Most moves are decided by the pins and checks of the
+	 * filter; the others are simulated on the board, which is restored
+	 * afterwards.
+	 * 
+	 * @param move
+	 *            Move to check
+	 * @param filter
+	 *            Filter of the current position for the moving player
+	 * @return True if the move is legal
+	 */
+	private boolean isLegalMove(Move move, LegalMoveFilter filter)
+	{
+		if(!filter.needsSimulation(move))
+		{
+			return filter.isLegal(move);
+		}
+		
+		UndoToken token = board.makeMove(move);
+		try
+		{
 			// If either the currently moving player is in a check OR a check
 			// between non-moving players opens up after the move, we have to
 			// remove it
-			if(this.isChecked(piece.getPlayer()) ||
-					this.isUnfairCheckPresent(preExistingChecks, piece.getPlayer()))
-			{
-				fieldIterator.remove();
-			}
-			
-			// Undo the move again
-			board = tempModel;
+			return !this.isChecked(filter.getMovingPlayer())
+					&& !this.isUnfairCheckPresent(filter.getPreExistingChecks(), filter.getMovingPlayer());
+		} finally
+		{
+			board.unmakeMove(token);
 		}
+	}
+	
+	/**
+	 * Checks whether the player has at least one legal move. Stops at the
+	 * first legal move found instead of filtering every piece's moves.
+	 * 
+	 * @param player
+	 *            Player to check
+	 * @return True if the player can move
+	 */
+	private boolean hasLegalMove(Player player)
+	{
+		LegalMoveFilter filter = this.getLegalMoveFilter(player);
 		
-		if(this.getView() != null)
+		for(Piece piece : board.getPieces(player))
 		{
-			this.getView().select(activeField);
+			for(Move move : this.getPossibleMoves(piece, false))
+			{
+				if(this.isLegalMove(move, filter))
+				{
+					return true;
+				}
+			}
 		}
+		
+		return false;
 	}
 	
 	/**
@@ -371,7 +456,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 		Field rookField = getBoard().getField(rook);
 		
 		// Determine the 'direction' of the castling; e.g. (0, 1) or (-1, 0)
-		Direction castleDir = new Direction(rookField.getPosX() - kingField.getPosX(),
+		Direction castleDir = Direction.of(rookField.getPosX() - kingField.getPosX(),
 				rookField.getPosY() - kingField.getPosY()).signum();
 		
 		// Determine the target field of the rook; this is dependent on the castling
@@ -400,14 +485,16 @@ public abstract class RegularChessboardController implements IChessboardControll
 					kingField.getPosY() + 2*castleDir.getY()));
 			
 			// None of the fields involved must be in check so they must not
-			// be threatened by an enemy
+			// be threatened by any enemy
 			for(Player enemy : this.getEnemies(king.getPlayer())) {
-				if(!this.isAnyThreatenedByPlayer(involvedFields, enemy))
+				if(this.isAnyThreatenedByPlayer(involvedFields, enemy))
 				{
-					return getBoard().getField(kingField.getPosX() + 2*castleDir.getX(),
-							kingField.getPosY() + 2*castleDir.getY());
+					return null;
 				}
 			}
+			
+			return getBoard().getField(kingField.getPosX() + 2*castleDir.getX(),
+					kingField.getPosY() + 2*castleDir.getY());
 		}
 		
 		// No castling possible
@@ -463,6 +550,19 @@ public abstract class RegularChessboardController implements IChessboardControll
 	 */
 	protected abstract Move getRookMoveForCastling(Piece king, CastlingType type);
 	
+	/**
+	 * Creates a controller of the same rules without a view, see
+	 * {@link #copyPosition()}.
+	 * 
+	 * @param boardFactory
+	 *            Factory of the board of the new controller
+	 * @param players
+	 *            Players in the order of their turns
+	 * @return New controller
+	 */
+	protected abstract RegularChessboardController createController(IBoardFactory boardFactory,
+	        List<Player> players);
+	
 	/**
 	 * Returns the list of all fields in a direction a piece might consider
 	 * moving to. This does not include a check for blocking by pieces. The
@@ -474,21 +574,19 @@ public abstract class RegularChessboardController implements IChessboardControll
 	 */
 	private List<Field> getFieldsInDirection(Piece piece, Direction dir)
 	{
-		List<Field> fieldsInDir = new ArrayList<Field>();
 		if(piece.getBehaviour().canMoveMultipleSteps())
 		{
-			// Need to add all fields in direction
-			fieldsInDir.addAll(board.getFieldsInDirection(board.getField(piece), dir));
-		} else
+			// Need all fields in direction; the board's list is only read
+			return board.getFieldsInDirection(board.getField(piece), dir);
+		}
+		
+		// Only a single step possible
+		Field fieldInDir = board.getFieldInDirection(board.getField(piece), dir);
+		if(fieldInDir == null)
 		{
-			// Only a single step possible
-			Field fieldInDir = board.getFieldInDirection(board.getField(piece), dir);
-			if(fieldInDir != null)
-			{
-				fieldsInDir.add(fieldInDir);
-			}
+			return Collections.emptyList();
 		}
-		return fieldsInDir;
+		return Collections.singletonList(fieldInDir);
 	}
 	
 	/**
@@ -515,7 +613,6 @@ public abstract class RegularChessboardController implements IChessboardControll
 	
 	private Set<Move> getEnPassantMoves(Piece piece)
 	{
-		// TODO: for the 4p case we cannot use the last move!
 		Set<Move> enPassantMoves = new HashSet<Move>();
 		
 		// Check if we have a pawn at our hands (precondition for en passant)
@@ -526,22 +623,16 @@ public abstract class RegularChessboardController implements IChessboardControll
 			Direction sidewards = forward.rotate90Deg();
 			
 			Set<Field> candidates = new HashSet<Field>();
-			// Add field on one side
-			try {
-				Field candidate = new Field(pieceField.getPosX() + sidewards.getX(),
-						pieceField.getPosY() + sidewards.getY());
-				candidates.add(candidate);
-			} catch(IllegalArgumentException exc) {
-				// Field doesn't exist
+			// Add the fields on both sides (null if not part of the board)
+			Field oneSide = board.getField(pieceField.getPosX() + sidewards.getX(),
+					pieceField.getPosY() + sidewards.getY());
+			if(oneSide != null) {
+				candidates.add(oneSide);
 			}
-			
-			// Add field on the other side
-			try {
-				Field candidate = new Field(pieceField.getPosX() - sidewards.getX(),
-						pieceField.getPosY() - sidewards.getY());
-				candidates.add(candidate);
-			} catch(IllegalArgumentException exc) {
-				// Field doesn't exist
+			Field otherSide = board.getField(pieceField.getPosX() - sidewards.getX(),
+					pieceField.getPosY() - sidewards.getY());
+			if(otherSide != null) {
+				candidates.add(otherSide);
 			}
 			
 			for(Field candidate : candidates) {
@@ -552,17 +643,16 @@ public abstract class RegularChessboardController implements IChessboardControll
 					// Check it's direction (has to be inverse of our piece)
 					Direction twoMovedDir = ((Pawn)twoMoved.getBehaviour()).getForwardDirection();
 					if(twoMovedDir.invert().equals(forward)) {
-						// Now we can check the history and see if it actually was
-						// a two field pawn move
-						Move lastMove = getHistory().getLastMove(twoMoved.getPlayer());
-						if(lastMove != null &&
-								lastMove.getTo().equals(candidate) &&
-								lastMove.wasPawnTwoFieldsMove()) {
-							// Shift the target field to where our piece will go
-							// and add it to the list
-							enPassantMoves.add(new Move(pieceField, new Field(
-									candidate.getPosX() + forward.getX(),
-									candidate.getPosY() + forward.getY()),
+						// Now we can check the board and see if the pawn's owner
+						// actually moved it by two fields with their last move
+						// Shift the target field to where our piece will go;
+						// with more than two players it may have been
+						// occupied again in the meantime
+						Field target = board.getField(candidate.getPosX() + forward.getX(),
+								candidate.getPosY() + forward.getY());
+						if(candidate.equals(board.getEnPassantField(twoMoved.getPlayer())) &&
+								target != null && board.getPiece(target) == null) {
+							enPassantMoves.add(new Move(pieceField, target,
 									piece, twoMoved, CastlingType.NONE, true, null));
 						}
 					}
@@ -676,7 +766,22 @@ public abstract class RegularChessboardController implements IChessboardControll
 	@Override
 	public boolean isChecked(Player player)
 	{
-		return !this.getPiecesCheckingPlayer(player).isEmpty();
+		for(Piece piece : board.getPieces(player))
+		{
+			if(piece.getBehaviour() instanceof King)
+			{
+				Field kingField = board.getField(piece);
+				for(Player enemy : this.getEnemies(player))
+				{
+					if(board.isAttacked(kingField, enemy))
+					{
+						return true;
+					}
+				}
+			}
+		}
+		
+		return false;
 	}
 	
 	@Override
@@ -706,15 +811,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 	@Override
 	public boolean isCheckmated(Player player)
 	{
-		for(Piece piece : board.getPieces(player))
-		{
-			if(!this.getPossibleMoves(piece, true).isEmpty())
-			{
-				return false;
-			}
-		}
-		
-		return this.isChecked(player);
+		return this.isChecked(player) && !this.hasLegalMove(player);
 	}
 	
 	/*
@@ -725,15 +822,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 	@Override
 	public boolean isStalemate()
 	{
-		for(Piece piece : board.getPieces(this.getActivePlayer()))
-		{
-			if(!this.getPossibleMoves(piece, true).isEmpty())
-			{
-				return false;
-			}
-		}
-		
-		return !this.isChecked(this.getActivePlayer());
+		return !this.isChecked(this.getActivePlayer()) && !this.hasLegalMove(this.getActivePlayer());
 	}
 	
 	/**
@@ -748,18 +837,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 	 */
 	private Set<Piece> isThreatenedByPlayer(Field target, Player player)
 	{
-		Set<Piece> threateningPieces = new HashSet<Piece>();
-		
-		for(Piece piece : board.getPieces(player))
-		{
-			if(this.getThreatenedFieldsInDirection(piece, piece.getBehaviour().getCapturingMovements())
-			        .contains(target))
-			{
-				threateningPieces.add(piece);
-			}
-		}
-		
-		return threateningPieces;
+		return board.getAttackers(target, player);
 	}
 	
 	/**
@@ -776,7 +854,7 @@ public abstract class RegularChessboardController implements IChessboardControll
 	{
 		for(Field target : targets)
 		{
-			if(!this.isThreatenedByPlayer(target, player).isEmpty())
+			if(board.isAttacked(target, player))
 			{
 				return true;
 			}
@@ -833,6 +911,79 @@ public abstract class RegularChessboardController implements IChessboardControll
 		return move(begin, end, true, true, true);
 	}
 	
+	@Override
+	public boolean move(Move move) throws IllegalMoveException
+	{
+		ArgumentChecker.checkForNull(move);
+		Piece movedPiece = board.getPiece(move.getFrom());
+		if(movedPiece == null || movedPiece.getPlayer() != this.getActivePlayer())
+		{
+			throw new IllegalMoveException("No piece of the active player on " + move.getFrom());
+		}
+		
+		// Take the move as generated here so castling and en passant are set
+		Move legalMove = null;
+		for(Move candidate : this.getPossibleMoves(movedPiece, true))
+		{
+			if(candidate.getTo().equals(move.getTo()))
+			{
+				legalMove = candidate;
+			}
+		}
+		if(legalMove == null)
+		{
+			throw new IllegalMoveException("Cannot move " + movedPiece + " to " + move.getTo());
+		}
+		
+		if(movedPiece.getBehaviour() instanceof Pawn && this.checkForPromotion(movedPiece, move.getTo()))
+		{
+			Piece promoted = move.getPromotedPiece();
+			if(promoted == null || promoted.getPlayer() != movedPiece.getPlayer())
+			{
+				promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
+						PieceType.QUEEN);
+			}
+			legalMove = new Move(legalMove.getFrom(), legalMove.getTo(), movedPiece, legalMove.getTakenPiece(),
+					CastlingType.NONE, false, promoted);
+		}
+		
+		board.makeMove(legalMove);
+		if(view != null)
+		{
+			view.unselect();
+			view.render();
+		}
+		this.movesHistory.addMove(legalMove);
+		if(moveHandler != null)
+		{
+			moveHandler.onMove(legalMove);
+		}
+		return true;
+	}
+	
+	@Override
+	public void setMoveHandler(IMoveHandler handler)
+	{
+		this.moveHandler = handler;
+	}
+	
+	@Override
+	public IChessboardController copyPosition()
+	{
+		final IChessboardModel copy = board.copy();
+		RegularChessboardController controller = this.createController(new IBoardFactory()
+		{
+			@Override
+			public IChessboardModel createChessboard(List<Player> players)
+			{
+				return copy;
+			}
+		}, players);
+		controller.currPlayerIndex = currPlayerIndex;
+		copy.setActivePlayer(this.getActivePlayer());
+		return controller;
+	}
+	
 	/**
 	 * Checks whether a given pawn is eligible for promotion. With regular chess
 	 * rules this occurs when a pawn reaches the end of the board. Since
@@ -901,7 +1052,6 @@ public abstract class RegularChessboardController implements IChessboardControll
 				if(enPassantMove.getFrom().equals(begin) &&
 						enPassantMove.getTo().equals(end)) {
 					move = enPassantMove;
-					getBoard().removePiece(board.getField(move.getTakenPiece()));
 				}
 			}
 			
@@ -914,20 +1064,20 @@ public abstract class RegularChessboardController implements IChessboardControll
 				Piece promoted = null;
 				if(newPiece.equals("Queen")) // transform pawn to queen
 				{
-					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), new Direction(0, 0),
+					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
 					        PieceType.QUEEN);
 				} else if(newPiece.equals("Rook")) // transform pawn to rook
 				{
-					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), new Direction(0, 0),
+					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
 					        PieceType.ROOK);
 				} else if(newPiece.equals("Bishop")) // transform pawn to
 				                                     // bishop
 				{
-					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), new Direction(0, 0),
+					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
 					        PieceType.BISHOP);
 				} else if(newPiece.equals("Knight"))// transform pawn to knight
 				{
-					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), new Direction(0, 0),
+					promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
 					        PieceType.KNIGHT);
 				} else
 				{
@@ -935,7 +1085,6 @@ public abstract class RegularChessboardController implements IChessboardControll
 					return false;
 				}
 				
-				board.setPiece(begin, promoted);
 				move = new Move(begin, end, movedPiece, board.getPiece(end), CastlingType.NONE, false, promoted);
 			}
 		} else
@@ -943,15 +1092,8 @@ public abstract class RegularChessboardController implements IChessboardControll
 			move = new Move(begin, end, movedPiece, board.getPiece(end), CastlingType.NONE, false, null);
 		}
 		
-		if(move.getCastlingMove() != CastlingType.NONE)
-		{
-			// Get the move the rook would make
-			Move rookMove = this.getRookMoveForCastling(move.getMovedPiece(), move.getCastlingMove());
-			board.movePiece(rookMove.getMovedPiece(), rookMove.getTo());
-		}
-		
-		board.movePiece(board.getPiece(begin), end);
-		board.getPiece(end).markAsMoved();
+		// The board takes care of captures, the castling rook and promotion
+		board.makeMove(move);
 		
 		if(refresh && view != null)
 		{
@@ -963,6 +1105,10 @@ public abstract class RegularChessboardController implements IChessboardControll
 		{
 			this.movesHistory.addMove(move);
 		}
+		if(moveHandler != null)
+		{
+			moveHandler.onMove(move);
+		}
 		
 		return true;
 	}
@@ -21,6 +21,7 @@
 package jchess.gamelogic.controllers.chessboardcontrollers;
 
 import java.util.Arrays;
+import java.util.List;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.field.Field;
@@ -49,6 +50,12 @@ public class TwoPlayerChessboardController extends RegularChessboardController
 				Arrays.asList(new Player[]{white, black}));
 	}
 	
+	@Override
+	protected RegularChessboardController createController(IBoardFactory boardFactory, List<Player> players)
+	{
+		return new TwoPlayerChessboardController(null, boardFactory, players.get(0), players.get(1));
+	}
+	
 	@Override
 	protected Move getRookMoveForCastling(Piece piece, CastlingType type) {
 		Field field = getBoard().getField(piece);
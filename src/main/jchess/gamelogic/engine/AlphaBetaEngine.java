@@ -0,0 +1,568 @@
+package jchess.gamelogic.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.bitboard.BitboardPosition;
+import jchess.gamelogic.bitboard.Bitboards;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.ArgumentChecker;
+import jchess.util.Direction;
+
+/**
+ * Search engine for the two player rules of
+ * {@link jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController}.
+ * The position is copied into a {@link BitboardPosition} and searched with
+ * iterative deepening negamax and alpha-beta pruning. Leaves are resolved by
+ * a quiescence search over captures and promotions so that positions in the
+ * middle of an exchange are not evaluated. Each iteration searches the
+ * principal variation of the previous one first, and all moves are handed out
+ * by a {@link MovePicker}: the best known moves, then captures by MVV-LVA,
+ * then killer moves, quiet moves by their history score and finally
+ * captures losing material by static exchange evaluation. Quiet moves are
+ * only generated if no earlier move causes a cutoff, and the quiescence
+ * search leaves out losing captures. Positions are evaluated by material and
+ * piece-square tables (see {@link EvaluationWeights}), whose sums the
+ * bitboard position keeps up to date with every move.
+ * <p>
+ * Results are stored in a {@link TranspositionTable} by the Zobrist key of
+ * the bitboard position. They cut off positions searched before on another
+ * path or in an earlier iteration, and their best moves are tried first.
+ * The table is kept between searches and may be shared with other engines.
+ * <p>
+ * An engine instance runs one search at a time.
+ */
+public class AlphaBetaEngine implements IEngine
+{
+	private static Logger log = Logger.getLogger(AlphaBetaEngine.class.getName());
+
+	/** Deepest ply searched, including quiescence search */
+	static final int MAX_PLY = 96;
+	static final int INFINITY = 1000000;
+	/** Score of being mated at the root; mates further away score higher */
+	static final int MATE = 100000;
+
+	/** Number of nodes between checks of the time and node limits */
+	private static final int CHECK_INTERVAL = 1024;
+	/**
+	 * Values of pawn, knight, bishop, rook, queen and king for ordering
+	 * captures; the king captures last
+	 */
+	private static final int[] PIECE_VALUES = { 100, 320, 330, 500, 900, 1000 };
+	/** Piece types by type of the bitboard position */
+	private static final PieceType[] PIECE_TYPES = { PieceType.PAWN, PieceType.KNIGHT, PieceType.BISHOP,
+			PieceType.ROOK, PieceType.QUEEN, PieceType.KING };
+
+	private final TranspositionTable table;
+	/** Values by piece code and square of the bitboard position */
+	private final int[][] squareValues;
+	private volatile boolean stopRequested;
+	private volatile ISearchListener listener;
+
+	private BitboardPosition position;
+	private long nodes;
+	private long nodeLimit;
+	private long deadline;
+	private boolean aborted;
+
+	private final MoveOrdering ordering = new MoveOrdering(MAX_PLY, 2 * PIECE_TYPES.length, Bitboards.SQUARES);
+	private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+	private final BitboardSource source = new BitboardSource();
+	/** Triangular table of the principal variation found at each ply */
+	private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+	private final int[] pvLength = new int[MAX_PLY];
+	/** Moves made from the root to the current node */
+	private final int[] path = new int[MAX_PLY];
+	/** Principal variation of the previous iteration */
+	private int[] previousPv = new int[0];
+
+	/**
+	 * Creates an engine with a transposition table of the default size.
+	 */
+	public AlphaBetaEngine()
+	{
+		this(new TranspositionTable());
+	}
+
+	/**
+	 * Creates an engine storing its results in the given table.
+	 * @param table Transposition table, may be shared with other engines
+	 */
+	public AlphaBetaEngine(TranspositionTable table)
+	{
+		this(table, EvaluationWeights.getDefault());
+	}
+
+	/**
+	 * @param table Transposition table, may be shared with other engines
+	 * @param weights Weights of the evaluation
+	 * @throws IllegalArgumentException if the weights have no tables for
+	 *             8 x 8 boards
+	 */
+	public AlphaBetaEngine(TranspositionTable table, EvaluationWeights weights)
+	{
+		ArgumentChecker.checkForNull(table, weights);
+		this.table = table;
+		this.squareValues = createSquareValues(new PieceSquareEvaluator(weights, Bitboards.SIZE));
+		for(int i = 0; i < MAX_PLY; i++)
+		{
+			pickers[i] = new MovePicker(ordering);
+		}
+	}
+
+	/**
+	 * Evaluates every piece of the bitboard position on every square.
+	 */
+	private static int[][] createSquareValues(PieceSquareEvaluator evaluator)
+	{
+		int[][] values = new int[2 * PIECE_TYPES.length][Bitboards.SQUARES];
+		for(int side = BitboardPosition.WHITE; side <= BitboardPosition.BLACK; side++)
+		{
+			// White moves towards y = 0
+			Direction forward = Direction.of(0, (side == BitboardPosition.WHITE) ? -1 : 1);
+			for(int type = 0; type < PIECE_TYPES.length; type++)
+			{
+				for(int square = 0; square < Bitboards.SQUARES; square++)
+				{
+					values[side * PIECE_TYPES.length + type][square] = evaluator.evaluate(PIECE_TYPES[type], forward,
+							Bitboards.x(square), Bitboards.y(square));
+				}
+			}
+		}
+		return values;
+	}
+
+	public TranspositionTable getTranspositionTable()
+	{
+		return table;
+	}
+
+	@Override
+	public SearchResult search(IChessboardController controller, SearchLimits limits)
+	{
+		ArgumentChecker.checkForNull(controller, limits);
+		stopRequested = false;
+		table.newSearch();
+		return this.search(controller, limits, 1);
+	}
+
+	/**
+	 * Runs a search as part of a parallel search sharing the transposition
+	 * table. Neither the table nor a stop request made before are reset.
+	 * @param controller Controller of the game to search
+	 * @param limits Budget of the search
+	 * @param firstDepth Depth of the first iteration
+	 * @return Result of the deepest completed iteration
+	 */
+	SearchResult search(IChessboardController controller, SearchLimits limits, int firstDepth)
+	{
+
+		Player active = controller.getActivePlayer();
+		Set<Player> enemies = controller.getEnemies(active);
+		if(enemies.size() != 1)
+		{
+			throw new IllegalArgumentException("The engine only supports games with two players!");
+		}
+		Player opponent = enemies.iterator().next();
+		Player white = (controller.getPlayerIndex(active) == 0) ? active : opponent;
+		Player black = (white == active) ? opponent : active;
+		IChessboardModel board = controller.getBoard();
+
+		long start = System.currentTimeMillis();
+		aborted = false;
+		nodes = 0;
+		nodeLimit = limits.getMaxNodes();
+		deadline = (limits.getMaxTimeMillis() > 0) ? start + limits.getMaxTimeMillis() : 0;
+		position = BitboardPosition.fromChessboard(board, white, black, active);
+		position.setSquareValues(squareValues);
+		previousPv = new int[0];
+		ordering.newSearch();
+
+		int maxDepth = (limits.getMaxDepth() > 0) ? Math.min(limits.getMaxDepth(), MAX_PLY / 2) : MAX_PLY / 2;
+		int[] bestLine = new int[0];
+		int bestScore = 0;
+		int completedDepth = 0;
+		for(int depth = Math.min(firstDepth, maxDepth); depth <= maxDepth; depth++)
+		{
+			int score = this.negamax(depth, 0, -INFINITY, INFINITY);
+			if(aborted)
+			{
+				break;
+			}
+
+			bestScore = score;
+			completedDepth = depth;
+			bestLine = new int[pvLength[0]];
+			System.arraycopy(pvTable[0], 0, bestLine, 0, pvLength[0]);
+			previousPv = bestLine;
+			log.log(Level.FINE, "Depth " + depth + " score " + score + " nodes " + nodes);
+			ISearchListener listener = this.listener;
+			if(listener != null)
+			{
+				List<Move> line = this.toMoves(bestLine, board);
+				listener.onProgress(new SearchResult(line.isEmpty() ? null : line.get(0), score, depth, nodes,
+						System.currentTimeMillis() - start, line));
+			}
+
+			// No line can be found beyond a forced mate or the end of the game
+			if(bestLine.length == 0 || Math.abs(score) > SearchResult.MATE_BOUND)
+			{
+				break;
+			}
+		}
+
+		if(completedDepth == 0)
+		{
+			// Not even the first iteration finished; take any legal move
+			int[] moves = new int[BitboardPosition.MAX_MOVES];
+			if(position.generateMoves(moves) > 0)
+			{
+				bestLine = new int[] { moves[0] };
+			}
+		}
+
+		List<Move> line = this.toMoves(bestLine, board);
+		return new SearchResult(line.isEmpty() ? null : line.get(0), bestScore, completedDepth, nodes,
+				System.currentTimeMillis() - start, line);
+	}
+
+	@Override
+	public void stop()
+	{
+		stopRequested = true;
+	}
+
+	/**
+	 * The engine searches on the calling thread only, so there is nothing to
+	 * release.
+	 */
+	@Override
+	public void shutdown()
+	{
+		this.stop();
+	}
+
+	@Override
+	public void setSearchListener(ISearchListener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * Withdraws stop requests before a search started by
+	 * {@link #search(IChessboardController, SearchLimits, int)}.
+	 */
+	void resetStop()
+	{
+		stopRequested = false;
+	}
+
+	private int negamax(int depth, int ply, int alpha, int beta)
+	{
+		pvLength[ply] = 0;
+		boolean inCheck = position.isInCheck(position.getSideToMove());
+		if(inCheck)
+		{
+			// Look deeper into forcing lines
+			depth++;
+		}
+		if(depth <= 0 || ply >= MAX_PLY - 1)
+		{
+			return this.quiescence(ply, alpha, beta);
+		}
+		if(this.isOutOfBudget())
+		{
+			return 0;
+		}
+		nodes++;
+
+		long key = position.getKey();
+		long entry = table.probe(key);
+		int hashMove = BitboardPosition.NO_MOVE;
+		if(entry != TranspositionTable.NO_ENTRY)
+		{
+			hashMove = TranspositionTable.getMove(entry);
+			// The root always searches to find a move
+			if(ply > 0 && TranspositionTable.getDepth(entry) >= depth)
+			{
+				int score = TranspositionTable.getScore(entry, ply);
+				int bound = TranspositionTable.getBound(entry);
+				if(bound == TranspositionTable.BOUND_EXACT
+						|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+						|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha))
+				{
+					return score;
+				}
+			}
+		}
+
+		int side = position.getSideToMove();
+		MovePicker picker = pickers[ply];
+		int pvMove = this.isFollowingPv(ply) ? previousPv[ply] : BitboardPosition.NO_MOVE;
+		picker.start(source, ply, pvMove, hashMove, false);
+
+		int originalAlpha = alpha;
+		int bestMove = BitboardPosition.NO_MOVE;
+		int legal = 0;
+		int move;
+		while((move = picker.next()) != BitboardPosition.NO_MOVE)
+		{
+			path[ply] = move;
+			position.makeMove(move);
+			if(position.isInCheck(side))
+			{
+				position.unmakeMove(move);
+				continue;
+			}
+			legal++;
+			int score = -this.negamax(depth - 1, ply + 1, -beta, -alpha);
+			position.unmakeMove(move);
+
+			if(aborted)
+			{
+				return 0;
+			}
+			if(score > alpha)
+			{
+				alpha = score;
+				bestMove = move;
+				this.updatePv(ply, move);
+				if(alpha >= beta)
+				{
+					if(!BitboardPosition.isCapture(move) && !BitboardPosition.isPromotion(move))
+					{
+						ordering.addCutoff(ply, move, position.getPiece(BitboardPosition.getFrom(move)),
+								BitboardPosition.getTo(move), depth);
+					}
+					table.store(key, move, alpha, depth, TranspositionTable.BOUND_LOWER, ply);
+					return alpha;
+				}
+			}
+		}
+
+		if(legal == 0)
+		{
+			alpha = inCheck ? -MATE + ply : 0;
+			table.store(key, BitboardPosition.NO_MOVE, alpha, depth, TranspositionTable.BOUND_EXACT, ply);
+			return alpha;
+		}
+		table.store(key, bestMove, alpha, depth,
+				(alpha > originalAlpha) ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER, ply);
+		return alpha;
+	}
+
+	/**
+	 * Searches captures and promotions only until the position is quiet. The
+	 * side to move may always stand pat instead, unless it is in check.
+	 */
+	private int quiescence(int ply, int alpha, int beta)
+	{
+		pvLength[ply] = 0;
+		if(this.isOutOfBudget())
+		{
+			return 0;
+		}
+		nodes++;
+
+		int side = position.getSideToMove();
+		boolean inCheck = position.isInCheck(side);
+		if(!inCheck)
+		{
+			int standPat = this.evaluate();
+			if(standPat >= beta || ply >= MAX_PLY - 1)
+			{
+				return standPat;
+			}
+			alpha = Math.max(alpha, standPat);
+		} else if(ply >= MAX_PLY - 1)
+		{
+			return this.evaluate();
+		}
+
+		// Out of check every move is searched
+		MovePicker picker = pickers[ply];
+		picker.start(source, ply, BitboardPosition.NO_MOVE, BitboardPosition.NO_MOVE, !inCheck);
+
+		int legal = 0;
+		int move;
+		while((move = picker.next()) != BitboardPosition.NO_MOVE)
+		{
+			path[ply] = move;
+			position.makeMove(move);
+			if(position.isInCheck(side))
+			{
+				position.unmakeMove(move);
+				continue;
+			}
+			legal++;
+			int score = -this.quiescence(ply + 1, -beta, -alpha);
+			position.unmakeMove(move);
+
+			if(aborted)
+			{
+				return 0;
+			}
+			if(score > alpha)
+			{
+				alpha = score;
+				this.updatePv(ply, move);
+				if(alpha >= beta)
+				{
+					return alpha;
+				}
+			}
+		}
+
+		if(inCheck && legal == 0)
+		{
+			return -MATE + ply;
+		}
+		return alpha;
+	}
+
+	/**
+	 * Checks whether the moves made so far are the start of the previous
+	 * principal variation.
+	 */
+	private boolean isFollowingPv(int ply)
+	{
+		if(ply >= previousPv.length)
+		{
+			return false;
+		}
+		for(int i = 0; i < ply; i++)
+		{
+			if(path[i] != previousPv[i])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void updatePv(int ply, int move)
+	{
+		pvTable[ply][0] = move;
+		System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, pvLength[ply + 1]);
+		pvLength[ply] = pvLength[ply + 1] + 1;
+	}
+
+	/**
+	 * Material and piece-square balance from the view of the side to move.
+	 */
+	private int evaluate()
+	{
+		int side = position.getSideToMove();
+		return position.getScore(side) - position.getScore(1 - side);
+	}
+
+	private boolean isOutOfBudget()
+	{
+		if(!aborted && (nodes % CHECK_INTERVAL) == 0)
+		{
+			aborted = stopRequested || (nodeLimit > 0 && nodes >= nodeLimit)
+					|| (deadline > 0 && System.currentTimeMillis() >= deadline);
+		}
+		return aborted;
+	}
+
+	/**
+	 * Converts a line of encoded moves into moves on copies of the board.
+	 */
+	private List<Move> toMoves(int[] line, IChessboardModel board)
+	{
+		List<Move> moves = new ArrayList<Move>();
+		IChessboardModel copy = board.copy();
+		for(int i = 0; i < line.length; i++)
+		{
+			Move move = position.toMove(line[i], copy);
+			// The best move has to refer to the pieces of the original board
+			moves.add((i == 0) ? position.toMove(line[0], board) : move);
+			copy.makeMove(move);
+			position.makeMove(line[i]);
+		}
+		for(int i = line.length - 1; i >= 0; i--)
+		{
+			position.unmakeMove(line[i]);
+		}
+		return moves;
+	}
+
+	/**
+	 * Hands the moves of the searched bitboard position to the pickers.
+	 */
+	private class BitboardSource implements MovePicker.MoveSource
+	{
+		private final int[] buffer = new int[BitboardPosition.MAX_MOVES];
+
+		@Override
+		public void generateNoisy(MoveList moves)
+		{
+			this.addAll(moves, position.generateNoisyMoves(buffer));
+		}
+
+		@Override
+		public void generateQuiet(MoveList moves)
+		{
+			this.addAll(moves, position.generateQuietMoves(buffer));
+		}
+
+		@Override
+		public boolean isValid(int move)
+		{
+			return position.isPseudoLegal(move);
+		}
+
+		@Override
+		public int scoreNoisy(int move)
+		{
+			int value = 0;
+			int victimValue = 0;
+			if(BitboardPosition.isPromotion(move))
+			{
+				value += PIECE_VALUES[BitboardPosition.getPromotionType(move)];
+			}
+			if(BitboardPosition.isCapture(move))
+			{
+				int victim = position.getPiece(BitboardPosition.getTo(move));
+				// En passant captures a pawn next to the target square
+				victimValue = PIECE_VALUES[(victim == BitboardPosition.NO_PIECE) ? BitboardPosition.PAWN : victim % 6];
+				value += victimValue;
+			}
+			int attackerValue = PIECE_VALUES[position.getPiece(BitboardPosition.getFrom(move)) % 6];
+			// Only captures by more valuable pieces can lose material
+			if(attackerValue > victimValue)
+			{
+				int exchange = position.staticExchange(move, PIECE_VALUES);
+				if(exchange < 0)
+				{
+					return exchange;
+				}
+			}
+			return MoveOrdering.scoreCapture(value, attackerValue);
+		}
+
+		@Override
+		public int scoreQuiet(int move)
+		{
+			return ordering.getHistory(position.getPiece(BitboardPosition.getFrom(move)),
+					BitboardPosition.getTo(move));
+		}
+
+		private void addAll(MoveList moves, int count)
+		{
+			for(int i = 0; i < count; i++)
+			{
+				moves.add(buffer[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package jchess.gamelogic.engine;
+
+import java.util.Random;
+
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IChessboardModel;
+
+/**
+ * Playout policy choosing random moves, with captures and promotions more
+ * likely than quiet moves by a fixed weight. A weight of 1 plays uniformly
+ * random moves.
+ */
+public class CapturePlayoutPolicy implements IPlayoutPolicy
+{
+	/** Weight of captures making playouts end in fewer wild exchanges */
+	public static final int DEFAULT_CAPTURE_WEIGHT = 4;
+
+	private final int captureWeight;
+
+	public CapturePlayoutPolicy()
+	{
+		this(DEFAULT_CAPTURE_WEIGHT);
+	}
+
+	/**
+	 * @param captureWeight
+	 *            How much more likely each capture or promotion is than each
+	 *            quiet move
+	 * @throws IllegalArgumentException
+	 *             if the weight is less than 1
+	 */
+	public CapturePlayoutPolicy(int captureWeight)
+	{
+		if(captureWeight < 1)
+		{
+			throw new IllegalArgumentException("The capture weight must be at least 1!");
+		}
+		this.captureWeight = captureWeight;
+	}
+
+	public int getCaptureWeight()
+	{
+		return captureWeight;
+	}
+
+	@Override
+	public int chooseMove(IChessboardModel board, MoveList moves, Random random)
+	{
+		int total = 0;
+		for(int i = 0; i < moves.size(); i++)
+		{
+			total += this.getWeight(moves.get(i));
+		}
+
+		int pick = random.nextInt(total);
+		for(int i = 0; i < moves.size(); i++)
+		{
+			pick -= this.getWeight(moves.get(i));
+			if(pick < 0)
+			{
+				return i;
+			}
+		}
+		return moves.size() - 1;
+	}
+
+	private int getWeight(int move)
+	{
+		return (EncodedMove.isCapture(move) || EncodedMove.isPromotion(move)) ? captureWeight : 1;
+	}
+}
@@ -0,0 +1,228 @@
+package jchess.gamelogic.engine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Material values and piece-square tables used by the evaluation of the
+ * engines, read from a properties file. The defaults are bundled as
+ * {@code /jchess/resources/evaluation.properties}, which also documents the
+ * keys; files loaded with {@link #load(File)} only need to contain the keys
+ * they change.
+ * <p>
+ * Tables exist per board size. Their rows are counted from the edge the
+ * pawns of a piece's owner promote on (see {@link PieceSquareEvaluator}).
+ * Pieces without a value or table, like the cat, are worth nothing.
+ * Instances are immutable.
+ */
+public final class EvaluationWeights
+{
+	private static final String DEFAULT_RESOURCE = "/jchess/resources/evaluation.properties";
+
+	private static EvaluationWeights defaultWeights;
+	private static Properties defaultProperties;
+
+	/** Values by ordinal of the piece type */
+	private final int[] values = new int[PieceType.values().length];
+	/** Tables by board size, then by ordinal of the piece type; null if missing */
+	private final Map<Integer, int[][]> tables = new HashMap<Integer, int[][]>();
+
+	private EvaluationWeights(Properties properties)
+	{
+		Set<Integer> sizes = getSizes(properties);
+		for(PieceType type : PieceType.values())
+		{
+			String name = type.name().toLowerCase(Locale.ENGLISH);
+			values[type.ordinal()] = parseValue(properties, "value." + name);
+			for(int size : sizes)
+			{
+				String key = "table." + size + "." + name;
+				if(properties.getProperty(key) != null)
+				{
+					if(!tables.containsKey(size))
+					{
+						tables.put(size, new int[PieceType.values().length][]);
+					}
+					tables.get(size)[type.ordinal()] = parseTable(properties, key, size);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return The weights bundled with the game
+	 */
+	public static synchronized EvaluationWeights getDefault()
+	{
+		if(defaultWeights == null)
+		{
+			defaultWeights = new EvaluationWeights(getDefaultProperties());
+		}
+		return defaultWeights;
+	}
+
+	/**
+	 * Reads weights from a properties file. Keys missing in the file keep
+	 * their default values.
+	 * @param file Properties file to read
+	 * @return Weights of the file
+	 * @throws IOException if the file cannot be read
+	 * @throws IllegalArgumentException if a value is malformed
+	 */
+	public static EvaluationWeights load(File file) throws IOException
+	{
+		ArgumentChecker.checkForNull(file);
+		Properties properties = new Properties(getDefaultProperties());
+		try(InputStream inputStream = new FileInputStream(file))
+		{
+			properties.load(inputStream);
+		}
+		return fromProperties(properties);
+	}
+
+	/**
+	 * Creates weights from properties. Missing values are 0 and missing
+	 * tables all zeros; unlike {@link #load(File)} the defaults are not
+	 * filled in unless the properties have them as their defaults.
+	 * @param properties Properties with the keys of the default file
+	 * @return Weights of the properties
+	 * @throws IllegalArgumentException if a value is malformed
+	 */
+	public static EvaluationWeights fromProperties(Properties properties)
+	{
+		ArgumentChecker.checkForNull(properties);
+		return new EvaluationWeights(properties);
+	}
+
+	/**
+	 * @param type Type of the piece
+	 * @return Material value of the piece type
+	 */
+	public int getValue(PieceType type)
+	{
+		ArgumentChecker.checkForNull(type);
+		return values[type.ordinal()];
+	}
+
+	/**
+	 * @param size Width and height of the board
+	 * @return True if there are tables for boards of the size
+	 */
+	public boolean hasTables(int size)
+	{
+		return tables.containsKey(size);
+	}
+
+	/**
+	 * @param type Type of the piece
+	 * @param size Width and height of the board
+	 * @param row Row counted from the edge the owner's pawns promote on
+	 * @param column Column from the left seen from the owner
+	 * @return Entry of the piece-square table or 0 if there is none
+	 */
+	public int getSquareValue(PieceType type, int size, int row, int column)
+	{
+		int[][] sizeTables = tables.get(size);
+		if(sizeTables == null || sizeTables[type.ordinal()] == null)
+		{
+			return 0;
+		}
+		return sizeTables[type.ordinal()][row * size + column];
+	}
+
+	private static synchronized Properties getDefaultProperties()
+	{
+		if(defaultProperties == null)
+		{
+			defaultProperties = new Properties();
+			try(InputStream inputStream = EvaluationWeights.class.getResourceAsStream(DEFAULT_RESOURCE))
+			{
+				if(inputStream == null)
+				{
+					throw new IllegalStateException("Missing resource " + DEFAULT_RESOURCE + "!");
+				}
+				defaultProperties.load(inputStream);
+			}
+			catch(IOException exception)
+			{
+				throw new IllegalStateException("Could not read " + DEFAULT_RESOURCE + "!", exception);
+			}
+		}
+		return defaultProperties;
+	}
+
+	/**
+	 * Collects the board sizes of all table keys.
+	 */
+	private static Set<Integer> getSizes(Properties properties)
+	{
+		Set<Integer> sizes = new TreeSet<Integer>();
+		for(String key : properties.stringPropertyNames())
+		{
+			String[] parts = key.split("\\.");
+			if(parts.length == 3 && parts[0].equals("table"))
+			{
+				try
+				{
+					sizes.add(Integer.parseInt(parts[1]));
+				}
+				catch(NumberFormatException exception)
+				{
+					throw new IllegalArgumentException("Malformed board size in " + key + "!", exception);
+				}
+			}
+		}
+		return sizes;
+	}
+
+	private static int parseValue(Properties properties, String key)
+	{
+		String value = properties.getProperty(key);
+		if(value == null)
+		{
+			return 0;
+		}
+		try
+		{
+			return Integer.parseInt(value.trim());
+		}
+		catch(NumberFormatException exception)
+		{
+			throw new IllegalArgumentException("Malformed value of " + key + ": " + value, exception);
+		}
+	}
+
+	private static int[] parseTable(Properties properties, String key, int size)
+	{
+		String[] entries = properties.getProperty(key).split(",");
+		if(size <= 0 || entries.length != size * size)
+		{
+			throw new IllegalArgumentException(key + " needs " + size + "x" + size + " entries but has "
+					+ entries.length + "!");
+		}
+		int[] table = new int[entries.length];
+		for(int i = 0; i < entries.length; i++)
+		{
+			try
+			{
+				table[i] = Integer.parseInt(entries[i].trim());
+			}
+			catch(NumberFormatException exception)
+			{
+				throw new IllegalArgumentException("Malformed entry of " + key + ": " + entries[i], exception);
+			}
+		}
+		return table;
+	}
+}
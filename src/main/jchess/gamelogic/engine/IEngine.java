@@ -0,0 +1,46 @@
+package jchess.gamelogic.engine;
+
+import jchess.gamelogic.controllers.IChessboardController;
+
+/**
+ * Engine choosing the moves of computer players.
+ */
+public interface IEngine
+{
+	/**
+	 * Searches the best move of the controller's active player in the current
+	 * position. The controller and its board are left unchanged.
+	 * 
+	 * @param controller
+	 *            Controller of the game to search
+	 * @param limits
+	 *            Budget of the search
+	 * @return Result of the deepest completed iteration; its best move is
+	 *         null if the active player has no legal move
+	 * @throws IllegalArgumentException
+	 *             if the engine does not support the controller's rules
+	 */
+	public SearchResult search(IChessboardController controller, SearchLimits limits);
+	
+	/**
+	 * Asks a running search to finish as soon as possible. The search still
+	 * returns the result of its last completed iteration. May be called from
+	 * any thread; has no effect if no search is running.
+	 */
+	public void stop();
+	
+	/**
+	 * Stops a running search and releases the threads the engine keeps
+	 * between searches. The engine must not search afterwards. May be called
+	 * from any thread and more than once.
+	 */
+	public void shutdown();
+	
+	/**
+	 * Sets the listener told about the progress of the following searches.
+	 * 
+	 * @param listener
+	 *            Listener or null for none
+	 */
+	public void setSearchListener(ISearchListener listener);
+}
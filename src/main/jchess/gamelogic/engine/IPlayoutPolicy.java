@@ -0,0 +1,25 @@
+package jchess.gamelogic.engine;
+
+import java.util.Random;
+
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IChessboardModel;
+
+/**
+ * Chooses the moves of the players during the random playouts of
+ * {@link MctsEngine}. Policies are shared by all searching threads and must
+ * not keep any state of a playout.
+ */
+public interface IPlayoutPolicy
+{
+	/**
+	 * @param board
+	 *            Board of the playout, must not be changed
+	 * @param moves
+	 *            Legal moves of the player to move, never empty
+	 * @param random
+	 *            Random number generator of the searching thread
+	 * @return Index of the chosen move in the list
+	 */
+	public int chooseMove(IChessboardModel board, MoveList moves, Random random);
+}
@@ -0,0 +1,18 @@
+package jchess.gamelogic.engine;
+
+/**
+ * Follows a running search, e.g. to show its progress while an engine
+ * analyses a position.
+ */
+public interface ISearchListener
+{
+	/**
+	 * Called on the searching thread whenever the search has a new result,
+	 * e.g. after each completed iteration. A listener may stop the search
+	 * from here.
+	 * 
+	 * @param result
+	 *            Result so far; its time counts from the start of the search
+	 */
+	public void onProgress(SearchResult result);
+}
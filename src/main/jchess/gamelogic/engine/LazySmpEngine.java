@@ -0,0 +1,203 @@
+package jchess.gamelogic.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Parallel version of the {@link AlphaBetaEngine} following the Lazy SMP
+ * scheme: helper threads search the same root position as the calling
+ * thread without any coordination besides a shared
+ * {@link TranspositionTable}. Their results reach the main search through
+ * the table as cutoffs and better ordered moves. The helpers start their
+ * iterative deepening at staggered depths so that they do not all search the
+ * same tree at the same time.
+ * <p>
+ * Only the search of the calling thread decides the result; the helpers are
+ * stopped as soon as it is done. The helper threads are daemon threads kept
+ * by the engine between searches.
+ */
+public class LazySmpEngine implements IEngine
+{
+	private static Logger log = Logger.getLogger(LazySmpEngine.class.getName());
+
+	/** Number of different depths the helpers start at */
+	private static final int DEPTH_STAGGER = 3;
+
+	private final TranspositionTable table;
+	private final AlphaBetaEngine main;
+	private final AlphaBetaEngine[] helpers;
+	private final ExecutorService executor;
+
+	/**
+	 * Creates an engine using one thread per available processor and a
+	 * transposition table of the default size.
+	 */
+	public LazySmpEngine()
+	{
+		this(Runtime.getRuntime().availableProcessors(), new TranspositionTable());
+	}
+
+	/**
+	 * @param threads Number of searching threads including the calling one
+	 * @param table Transposition table shared by all threads
+	 * @throws IllegalArgumentException if there is less than one thread
+	 */
+	public LazySmpEngine(int threads, TranspositionTable table)
+	{
+		this(threads, table, EvaluationWeights.getDefault());
+	}
+
+	/**
+	 * @param threads Number of searching threads including the calling one
+	 * @param table Transposition table shared by all threads
+	 * @param weights Weights of the evaluation of all threads
+	 * @throws IllegalArgumentException if there is less than one thread or
+	 *             the weights have no tables for 8 x 8 boards
+	 */
+	public LazySmpEngine(int threads, TranspositionTable table, EvaluationWeights weights)
+	{
+		ArgumentChecker.checkForNull(table, weights);
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("The engine needs at least one thread!");
+		}
+
+		this.table = table;
+		this.main = new AlphaBetaEngine(table, weights);
+		this.helpers = new AlphaBetaEngine[threads - 1];
+		for(int i = 0; i < helpers.length; i++)
+		{
+			helpers[i] = new AlphaBetaEngine(table, weights);
+		}
+		this.executor = (helpers.length > 0) ? Executors.newFixedThreadPool(helpers.length, new HelperThreadFactory())
+				: null;
+	}
+
+	/**
+	 * @return Number of searching threads including the calling one
+	 */
+	public int getThreadCount()
+	{
+		return helpers.length + 1;
+	}
+
+	public TranspositionTable getTranspositionTable()
+	{
+		return table;
+	}
+
+	@Override
+	public SearchResult search(final IChessboardController controller, SearchLimits limits)
+	{
+		ArgumentChecker.checkForNull(controller, limits);
+		table.newSearch();
+		main.resetStop();
+
+		// Helpers run until the main search is done
+		final SearchLimits helperLimits = new SearchLimits(limits.getMaxDepth(), 0, 0);
+		List<Future<SearchResult>> futures = new ArrayList<Future<SearchResult>>();
+		for(int i = 0; i < helpers.length; i++)
+		{
+			final AlphaBetaEngine helper = helpers[i];
+			final int firstDepth = 2 + i % DEPTH_STAGGER;
+			helper.resetStop();
+			futures.add(executor.submit(new Callable<SearchResult>()
+			{
+				@Override
+				public SearchResult call()
+				{
+					return helper.search(controller, helperLimits, firstDepth);
+				}
+			}));
+		}
+
+		SearchResult result;
+		try
+		{
+			result = main.search(controller, limits, 1);
+		} finally
+		{
+			for(AlphaBetaEngine helper : helpers)
+			{
+				helper.stop();
+			}
+		}
+
+		// The board must not change before all helpers have finished
+		long nodes = result.getNodes();
+		for(Future<SearchResult> future : futures)
+		{
+			try
+			{
+				nodes += future.get().getNodes();
+			} catch(InterruptedException exc)
+			{
+				Thread.currentThread().interrupt();
+			} catch(ExecutionException exc)
+			{
+				log.log(Level.SEVERE, "Helper search failed", exc.getCause());
+			}
+		}
+
+		return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+				result.getMillis(), result.getPrincipalVariation());
+	}
+
+	@Override
+	public void stop()
+	{
+		main.stop();
+		for(AlphaBetaEngine helper : helpers)
+		{
+			helper.stop();
+		}
+	}
+
+	@Override
+	public void shutdown()
+	{
+		this.stop();
+		if(executor != null)
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Only the main search reports its progress; its results count the
+	 * nodes of the main search alone.
+	 */
+	@Override
+	public void setSearchListener(ISearchListener listener)
+	{
+		main.setSearchListener(listener);
+	}
+
+	/**
+	 * Creates the daemon threads of the helper searches.
+	 */
+	static class HelperThreadFactory implements ThreadFactory
+	{
+		private static final AtomicInteger threadNumber = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "Search helper " + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
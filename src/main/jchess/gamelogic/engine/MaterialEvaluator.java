@@ -0,0 +1,53 @@
+package jchess.gamelogic.engine;
+
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.models.IPieceEvaluator;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Values pieces by their material only, wherever they stand, for static
+ * exchange evaluation (see
+ * {@link jchess.gamelogic.models.IChessboardModel#getExchangeValue(Field, jchess.gamelogic.Player, IPieceEvaluator)}).
+ * Kings are worth more than all other pieces together, so an exchange never
+ * has a king capture on a defended field.
+ */
+public class MaterialEvaluator implements IPieceEvaluator
+{
+	/** Value of a king */
+	public static final int KING_VALUE = 20000;
+
+	private static MaterialEvaluator defaultEvaluator;
+
+	private final EvaluationWeights weights;
+
+	/**
+	 * @param weights Weights to take the values of the pieces from
+	 */
+	public MaterialEvaluator(EvaluationWeights weights)
+	{
+		ArgumentChecker.checkForNull(weights);
+		this.weights = weights;
+	}
+
+	/**
+	 * @return Evaluator with the default weights
+	 */
+	public static synchronized MaterialEvaluator getDefault()
+	{
+		if(defaultEvaluator == null)
+		{
+			defaultEvaluator = new MaterialEvaluator(EvaluationWeights.getDefault());
+		}
+		return defaultEvaluator;
+	}
+
+	@Override
+	public int evaluate(Piece piece, Field field)
+	{
+		PieceType type = PieceFactory.getInstance().getType(piece);
+		return (type == PieceType.KING) ? KING_VALUE : weights.getValue(type);
+	}
+}
@@ -0,0 +1,537 @@
+package jchess.gamelogic.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jchess.gamelogic.ai.ICatAi;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.MoveList;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Monte Carlo tree search for the players of the game against the cat
+ * ({@link jchess.gamelogic.game.AiGame}). The cat moves at random and
+ * respawns at random, so its turns are chance nodes of the tree: every
+ * simulation rolls the dice on a {@link PlayoutBoard} and follows the child
+ * of the outcome. The turns of the players are chosen by UCT, each player
+ * maximizing their own chances, and the simulations end in playouts chosen
+ * by an {@link IPlayoutPolicy} which are judged by the material.
+ * <p>
+ * Several threads build the same tree, each simulating on a copy of the
+ * board. Nodes on the way of a running simulation carry a virtual loss, so
+ * that the other threads explore different lines meanwhile. The tree is
+ * guarded by a single lock; the playouts, which take almost all of the time,
+ * run without it.
+ * <p>
+ * The depth limit of a search caps the depth of the tree in turns, counting
+ * those of the cat. Without a node or time limit a search runs
+ * {@link #DEFAULT_PLAYOUTS} playouts. The nodes of the result are the
+ * playouts and its score is the mean reward of the best move scaled to
+ * {@link MultiPlayerEngine#SCORE_SUM}. An engine instance runs one search at
+ * a time.
+ */
+public class MctsEngine implements IEngine
+{
+	private static Logger log = Logger.getLogger(MctsEngine.class.getName());
+
+	/** Exploration constant of UCT for rewards between 0 and 1 */
+	public static final double DEFAULT_EXPLORATION = 0.7;
+	/** Turns a playout lasts at most before the material is counted */
+	public static final int DEFAULT_PLAYOUT_DEPTH = 12;
+	/** Playouts of a search without a node or time limit */
+	public static final int DEFAULT_PLAYOUTS = 1000;
+	/** Playouts of the calling thread between two reports of the progress */
+	private static final int REPORT_INTERVAL = 500;
+
+	private final ICatAi catAi;
+	private final IPlayoutPolicy policy;
+	private final int threads;
+	private final ExecutorService executor;
+	private final Random seeds;
+	private volatile boolean stopRequested;
+	private volatile ISearchListener listener;
+
+	/**
+	 * Creates an engine using one thread per available processor and the
+	 * default playout policy.
+	 *
+	 * @param catAi
+	 *            Cat of the game, telling its timers
+	 */
+	public MctsEngine(ICatAi catAi)
+	{
+		this(catAi, Runtime.getRuntime().availableProcessors(), new CapturePlayoutPolicy(), System.nanoTime());
+	}
+
+	/**
+	 * @param catAi
+	 *            Cat of the game, telling its timers
+	 * @param threads
+	 *            Number of searching threads including the calling one
+	 * @param policy
+	 *            Policy choosing the moves of the playouts
+	 * @param seed
+	 *            Seed of the dice of the simulations
+	 * @throws IllegalArgumentException
+	 *             if there is less than one thread
+	 */
+	public MctsEngine(ICatAi catAi, int threads, IPlayoutPolicy policy, long seed)
+	{
+		ArgumentChecker.checkForNull(catAi, policy);
+		if(threads < 1)
+		{
+			throw new IllegalArgumentException("The engine needs at least one thread!");
+		}
+
+		this.catAi = catAi;
+		this.policy = policy;
+		this.threads = threads;
+		this.seeds = new Random(seed);
+		this.executor = (threads > 1)
+				? Executors.newFixedThreadPool(threads - 1, new LazySmpEngine.HelperThreadFactory()) : null;
+	}
+
+	/**
+	 * @return Number of searching threads including the calling one
+	 */
+	public int getThreadCount()
+	{
+		return threads;
+	}
+
+	public IPlayoutPolicy getPlayoutPolicy()
+	{
+		return policy;
+	}
+
+	@Override
+	public SearchResult search(IChessboardController controller, SearchLimits limits)
+	{
+		ArgumentChecker.checkForNull(controller, limits);
+		if(controller.getPlayerCount() != PlayoutBoard.PLAYERS + 1)
+		{
+			throw new IllegalArgumentException("The engine only supports games against the cat!");
+		}
+		int rootPlayer = controller.getPlayerIndex(controller.getActivePlayer());
+		if(rootPlayer == PlayoutBoard.CAT)
+		{
+			throw new IllegalArgumentException("The engine does not move for the cat!");
+		}
+
+		long start = System.currentTimeMillis();
+		stopRequested = false;
+		final Search search = new Search(rootPlayer, limits, start, listener);
+
+		// All boards are copied before any thread starts searching
+		List<PlayoutBoard> boards = new ArrayList<PlayoutBoard>();
+		for(int i = 0; i < threads; i++)
+		{
+			boards.add(new PlayoutBoard(controller, catAi.getTurnsToWakeUp(), catAi.getTurnsToRespawn()));
+		}
+
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for(int i = 1; i < threads; i++)
+		{
+			final PlayoutBoard board = boards.get(i);
+			final Random random = new Random(seeds.nextLong());
+			futures.add(executor.submit(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					search.run(board, random, null);
+					return null;
+				}
+			}));
+		}
+
+		try
+		{
+			search.run(boards.get(0), new Random(seeds.nextLong()), controller);
+		} finally
+		{
+			search.finished = true;
+		}
+		for(Future<?> future : futures)
+		{
+			try
+			{
+				future.get();
+			} catch(InterruptedException exc)
+			{
+				Thread.currentThread().interrupt();
+			} catch(ExecutionException exc)
+			{
+				log.log(Level.SEVERE, "Helper search failed", exc.getCause());
+			}
+		}
+
+		SearchResult result = search.createResult(controller, boards.get(0),
+				System.currentTimeMillis() - start);
+		log.log(Level.FINE, "Playouts " + result.getNodes() + " depth " + result.getDepth());
+		return result;
+	}
+
+	@Override
+	public void stop()
+	{
+		stopRequested = true;
+	}
+
+	@Override
+	public void shutdown()
+	{
+		this.stop();
+		if(executor != null)
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The calling thread reports the result so far every
+	 * {@link #REPORT_INTERVAL} of its playouts.
+	 */
+	@Override
+	public void setSearchListener(ISearchListener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * Fills in the rewards of a game which ended because a player cannot
+	 * move: a checkmated player loses and the others win, anything else
+	 * counts as a draw.
+	 */
+	static void getTerminalRewards(int player, boolean checkmated, double[] rewards)
+	{
+		for(int i = 0; i < PlayoutBoard.PLAYERS; i++)
+		{
+			if(!checkmated)
+			{
+				rewards[i] = 0.5;
+			} else
+			{
+				rewards[i] = (i == player) ? 0 : 1;
+			}
+		}
+	}
+
+	/**
+	 * Tree and budget of one search, shared by all of its threads.
+	 */
+	private class Search
+	{
+		final Object lock = new Object();
+		final Node root;
+		final int maxDepth;
+		final long maxPlayouts;
+		final long start;
+		final long deadline;
+		final ISearchListener listener;
+		final AtomicLong playouts = new AtomicLong();
+		volatile boolean finished;
+		/** Deepest simulation in turns, guarded by the lock */
+		int depth;
+
+		Search(int rootPlayer, SearchLimits limits, long start, ISearchListener listener)
+		{
+			this.start = start;
+			this.listener = listener;
+			root = new Node(EncodedMove.NONE, rootPlayer);
+			maxDepth = limits.getMaxDepth();
+			if(limits.getMaxNodes() == 0 && limits.getMaxTimeMillis() == 0)
+			{
+				maxPlayouts = DEFAULT_PLAYOUTS;
+			} else
+			{
+				maxPlayouts = limits.getMaxNodes();
+			}
+			deadline = (limits.getMaxTimeMillis() > 0) ? start + limits.getMaxTimeMillis() : 0;
+		}
+
+		/**
+		 * Runs simulations on the given board until the budget is spent.
+		 * 
+		 * @param controller
+		 *            Controller searched to report the progress on or null
+		 *            if this thread does not report
+		 */
+		void run(PlayoutBoard board, Random random, IChessboardController controller)
+		{
+			int sinceReport = 0;
+			MoveList moves = new MoveList();
+			double[] rewards = new double[PlayoutBoard.PLAYERS];
+			List<Node> path = new ArrayList<Node>();
+			while(!finished && !stopRequested && (deadline == 0 || System.currentTimeMillis() < deadline))
+			{
+				if(maxPlayouts > 0 && playouts.getAndIncrement() >= maxPlayouts)
+				{
+					break;
+				}
+				this.simulate(board, random, moves, rewards, path);
+				board.rewind();
+				if(controller != null && listener != null && ++sinceReport >= REPORT_INTERVAL)
+				{
+					sinceReport = 0;
+					SearchResult result;
+					synchronized(lock)
+					{
+						result = this.createResult(controller, board, System.currentTimeMillis() - start);
+					}
+					listener.onProgress(result);
+				}
+			}
+		}
+
+		/**
+		 * Walks down the tree to a new node, plays out from there and adds
+		 * the result to all nodes on the way.
+		 */
+		private void simulate(PlayoutBoard board, Random random, MoveList moves, double[] rewards, List<Node> path)
+		{
+			path.clear();
+			Node node = root;
+			path.add(node);
+			boolean expanded = false;
+			while(!expanded && (maxDepth == 0 || path.size() <= maxDepth))
+			{
+				Node child;
+				if(node.turn == PlayoutBoard.CAT)
+				{
+					long outcome = board.playCatTurn(random);
+					synchronized(lock)
+					{
+						child = node.outcomes.get(outcome);
+						if(child == null)
+						{
+							child = new Node(EncodedMove.NONE, 0);
+							node.outcomes.put(outcome, child);
+							expanded = true;
+						}
+						child.virtualLoss++;
+					}
+				} else
+				{
+					this.generateMoves(node, board, moves);
+					synchronized(lock)
+					{
+						if(node.terminal)
+						{
+							break;
+						}
+						if(node.untried > 0)
+						{
+							child = new Node(node.moves[--node.untried], node.turn + 1);
+							node.children.add(child);
+							expanded = true;
+						} else
+						{
+							child = node.select(node.turn);
+						}
+						child.virtualLoss++;
+					}
+					board.makeMove(child.move);
+				}
+				node = child;
+				path.add(node);
+			}
+
+			if(node.terminal)
+			{
+				getTerminalRewards(node.turn, node.checked, rewards);
+			} else
+			{
+				this.playout(board, random, moves, rewards);
+			}
+
+			synchronized(lock)
+			{
+				depth = Math.max(depth, path.size() - 1);
+				for(Node visited : path)
+				{
+					visited.visits++;
+					if(visited != root)
+					{
+						visited.virtualLoss--;
+					}
+					for(int i = 0; i < rewards.length; i++)
+					{
+						visited.rewards[i] += rewards[i];
+					}
+				}
+			}
+		}
+
+		/**
+		 * Lists the moves of a node reached for the first time. The moves
+		 * are generated without holding the lock; if another thread was
+		 * faster, its list is kept.
+		 */
+		private void generateMoves(Node node, PlayoutBoard board, MoveList moves)
+		{
+			synchronized(lock)
+			{
+				if(node.moves != null)
+				{
+					return;
+				}
+			}
+			moves.clear();
+			board.getMoves(moves);
+			boolean checked = moves.isEmpty() && board.isChecked();
+			synchronized(lock)
+			{
+				if(node.moves == null)
+				{
+					node.moves = moves.toArray();
+					node.untried = node.moves.length;
+					node.terminal = moves.isEmpty();
+					node.checked = checked;
+				}
+			}
+		}
+
+		private void playout(PlayoutBoard board, Random random, MoveList moves, double[] rewards)
+		{
+			for(int i = 0; i < DEFAULT_PLAYOUT_DEPTH; i++)
+			{
+				if(board.getTurn() == PlayoutBoard.CAT)
+				{
+					board.playCatTurn(random);
+					continue;
+				}
+				moves.clear();
+				board.getMoves(moves);
+				if(moves.isEmpty())
+				{
+					getTerminalRewards(board.getTurn(), board.isChecked(), rewards);
+					return;
+				}
+				board.makeMove(moves.get(policy.chooseMove(board.getBoard(), moves, random)));
+			}
+			board.evaluate(rewards);
+		}
+
+		/**
+		 * The most visited move of the root is the best one; the line
+		 * follows the most visited moves up to the cat's turn.
+		 */
+		SearchResult createResult(IChessboardController controller, PlayoutBoard board, long millis)
+		{
+			List<Integer> line = new ArrayList<Integer>();
+			Node node = root;
+			while(node.turn != PlayoutBoard.CAT && !node.children.isEmpty())
+			{
+				node = node.getMostVisited();
+				line.add(node.move);
+			}
+
+			if(line.isEmpty() && !root.terminal)
+			{
+				// Not a single simulation finished; take any legal move
+				MoveList moves = new MoveList();
+				board.getMoves(moves);
+				if(!moves.isEmpty())
+				{
+					line.add(moves.get(0));
+				}
+			}
+
+			int[] encoded = new int[line.size()];
+			for(int i = 0; i < encoded.length; i++)
+			{
+				encoded[i] = line.get(i);
+			}
+			List<Move> moves = MultiPlayerEngine.toMoves(encoded, controller.getBoard());
+
+			int score = 0;
+			if(!root.children.isEmpty())
+			{
+				Node best = root.getMostVisited();
+				score = (int) Math.round(MultiPlayerEngine.SCORE_SUM * best.rewards[root.turn] / best.visits);
+			}
+			return new SearchResult(moves.isEmpty() ? null : moves.get(0), score, depth, root.visits, millis, moves);
+		}
+	}
+
+	/**
+	 * Node of the search tree, reached by a move of a player or by an
+	 * outcome of the cat's turn. All fields are guarded by the lock of the
+	 * search.
+	 */
+	private static class Node
+	{
+		final int move;
+		/** Index of the player to move or of the cat */
+		final int turn;
+		final List<Node> children = new ArrayList<Node>();
+		/** Children of a chance node by outcome of the cat's turn */
+		final Map<Long, Node> outcomes = new HashMap<Long, Node>();
+		final double[] rewards = new double[PlayoutBoard.PLAYERS];
+		int visits;
+		int virtualLoss;
+
+		/** Legal moves, the first ones not tried yet, null until known */
+		int[] moves;
+		int untried;
+		boolean terminal;
+		boolean checked;
+
+		Node(int move, int turn)
+		{
+			this.move = move;
+			this.turn = turn;
+		}
+
+		/**
+		 * UCT: the child with the best reward of the given player plus a
+		 * bonus for rarely visited children. Virtual losses count as visits
+		 * without reward.
+		 */
+		Node select(int player)
+		{
+			double logVisits = Math.log(visits + virtualLoss + 1);
+			Node best = null;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			for(Node child : children)
+			{
+				double count = child.visits + child.virtualLoss;
+				double value = child.rewards[player] / count
+						+ DEFAULT_EXPLORATION * Math.sqrt(logVisits / count);
+				if(value > bestValue)
+				{
+					best = child;
+					bestValue = value;
+				}
+			}
+			return best;
+		}
+
+		Node getMostVisited()
+		{
+			Node best = children.get(0);
+			for(Node child : children)
+			{
+				if(child.visits > best.visits)
+				{
+					best = child;
+				}
+			}
+			return best;
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package jchess.gamelogic.engine;
+
+import java.util.Arrays;
+
+/**
+ * Heuristics ordering the moves of a search, independent of how moves are
+ * encoded and of the number of players: captures are scored by the value of
+ * the captured piece first and of the capturing piece second (MVV-LVA),
+ * quiet moves that caused a cutoff are kept as killer moves of their ply,
+ * and every such cutoff adds to a history table indexed by the moving piece
+ * and its target square. Engines tell apart the pieces by an index of their
+ * own, e.g. the piece code of a bitboard position or the player and the type
+ * of the piece.
+ * <p>
+ * Instances belong to one searching thread. {@link MovePicker} hands out
+ * the moves of a node in this order.
+ */
+final class MoveOrdering
+{
+	/** Killer moves kept per ply */
+	static final int KILLERS = 2;
+
+	/** Weight of the victim's value against the attacker's value */
+	private static final int VICTIM_WEIGHT = 1024;
+	/** History entries are halved once one of them gets larger */
+	private static final int MAX_HISTORY = 1 << 20;
+
+	private final int[][] killers;
+	/** Cutoff counts weighted by depth, by piece index and target square */
+	private final int[][] history;
+
+	/**
+	 * @param maxPly Deepest ply searched
+	 * @param pieces Number of piece indices
+	 * @param squares Number of squares of the board
+	 */
+	MoveOrdering(int maxPly, int pieces, int squares)
+	{
+		killers = new int[maxPly][KILLERS];
+		history = new int[pieces][squares];
+	}
+
+	/**
+	 * Prepares a new search: killers are forgotten, the history is halved so
+	 * that it favours what was learned recently.
+	 */
+	void newSearch()
+	{
+		for(int[] plyKillers : killers)
+		{
+			Arrays.fill(plyKillers, 0);
+		}
+		this.ageHistory();
+	}
+
+	/**
+	 * @return Score of a capture; more valuable victims come first, then
+	 *         cheaper attackers
+	 */
+	static int scoreCapture(int victimValue, int attackerValue)
+	{
+		return VICTIM_WEIGHT * victimValue - attackerValue;
+	}
+
+	int getKiller(int ply, int slot)
+	{
+		return killers[ply][slot];
+	}
+
+	boolean isKiller(int ply, int move)
+	{
+		for(int killer : killers[ply])
+		{
+			if(killer == move)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Records a quiet move that caused a cutoff.
+	 * @param ply Ply of the node
+	 * @param move Encoded move
+	 * @param piece Index of the moving piece
+	 * @param square Target square of the move
+	 * @param depth Remaining depth of the node
+	 */
+	void addCutoff(int ply, int move, int piece, int square, int depth)
+	{
+		if(killers[ply][0] != move)
+		{
+			System.arraycopy(killers[ply], 0, killers[ply], 1, KILLERS - 1);
+			killers[ply][0] = move;
+		}
+		history[piece][square] += depth * depth;
+		if(history[piece][square] > MAX_HISTORY)
+		{
+			this.ageHistory();
+		}
+	}
+
+	int getHistory(int piece, int square)
+	{
+		return history[piece][square];
+	}
+
+	private void ageHistory()
+	{
+		for(int[] entries : history)
+		{
+			for(int i = 0; i < entries.length; i++)
+			{
+				entries[i] >>= 1;
+			}
+		}
+	}
+}
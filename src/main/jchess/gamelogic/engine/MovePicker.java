@@ -0,0 +1,241 @@
+package jchess.gamelogic.engine;
+
+import jchess.gamelogic.field.MoveList;
+
+/**
+ * Hands out the moves of a search node one by one in stages, so that a
+ * cutoff early on saves the work of the later stages:
+ * <ol>
+ * <li>the moves known to be best, i.e. those of the previous principal
+ * variation and of the transposition table,</li>
+ * <li>captures and promotions with a score of at least 0, best scored
+ * first,</li>
+ * <li>the killer moves of the ply,</li>
+ * <li>the remaining quiet moves by their history score,</li>
+ * <li>captures and promotions with a negative score, i.e. those losing
+ * material by static exchange evaluation.</li>
+ * </ol>
+ * Quiet moves are only generated once the fourth stage is reached. Moves of
+ * the first and third stage come from other positions and are checked by
+ * the {@link MoveSource} before they are handed out. Pickers limited to
+ * captures and promotions, as in quiescence search, leave out the losing
+ * ones. Moves are encoded ints with 0 meaning no move.
+ * <p>
+ * Every ply of a search needs a picker of its own.
+ */
+final class MovePicker
+{
+	/**
+	 * Position specific part of the picker.
+	 */
+	interface MoveSource
+	{
+		/**
+		 * Adds the captures and promotions of the player to move.
+		 */
+		void generateNoisy(MoveList moves);
+
+		/**
+		 * Adds all other moves of the player to move.
+		 */
+		void generateQuiet(MoveList moves);
+
+		/**
+		 * @return True if the move is one of the moves generated in the
+		 *         current position
+		 */
+		boolean isValid(int move);
+
+		/**
+		 * @return Order of a capture or promotion, higher is tried first;
+		 *         negative if it loses material
+		 */
+		int scoreNoisy(int move);
+
+		/**
+		 * @return Order of a quiet move, higher is tried first
+		 */
+		int scoreQuiet(int move);
+	}
+
+	private static final int BEST = 0;
+	private static final int NOISY = 1;
+	private static final int KILLERS = 2;
+	private static final int QUIET = 3;
+	private static final int BAD_NOISY = 4;
+	private static final int DONE = 5;
+
+	private final MoveOrdering ordering;
+	private final MoveList noisyMoves = new MoveList();
+	private int[] noisyScores = new int[64];
+	private final MoveList quietMoves = new MoveList();
+	private int[] quietScores = new int[256];
+	private final int[] best = new int[2];
+
+	private MoveSource source;
+	private int ply;
+	private boolean noisyOnly;
+	private int stage;
+	private int index;
+	/** Index of the first losing capture or promotion */
+	private int badNoisy;
+
+	MovePicker(MoveOrdering ordering)
+	{
+		this.ordering = ordering;
+	}
+
+	/**
+	 * Starts handing out the moves of a node.
+	 * @param source Source of the moves of the node
+	 * @param ply Ply of the node
+	 * @param first Move to try first or 0
+	 * @param second Move to try second or 0
+	 * @param noisyOnly Whether to stop after the captures and promotions
+	 */
+	void start(MoveSource source, int ply, int first, int second, boolean noisyOnly)
+	{
+		this.source = source;
+		this.ply = ply;
+		this.noisyOnly = noisyOnly;
+		best[0] = first;
+		best[1] = (second != first) ? second : 0;
+		stage = BEST;
+		index = 0;
+	}
+
+	/**
+	 * @return Next move or 0 once all moves are handed out
+	 */
+	int next()
+	{
+		while(true)
+		{
+			switch(stage)
+			{
+			case BEST:
+				while(index < best.length)
+				{
+					int move = best[index++];
+					if(move != 0 && source.isValid(move))
+					{
+						return move;
+					}
+					best[index - 1] = 0;
+				}
+				noisyMoves.clear();
+				source.generateNoisy(noisyMoves);
+				noisyScores = this.scoreMoves(noisyMoves, noisyScores, true);
+				this.nextStage(NOISY);
+				break;
+			case NOISY:
+				while(index < noisyMoves.size())
+				{
+					if(noisyScores[this.selectBest(noisyMoves, noisyScores)] < 0)
+					{
+						break;
+					}
+					int move = noisyMoves.get(index++);
+					if(!this.isBest(move))
+					{
+						return move;
+					}
+				}
+				badNoisy = index;
+				this.nextStage(noisyOnly ? DONE : KILLERS);
+				break;
+			case KILLERS:
+				while(index < MoveOrdering.KILLERS)
+				{
+					int move = ordering.getKiller(ply, index++);
+					if(move != 0 && !this.isBest(move) && source.isValid(move))
+					{
+						return move;
+					}
+				}
+				quietMoves.clear();
+				source.generateQuiet(quietMoves);
+				quietScores = this.scoreMoves(quietMoves, quietScores, false);
+				this.nextStage(QUIET);
+				break;
+			case QUIET:
+				while(index < quietMoves.size())
+				{
+					this.selectBest(quietMoves, quietScores);
+					int move = quietMoves.get(index++);
+					if(!this.isBest(move) && !ordering.isKiller(ply, move))
+					{
+						return move;
+					}
+				}
+				this.nextStage(BAD_NOISY);
+				index = badNoisy;
+				break;
+			case BAD_NOISY:
+				while(index < noisyMoves.size())
+				{
+					this.selectBest(noisyMoves, noisyScores);
+					int move = noisyMoves.get(index++);
+					if(!this.isBest(move))
+					{
+						return move;
+					}
+				}
+				this.nextStage(DONE);
+				break;
+			default:
+				return 0;
+			}
+		}
+	}
+
+	private void nextStage(int next)
+	{
+		stage = next;
+		index = 0;
+	}
+
+	private boolean isBest(int move)
+	{
+		return move == best[0] || move == best[1];
+	}
+
+	/**
+	 * Scores the moves into the buffer, which is replaced by a larger one if
+	 * needed.
+	 * @return The buffer holding the scores
+	 */
+	private int[] scoreMoves(MoveList moves, int[] scores, boolean noisy)
+	{
+		if(scores.length < moves.size())
+		{
+			scores = new int[moves.size() * 2];
+		}
+		for(int i = 0; i < moves.size(); i++)
+		{
+			scores[i] = noisy ? source.scoreNoisy(moves.get(i)) : source.scoreQuiet(moves.get(i));
+		}
+		return scores;
+	}
+
+	/**
+	 * Swaps the best scored remaining move to the current index.
+	 * @return The current index
+	 */
+	private int selectBest(MoveList moves, int[] scores)
+	{
+		int bestIndex = index;
+		for(int i = index + 1; i < moves.size(); i++)
+		{
+			if(scores[i] > scores[bestIndex])
+			{
+				bestIndex = i;
+			}
+		}
+		moves.swap(bestIndex, index);
+		int score = scores[bestIndex];
+		scores[bestIndex] = scores[index];
+		scores[index] = score;
+		return index;
+	}
+}
@@ -0,0 +1,673 @@
+package jchess.gamelogic.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.FourPlayerChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IBoardFactory;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Search engine for the four player rules of
+ * {@link FourPlayerChessboardController}. The moves are generated by a
+ * controller of its own working on a copy of the board, so the turn order
+ * and the rule against unfair checks between the players not moving are
+ * those of the game. As in the game, the first player to be checkmated ends
+ * it.
+ * <p>
+ * Two algorithms are available (see {@link Mode}). Both deepen iteratively
+ * until the limits are reached and return the result of the deepest
+ * completed iteration. Best moves are kept in a {@link TranspositionTable}
+ * keyed by the Zobrist keys of the board and tried first in later
+ * iterations, followed by captures by MVV-LVA, killer moves, quiet moves by
+ * their history score and captures losing material by static exchange
+ * evaluation (see {@link MovePicker}).
+ * <p>
+ * Every player has a material and piece-square sum of its own (see
+ * {@link EvaluationWeights}), which the board copy keeps up to date with
+ * every move. Max^n splits the score among the players by their sums,
+ * leaving out players below zero, while paranoid scores the root player's
+ * sum against the average of the others.
+ * <p>
+ * An engine instance runs one search at a time.
+ */
+public class MultiPlayerEngine implements IEngine
+{
+	private static Logger log = Logger.getLogger(MultiPlayerEngine.class.getName());
+
+	/**
+	 * Search algorithms for more than two players.
+	 */
+	public enum Mode
+	{
+		/**
+		 * Every player maximizes their own share of the evaluation. Scores are
+		 * vectors with one entry per player which always add up to the same
+		 * sum, which allows shallow pruning.
+		 */
+		MAX_N,
+		/**
+		 * The player to move at the root assumes that all other players play
+		 * against them, which turns the game into a two player game searched
+		 * with alpha-beta pruning.
+		 */
+		PARANOID
+	}
+
+	static final int MAX_PLY = 32;
+	static final int INFINITY = 1000000;
+	/** Score of being checkmated at the root in paranoid search */
+	static final int MATE = 100000;
+	/** Sum of the score vectors of max^n search */
+	static final int SCORE_SUM = 10000;
+
+	private static final int PLAYERS = 4;
+	/** Number of nodes between checks of the time and node limits */
+	private static final int CHECK_INTERVAL = 16;
+	/** Values in centipawns by ordinal of the piece type for ordering captures */
+	static final int[] PIECE_VALUES = new int[PieceType.values().length];
+	/** Keys telling apart paranoid scores of different root players */
+	private static final long[] ROOT_KEYS = new long[PLAYERS];
+
+	static
+	{
+		PIECE_VALUES[PieceType.PAWN.ordinal()] = 100;
+		PIECE_VALUES[PieceType.KNIGHT.ordinal()] = 320;
+		PIECE_VALUES[PieceType.BISHOP.ordinal()] = 330;
+		PIECE_VALUES[PieceType.ROOK.ordinal()] = 500;
+		PIECE_VALUES[PieceType.QUEEN.ordinal()] = 900;
+		// The king captures last
+		PIECE_VALUES[PieceType.KING.ordinal()] = 1000;
+
+		Random random = new Random(0x4D6178734EL);
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			ROOT_KEYS[i] = random.nextLong();
+		}
+	}
+
+	private final Mode mode;
+	private final TranspositionTable table;
+	private final EvaluationWeights weights;
+	private volatile boolean stopRequested;
+	private volatile ISearchListener listener;
+
+	private IChessboardController searchController;
+	private IChessboardModel board;
+	private Player[] players;
+	private int rootPlayer;
+	private long rootKey;
+	private long nodes;
+	private long nodeLimit;
+	private long deadline;
+	private boolean aborted;
+
+	private final MoveOrdering ordering = new MoveOrdering(MAX_PLY, PLAYERS * PieceType.values().length,
+			EncodedMove.BOARD_WIDTH * EncodedMove.BOARD_WIDTH);
+	private final ModelSource[] sources = new ModelSource[MAX_PLY];
+	private final MovePicker[] pickers = new MovePicker[MAX_PLY];
+	/** Triangular table of the principal variation found at each ply */
+	private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+	private final int[] pvLength = new int[MAX_PLY];
+
+	/**
+	 * Creates a paranoid engine with a transposition table of the default
+	 * size.
+	 */
+	public MultiPlayerEngine()
+	{
+		this(Mode.PARANOID, new TranspositionTable());
+	}
+
+	/**
+	 * @param mode Search algorithm
+	 * @param table Transposition table, may be shared with other engines
+	 */
+	public MultiPlayerEngine(Mode mode, TranspositionTable table)
+	{
+		this(mode, table, EvaluationWeights.getDefault());
+	}
+
+	/**
+	 * @param mode Search algorithm
+	 * @param table Transposition table, may be shared with other engines
+	 * @param weights Weights of the evaluation; they need tables for the
+	 *            size of the boards searched
+	 */
+	public MultiPlayerEngine(Mode mode, TranspositionTable table, EvaluationWeights weights)
+	{
+		ArgumentChecker.checkForNull(mode, table, weights);
+		this.mode = mode;
+		this.table = table;
+		this.weights = weights;
+		for(int i = 0; i < MAX_PLY; i++)
+		{
+			sources[i] = new ModelSource();
+			pickers[i] = new MovePicker(ordering);
+		}
+	}
+
+	public Mode getMode()
+	{
+		return mode;
+	}
+
+	@Override
+	public SearchResult search(IChessboardController controller, SearchLimits limits)
+	{
+		ArgumentChecker.checkForNull(controller, limits);
+		if(controller.getPlayerCount() != PLAYERS)
+		{
+			throw new IllegalArgumentException("The engine only supports games with four players!");
+		}
+
+		long start = System.currentTimeMillis();
+		stopRequested = false;
+		aborted = false;
+		nodes = 0;
+		nodeLimit = limits.getMaxNodes();
+		deadline = (limits.getMaxTimeMillis() > 0) ? start + limits.getMaxTimeMillis() : 0;
+		table.newSearch();
+		ordering.newSearch();
+		this.createSearchController(controller);
+		rootKey = (mode == Mode.PARANOID) ? ROOT_KEYS[rootPlayer] : 0L;
+
+		int maxDepth = (limits.getMaxDepth() > 0) ? Math.min(limits.getMaxDepth(), MAX_PLY - 1) : MAX_PLY - 1;
+		int[] bestLine = new int[0];
+		int bestScore = 0;
+		int completedDepth = 0;
+		for(int depth = 1; depth <= maxDepth; depth++)
+		{
+			int score = (mode == Mode.PARANOID) ? this.paranoid(depth, 0, -INFINITY, INFINITY)
+					: this.maxn(depth, 0, -1)[rootPlayer];
+			if(aborted)
+			{
+				break;
+			}
+
+			bestScore = score;
+			completedDepth = depth;
+			bestLine = new int[pvLength[0]];
+			System.arraycopy(pvTable[0], 0, bestLine, 0, pvLength[0]);
+			log.log(Level.FINE, "Depth " + depth + " score " + score + " nodes " + nodes);
+			ISearchListener listener = this.listener;
+			if(listener != null)
+			{
+				List<Move> line = toMoves(bestLine, controller.getBoard());
+				listener.onProgress(new SearchResult(line.isEmpty() ? null : line.get(0), score, depth, nodes,
+						System.currentTimeMillis() - start, line));
+			}
+
+			// No line can be found beyond the end of the game
+			if(bestLine.length == 0 || (mode == Mode.PARANOID && Math.abs(score) > SearchResult.MATE_BOUND))
+			{
+				break;
+			}
+		}
+
+		if(completedDepth == 0)
+		{
+			// Not even the first iteration finished; take any legal move
+			MoveList moves = sources[0].generate(rootPlayer);
+			if(!moves.isEmpty())
+			{
+				bestLine = new int[] { moves.get(0) };
+			}
+		}
+
+		List<Move> line = toMoves(bestLine, controller.getBoard());
+		searchController = null;
+		board = null;
+		return new SearchResult(line.isEmpty() ? null : line.get(0), bestScore, completedDepth, nodes,
+				System.currentTimeMillis() - start, line);
+	}
+
+	@Override
+	public void stop()
+	{
+		stopRequested = true;
+	}
+
+	/**
+	 * The engine searches on the calling thread only, so there is nothing to
+	 * release.
+	 */
+	@Override
+	public void shutdown()
+	{
+		this.stop();
+	}
+
+	@Override
+	public void setSearchListener(ISearchListener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * Sets up a controller of the four player rules on a copy of the
+	 * controller's board with the same players and active player.
+	 */
+	private void createSearchController(IChessboardController controller)
+	{
+		Player active = controller.getActivePlayer();
+		players = new Player[PLAYERS];
+		players[controller.getPlayerIndex(active)] = active;
+		for(Player player : controller.getEnemies(active))
+		{
+			players[controller.getPlayerIndex(player)] = player;
+		}
+		for(Player player : controller.getAllies(active))
+		{
+			players[controller.getPlayerIndex(player)] = player;
+		}
+
+		final IChessboardModel copy = controller.getBoard().copy();
+		searchController = new FourPlayerChessboardController(null, new IBoardFactory()
+		{
+			@Override
+			public IChessboardModel createChessboard(List<Player> players)
+			{
+				return copy;
+			}
+		}, players[0], players[1], players[2], players[3]);
+		while(searchController.getActivePlayer() != active)
+		{
+			searchController.switchToNextPlayer();
+		}
+		board = copy;
+		board.setPieceEvaluator(new PieceSquareEvaluator(weights, board.getGeometry().getWidth()));
+		rootPlayer = controller.getPlayerIndex(active);
+	}
+
+	/**
+	 * Paranoid search: the root player maximizes the score, all others
+	 * minimize it.
+	 * @return Score from the view of the root player
+	 */
+	private int paranoid(int depth, int ply, int alpha, int beta)
+	{
+		pvLength[ply] = 0;
+		if(this.isOutOfBudget())
+		{
+			return 0;
+		}
+		nodes++;
+
+		// Checkmates at the leaves are found one iteration later
+		if(depth <= 0)
+		{
+			return this.evaluateParanoid();
+		}
+		int player = this.getPlayerToMove(ply);
+		if(sources[ply].generate(player).isEmpty())
+		{
+			if(!searchController.isChecked(players[player]))
+			{
+				return 0;
+			}
+			return (player == rootPlayer) ? -MATE + ply : MATE - ply;
+		}
+
+		long key = board.getZobristKey() ^ rootKey;
+		long entry = table.probe(key);
+		int hashMove = EncodedMove.NONE;
+		if(entry != TranspositionTable.NO_ENTRY)
+		{
+			hashMove = TranspositionTable.getMove(entry);
+			if(ply > 0 && TranspositionTable.getDepth(entry) >= depth)
+			{
+				int score = TranspositionTable.getScore(entry, ply);
+				int bound = TranspositionTable.getBound(entry);
+				if(bound == TranspositionTable.BOUND_EXACT
+						|| (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+						|| (bound == TranspositionTable.BOUND_UPPER && score <= alpha))
+				{
+					return score;
+				}
+			}
+		}
+		MovePicker picker = pickers[ply];
+		picker.start(sources[ply], ply, hashMove, EncodedMove.NONE, false);
+
+		boolean maximizing = player == rootPlayer;
+		int originalAlpha = alpha;
+		int originalBeta = beta;
+		int best = maximizing ? -INFINITY : INFINITY;
+		int bestMove = EncodedMove.NONE;
+		int move;
+		while((move = picker.next()) != EncodedMove.NONE)
+		{
+			UndoToken token = board.makeMove(EncodedMove.toMove(move, board));
+			searchController.switchToNextPlayer();
+			int score = this.paranoid(depth - 1, ply + 1, alpha, beta);
+			searchController.switchToPreviousPlayer();
+			board.unmakeMove(token);
+
+			if(aborted)
+			{
+				return 0;
+			}
+			if(maximizing ? score > best : score < best)
+			{
+				best = score;
+				bestMove = move;
+				this.updatePv(ply, move);
+				if(maximizing)
+				{
+					alpha = Math.max(alpha, score);
+				} else
+				{
+					beta = Math.min(beta, score);
+				}
+				if(alpha >= beta)
+				{
+					this.addCutoff(ply, move, player, depth);
+					break;
+				}
+			}
+		}
+
+		int bound;
+		if(best <= originalAlpha)
+		{
+			bound = TranspositionTable.BOUND_UPPER;
+		} else if(best >= originalBeta)
+		{
+			bound = TranspositionTable.BOUND_LOWER;
+		} else
+		{
+			bound = TranspositionTable.BOUND_EXACT;
+		}
+		table.store(key, bestMove, best, depth, bound, ply);
+		return best;
+	}
+
+	/**
+	 * Max^n search with shallow pruning: a node is left as soon as the score
+	 * of its player is so high that the player moving at the parent node
+	 * cannot get more than they already have.
+	 * @param parentBest Score the player moving at the parent node has
+	 *            already secured or -1 if none
+	 * @return Score vector by player index
+	 */
+	private int[] maxn(int depth, int ply, int parentBest)
+	{
+		pvLength[ply] = 0;
+		if(this.isOutOfBudget())
+		{
+			return new int[PLAYERS];
+		}
+		nodes++;
+
+		if(depth <= 0)
+		{
+			return this.evaluateMaxn();
+		}
+		int player = this.getPlayerToMove(ply);
+		if(sources[ply].generate(player).isEmpty())
+		{
+			return this.getTerminalScores(player, searchController.isChecked(players[player]));
+		}
+
+		long key = board.getZobristKey();
+		long entry = table.probe(key);
+		MovePicker picker = pickers[ply];
+		picker.start(sources[ply], ply,
+				(entry == TranspositionTable.NO_ENTRY) ? EncodedMove.NONE : TranspositionTable.getMove(entry),
+				EncodedMove.NONE, false);
+
+		int[] best = null;
+		int bestMove = EncodedMove.NONE;
+		int move;
+		while((move = picker.next()) != EncodedMove.NONE)
+		{
+			UndoToken token = board.makeMove(EncodedMove.toMove(move, board));
+			searchController.switchToNextPlayer();
+			int[] scores = this.maxn(depth - 1, ply + 1, (best == null) ? -1 : best[player]);
+			searchController.switchToPreviousPlayer();
+			board.unmakeMove(token);
+
+			if(aborted)
+			{
+				return scores;
+			}
+			if(best == null || scores[player] > best[player])
+			{
+				best = scores;
+				bestMove = move;
+				this.updatePv(ply, move);
+				if(parentBest >= 0 && best[player] >= SCORE_SUM - parentBest)
+				{
+					this.addCutoff(ply, move, player, depth);
+					break;
+				}
+			}
+		}
+
+		// Only the move is of use; scores depend on the path in max^n
+		table.store(key, bestMove, 0, depth, TranspositionTable.BOUND_NONE, ply);
+		return best;
+	}
+
+	private int getPlayerToMove(int ply)
+	{
+		return (rootPlayer + ply) % PLAYERS;
+	}
+
+	/**
+	 * Scores when a player cannot move: a checkmated player gets nothing
+	 * and the others share the sum, a stalemate is a draw.
+	 */
+	private int[] getTerminalScores(int player, boolean checkmated)
+	{
+		int[] scores = new int[PLAYERS];
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			if(!checkmated)
+			{
+				scores[i] = SCORE_SUM / PLAYERS;
+			} else if(i != player)
+			{
+				scores[i] = SCORE_SUM / (PLAYERS - 1);
+			}
+		}
+		return scores;
+	}
+
+	/**
+	 * Share of the evaluation of every player. Players scoring below zero
+	 * get no share.
+	 */
+	private int[] evaluateMaxn()
+	{
+		int[] evaluation = new int[PLAYERS];
+		int total = 0;
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			evaluation[i] = Math.max(board.getScore(players[i]), 0);
+			total += evaluation[i];
+		}
+
+		int[] scores = new int[PLAYERS];
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			scores[i] = (total == 0) ? SCORE_SUM / PLAYERS : (int) ((long) SCORE_SUM * evaluation[i] / total);
+		}
+		return scores;
+	}
+
+	/**
+	 * Evaluation of the root player against the average of the others.
+	 */
+	private int evaluateParanoid()
+	{
+		int score = 0;
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			int evaluation = board.getScore(players[i]);
+			score += (i == rootPlayer) ? (PLAYERS - 1) * evaluation : -evaluation;
+		}
+		return score / (PLAYERS - 1);
+	}
+
+	/**
+	 * Records a quiet move which caused a cutoff for the move ordering.
+	 */
+	private void addCutoff(int ply, int move, int player, int depth)
+	{
+		if(!EncodedMove.isCapture(move) && !EncodedMove.isPromotion(move))
+		{
+			ordering.addCutoff(ply, move, this.getPieceIndex(player, EncodedMove.getFrom(move)),
+					EncodedMove.getTo(move), depth);
+		}
+	}
+
+	/**
+	 * @return Index of the piece on the square in the history table
+	 */
+	private int getPieceIndex(int player, int square)
+	{
+		Piece piece = board.getPiece(board.getField(EncodedMove.x(square), EncodedMove.y(square)));
+		return player * PieceType.values().length + PieceFactory.getInstance().getType(piece).ordinal();
+	}
+
+	private void updatePv(int ply, int move)
+	{
+		pvTable[ply][0] = move;
+		System.arraycopy(pvTable[ply + 1], 0, pvTable[ply], 1, pvLength[ply + 1]);
+		pvLength[ply] = pvLength[ply + 1] + 1;
+	}
+
+	private boolean isOutOfBudget()
+	{
+		if(!aborted && (nodes % CHECK_INTERVAL) == 0)
+		{
+			aborted = stopRequested || (nodeLimit > 0 && nodes >= nodeLimit)
+					|| (deadline > 0 && System.currentTimeMillis() >= deadline);
+		}
+		return aborted;
+	}
+
+	/**
+	 * Converts a line of encoded moves into moves on copies of the board.
+	 */
+	static List<Move> toMoves(int[] line, IChessboardModel original)
+	{
+		List<Move> moves = new ArrayList<Move>();
+		IChessboardModel copy = original.copy();
+		for(int i = 0; i < line.length; i++)
+		{
+			Move move = EncodedMove.toMove(line[i], copy);
+			// The best move has to refer to the pieces of the original board
+			moves.add((i == 0) ? EncodedMove.toMove(line[0], original) : move);
+			copy.makeMove(move);
+		}
+		return moves;
+	}
+
+	/**
+	 * Legal moves of the player to move at one ply. They are all generated
+	 * at once by the controller, which is needed to tell whether the game
+	 * is over anyway, and handed to the picker in parts.
+	 */
+	private class ModelSource implements MovePicker.MoveSource
+	{
+		private final MoveList moves = new MoveList();
+		private int player;
+
+		/**
+		 * Generates the legal moves of the player.
+		 * @return All legal moves
+		 */
+		MoveList generate(int player)
+		{
+			this.player = player;
+			moves.clear();
+			searchController.getPossibleMoves(players[player], moves);
+			return moves;
+		}
+
+		@Override
+		public void generateNoisy(MoveList noisy)
+		{
+			for(int i = 0; i < moves.size(); i++)
+			{
+				if(this.isNoisy(moves.get(i)))
+				{
+					noisy.add(moves.get(i));
+				}
+			}
+		}
+
+		@Override
+		public void generateQuiet(MoveList quiet)
+		{
+			for(int i = 0; i < moves.size(); i++)
+			{
+				if(!this.isNoisy(moves.get(i)))
+				{
+					quiet.add(moves.get(i));
+				}
+			}
+		}
+
+		@Override
+		public boolean isValid(int move)
+		{
+			return moves.contains(move);
+		}
+
+		@Override
+		public int scoreNoisy(int move)
+		{
+			int value = 0;
+			PieceType promoted = EncodedMove.getPromotedType(move);
+			if(promoted != null)
+			{
+				value += PIECE_VALUES[promoted.ordinal()];
+			}
+			PieceType captured = EncodedMove.getCapturedType(move);
+			int victimValue = (captured == null) ? 0 : PIECE_VALUES[captured.ordinal()];
+			value += victimValue;
+			int attackerValue = PIECE_VALUES[getPieceIndex(player, EncodedMove.getFrom(move))
+					% PieceType.values().length];
+			// Only captures by more valuable pieces can lose material
+			if(captured != null && attackerValue > victimValue)
+			{
+				int to = EncodedMove.getTo(move);
+				int exchange = board.getExchangeValue(board.getField(EncodedMove.x(to), EncodedMove.y(to)),
+						players[player], MaterialEvaluator.getDefault());
+				if(exchange < 0)
+				{
+					return exchange;
+				}
+			}
+			return MoveOrdering.scoreCapture(value, attackerValue);
+		}
+
+		@Override
+		public int scoreQuiet(int move)
+		{
+			return ordering.getHistory(getPieceIndex(player, EncodedMove.getFrom(move)), EncodedMove.getTo(move));
+		}
+
+		private boolean isNoisy(int move)
+		{
+			return EncodedMove.isCapture(move) || EncodedMove.isPromotion(move);
+		}
+	}
+}
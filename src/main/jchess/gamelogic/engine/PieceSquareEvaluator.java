@@ -0,0 +1,105 @@
+package jchess.gamelogic.engine;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.models.IPieceEvaluator;
+import jchess.gamelogic.pieces.Pawn;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.ArgumentChecker;
+import jchess.util.Direction;
+
+/**
+ * Values pieces by their material and the piece-square tables of
+ * {@link EvaluationWeights} for one board size. The tables are written from
+ * the view of a pawn moving towards y = 0 and are turned for every pawn by
+ * its forward direction, so the four pawn orientations of the four player
+ * board share one table. Other pieces are turned towards their owner on
+ * 8 x 8 boards, where white starts at the bottom; on other boards their
+ * tables are used as they are.
+ * <p>
+ * Handed to a board model, the evaluator lets the model keep the score of
+ * every player up to date with each move (see
+ * {@link jchess.gamelogic.models.IChessboardModel#setPieceEvaluator(IPieceEvaluator)}).
+ */
+public class PieceSquareEvaluator implements IPieceEvaluator
+{
+	private static final Direction UP = Direction.of(0, -1);
+	private static final Direction DOWN = Direction.of(0, 1);
+
+	private final EvaluationWeights weights;
+	private final int size;
+
+	/**
+	 * @param weights Weights to evaluate with
+	 * @param size Width and height of the board
+	 * @throws IllegalArgumentException if the weights have no tables for
+	 *             the size
+	 */
+	public PieceSquareEvaluator(EvaluationWeights weights, int size)
+	{
+		ArgumentChecker.checkForNull(weights);
+		if(!weights.hasTables(size))
+		{
+			throw new IllegalArgumentException("No piece-square tables for boards of size " + size + "!");
+		}
+		this.weights = weights;
+		this.size = size;
+	}
+
+	public int getSize()
+	{
+		return size;
+	}
+
+	@Override
+	public int evaluate(Piece piece, Field field)
+	{
+		Direction forward;
+		if(piece.getBehaviour() instanceof Pawn)
+		{
+			forward = ((Pawn) piece.getBehaviour()).getForwardDirection();
+		} else if(size == 8)
+		{
+			forward = (piece.getPlayer().getColor() == Player.Color.WHITE) ? UP : DOWN;
+		} else
+		{
+			forward = UP;
+		}
+		return this.evaluate(PieceFactory.getInstance().getType(piece), forward, field.getPosX(), field.getPosY());
+	}
+
+	/**
+	 * Values a piece given by its type and orientation.
+	 * @param type Type of the piece
+	 * @param forward Direction the table is turned to; (0, -1) uses it as
+	 *            it is
+	 * @param x Column of the field
+	 * @param y Row of the field
+	 * @return Material and table value of the piece on the field
+	 */
+	public int evaluate(PieceType type, Direction forward, int x, int y)
+	{
+		int row;
+		int column;
+		if(forward.getY() < 0)
+		{
+			row = y;
+			column = x;
+		} else if(forward.getY() > 0)
+		{
+			row = size - 1 - y;
+			column = size - 1 - x;
+		} else if(forward.getX() < 0)
+		{
+			row = x;
+			column = size - 1 - y;
+		} else
+		{
+			row = size - 1 - x;
+			column = y;
+		}
+		return weights.getValue(type) + weights.getSquareValue(type, size, row, column);
+	}
+}
@@ -0,0 +1,326 @@
+package jchess.gamelogic.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.AiFourPlayerChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IBoardFactory;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.pieces.King;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+/**
+ * Copy of a game against the cat on which {@link MctsEngine} plays its
+ * simulations. Player moves and the cat's turns follow the rules of the game
+ * and of {@link jchess.gamelogic.ai.CatAi}: an awake cat captures a random
+ * piece other than a king if it can and falls asleep afterwards, otherwise it
+ * moves to a random field. It wakes up and respawns on a random empty field
+ * after a number of its turns.
+ * <p>
+ * Every change is written to a journal, so a simulation is taken back
+ * cheaply with the undo tokens of the board model instead of copying the
+ * board again. Instances are not thread safe; every searching thread plays on
+ * a board of its own.
+ */
+final class PlayoutBoard
+{
+	/** Number of players besides the cat */
+	static final int PLAYERS = 4;
+	/** Index of the cat player */
+	static final int CAT = 4;
+
+	/** Cat turns a cat sleeps after a capture, as in CatAi */
+	static final int SLEEP_TIME = 2;
+	/** Cat turns until a captured cat respawns, as in CatAi */
+	static final int RESPAWN_TIME = 2;
+
+	/** Lead in centipawns which makes a player about 73% sure to win */
+	private static final double LEAD_SCALE = 400;
+
+	private static final int SWITCH = 0;
+	private static final int MOVE = 1;
+	private static final int PIECE = 2;
+
+	private final IChessboardModel board;
+	private final IChessboardController controller;
+	private final Player[] players;
+	private final List<Change> journal = new ArrayList<Change>();
+	private final List<Move> catMoves = new ArrayList<Move>();
+
+	private int turnsToWakeUp;
+	private int turnsToRespawn;
+	private final int initialTurnsToWakeUp;
+	private final int initialTurnsToRespawn;
+
+	/**
+	 * @param controller Controller of the game against the cat
+	 * @param turnsToWakeUp Cat turns until a sleeping cat wakes up
+	 * @param turnsToRespawn Cat turns until a captured cat respawns
+	 */
+	PlayoutBoard(IChessboardController controller, int turnsToWakeUp, int turnsToRespawn)
+	{
+		Player active = controller.getActivePlayer();
+		players = new Player[PLAYERS + 1];
+		players[controller.getPlayerIndex(active)] = active;
+		for(Player player : controller.getEnemies(active))
+		{
+			players[controller.getPlayerIndex(player)] = player;
+		}
+
+		final IChessboardModel copy = controller.getBoard().copy();
+		this.controller = new AiFourPlayerChessboardController(null, new IBoardFactory()
+		{
+			@Override
+			public IChessboardModel createChessboard(List<Player> players)
+			{
+				return copy;
+			}
+		}, players[0], players[1], players[2], players[3], players[CAT]);
+		while(this.controller.getActivePlayer() != active)
+		{
+			this.controller.switchToNextPlayer();
+		}
+		this.board = copy;
+		this.board.setPieceEvaluator(new PieceSquareEvaluator(EvaluationWeights.getDefault(),
+				copy.getGeometry().getWidth()));
+		this.initialTurnsToWakeUp = turnsToWakeUp;
+		this.initialTurnsToRespawn = turnsToRespawn;
+		this.turnsToWakeUp = turnsToWakeUp;
+		this.turnsToRespawn = turnsToRespawn;
+	}
+
+	IChessboardModel getBoard()
+	{
+		return board;
+	}
+
+	/**
+	 * @return Index of the player to move, {@link #CAT} on the cat's turn
+	 */
+	int getTurn()
+	{
+		return controller.getPlayerIndex(controller.getActivePlayer());
+	}
+
+	/**
+	 * Adds the legal moves of the player to move.
+	 */
+	void getMoves(MoveList moves)
+	{
+		controller.getPossibleMoves(controller.getActivePlayer(), moves);
+	}
+
+	boolean isChecked()
+	{
+		return controller.isChecked(controller.getActivePlayer());
+	}
+
+	/**
+	 * Makes a move of the player to move and hands the turn to the next one.
+	 */
+	void makeMove(int move)
+	{
+		journal.add(new Change(MOVE, board.makeMove(EncodedMove.toMove(move, board)), null, null));
+		this.switchPlayer();
+	}
+
+	/**
+	 * Plays the turn of the cat with the dice of the given random number
+	 * generator and hands the turn to the first player.
+	 *
+	 * @return Outcome telling apart the different results of the turn
+	 */
+	long playCatTurn(Random random)
+	{
+		int target = -1;
+		Piece cat = this.getCat();
+		if(cat != null && !this.isSleeping(cat))
+		{
+			Move move = this.chooseCatMove(cat, random);
+			if(move != null)
+			{
+				target = EncodedMove.square(move.getTo());
+				boolean capture = board.getPiece(move.getTo()) != null;
+				journal.add(new Change(MOVE, board.makeMove(move), null, null));
+				if(capture)
+				{
+					this.replaceCat(PieceType.SLEEPINGCAT);
+				}
+			}
+		}
+
+		// Timers as updated by the game after the turn
+		int spawn = -1;
+		if(turnsToRespawn == 0)
+		{
+			List<Field> fields = board.getEmptyFields();
+			Field field = fields.get(random.nextInt(fields.size()));
+			spawn = EncodedMove.square(field);
+			this.setPiece(field, PieceFactory.getInstance().buildPiece(players[CAT], Direction.of(0, -1),
+					PieceType.CAT));
+			turnsToWakeUp = SLEEP_TIME;
+			turnsToRespawn = RESPAWN_TIME;
+		}
+		cat = this.getCat();
+		if(cat == null)
+		{
+			turnsToRespawn--;
+		}
+		if(turnsToWakeUp == 0 && cat != null)
+		{
+			this.replaceCat(this.isSleeping(cat) ? PieceType.CAT : PieceType.SLEEPINGCAT);
+			turnsToWakeUp = SLEEP_TIME;
+		}
+		cat = this.getCat();
+		if(cat != null && this.isSleeping(cat))
+		{
+			turnsToWakeUp--;
+		}
+
+		this.switchPlayer();
+		return (target + 1) | ((long) (spawn + 1) << 16);
+	}
+
+	/**
+	 * Estimates the chances of every player besides the cat by the lead of
+	 * their material and piece-square score, as kept by the board, over the
+	 * average of the others, mapped to a value between 0 and 1 by a
+	 * logistic curve.
+	 *
+	 * @param rewards Array to store the estimates in
+	 */
+	void evaluate(double[] rewards)
+	{
+		double total = 0;
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			rewards[i] = board.getScore(players[i]);
+			total += rewards[i];
+		}
+		for(int i = 0; i < PLAYERS; i++)
+		{
+			double lead = rewards[i] - (total - rewards[i]) / (PLAYERS - 1);
+			rewards[i] = 1 / (1 + Math.exp(-lead / LEAD_SCALE));
+		}
+	}
+
+	/**
+	 * Takes back everything played since the board was created or last
+	 * rewound.
+	 */
+	void rewind()
+	{
+		for(int i = journal.size() - 1; i >= 0; i--)
+		{
+			Change change = journal.get(i);
+			if(change.type == SWITCH)
+			{
+				controller.switchToPreviousPlayer();
+			} else if(change.type == MOVE)
+			{
+				board.unmakeMove(change.token);
+			} else
+			{
+				board.removePiece(change.field);
+				if(change.piece != null)
+				{
+					board.setPiece(change.field, change.piece);
+				}
+			}
+		}
+		journal.clear();
+		turnsToWakeUp = initialTurnsToWakeUp;
+		turnsToRespawn = initialTurnsToRespawn;
+	}
+
+	/**
+	 * Captures if possible, like the cat of the game.
+	 */
+	private Move chooseCatMove(Piece cat, Random random)
+	{
+		catMoves.clear();
+		boolean capture = false;
+		for(Move move : controller.getPossibleMoves(cat, false))
+		{
+			Piece taken = board.getPiece(move.getTo());
+			if(taken != null && taken.getBehaviour() instanceof King)
+			{
+				continue;
+			}
+			if(taken != null && !capture)
+			{
+				catMoves.clear();
+				capture = true;
+			}
+			if(taken != null || !capture)
+			{
+				catMoves.add(move);
+			}
+		}
+		return catMoves.isEmpty() ? null : catMoves.get(random.nextInt(catMoves.size()));
+	}
+
+	private Piece getCat()
+	{
+		for(Piece piece : board.getPieces(players[CAT]))
+		{
+			return piece;
+		}
+		return null;
+	}
+
+	private boolean isSleeping(Piece cat)
+	{
+		return PieceFactory.getInstance().getType(cat) == PieceType.SLEEPINGCAT;
+	}
+
+	private void replaceCat(PieceType type)
+	{
+		Field field = board.getField(this.getCat());
+		this.setPiece(field, PieceFactory.getInstance().buildPiece(players[CAT], Direction.of(0, -1), type));
+	}
+
+	private void setPiece(Field field, Piece piece)
+	{
+		journal.add(new Change(PIECE, null, field, board.removePiece(field)));
+		board.setPiece(field, piece);
+	}
+
+	private void switchPlayer()
+	{
+		controller.switchToNextPlayer();
+		journal.add(new Change(SWITCH, null, null, null));
+	}
+
+	/**
+	 * Entry of the journal: a player switch, a move or a piece replaced on a
+	 * field.
+	 */
+	private static class Change
+	{
+		final int type;
+		final UndoToken token;
+		final Field field;
+		/** Piece on the field before the change or null */
+		final Piece piece;
+
+		Change(int type, UndoToken token, Field field, Piece piece)
+		{
+			this.type = type;
+			this.token = token;
+			this.field = field;
+			this.piece = piece;
+		}
+	}
+}
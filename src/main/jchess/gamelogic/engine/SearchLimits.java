@@ -0,0 +1,70 @@
+package jchess.gamelogic.engine;
+
+/**
+ * Budget of a search. Each limit is ignored if it is 0; a search stops as
+ * soon as any of the others is reached. Without any limit a search only
+ * ends when it is stopped or reaches the engine's maximum depth.
+ */
+public class SearchLimits
+{
+	private final int maxDepth;
+	private final long maxNodes;
+	private final long maxTimeMillis;
+	
+	/**
+	 * @param maxDepth
+	 *            Deepest iteration to search (in plies) or 0
+	 * @param maxNodes
+	 *            Number of nodes to visit at most or 0
+	 * @param maxTimeMillis
+	 *            Time to search at most in milliseconds or 0
+	 * @throws IllegalArgumentException
+	 *             if a limit is negative
+	 */
+	public SearchLimits(int maxDepth, long maxNodes, long maxTimeMillis)
+	{
+		if(maxDepth < 0 || maxNodes < 0 || maxTimeMillis < 0)
+		{
+			throw new IllegalArgumentException("Search limits must not be negative!");
+		}
+		this.maxDepth = maxDepth;
+		this.maxNodes = maxNodes;
+		this.maxTimeMillis = maxTimeMillis;
+	}
+	
+	public static SearchLimits depth(int maxDepth)
+	{
+		return new SearchLimits(maxDepth, 0, 0);
+	}
+	
+	public static SearchLimits nodes(long maxNodes)
+	{
+		return new SearchLimits(0, maxNodes, 0);
+	}
+	
+	public static SearchLimits time(long maxTimeMillis)
+	{
+		return new SearchLimits(0, 0, maxTimeMillis);
+	}
+	
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+	
+	public long getMaxNodes()
+	{
+		return maxNodes;
+	}
+	
+	public long getMaxTimeMillis()
+	{
+		return maxTimeMillis;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "depth " + maxDepth + ", nodes " + maxNodes + ", time " + maxTimeMillis + " ms";
+	}
+}
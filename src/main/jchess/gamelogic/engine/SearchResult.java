@@ -0,0 +1,106 @@
+package jchess.gamelogic.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+import jchess.gamelogic.field.Move;
+
+/**
+ * Outcome of a search: the best move found, its score and the principal
+ * variation (the line of best play both sides are expected to follow)
+ * together with statistics about the search.
+ */
+public class SearchResult
+{
+	/** Scores above this bound (or below its negation) announce a mate */
+	public static final int MATE_BOUND = 90000;
+	
+	private final Move bestMove;
+	private final int score;
+	private final int depth;
+	private final long nodes;
+	private final long millis;
+	private final List<Move> principalVariation;
+	
+	/**
+	 * @param bestMove
+	 *            Move to play or null if there is none
+	 * @param score
+	 *            Score in centipawns from the view of the player to move
+	 * @param depth
+	 *            Depth of the deepest completed iteration
+	 * @param nodes
+	 *            Number of nodes visited
+	 * @param millis
+	 *            Time the search took
+	 * @param principalVariation
+	 *            Expected line starting with the best move
+	 */
+	public SearchResult(Move bestMove, int score, int depth, long nodes, long millis,
+			List<Move> principalVariation)
+	{
+		this.bestMove = bestMove;
+		this.score = score;
+		this.depth = depth;
+		this.nodes = nodes;
+		this.millis = millis;
+		this.principalVariation = Collections.unmodifiableList(principalVariation);
+	}
+	
+	public Move getBestMove()
+	{
+		return bestMove;
+	}
+	
+	public int getScore()
+	{
+		return score;
+	}
+	
+	public int getDepth()
+	{
+		return depth;
+	}
+	
+	public long getNodes()
+	{
+		return nodes;
+	}
+	
+	public long getMillis()
+	{
+		return millis;
+	}
+	
+	public List<Move> getPrincipalVariation()
+	{
+		return principalVariation;
+	}
+	
+	/**
+	 * @return True if the score announces a mate for either side
+	 */
+	public boolean isMateScore()
+	{
+		return Math.abs(score) > MATE_BOUND;
+	}
+	
+	/**
+	 * @return Nodes visited per second or 0 if no time was measured
+	 */
+	public long getNodesPerSecond()
+	{
+		if(millis <= 0)
+		{
+			return 0;
+		}
+		return nodes * 1000 / millis;
+	}
+	
+	@Override
+	public String toString()
+	{
+		return "depth " + depth + " score " + score + " nodes " + nodes + " (" + getNodesPerSecond() + " nps) pv "
+				+ principalVariation;
+	}
+}
@@ -0,0 +1,110 @@
+package jchess.gamelogic.engine;
+
+import jchess.gamelogic.field.Move;
+
+/**
+ * Budgets the time of an engine's moves in games with a clock. A move gets
+ * a base share of the time left, {@link #MOVES_TO_GO} moves ahead. The
+ * search is told the hard limit of {@link #MAX_EXTENSION} base shares and
+ * is stopped earlier between two iterations: once half of its budget is
+ * spent, as the next iteration would hardly finish in time. The budget is
+ * the base share as long as the best move stays the same and grows while it
+ * changes between iterations, as an unstable best move is worth a closer
+ * look.
+ * <p>
+ * The iterations of a search are handed in by the engine's
+ * {@link ISearchListener}. Iterations of a search which is not timed, e.g.
+ * one pondering on the opponent's time, only tell about the stability of
+ * the best move. Instances are thread safe.
+ */
+public class TimeManager
+{
+	/** Moves the time left is shared among */
+	public static final int MOVES_TO_GO = 30;
+	/** Hard limit of a move in base shares */
+	public static final int MAX_EXTENSION = 4;
+
+	private long start;
+	private long baseMillis;
+	private long hardMillis;
+	private boolean timing;
+	/** Best move of the last iteration or null */
+	private Move lastBest;
+	/** Recent changes of the best move, each weighing half as much as the next */
+	private double instability;
+
+	/**
+	 * Starts the budget of a move now.
+	 *
+	 * @param remainingMillis
+	 *            Time left on the clock of the player to move
+	 */
+	public synchronized void start(long remainingMillis)
+	{
+		long remaining = Math.max(0, remainingMillis);
+		start = System.currentTimeMillis();
+		baseMillis = remaining / MOVES_TO_GO;
+		hardMillis = Math.max(1, MAX_EXTENSION * baseMillis);
+		timing = true;
+	}
+
+	/**
+	 * Stops timing, e.g. before pondering. The stability of the best move is
+	 * kept, so a search going on after a ponder hit makes use of it.
+	 */
+	public synchronized void stopTiming()
+	{
+		timing = false;
+	}
+
+	/**
+	 * Forgets the best moves seen so far, before searching another position.
+	 */
+	public synchronized void reset()
+	{
+		lastBest = null;
+		instability = 0;
+	}
+
+	/**
+	 * @return Hard limit of the timed move in milliseconds
+	 */
+	public synchronized long getHardLimit()
+	{
+		return hardMillis;
+	}
+
+	/**
+	 * @return Limits of a search of the timed move
+	 */
+	public SearchLimits getLimits()
+	{
+		return SearchLimits.time(this.getHardLimit());
+	}
+
+	/**
+	 * @return Current budget of the timed move in milliseconds
+	 */
+	public synchronized long getBudget()
+	{
+		return Math.min(hardMillis, (long) (baseMillis * (1 + instability)));
+	}
+
+	/**
+	 * Takes note of a completed iteration.
+	 *
+	 * @param result
+	 *            Result of the iteration
+	 * @return True if the search should stop to stay within the budget
+	 */
+	public synchronized boolean onIteration(SearchResult result)
+	{
+		Move best = result.getBestMove();
+		boolean changed = lastBest != null && best != null && !(lastBest.getFrom().equals(best.getFrom())
+				&& lastBest.getTo().equals(best.getTo()));
+		instability = instability / 2 + (changed ? 1 : 0);
+		lastBest = best;
+
+		return timing && 2 * (System.currentTimeMillis() - start) >= this.getBudget();
+	}
+}
@@ -0,0 +1,285 @@
+package jchess.gamelogic.engine;
+
+import java.util.Arrays;
+
+/**
+ * Fixed size hash table of search results keyed by Zobrist keys. It only
+ * depends on the keys, so it serves the bitboard search of two player games
+ * as well as searches on board models of any number of players.
+ * <p>
+ * The table is a single primitive array without any objects per entry. It
+ * is divided into a power of two number of buckets of two entries each: the
+ * first entry of a bucket keeps the deepest (or most recent) result, the
+ * second one is always replaced. An entry takes two longs: the data packed
+ * as described at {@link #pack(int, int, int, int, int)} and the key XORed
+ * with the data.
+ * <p>
+ * The table may be shared by several searching threads without locking.
+ * Entries written concurrently may end up mixed from two writes; since the
+ * stored key is XORed with the data, such entries no longer match their key
+ * and are ignored by {@link #probe(long)}.
+ */
+public class TranspositionTable
+{
+	/** The entry holds no score */
+	public static final int BOUND_NONE = 0;
+	/** The score is an upper bound (no move raised alpha) */
+	public static final int BOUND_UPPER = 1;
+	/** The score is a lower bound (a move reached beta) */
+	public static final int BOUND_LOWER = 2;
+	/** The score is exact */
+	public static final int BOUND_EXACT = 3;
+
+	/** Returned by {@link #probe(long)} if the key is not in the table */
+	public static final long NO_ENTRY = 0L;
+
+	/** Default size of the table in megabytes */
+	public static final int DEFAULT_SIZE = 16;
+	/** Largest size of the table in megabytes */
+	public static final int MAX_SIZE = 4096;
+
+	private static final int LONGS_PER_ENTRY = 2;
+	private static final int ENTRIES_PER_BUCKET = 2;
+	private static final int BUCKET_BYTES = LONGS_PER_ENTRY * ENTRIES_PER_BUCKET * 8;
+
+	private static final int SCORE_SHIFT = 32;
+	private static final int SCORE_BITS = 20;
+	/** Added to scores so that the stored field is never negative */
+	private static final int SCORE_OFFSET = 1 << (SCORE_BITS - 1);
+	private static final int DEPTH_SHIFT = 52;
+	private static final int MAX_DEPTH = 127;
+	private static final int BOUND_SHIFT = 59;
+	private static final int GENERATION_SHIFT = 61;
+	private static final int GENERATIONS = 8;
+
+	private final long[] table;
+	private final int bucketMask;
+	private volatile int generation;
+
+	/**
+	 * Creates a table of {@link #DEFAULT_SIZE} megabytes.
+	 */
+	public TranspositionTable()
+	{
+		this(DEFAULT_SIZE);
+	}
+
+	/**
+	 * Creates an empty table. The number of buckets is the largest power of
+	 * two fitting into the given size.
+	 * @param megabytes Size of the table in megabytes
+	 * @throws IllegalArgumentException if the size is smaller than one or
+	 *             larger than {@link #MAX_SIZE}
+	 */
+	public TranspositionTable(int megabytes)
+	{
+		if(megabytes < 1 || megabytes > MAX_SIZE)
+		{
+			throw new IllegalArgumentException("The table size has to be between 1 and " + MAX_SIZE + " MB!");
+		}
+		int buckets = (int) Long.highestOneBit((long) megabytes * 1024 * 1024 / BUCKET_BYTES);
+		this.table = new long[buckets * LONGS_PER_ENTRY * ENTRIES_PER_BUCKET];
+		this.bucketMask = buckets - 1;
+	}
+
+	/**
+	 * @return Number of entries the table can hold
+	 */
+	public int getCapacity()
+	{
+		return (bucketMask + 1) * ENTRIES_PER_BUCKET;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear()
+	{
+		Arrays.fill(table, 0L);
+	}
+
+	/**
+	 * Starts a new search. Entries of earlier searches are replaced first.
+	 */
+	public void newSearch()
+	{
+		generation = (generation + 1) % GENERATIONS;
+	}
+
+	/**
+	 * Looks up the entry of a position.
+	 * @param key Zobrist key of the position
+	 * @return Packed data of the entry or {@link #NO_ENTRY}
+	 */
+	public long probe(long key)
+	{
+		int index = this.indexOf(key);
+		for(int i = 0; i < ENTRIES_PER_BUCKET; i++, index += LONGS_PER_ENTRY)
+		{
+			long data = table[index + 1];
+			if(data != NO_ENTRY && (table[index] ^ data) == key)
+			{
+				return data;
+			}
+		}
+		return NO_ENTRY;
+	}
+
+	/**
+	 * Stores the result of a search. Mate scores have to be relative to the
+	 * root; they are stored relative to the position (see
+	 * {@link #toStoredScore(int, int)}).
+	 * @param key Zobrist key of the position
+	 * @param move Best move found or 0 if none; an empty move keeps a move
+	 *            stored earlier for the same position
+	 * @param score Score of the position
+	 * @param depth Remaining depth the position was searched with
+	 * @param bound One of BOUND_UPPER, BOUND_LOWER or BOUND_EXACT
+	 * @param ply Distance of the position from the root
+	 */
+	public void store(long key, int move, int score, int depth, int bound, int ply)
+	{
+		int index = this.indexOf(key);
+		int current = generation;
+
+		long first = table[index + 1];
+		boolean firstMatches = first != NO_ENTRY && (table[index] ^ first) == key;
+		long second = table[index + 3];
+		boolean secondMatches = second != NO_ENTRY && (table[index + 2] ^ second) == key;
+
+		if(move == 0)
+		{
+			if(firstMatches)
+			{
+				move = getMove(first);
+			} else if(secondMatches)
+			{
+				move = getMove(second);
+			}
+		}
+		int storedDepth = Math.max(0, Math.min(depth, MAX_DEPTH));
+		long data = pack(move, toStoredScore(score, ply), storedDepth, bound, current);
+
+		if(firstMatches || first == NO_ENTRY || depth >= getDepth(first) || getGeneration(first) != current)
+		{
+			// Replaced results of other positions move down to the second entry
+			if(!firstMatches && first != NO_ENTRY && !secondMatches)
+			{
+				this.write(index + 2, table[index] ^ first, first);
+			}
+			this.write(index, key, data);
+		} else
+		{
+			this.write(index + 2, key, data);
+		}
+	}
+
+	/**
+	 * Returns the usage of the table in permille, estimated from the first
+	 * thousand entries written during the current search.
+	 * @return Number of used entries out of a thousand
+	 */
+	public int getUsage()
+	{
+		int sample = Math.min(1000, this.getCapacity());
+		int used = 0;
+		for(int i = 0; i < sample; i++)
+		{
+			long data = table[i * LONGS_PER_ENTRY + 1];
+			if(data != NO_ENTRY && getGeneration(data) == generation)
+			{
+				used++;
+			}
+		}
+		return used * 1000 / sample;
+	}
+
+	private int indexOf(long key)
+	{
+		// The lower bits of the key are left for telling entries apart
+		return ((int) (key >>> 32) & bucketMask) * LONGS_PER_ENTRY * ENTRIES_PER_BUCKET;
+	}
+
+	private void write(int index, long key, long data)
+	{
+		table[index] = key ^ data;
+		table[index + 1] = data;
+	}
+
+	/**
+	 * Packs an entry into a long: the move in bits 0 to 31, the score offset
+	 * by 2^19 in bits 32 to 51, the depth in bits 52 to 58, the bound in bits
+	 * 59 and 60 and the generation in bits 61 to 63. Packed data is never
+	 * {@link #NO_ENTRY} because of the score offset.
+	 */
+	static long pack(int move, int score, int depth, int bound, int generation)
+	{
+		return (move & 0xFFFFFFFFL) | ((long) (score + SCORE_OFFSET) << SCORE_SHIFT)
+				| ((long) depth << DEPTH_SHIFT) | ((long) bound << BOUND_SHIFT)
+				| ((long) generation << GENERATION_SHIFT);
+	}
+
+	public static int getMove(long data)
+	{
+		return (int) data;
+	}
+
+	/**
+	 * Returns the score of an entry relative to the root.
+	 * @param data Packed data of the entry
+	 * @param ply Distance of the position from the root
+	 * @return Score of the entry
+	 */
+	public static int getScore(long data, int ply)
+	{
+		int score = (int) ((data >>> SCORE_SHIFT) & ((1L << SCORE_BITS) - 1)) - SCORE_OFFSET;
+		return fromStoredScore(score, ply);
+	}
+
+	public static int getDepth(long data)
+	{
+		return (int) ((data >>> DEPTH_SHIFT) & MAX_DEPTH);
+	}
+
+	public static int getBound(long data)
+	{
+		return (int) ((data >>> BOUND_SHIFT) & 3);
+	}
+
+	static int getGeneration(long data)
+	{
+		return (int) (data >>> GENERATION_SHIFT);
+	}
+
+	/**
+	 * Converts a mate score relative to the root into one relative to the
+	 * position, so that it stays valid when the position is reached on
+	 * another path. Other scores are unchanged.
+	 * @param score Score relative to the root
+	 * @param ply Distance of the position from the root
+	 * @return Score relative to the position
+	 */
+	static int toStoredScore(int score, int ply)
+	{
+		if(score > SearchResult.MATE_BOUND)
+		{
+			return score + ply;
+		} else if(score < -SearchResult.MATE_BOUND)
+		{
+			return score - ply;
+		}
+		return score;
+	}
+
+	static int fromStoredScore(int score, int ply)
+	{
+		if(score > SearchResult.MATE_BOUND)
+		{
+			return score - ply;
+		} else if(score < -SearchResult.MATE_BOUND)
+		{
+			return score + ply;
+		}
+		return score;
+	}
+}
@@ -0,0 +1,247 @@
+package jchess.gamelogic.field;
+
+import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.pieces.Pawn;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+/**
+ * Compact encoding of a {@link Move} in a single int, for code handling many
+ * moves (searches, perft) without allocating objects. The bits are:
+ * <ul>
+ * <li>0-7: square of the origin field (y * 16 + x)</li>
+ * <li>8-15: square of the target field</li>
+ * <li>16-21: flags (see the FLAG_ constants)</li>
+ * <li>22-25: promotion type (ordinal of the {@link PieceType} + 1, 0 if none)</li>
+ * <li>26-29: captured type (ordinal of the {@link PieceType} + 1, 0 if none)</li>
+ * </ul>
+ * Boards may therefore be up to 16x16 fields large. Encoded moves only refer
+ * to fields, so they stay valid for copies of a board; they are converted to
+ * and from {@link Move}s with {@link #toMove(int, IChessboardModel)} and
+ * {@link #fromMove(Move)}.
+ */
+public final class EncodedMove
+{
+	public static final int NONE = 0;
+
+	public static final int FLAG_CAPTURE = 1;
+	public static final int FLAG_EN_PASSANT = 2;
+	public static final int FLAG_DOUBLE_PUSH = 4;
+	public static final int FLAG_SHORT_CASTLING = 8;
+	public static final int FLAG_LONG_CASTLING = 16;
+	public static final int FLAG_PROMOTION = 32;
+
+	public static final int BOARD_WIDTH = 16;
+
+	private static final int TO_SHIFT = 8;
+	private static final int FLAGS_SHIFT = 16;
+	private static final int PROMOTION_SHIFT = 22;
+	private static final int CAPTURED_SHIFT = 26;
+	private static final int SQUARE_MASK = 0xFF;
+	private static final int FLAGS_MASK = 0x3F;
+	private static final int TYPE_MASK = 0xF;
+
+	private static final PieceType[] TYPES = PieceType.values();
+
+	private EncodedMove()
+	{
+	}
+
+	public static int square(int x, int y)
+	{
+		return y * BOARD_WIDTH + x;
+	}
+
+	public static int square(Field field)
+	{
+		return square(field.getPosX(), field.getPosY());
+	}
+
+	public static int x(int square)
+	{
+		return square % BOARD_WIDTH;
+	}
+
+	public static int y(int square)
+	{
+		return square / BOARD_WIDTH;
+	}
+
+	public static int encode(int from, int to, int flags)
+	{
+		return from | (to << TO_SHIFT) | (flags << FLAGS_SHIFT);
+	}
+
+	/**
+	 * @param from Square of the origin field
+	 * @param to Square of the target field
+	 * @param flags Combination of the FLAG_ constants
+	 * @param promoted Type the piece is promoted to or null
+	 * @param captured Type of the captured piece or null
+	 * @return Encoded move
+	 */
+	public static int encode(int from, int to, int flags, PieceType promoted, PieceType captured)
+	{
+		int move = encode(from, to, flags);
+		if(promoted != null)
+		{
+			move = withPromotion(move, promoted);
+		}
+		if(captured != null)
+		{
+			move |= FLAG_CAPTURE << FLAGS_SHIFT | (captured.ordinal() + 1) << CAPTURED_SHIFT;
+		}
+		return move;
+	}
+
+	/**
+	 * @param move Encoded move without promotion
+	 * @param promoted Type the piece is promoted to
+	 * @return Encoded move promoting to the given type
+	 */
+	public static int withPromotion(int move, PieceType promoted)
+	{
+		return move | FLAG_PROMOTION << FLAGS_SHIFT | (promoted.ordinal() + 1) << PROMOTION_SHIFT;
+	}
+
+	public static int getFrom(int move)
+	{
+		return move & SQUARE_MASK;
+	}
+
+	public static int getTo(int move)
+	{
+		return (move >>> TO_SHIFT) & SQUARE_MASK;
+	}
+
+	public static int getFlags(int move)
+	{
+		return (move >>> FLAGS_SHIFT) & FLAGS_MASK;
+	}
+
+	public static boolean hasFlag(int move, int flag)
+	{
+		return (getFlags(move) & flag) != 0;
+	}
+
+	public static boolean isCapture(int move)
+	{
+		return hasFlag(move, FLAG_CAPTURE);
+	}
+
+	public static boolean isPromotion(int move)
+	{
+		return hasFlag(move, FLAG_PROMOTION);
+	}
+
+	/**
+	 * @return Type the piece is promoted to or null
+	 */
+	public static PieceType getPromotedType(int move)
+	{
+		return toType((move >>> PROMOTION_SHIFT) & TYPE_MASK);
+	}
+
+	/**
+	 * @return Type of the captured piece or null if it is unknown or there is
+	 *         none
+	 */
+	public static PieceType getCapturedType(int move)
+	{
+		return toType((move >>> CAPTURED_SHIFT) & TYPE_MASK);
+	}
+
+	private static PieceType toType(int code)
+	{
+		return (code == 0) ? null : TYPES[code - 1];
+	}
+
+	/**
+	 * Encodes a move.
+	 * @param move Move to encode
+	 * @return Encoded move
+	 */
+	public static int fromMove(Move move)
+	{
+		int flags = 0;
+		if(move.wasEnPassant())
+		{
+			flags |= FLAG_EN_PASSANT;
+		}
+		if(move.wasPawnTwoFieldsMove())
+		{
+			flags |= FLAG_DOUBLE_PUSH;
+		}
+		if(move.getCastlingMove() == CastlingType.SHORT_CASTLING)
+		{
+			flags |= FLAG_SHORT_CASTLING;
+		} else if(move.getCastlingMove() == CastlingType.LONG_CASTLING)
+		{
+			flags |= FLAG_LONG_CASTLING;
+		}
+
+		PieceFactory factory = PieceFactory.getInstance();
+		PieceType promoted = (move.getPromotedPiece() == null) ? null : factory.getType(move.getPromotedPiece());
+		PieceType captured = null;
+		if(move.getTakenPiece() != null)
+		{
+			flags |= FLAG_CAPTURE;
+			captured = factory.getType(move.getTakenPiece());
+		}
+		return encode(square(move.getFrom()), square(move.getTo()), flags, promoted, captured);
+	}
+
+	/**
+	 * Creates the {@link Move} of an encoded move on the given board.
+	 * @param move Encoded move
+	 * @param board Board the move is made on
+	 * @return Move with the pieces of the board
+	 */
+	public static Move toMove(int move, IChessboardModel board)
+	{
+		Field from = board.getField(x(getFrom(move)), y(getFrom(move)));
+		Field to = board.getField(x(getTo(move)), y(getTo(move)));
+		Piece movedPiece = board.getPiece(from);
+		int flags = getFlags(move);
+
+		Piece taken = board.getPiece(to);
+		if((flags & FLAG_EN_PASSANT) != 0)
+		{
+			// The captured pawn stands right behind the target field
+			Direction forward = ((Pawn) movedPiece.getBehaviour()).getForwardDirection();
+			taken = board.getPiece(board.getField(to.getPosX() - forward.getX(), to.getPosY() - forward.getY()));
+		}
+
+		CastlingType castling = CastlingType.NONE;
+		if((flags & FLAG_SHORT_CASTLING) != 0)
+		{
+			castling = CastlingType.SHORT_CASTLING;
+		} else if((flags & FLAG_LONG_CASTLING) != 0)
+		{
+			castling = CastlingType.LONG_CASTLING;
+		}
+
+		Piece promoted = null;
+		PieceType promotedType = getPromotedType(move);
+		if(promotedType != null)
+		{
+			promoted = PieceFactory.getInstance().buildPiece(movedPiece.getPlayer(), Direction.of(0, 0),
+					promotedType);
+		}
+
+		return new Move(from, to, movedPiece, taken, castling, (flags & FLAG_EN_PASSANT) != 0, promoted);
+	}
+
+	/**
+	 * Returns a readable form of an encoded move, e.g. "4|6-4|4".
+	 * @param move Encoded move
+	 * @return Coordinates of the move
+	 */
+	public static String toString(int move)
+	{
+		return x(getFrom(move)) + "|" + y(getFrom(move)) + "-" + x(getTo(move)) + "|" + y(getTo(move));
+	}
+}
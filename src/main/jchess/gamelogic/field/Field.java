@@ -22,15 +22,46 @@ package jchess.gamelogic.field;
 
 /**
  * Class to represent a chessboard field.
+ * Fields are immutable; {@link #of(int, int)} returns shared instances for
+ * the coordinates of all supported boards, so boards built from them can
+ * compare fields by identity.
  */
 public class Field
 {
 	private static final String FIELD_LETTERS =
 			"abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
 	
+	/** Size of the square of interned fields */
+	private static final int CACHE_SIZE = 32;
+	private static final Field[] CACHE = new Field[CACHE_SIZE * CACHE_SIZE];
+	
+	static
+	{
+		for(int i = 0; i < CACHE.length; i++)
+		{
+			CACHE[i] = new Field(i % CACHE_SIZE, i / CACHE_SIZE);
+		}
+	}
+	
 	private final int posX;
 	private final int posY;
 	
+	/**
+	 * Returns the field with the given coordinates. Within the supported
+	 * board sizes the same instance is returned for the same coordinates.
+	 * @param posX x component
+	 * @param posY y component
+	 * @return Field with the coordinates
+	 */
+	public static Field of(int posX, int posY)
+	{
+		if(posX >= 0 && posY >= 0 && posX < CACHE_SIZE && posY < CACHE_SIZE)
+		{
+			return CACHE[posY * CACHE_SIZE + posX];
+		}
+		return new Field(posX, posY);
+	}
+	
 	public Field(int posX, int posY)
 	{
 		if(posX < 0 || posY < 0) {
@@ -137,7 +168,7 @@ public class Field
 		
 		
 		try {
-    		return new Field((repetitions - 1) * FIELD_LETTERS.length() + index,
+    		return Field.of((repetitions - 1) * FIELD_LETTERS.length() + index,
     				Integer.parseInt(splitDesignation[1]) - 1);
 		} catch(NumberFormatException exc) {
 			return null;
@@ -63,14 +63,8 @@ public class Move
 			// For that see if the target field equals the second field in
 			// the pawn's forward direction
 			Direction forward = ((Pawn) movedPiece.getBehaviour()).getForwardDirection();
-			try {
-    			Field twoFieldMove = new Field(from.getPosX() + 2*forward.getX(),
-    					from.getPosY() + 2*forward.getY());
-    			if(twoFieldMove.equals(to)) {
-    				this.wasPawnTwoFieldsMove = true;
-    			}
-			} catch(IllegalArgumentException exc) {
-			}
+			this.wasPawnTwoFieldsMove = (to.getPosX() == from.getPosX() + 2 * forward.getX())
+					&& (to.getPosY() == from.getPosY() + 2 * forward.getY());
 			
 			// Set promoted piece (only applicable to pawns, too)
 			this.promotedTo = promotedPiece;
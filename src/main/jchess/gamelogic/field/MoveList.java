@@ -0,0 +1,129 @@
+package jchess.gamelogic.field;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of encoded moves (see {@link EncodedMove}) meant to be reused:
+ * clearing it keeps the buffer, so filling it again does not allocate.
+ */
+public class MoveList
+{
+	private static final int DEFAULT_CAPACITY = 256;
+
+	private int[] moves;
+	private int size;
+
+	public MoveList()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	public MoveList(int capacity)
+	{
+		this.moves = new int[Math.max(capacity, 1)];
+	}
+
+	public void add(int move)
+	{
+		if(size == moves.length)
+		{
+			moves = Arrays.copyOf(moves, size * 2);
+		}
+		moves[size++] = move;
+	}
+
+	public int get(int index)
+	{
+		if(index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " exceeds size " + size + "!");
+		}
+		return moves[index];
+	}
+
+	public void set(int index, int move)
+	{
+		if(index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index " + index + " exceeds size " + size + "!");
+		}
+		moves[index] = move;
+	}
+
+	/**
+	 * Exchanges two moves, e.g. to bring the most promising one to the front.
+	 */
+	public void swap(int first, int second)
+	{
+		int move = get(first);
+		moves[first] = get(second);
+		moves[second] = move;
+	}
+
+	public boolean contains(int move)
+	{
+		for(int i = 0; i < size; i++)
+		{
+			if(moves[i] == move)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public void clear()
+	{
+		size = 0;
+	}
+
+	/**
+	 * Sorts the moves by origin square, then by target square and then by the
+	 * rest of their encoding, so their order no longer depends on the order
+	 * they were generated in.
+	 */
+	public void sort()
+	{
+		for(int i = 1; i < size; i++)
+		{
+			int move = moves[i];
+			int j = i - 1;
+			for(; j >= 0 && compare(moves[j], move) > 0; j--)
+			{
+				moves[j + 1] = moves[j];
+			}
+			moves[j + 1] = move;
+		}
+	}
+
+	/**
+	 * @return Copy of the moves currently in the list
+	 */
+	public int[] toArray()
+	{
+		return Arrays.copyOf(moves, size);
+	}
+
+	private static int compare(int first, int second)
+	{
+		if(EncodedMove.getFrom(first) != EncodedMove.getFrom(second))
+		{
+			return EncodedMove.getFrom(first) - EncodedMove.getFrom(second);
+		}
+		if(EncodedMove.getTo(first) != EncodedMove.getTo(second))
+		{
+			return EncodedMove.getTo(first) - EncodedMove.getTo(second);
+		}
+		return Integer.compare(first, second);
+	}
+}
@@ -0,0 +1,51 @@
+package jchess.gamelogic.field;
+
+/**
+ * One reusable {@link MoveList} per ply of a search, so generating the moves
+ * of a node never allocates a new list. The lists of deeper plies are created
+ * on first use.
+ */
+public class MoveListStack
+{
+	private MoveList[] lists;
+
+	public MoveListStack()
+	{
+		this(64);
+	}
+
+	/**
+	 * @param plies Number of plies to create lists for up front
+	 */
+	public MoveListStack(int plies)
+	{
+		this.lists = new MoveList[Math.max(plies, 1)];
+		for(int i = 0; i < lists.length; i++)
+		{
+			lists[i] = new MoveList();
+		}
+	}
+
+	/**
+	 * Returns the cleared list of a ply.
+	 * @param ply Distance from the root, starting at 0
+	 * @return Empty move list of the ply
+	 */
+	public MoveList get(int ply)
+	{
+		if(ply >= lists.length)
+		{
+			MoveList[] grown = new MoveList[Math.max(ply + 1, lists.length * 2)];
+			System.arraycopy(lists, 0, grown, 0, lists.length);
+			for(int i = lists.length; i < grown.length; i++)
+			{
+				grown[i] = new MoveList();
+			}
+			lists = grown;
+		}
+
+		MoveList list = lists[ply];
+		list.clear();
+		return list;
+	}
+}
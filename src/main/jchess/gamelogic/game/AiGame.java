@@ -6,6 +6,10 @@ import java.util.logging.Logger;
 import jchess.gamelogic.Player;
 import jchess.gamelogic.ai.ICatAi;
 import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.engine.IEngine;
+import jchess.gamelogic.engine.SearchLimits;
+import jchess.gamelogic.field.Field;
 import jchess.util.FileMapParser;
 
 public class AiGame extends UntimedGame implements IGame
@@ -16,7 +20,22 @@ public class AiGame extends UntimedGame implements IGame
 	
 	public AiGame(IChessboardController chessboard, ICatAi catAi)
 	{
-		super(chessboard);
+		this(chessboard, catAi, null, null);
+	}
+	
+	/**
+	 * @param chessboard
+	 *            Controller of the game
+	 * @param catAi
+	 *            Cat moving for the special player
+	 * @param engine
+	 *            Engine moving for the other computer players or null
+	 * @param engineLimits
+	 *            Budget of the engine for each move
+	 */
+	public AiGame(IChessboardController chessboard, ICatAi catAi, IEngine engine, SearchLimits engineLimits)
+	{
+		super(chessboard, engine, engineLimits);
 		this.chessboard = chessboard;
 		blockedChessboard = false;
 		this.catAi = catAi;
@@ -40,38 +59,50 @@ public class AiGame extends UntimedGame implements IGame
 	protected void nextMove()
 	{
 		switchActive();
+		if(chessboard.getActivePlayer().getColor() == Player.Color.SPECIAL)
+		{
+			// The cat moves right away, then it is the next player's turn
+			this.moveCat();
+			switchActive();
+		}
 		
 		log.log(Level.FINE,
 		        "Next move: active player: " + chessboard.getActivePlayer().getName() + " | color: "
 		                + chessboard.getActivePlayer().getColor().name() + " | type: "
 		                + chessboard.getActivePlayer().getType().name());
-		if(chessboard.getActivePlayer().getType() == Player.Type.LOCAL)
-		{
-			blockedChessboard = false;
-		} else if(chessboard.getActivePlayer().getType() == Player.Type.COMPUTER)
+		// Other computer players are moved by the engine (see finishMove)
+		blockedChessboard = chessboard.getActivePlayer().getType() != Player.Type.LOCAL;
+	}
+	
+	/**
+	 * Lets the cat capture a random piece and fall asleep or make a random
+	 * move if it is awake, and updates its timers. The cat's move does not
+	 * go through executeMove, which would hand the turn on before the
+	 * timers are updated.
+	 */
+	private void moveCat()
+	{
+		// checks if the cat is alive and moves it, otherwise skips the
+		// move
+		if(catAi.canMove())
 		{
-			blockedChessboard = true;
-			// checks if the cat is alive and moves it, otherwise skips the
-			// moves and goes to the next player
-			if(catAi.canMove())
+			boolean capture = catAi.canCapture();
+			Field target = capture ? catAi.getRandomThreateningMove() : catAi.getRandomNormalMove();
+			try
 			{
-				if(catAi.canCapture())
+				chessboard.move(catAi.getCurrentPosition(), target);
+				if(capture)
 				{
-					executeMove(catAi.getCurrentPosition(), catAi.getRandomThreateningMove());
 					catAi.sleepCat();
-				} else
-				{
-					executeMove(catAi.getCurrentPosition(), catAi.getRandomNormalMove());
 				}
-				
-			} else
+			} catch(IllegalMoveException exc)
 			{
-				switchActive();
+				log.log(Level.WARNING, "Illegal move of the cat!");
 			}
-			catAi.updateRespawnTimer();
-			catAi.updateSleepTimer();
-			blockedChessboard = false;
 		}
+		catAi.updateRespawnTimer();
+		catAi.updateSleepTimer();
+		this.getView().render();
 	}
 	
 }
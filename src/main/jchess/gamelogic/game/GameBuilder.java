@@ -1,5 +1,7 @@
 package jchess.gamelogic.game;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Level;
@@ -7,12 +9,24 @@ import java.util.logging.Logger;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.ai.CatAi;
+import jchess.gamelogic.ai.ExpectimaxCatPolicy;
 import jchess.gamelogic.ai.ICatAi;
+import jchess.gamelogic.controllers.AnalysisController;
 import jchess.gamelogic.controllers.GameClockController;
 import jchess.gamelogic.controllers.IChessboardController;
 import jchess.gamelogic.controllers.chessboardcontrollers.AiFourPlayerChessboardController;
 import jchess.gamelogic.controllers.chessboardcontrollers.FourPlayerChessboardController;
 import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.engine.AlphaBetaEngine;
+import jchess.gamelogic.engine.CapturePlayoutPolicy;
+import jchess.gamelogic.engine.EvaluationWeights;
+import jchess.gamelogic.engine.IEngine;
+import jchess.gamelogic.engine.LazySmpEngine;
+import jchess.gamelogic.engine.MctsEngine;
+import jchess.gamelogic.engine.MultiPlayerEngine;
+import jchess.gamelogic.engine.MultiPlayerEngine.Mode;
+import jchess.gamelogic.engine.SearchLimits;
+import jchess.gamelogic.engine.TranspositionTable;
 import jchess.gamelogic.models.factories.AiFourPlayerChessboardFactory;
 import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
 import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
@@ -29,12 +43,32 @@ public class GameBuilder implements IGameBuilder
 {
 	private static Logger log = Logger.getLogger(GameBuilder.class.getName());
 	
+	/** Time the engine thinks about a move by default, in milliseconds */
+	private static final int DEFAULT_ENGINE_TIME = 1000;
+	
 	private int timeLimit;
+	/** Time the engine thinks about a move in milliseconds, always positive */
+	private int engineTime;
+	/** Number of threads the engine searches with, 0 for one per processor */
+	private int engineThreads;
+	/**
+	 * Seed of the random decisions of the cat and the engine's playouts, null
+	 * for a new one per game
+	 */
+	private Long catSeed;
+	private int catNodes;
+	/** Whether games get an analysis next to their history, off by default */
+	private boolean analysis;
+	/** Weights of the evaluation of the engines */
+	private EvaluationWeights evaluationWeights;
 	private List<Player> playerList;
 	
 	public GameBuilder()
 	{
 		this.timeLimit = 0;
+		this.engineTime = DEFAULT_ENGINE_TIME;
+		this.catNodes = ExpectimaxCatPolicy.DEFAULT_NODE_BUDGET;
+		this.evaluationWeights = EvaluationWeights.getDefault();
 		this.playerList = new ArrayList<Player>();
 	}
 	
@@ -56,6 +90,61 @@ public class GameBuilder implements IGameBuilder
 			{
 				log.log(Level.WARNING, "Attempted to set invalid time limit!");
 			}
+		} else if(key.equals("engineTime"))
+		{
+			try
+			{
+				int time = Integer.parseInt(value);
+				if(time > 0)
+				{
+					this.engineTime = time;
+				} else
+				{
+					log.log(Level.WARNING, "Attempted to set engine time " + time + ", keeping " + engineTime + " ms!");
+				}
+			} catch(NumberFormatException exc)
+			{
+				log.log(Level.WARNING, "Attempted to set invalid engine time!");
+			}
+		} else if(key.equals("engineThreads"))
+		{
+			try
+			{
+				this.engineThreads = Integer.parseInt(value);
+			} catch(NumberFormatException exc)
+			{
+				log.log(Level.WARNING, "Attempted to set invalid engine thread count!");
+			}
+		} else if(key.equals("catSeed"))
+		{
+			try
+			{
+				this.catSeed = Long.parseLong(value);
+			} catch(NumberFormatException exc)
+			{
+				log.log(Level.WARNING, "Attempted to set invalid cat seed!");
+			}
+		} else if(key.equals("catNodes"))
+		{
+			try
+			{
+				this.catNodes = Integer.parseInt(value);
+			} catch(NumberFormatException exc)
+			{
+				log.log(Level.WARNING, "Attempted to set invalid cat node budget!");
+			}
+		} else if(key.equals("analysis"))
+		{
+			this.analysis = Boolean.parseBoolean(value);
+		} else if(key.equals("evaluationWeights"))
+		{
+			try
+			{
+				this.evaluationWeights = EvaluationWeights.load(new File(value));
+			} catch(IOException | IllegalArgumentException exc)
+			{
+				log.log(Level.WARNING, "Cannot load evaluation weights from " + value + ", keeping the defaults!", exc);
+			}
 		}
 	}
 	
@@ -63,6 +152,7 @@ public class GameBuilder implements IGameBuilder
 	public IGame create()
 	{
 		IChessboardController controller;
+		IGame game;
 		switch(playerList.size())
 		{
 			case 2:
@@ -74,11 +164,14 @@ public class GameBuilder implements IGameBuilder
 					GameClockController clock = new GameClockController(timeLimit, playerList.get(0),
 					        playerList.get(1));
 					
-					return new TimedGame(controller, clock);
+					game = new TimedGame(controller, clock, this.hasComputerPlayer() ? this.createEngine() : null);
 				} else
 				{
-					return new UntimedGame(controller);
+					game = new UntimedGame(controller, this.hasComputerPlayer() ? this.createEngine() : null,
+					        SearchLimits.time(engineTime));
 				}
+				this.addAnalysis(game, controller);
+				return game;
 			case 4:
 				controller = new FourPlayerChessboardController(FourPlayerChessboardViewFactory.getInstance(),
 				        FourPlayerChessboardFactory.getInstance(), playerList.get(0), playerList.get(1),
@@ -89,20 +182,100 @@ public class GameBuilder implements IGameBuilder
 					GameClockController clock = new GameClockController(timeLimit, playerList.get(0), playerList.get(1),
 					        playerList.get(2), playerList.get(3));
 					
-					return new TimedGame(controller, clock);
+					game = new TimedGame(controller, clock,
+					        this.hasComputerPlayer() ? this.createMultiPlayerEngine() : null);
 				} else
 				{
-					return new UntimedGame(controller);
+					game = new UntimedGame(controller, this.hasComputerPlayer() ? this.createMultiPlayerEngine() : null,
+					        SearchLimits.time(engineTime));
 				}
+				this.addAnalysis(game, controller);
+				return game;
 			case 5:
 				controller = new AiFourPlayerChessboardController(FourPlayerChessboardViewFactory.getInstance(),
 				        AiFourPlayerChessboardFactory.getInstance(), playerList.get(0), playerList.get(1),
 				        playerList.get(2), playerList.get(3), playerList.get(4));
-				ICatAi catAi = new CatAi(controller, playerList.get(4));
-				return new AiGame(controller, catAi);
+				ICatAi catAi = new CatAi(controller, playerList.get(4), new ExpectimaxCatPolicy(Math.max(catNodes, 0)),
+				        (catSeed != null) ? catSeed : System.nanoTime());
+				IEngine engine = null;
+				if(this.hasComputerPlayer())
+				{
+					// A fixed cat seed fixes the playouts of the engine as well
+					engine = new MctsEngine(catAi, this.getEngineThreads(), new CapturePlayoutPolicy(),
+					        (catSeed != null) ? catSeed + 1 : System.nanoTime());
+				}
+				return new AiGame(controller, catAi, engine, SearchLimits.time(engineTime));
 			default:
 				log.log(Level.SEVERE, "Invalid number of players for this game builder!");
 				throw new UnsupportedOperationException("Invalid number of players for this game builder!");
 		}
 	}
+	
+	/**
+	 * Tells whether any seat is taken by a computer player moved by an
+	 * engine, as only then the game needs an engine with its threads and
+	 * transposition table. The cat is moved by its own AI.
+	 * 
+	 * @return True if there is a computer player other than the cat
+	 */
+	private boolean hasComputerPlayer()
+	{
+		for(Player player : playerList)
+		{
+			if(player.getType() == Player.Type.COMPUTER && player.getColor() != Player.Color.SPECIAL)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Creates the engine of the computer players, searching with the
+	 * configured number of threads.
+	 * 
+	 * @return New engine
+	 */
+	private IEngine createEngine()
+	{
+		return new LazySmpEngine(this.getEngineThreads(), new TranspositionTable(), evaluationWeights);
+	}
+	
+	/**
+	 * Creates a paranoid engine of four player games.
+	 * 
+	 * @return New engine
+	 */
+	private IEngine createMultiPlayerEngine()
+	{
+		return new MultiPlayerEngine(Mode.PARANOID, new TranspositionTable(), evaluationWeights);
+	}
+	
+	/**
+	 * Shows an analysis of the game next to its history if switched on.
+	 * The analysis has an engine of its own, searching with a single thread,
+	 * which is only created then.
+	 * 
+	 * @param game
+	 *            Game to analyse
+	 * @param controller
+	 *            Controller of the game
+	 */
+	private void addAnalysis(IGame game, IChessboardController controller)
+	{
+		if(analysis)
+		{
+			IEngine engine = (controller.getPlayerCount() == 2)
+			        ? new AlphaBetaEngine(new TranspositionTable(), evaluationWeights) : this.createMultiPlayerEngine();
+			game.getView().addInfoComponent(new AnalysisController(controller, engine).getView());
+		}
+	}
+	
+	/**
+	 * @return Configured number of engine threads or one per processor
+	 */
+	private int getEngineThreads()
+	{
+		return (engineThreads > 0) ? engineThreads : Runtime.getRuntime().availableProcessors();
+	}
 }
@@ -9,4 +9,10 @@ public interface IGame extends IBoardActionHandler, IGameStateHandler, LoadSavea
 {
 	public IGameView getView();
 	public void newGame();
+	
+	/**
+	 * Stops the engine of the game and releases its threads, e.g. when the
+	 * game's tab is closed. The game must not be played afterwards.
+	 */
+	public void dispose();
 }
@@ -20,18 +20,33 @@
  */
 package jchess.gamelogic.game;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.controllers.GameClockController;
 import jchess.gamelogic.controllers.IChessboardController;
 import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.engine.IEngine;
+import jchess.gamelogic.engine.ISearchListener;
+import jchess.gamelogic.engine.SearchLimits;
+import jchess.gamelogic.engine.SearchResult;
+import jchess.gamelogic.engine.TimeManager;
 import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
 import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
 import jchess.gamelogic.views.IGameView;
 import jchess.gamelogic.views.gameviews.SwingGameView;
 import jchess.util.FileMapParser;
@@ -40,20 +55,68 @@ import jchess.util.FileMapParser;
  * Class responsible for the starts of new games, loading games, saving it, and
  * for ending it. This class is also responsible for appoing player with have a
  * move at the moment
+ * <p>
+ * Computer players move with an engine whose time for each move is budgeted
+ * by a {@link TimeManager} from the time left on their clock. In games of two
+ * players the engine ponders while a local opponent thinks: it searches the
+ * position after the reply it expects on a copy of the game. If the opponent
+ * plays that reply, the search simply goes on, now timed, with everything it
+ * has found so far; otherwise it is stopped and the engine starts over.
  */
 public class TimedGame implements IGame
 {
 	private static Logger log = Logger.getLogger(TimedGame.class.getName());
 	
+	/** Creates the daemon threads the engines search on */
+	private static final ThreadFactory ENGINE_THREADS = new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "Engine");
+			thread.setDaemon(true);
+			return thread;
+		}
+	};
+	
 	private IGameView gameView;
 	private boolean blockedChessboard;
+	private boolean finished;
 	private IChessboardController chessboard;
 	private GameClockController gameClock;
+	private IEngine engine;
+	/**
+	 * Runs the engine searches of this game, so that the event dispatch
+	 * thread stays responsive while the computer thinks or ponders; null
+	 * without an engine
+	 */
+	private ExecutorService engineExecutor;
+	private final TimeManager timeManager = new TimeManager();
+	/** Stops a search going on after a ponder hit at the hard limit */
+	private Timer hardLimitTimer;
+	/** Pondering going on or done, null if none */
+	private volatile Ponder ponder;
+	/** Pondering the engine is searching for, null for a move of the game */
+	private volatile Ponder searching;
 	
 	public TimedGame(IChessboardController chessboard,
 	        GameClockController gameClock)
+	{
+		this(chessboard, gameClock, null);
+	}
+	
+	/**
+	 * @param chessboard
+	 *            Controller of the game
+	 * @param gameClock
+	 *            Clocks of the players
+	 * @param engine
+	 *            Engine moving for the computer players or null
+	 */
+	public TimedGame(IChessboardController chessboard, GameClockController gameClock, IEngine engine)
 	{
 		this.chessboard = chessboard;
+		this.engine = engine;
 		this.chessboard.getView().initialize(chessboard, this);
 		this.gameClock = gameClock;
 		this.gameClock.setStateHandler(this);
@@ -63,6 +126,19 @@ public class TimedGame implements IGame
 		gameView = new SwingGameView(this.chessboard.getView());
 		gameView.addInfoComponent(gameClock.getView());
 		gameView.addInfoComponent(chessboard.getHistory().getView());
+		
+		if(engine != null)
+		{
+			this.engineExecutor = Executors.newSingleThreadExecutor(ENGINE_THREADS);
+			engine.setSearchListener(new ISearchListener()
+			{
+				@Override
+				public void onProgress(SearchResult result)
+				{
+					TimedGame.this.onIteration(result);
+				}
+			});
+		}
 	}
 	
 	@Override
@@ -159,23 +235,267 @@ public class TimedGame implements IGame
 				gameView.getChessboardView().unselect();
 				// Only switch players etc. when the move was
 				// actually executed
-				this.nextMove();
-				
-				// Checkmate or stalemate
-				if(chessboard.isCheckmated(chessboard.getActivePlayer()))
-				{
-					this.onCheckmate();
-				} else if(chessboard.isStalemate())
+				this.finishMove();
+			}
+		} catch(IllegalMoveException exc)
+		{
+			log.log(Level.WARNING, "Illegal move!");
+		}
+	}
+	
+	/**
+	 * Hands the turn to the next player after a move and ends the game if
+	 * they are checkmated or stalemated. Otherwise a computer player moves
+	 * right away.
+	 */
+	private void finishMove()
+	{
+		this.nextMove();
+		
+		// Checkmate or stalemate
+		if(chessboard.isCheckmated(chessboard.getActivePlayer()))
+		{
+			this.onCheckmate();
+		} else if(chessboard.isStalemate())
+		{
+			this.onStalemate();
+		} else if(chessboard.getActivePlayer().getType() == Player.Type.COMPUTER && engine != null)
+		{
+			this.executeEngineMove();
+		}
+	}
+	
+	/**
+	 * Lets the engine find the move of the active computer player within the
+	 * budget of its clock. If the engine pondered on the reply just played,
+	 * its search goes on; otherwise a new search starts on the engine
+	 * thread. The move is carried out on the event dispatch thread
+	 * afterwards; the chessboard stays blocked in the meantime.
+	 */
+	private void executeEngineMove()
+	{
+		blockedChessboard = true;
+		timeManager.start(gameClock.getSecondsLeft(chessboard.getActivePlayer()) * 1000L);
+		
+		Ponder current = ponder;
+		if(current != null && isSameMove(current.expected, chessboard.getHistory().getLastMove()))
+		{
+			log.log(Level.FINE, "Ponder hit: " + current.expected);
+			current.hit = true;
+			if(current.result != null)
+			{
+				// The search is over already, e.g. it found a mate
+				ponder = null;
+				this.finishEngineMove(current.result);
+				return;
+			}
+			int delay = (int) Math.min(Integer.MAX_VALUE, timeManager.getHardLimit());
+			hardLimitTimer = new Timer(delay, new ActionListener()
+			{
+				@Override
+				public void actionPerformed(ActionEvent event)
 				{
-					this.onStalemate();
+					engine.stop();
 				}
+			});
+			hardLimitTimer.setRepeats(false);
+			hardLimitTimer.start();
+			return;
+		}
+		
+		this.cancelPondering();
+		timeManager.reset();
+		this.search(chessboard, timeManager.getLimits(), null);
+	}
+	
+	/**
+	 * Carries out the move found by the engine and ponders on the reply
+	 * expected. The game ends if the engine found no move it can make.
+	 * 
+	 * @param result
+	 *            Result of the engine's search
+	 */
+	private void finishEngineMove(SearchResult result)
+	{
+		if(hardLimitTimer != null)
+		{
+			hardLimitTimer.stop();
+			hardLimitTimer = null;
+		}
+		if(finished)
+		{
+			return;
+		}
+		Move move = result.getBestMove();
+		if(move == null)
+		{
+			log.log(Level.SEVERE, "Engine found no move: " + result);
+			this.endGame("No move found! " + chessboard.getActivePlayer().getColor() + " player cannot move!");
+			return;
+		}
+		try
+		{
+			if(chessboard.move(move))
+			{
+				gameView.getChessboardView().unselect();
+				this.finishMove();
+				this.startPondering(result);
 			}
 		} catch(IllegalMoveException exc)
 		{
-			log.log(Level.WARNING, "Illegal move!");
+			log.log(Level.SEVERE, "Engine chose an illegal move: " + move, exc);
+			this.endGame("Illegal move " + move + "! " + chessboard.getActivePlayer().getColor()
+			        + " player cannot move!");
 		}
 	}
 	
+	/**
+	 * Starts to search the position after the reply expected by the principal
+	 * variation, if a local player of a game of two is to move. The search
+	 * lasts at most as long as the time left on the opponent's clock.
+	 * 
+	 * @param result
+	 *            Result of the search of the engine's last move
+	 */
+	private void startPondering(SearchResult result)
+	{
+		List<Move> line = result.getPrincipalVariation();
+		if(finished || chessboard.getPlayerCount() != 2 || line.size() < 2
+		        || chessboard.getActivePlayer().getType() != Player.Type.LOCAL)
+		{
+			return;
+		}
+		
+		Move expected = line.get(1);
+		IChessboardController position = chessboard.copyPosition();
+		try
+		{
+			if(!position.move(expected))
+			{
+				return;
+			}
+		} catch(IllegalMoveException exc)
+		{
+			log.log(Level.WARNING, "Cannot ponder on " + expected, exc);
+			return;
+		}
+		position.switchToNextPlayer();
+		
+		log.log(Level.FINE, "Pondering on " + expected);
+		Ponder next = new Ponder(expected);
+		ponder = next;
+		timeManager.stopTiming();
+		timeManager.reset();
+		long opponentTime = gameClock.getSecondsLeft(chessboard.getActivePlayer()) * 1000L;
+		this.search(position, SearchLimits.time(Math.max(opponentTime, 1)), next);
+	}
+	
+	/**
+	 * Stops pondering, e.g. because the opponent played another reply.
+	 */
+	private void cancelPondering()
+	{
+		Ponder current = ponder;
+		if(current != null)
+		{
+			current.cancelled = true;
+			ponder = null;
+			engine.stop();
+		}
+	}
+	
+	/**
+	 * Lets the engine search a position on the engine thread and hands the
+	 * result to the event dispatch thread.
+	 * 
+	 * @param position
+	 *            Position to search
+	 * @param limits
+	 *            Limits of the search
+	 * @param pondering
+	 *            Pondering the search is for, null for a move of the game
+	 */
+	private void search(final IChessboardController position, final SearchLimits limits, final Ponder pondering)
+	{
+		engineExecutor.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				searching = pondering;
+				final SearchResult result = engine.search(position, limits);
+				log.log(Level.FINE, "Engine: " + result);
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						TimedGame.this.finishSearch(result, pondering);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Takes the result of a search: carries out the move of a search for the
+	 * game or of a pondering which hit; keeps the result of a pondering until
+	 * the opponent has moved.
+	 */
+	private void finishSearch(SearchResult result, Ponder pondering)
+	{
+		if(pondering == null)
+		{
+			this.finishEngineMove(result);
+		} else if(pondering == ponder && !pondering.cancelled)
+		{
+			if(pondering.hit)
+			{
+				ponder = null;
+				this.finishEngineMove(result);
+			} else
+			{
+				pondering.result = result;
+			}
+		}
+	}
+	
+	/**
+	 * Called by the engine after each iteration. Stops a cancelled pondering,
+	 * as a stop request made just before it started is lost, and a timed
+	 * search once its budget is spent.
+	 */
+	private void onIteration(SearchResult result)
+	{
+		Ponder pondering = searching;
+		if(pondering != null && pondering.cancelled)
+		{
+			engine.stop();
+		} else if(timeManager.onIteration(result))
+		{
+			engine.stop();
+		}
+	}
+	
+	/**
+	 * Tells whether a move played is the move expected.
+	 */
+	private static boolean isSameMove(Move expected, Move played)
+	{
+		if(played == null || !expected.getFrom().equals(played.getFrom()) || !expected.getTo().equals(played.getTo()))
+		{
+			return false;
+		}
+		Piece expectedPromotion = expected.getPromotedPiece();
+		Piece playedPromotion = played.getPromotedPiece();
+		if(expectedPromotion == null || playedPromotion == null)
+		{
+			return expectedPromotion == playedPromotion;
+		}
+		PieceFactory factory = PieceFactory.getInstance();
+		return factory.getType(expectedPromotion) == factory.getType(playedPromotion);
+	}
+	
 	/**
 	 * Method to save actual state of game
 	 * 
@@ -220,6 +540,24 @@ public class TimedGame implements IGame
 		
 		this.getView().render();
 		this.gameClock.start();
+		
+		if(chessboard.getActivePlayer().getType() == Player.Type.COMPUTER && engine != null)
+		{
+			this.executeEngineMove();
+		}
+	}
+	
+	@Override
+	public void dispose()
+	{
+		this.blockedChessboard = true;
+		this.finished = true;
+		if(engine != null)
+		{
+			this.cancelPondering();
+			engineExecutor.shutdownNow();
+			engine.shutdown();
+		}
 	}
 	
 	/**
@@ -232,6 +570,13 @@ public class TimedGame implements IGame
 	private void endGame(String message)
 	{
 		this.blockedChessboard = true;
+		this.finished = true;
+		if(engine != null)
+		{
+			this.cancelPondering();
+			engine.stop();
+			engineExecutor.shutdownNow();
+		}
 		log.info(message);
 		JOptionPane.showMessageDialog(null, message);
 	}
@@ -264,4 +609,25 @@ public class TimedGame implements IGame
 			this.blockedChessboard = true;
 		}
 	}
+	
+	/**
+	 * Search of the position after the reply a computer player expects from
+	 * its opponent. Its state is changed on the event dispatch thread only.
+	 */
+	private static class Ponder
+	{
+		/** Reply expected */
+		final Move expected;
+		/** Whether the opponent played the reply expected */
+		boolean hit;
+		/** Whether the search is not needed anymore */
+		volatile boolean cancelled;
+		/** Result of a search over before the opponent moved or null */
+		SearchResult result;
+		
+		Ponder(Move expected)
+		{
+			this.expected = expected;
+		}
+	}
 }
\ No newline at end of file
@@ -1,15 +1,23 @@
 package jchess.gamelogic.game;
 
 import java.util.Calendar;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.controllers.IChessboardController;
 import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.engine.IEngine;
+import jchess.gamelogic.engine.SearchLimits;
+import jchess.gamelogic.engine.SearchResult;
 import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
 import jchess.gamelogic.pieces.Piece;
 import jchess.gamelogic.views.IGameView;
 import jchess.gamelogic.views.gameviews.SwingGameView;
@@ -19,13 +27,47 @@ public class UntimedGame implements IGame
 {
 	private static Logger log = Logger.getLogger(UntimedGame.class.getName());
 	
+	/**
+	 * Runs the engine searches, so that the event dispatch thread stays
+	 * responsive while the computer thinks
+	 */
+	private static final ExecutorService engineExecutor = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable runnable)
+		{
+			Thread thread = new Thread(runnable, "Engine");
+			thread.setDaemon(true);
+			return thread;
+		}
+	});
+	
 	private IGameView gameView;
 	protected boolean blockedChessboard;
 	private IChessboardController chessboard;
+	private IEngine engine;
+	private SearchLimits engineLimits;
+	/** Whether the game has been disposed of, read by the engine thread */
+	private volatile boolean disposed;
 	
 	public UntimedGame(IChessboardController chessboard)
+	{
+		this(chessboard, null, null);
+	}
+	
+	/**
+	 * @param chessboard
+	 *            Controller of the game
+	 * @param engine
+	 *            Engine moving for the computer players or null
+	 * @param engineLimits
+	 *            Budget of the engine for each move
+	 */
+	public UntimedGame(IChessboardController chessboard, IEngine engine, SearchLimits engineLimits)
 	{
 		this.chessboard = chessboard;
+		this.engine = engine;
+		this.engineLimits = engineLimits;
 		this.chessboard.getView().initialize(chessboard, this);
 		
 		blockedChessboard = false;
@@ -128,14 +170,7 @@ public class UntimedGame implements IGame
 				gameView.getChessboardView().unselect();
 				// Only switch players etc. when the move was
 				// actually executed
-				this.nextMove();
-				
-				// Checkmate or stalemate
-				if(chessboard.isCheckmated(chessboard.getActivePlayer()))
-				{
-					this.onCheckmate();
-				} // Check for Stalemate used to be here, I swear I will add it
-				  // later
+				this.finishMove();
 			}
 		} catch(IllegalMoveException exc)
 		{
@@ -143,6 +178,95 @@ public class UntimedGame implements IGame
 		}
 	}
 	
+	/**
+	 * Hands the turn to the next player after a move and ends the game if
+	 * they are checkmated or stalemated. Otherwise a computer player moves
+	 * right away.
+	 */
+	private void finishMove()
+	{
+		this.nextMove();
+		
+		// Checkmate or stalemate
+		if(chessboard.isCheckmated(chessboard.getActivePlayer()))
+		{
+			this.onCheckmate();
+		} else if(chessboard.isStalemate())
+		{
+			this.onStalemate();
+		} else if(chessboard.getActivePlayer().getType() == Player.Type.COMPUTER && engine != null)
+		{
+			this.executeEngineMove();
+		}
+	}
+	
+	/**
+	 * Lets the engine search the move of the active computer player on the
+	 * engine thread. The move is carried out on the event dispatch thread
+	 * afterwards; the chessboard stays blocked in the meantime.
+	 */
+	protected void executeEngineMove()
+	{
+		blockedChessboard = true;
+		engineExecutor.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				if(disposed)
+				{
+					// The engine is shut down already
+					return;
+				}
+				final SearchResult result = engine.search(chessboard, engineLimits);
+				log.log(Level.FINE, "Engine: " + result);
+				SwingUtilities.invokeLater(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						finishEngineMove(result);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Carries out the move found by the engine. The game ends if the engine
+	 * found no move it can make, as the computer player cannot go on.
+	 * 
+	 * @param result
+	 *            Result of the engine's search
+	 */
+	private void finishEngineMove(SearchResult result)
+	{
+		if(disposed)
+		{
+			return;
+		}
+		Move move = result.getBestMove();
+		if(move == null)
+		{
+			log.log(Level.SEVERE, "Engine found no move: " + result);
+			this.endGame("No move found! " + chessboard.getActivePlayer().getColor() + " player cannot move!");
+			return;
+		}
+		try
+		{
+			if(chessboard.move(move))
+			{
+				gameView.getChessboardView().unselect();
+				this.finishMove();
+			}
+		} catch(IllegalMoveException exc)
+		{
+			log.log(Level.SEVERE, "Engine chose an illegal move: " + move, exc);
+			this.endGame("Illegal move " + move + "! " + chessboard.getActivePlayer().getColor()
+			        + " player cannot move!");
+		}
+	}
+	
 	/**
 	 * Method to save actual state of game
 	 * 
@@ -192,6 +316,21 @@ public class UntimedGame implements IGame
 		
 		this.getView().render();
 		
+		if(chessboard.getActivePlayer().getType() == Player.Type.COMPUTER && engine != null)
+		{
+			this.executeEngineMove();
+		}
+	}
+	
+	@Override
+	public void dispose()
+	{
+		blockedChessboard = true;
+		disposed = true;
+		if(engine != null)
+		{
+			engine.shutdown();
+		}
 	}
 	
 	/**
@@ -232,7 +371,8 @@ public class UntimedGame implements IGame
 			blockedChessboard = false;
 		} else if(chessboard.getActivePlayer().getType() == Player.Type.COMPUTER)
 		{
-			
+			// The engine moves once the turn has passed (see finishMove)
+			blockedChessboard = true;
 		}
 	}
 }
\ No newline at end of file
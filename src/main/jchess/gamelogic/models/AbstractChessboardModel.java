@@ -0,0 +1,343 @@
+package jchess.gamelogic.models;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.pieces.Piece;
+import jchess.util.ArgumentChecker;
+import jchess.util.Direction;
+
+/**
+ * Provides the reversible move execution shared by all board models.
+ * Moves are carried out purely in terms of the piece placement primitives,
+ * so implementations only need to get those right.
+ * The Zobrist key of the position and the attacks of the players are kept
+ * up to date here as well; implementations report each piece they put on or
+ * take off the board via {@link #hashPiece(Field, Piece)},
+ * {@link #unhashPiece(long)}, {@link #addAttacks(Field, Piece)} and
+ * {@link #removeAttacks(Field, Piece)}. The same reports keep the scores of
+ * the players given by the piece evaluator.
+ */
+public abstract class AbstractChessboardModel implements IChessboardModel
+{
+	private long zobristKey;
+	private Player activePlayer;
+	/** Fields of pawns capturable en passant by the color of their owner */
+	private Field[] enPassantFields = new Field[Player.Color.values().length];
+	private AttackMap attacks = new AttackMap();
+	private IPieceEvaluator evaluator;
+	/** Sums of the values of the pieces by the color of their owner */
+	private int[] scores = new int[Player.Color.values().length];
+	
+	/**
+	 * Adds a piece put on the board to the position key.
+	 * @param field Field the piece was put on
+	 * @param piece Piece put on the board
+	 * @return Key contribution of the piece; has to be handed to
+	 *         {@link #unhashPiece(long)} once the piece leaves the field
+	 */
+	protected final long hashPiece(Field field, Piece piece)
+	{
+		long key = Zobrist.getInstance().getPieceKey(piece, field);
+		zobristKey ^= key;
+		return key;
+	}
+	
+	/**
+	 * Removes a piece taken off its field from the position key.
+	 * @param contribution Key contribution returned when the piece was put on
+	 *            the field
+	 */
+	protected final void unhashPiece(long contribution)
+	{
+		zobristKey ^= contribution;
+	}
+	
+	/**
+	 * Adds the attacks and the score of a piece put on the board. The piece has to be on
+	 * its field already.
+	 * @param field Field the piece was put on
+	 * @param piece Piece put on the board
+	 */
+	protected final void addAttacks(Field field, Piece piece)
+	{
+		attacks.piecePlaced(this, field, piece);
+		if(evaluator != null)
+		{
+			scores[piece.getPlayer().getColor().ordinal()] += evaluator.evaluate(piece, field);
+		}
+	}
+	
+	/**
+	 * Removes the attacks and the score of a piece taken off the board. The piece has to be
+	 * off its field already.
+	 * @param field Field the piece was taken off
+	 * @param piece Piece taken off the board
+	 */
+	protected final void removeAttacks(Field field, Piece piece)
+	{
+		attacks.pieceRemoved(this, field, piece);
+		if(evaluator != null)
+		{
+			scores[piece.getPlayer().getColor().ordinal()] -= evaluator.evaluate(piece, field);
+		}
+	}
+	
+	/**
+	 * Copies the position state not covered by the pieces (side to move, en
+	 * passant fields, attacks, scores and the key itself) to another model.
+	 * @param other Model to copy the state to
+	 */
+	protected final void copyStateTo(AbstractChessboardModel other)
+	{
+		other.zobristKey = this.zobristKey;
+		other.activePlayer = this.activePlayer;
+		other.enPassantFields = this.enPassantFields.clone();
+		other.attacks = this.attacks.copy();
+		other.evaluator = this.evaluator;
+		other.scores = this.scores.clone();
+	}
+	
+	@Override
+	public void setPieceEvaluator(IPieceEvaluator evaluator)
+	{
+		this.evaluator = evaluator;
+		this.scores = new int[Player.Color.values().length];
+		if(evaluator != null)
+		{
+			for(Field field : this.getFields())
+			{
+				Piece piece = this.getPiece(field);
+				if(piece != null)
+				{
+					scores[piece.getPlayer().getColor().ordinal()] += evaluator.evaluate(piece, field);
+				}
+			}
+		}
+	}
+	
+	@Override
+	public int getScore(Player player)
+	{
+		ArgumentChecker.checkForNull(player);
+		return scores[player.getColor().ordinal()];
+	}
+	
+	@Override
+	public boolean isAttacked(Field field, Player player)
+	{
+		return this.getAttackCount(field, player) > 0;
+	}
+	
+	@Override
+	public int getAttackCount(Field field, Player player)
+	{
+		ArgumentChecker.checkForNull(field, player);
+		Piece piece = this.getPiece(field);
+		if(piece != null && piece.getPlayer() == player)
+		{
+			return 0;
+		}
+		return attacks.getCount(field, player);
+	}
+	
+	@Override
+	public Set<Piece> getAttackers(Field field, Player player)
+	{
+		ArgumentChecker.checkForNull(field, player);
+		Piece piece = this.getPiece(field);
+		if(piece != null && piece.getPlayer() == player)
+		{
+			return new HashSet<Piece>();
+		}
+		return attacks.getAttackers(this, field, player);
+	}
+	
+	@Override
+	public int getExchangeValue(Field field, Player player, IPieceEvaluator values)
+	{
+		ArgumentChecker.checkForNull(field, player, values);
+		return attacks.getExchangeValue(this, field, player, values);
+	}
+	
+	@Override
+	public long getZobristKey()
+	{
+		return zobristKey;
+	}
+	
+	@Override
+	public Player getActivePlayer()
+	{
+		return activePlayer;
+	}
+	
+	@Override
+	public void setActivePlayer(Player player)
+	{
+		if(activePlayer != null)
+		{
+			zobristKey ^= Zobrist.getInstance().getSideToMoveKey(activePlayer);
+		}
+		this.activePlayer = player;
+		if(player != null)
+		{
+			zobristKey ^= Zobrist.getInstance().getSideToMoveKey(player);
+		}
+	}
+	
+	@Override
+	public Field getEnPassantField(Player player)
+	{
+		ArgumentChecker.checkForNull(player);
+		return enPassantFields[player.getColor().ordinal()];
+	}
+	
+	@Override
+	public void setEnPassantField(Player player, Field field)
+	{
+		ArgumentChecker.checkForNull(player);
+		int color = player.getColor().ordinal();
+		if(enPassantFields[color] != null)
+		{
+			zobristKey ^= Zobrist.getInstance().getEnPassantKey(player, enPassantFields[color]);
+		}
+		enPassantFields[color] = field;
+		if(field != null)
+		{
+			zobristKey ^= Zobrist.getInstance().getEnPassantKey(player, field);
+		}
+	}
+	
+	@Override
+	public UndoToken makeMove(Move move)
+	{
+		ArgumentChecker.checkForNull(move);
+
+		Field from = this.getField(move.getFrom().getPosX(), move.getFrom().getPosY());
+		Field to = this.getField(move.getTo().getPosX(), move.getTo().getPosY());
+		Piece movedPiece = this.getPiece(from);
+		if(movedPiece == null || to == null)
+		{
+			throw new IllegalArgumentException("Move " + move + " does not fit the board!");
+		}
+
+		UndoToken token = new UndoToken(move, movedPiece, from, to);
+		token.previousEnPassant = this.getEnPassantField(movedPiece.getPlayer());
+
+		// Captured pieces usually sit on the target field; only en passant
+		// moves capture a piece somewhere else
+		token.captured = this.getPiece(to);
+		token.capturedField = to;
+		if(token.captured == null && move.getTakenPiece() != null)
+		{
+			Field passedField = this.getField(move.getTakenPiece());
+			if(passedField != null)
+			{
+				token.captured = move.getTakenPiece();
+				token.capturedField = passedField;
+			}
+		}
+		if(token.captured != null)
+		{
+			this.removePiece(token.capturedField);
+		}
+
+		if(move.getCastlingMove() != CastlingType.NONE)
+		{
+			this.moveCastlingRook(token);
+		}
+
+		// Moved flags are part of the piece keys, so they have to be updated
+		// before the pieces are placed
+		movedPiece.markAsMoved();
+		this.movePiece(movedPiece, to);
+
+		if(move.getPromotedPiece() != null)
+		{
+			token.promoted = move.getPromotedPiece();
+			token.promotedHadMoved = token.promoted.hasMoved();
+			token.promoted.markAsMoved();
+			this.setPiece(to, token.promoted);
+		}
+
+		// Only the player's latest move can enable en passant
+		this.setEnPassantField(movedPiece.getPlayer(), move.wasPawnTwoFieldsMove() ? to : null);
+
+		return token;
+	}
+
+	/**
+	 * Moves the rook taking part in a castling move. The rook is the first
+	 * piece behind the king's target field (seen from the king) and ends up
+	 * on the field the king passes first. This holds for every board layout
+	 * since castling requires the fields in between to be empty.
+	 * @param token Token of the castling move
+	 */
+	private void moveCastlingRook(UndoToken token)
+	{
+		Direction castleDir = Direction.of(token.to.getPosX() - token.from.getPosX(),
+				token.to.getPosY() - token.from.getPosY()).signum();
+
+		Field rookField = this.getFieldInDirection(token.to, castleDir);
+		while(rookField != null && this.getPiece(rookField) == null)
+		{
+			rookField = this.getFieldInDirection(rookField, castleDir);
+		}
+
+		if(rookField != null && this.getPiece(rookField).getPlayer() == token.movedPiece.getPlayer())
+		{
+			token.rook = this.getPiece(rookField);
+			token.rookFrom = rookField;
+			token.rookTo = this.getFieldInDirection(token.from, castleDir);
+			token.rookHadMoved = token.rook.hasMoved();
+
+			token.rook.markAsMoved();
+			this.movePiece(token.rook, token.rookTo);
+		}
+	}
+
+	@Override
+	public void unmakeMove(UndoToken token)
+	{
+		ArgumentChecker.checkForNull(token);
+
+		this.setEnPassantField(token.movedPiece.getPlayer(), token.previousEnPassant);
+
+		if(token.promoted != null)
+		{
+			this.removePiece(token.to);
+			restoreMovedFlag(token.promoted, token.promotedHadMoved);
+		}
+
+		// Restore the flags first to keep the piece keys consistent
+		restoreMovedFlag(token.movedPiece, token.movedPieceHadMoved);
+		this.movePiece(token.movedPiece, token.from);
+
+		if(token.rook != null)
+		{
+			restoreMovedFlag(token.rook, token.rookHadMoved);
+			this.movePiece(token.rook, token.rookFrom);
+		}
+
+		if(token.captured != null)
+		{
+			this.setPiece(token.capturedField, token.captured);
+		}
+	}
+
+	private static void restoreMovedFlag(Piece piece, boolean hadMoved)
+	{
+		if(hadMoved)
+		{
+			piece.markAsMoved();
+		} else
+		{
+			piece.markAsUnmoved();
+		}
+	}
+}
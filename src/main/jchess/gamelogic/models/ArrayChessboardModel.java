@@ -0,0 +1,374 @@
+package jchess.gamelogic.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.pieces.Piece;
+import jchess.util.ArgumentChecker;
+import jchess.util.Direction;
+
+/**
+ * Chessboard model backed by a dense, flat array of squares.
+ * The board occupies a rectangle of the given width and height; squares
+ * within that rectangle which are not part of the board (e.g. the corners
+ * of the four player board) are masked out once when the fields are added.
+ * Lookups by coordinate or field are plain index computations, and the
+ * field of a piece is kept in a separate per-piece index so neither
+ * direction requires hashing of fields.
+ */
+public class ArrayChessboardModel extends AbstractChessboardModel
+{
+	private final int width;
+	private final int height;
+
+	/**
+	 * Fields of the board by square index; null if the square is not part of
+	 * the board. This doubles as validity mask of the rectangle.
+	 */
+	private Field[] fields;
+	private Piece[] pieces;
+	/** Key contribution of the piece on each square */
+	private long[] pieceKeys;
+	private Set<Field> allFields;
+	private Map<Piece, Field> pieceFields;
+
+	/** Rays of the board's shape, computed once all fields are added */
+	private BoardGeometry geometry;
+	/**
+	 * Fields of the geometry's rays by square and direction index; filled on
+	 * demand and shared with copies, which use the same fields
+	 */
+	private List<List<List<Field>>> rayFields;
+
+	public ArrayChessboardModel(int width, int height)
+	{
+		if(width <= 0 || height <= 0)
+		{
+			throw new IllegalArgumentException("Board dimensions must be larger than zero!");
+		}
+
+		this.width = width;
+		this.height = height;
+		this.fields = new Field[width * height];
+		this.pieces = new Piece[width * height];
+		this.pieceKeys = new long[width * height];
+		this.allFields = new HashSet<Field>();
+		this.pieceFields = new IdentityHashMap<Piece, Field>();
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * Returns the square index of the given coordinates.
+	 * @param x x component
+	 * @param y y component
+	 * @return index into the square arrays or -1 if the coordinates are
+	 *         outside of the board or masked out
+	 */
+	private int indexOf(int x, int y)
+	{
+		if(x < 0 || y < 0 || x >= width || y >= height)
+		{
+			return -1;
+		}
+
+		int index = y * width + x;
+		return (fields[index] != null) ? index : -1;
+	}
+
+	private int indexOf(Field field)
+	{
+		return (field == null) ? -1 : indexOf(field.getPosX(), field.getPosY());
+	}
+
+	@Override
+	public void addField(Field field)
+	{
+		ArgumentChecker.checkForNull(field);
+
+		if(field.getPosX() >= width || field.getPosY() >= height)
+		{
+			throw new IllegalArgumentException("Field " + field + " is outside of the board's dimensions!");
+		}
+
+		int index = field.getPosY() * width + field.getPosX();
+		if(fields[index] == null)
+		{
+			fields[index] = field;
+			allFields.add(field);
+			// The shape changed
+			geometry = null;
+			rayFields = null;
+		}
+	}
+
+	@Override
+	public BoardGeometry getGeometry()
+	{
+		if(geometry == null)
+		{
+			BitSet squares = new BitSet(fields.length);
+			for(int i = 0; i < fields.length; i++)
+			{
+				squares.set(i, fields[i] != null);
+			}
+			geometry = BoardGeometry.getInstance(width, height, squares);
+			rayFields = new ArrayList<List<List<Field>>>(
+					Collections.<List<List<Field>>>nCopies(fields.length, null));
+		}
+		return geometry;
+	}
+
+	@Override
+	public Field getField(int x, int y)
+	{
+		int index = indexOf(x, y);
+		return (index < 0) ? null : fields[index];
+	}
+
+	@Override
+	public Field getField(Piece piece)
+	{
+		return pieceFields.get(piece);
+	}
+
+	@Override
+	public Set<Field> getFields()
+	{
+		return Collections.unmodifiableSet(allFields);
+	}
+
+	@Override
+	public List<Field> getEmptyFields()
+	{
+		List<Field> emptyFields = new ArrayList<Field>();
+		for(int i = 0; i < fields.length; i++)
+		{
+			if(fields[i] != null && pieces[i] == null)
+			{
+				emptyFields.add(fields[i]);
+			}
+		}
+		return emptyFields;
+	}
+
+	@Override
+	public Field getFieldInDirection(Field origin, Direction dir)
+	{
+		ArgumentChecker.checkForNull(origin, dir);
+
+		return this.getField(origin.getPosX() + dir.getX(), origin.getPosY() + dir.getY());
+	}
+
+	@Override
+	public List<Field> getFieldsInDirection(Field start, Direction dir)
+	{
+		ArgumentChecker.checkForNull(start, dir);
+
+		int square = indexOf(start);
+		int direction = BoardGeometry.indexOf(dir);
+		if(square >= 0 && direction >= 0)
+		{
+			return this.getRayFields(square, direction);
+		}
+
+		List<Field> directionFields = new ArrayList<Field>();
+		int x = start.getPosX() + dir.getX();
+		int y = start.getPosY() + dir.getY();
+		int index;
+		// A zero direction would never leave the board
+		while((dir.getX() != 0 || dir.getY() != 0) && (index = indexOf(x, y)) >= 0)
+		{
+			directionFields.add(fields[index]);
+			x += dir.getX();
+			y += dir.getY();
+		}
+
+		return directionFields;
+	}
+
+	/**
+	 * Returns the fields of a precomputed ray. The list is created once per
+	 * square and direction and cannot be modified.
+	 */
+	private List<Field> getRayFields(int square, int direction)
+	{
+		BoardGeometry rays = this.getGeometry();
+		List<List<Field>> squareRays = rayFields.get(square);
+		if(squareRays == null)
+		{
+			squareRays = new ArrayList<List<Field>>(
+					Collections.<List<Field>>nCopies(BoardGeometry.DIRECTIONS.length, null));
+			rayFields.set(square, squareRays);
+		}
+
+		List<Field> ray = squareRays.get(direction);
+		if(ray == null)
+		{
+			int[] squares = rays.getRay(square, direction);
+			Field[] rayArray = new Field[squares.length];
+			for(int i = 0; i < squares.length; i++)
+			{
+				rayArray[i] = fields[squares[i]];
+			}
+			ray = Collections.unmodifiableList(Arrays.asList(rayArray));
+			squareRays.set(direction, ray);
+		}
+		return ray;
+	}
+
+	@Override
+	public Set<Piece> getPieces()
+	{
+		return new HashSet<Piece>(pieceFields.keySet());
+	}
+
+	@Override
+	public Set<Piece> getPieces(Player player)
+	{
+		Set<Piece> playerPieces = new HashSet<Piece>();
+
+		for(Piece piece : pieceFields.keySet())
+		{
+			if(piece.getPlayer().equals(player))
+			{
+				playerPieces.add(piece);
+			}
+		}
+
+		return playerPieces;
+	}
+
+	@Override
+	public Piece getPiece(Field field)
+	{
+		int index = indexOf(field);
+		return (index < 0) ? null : pieces[index];
+	}
+
+	/**
+	 * Puts the piece on the given square. If the piece is already on the
+	 * board, it is taken off its previous square; a different piece on the
+	 * target square is removed from the board.
+	 * @param index Target square
+	 * @param piece Piece to place
+	 * @return Piece previously on the square
+	 */
+	private Piece place(int index, Piece piece)
+	{
+		Field previousField = pieceFields.get(piece);
+		if(previousField != null)
+		{
+			this.clear(indexOf(previousField));
+		}
+
+		Piece replaced = pieces[index];
+		if(replaced != null)
+		{
+			this.clear(index);
+		}
+
+		pieces[index] = piece;
+		pieceKeys[index] = this.hashPiece(fields[index], piece);
+		pieceFields.put(piece, fields[index]);
+		this.addAttacks(fields[index], piece);
+		return replaced;
+	}
+
+	/**
+	 * Takes the piece off an occupied square.
+	 * @param index Square to clear
+	 */
+	private void clear(int index)
+	{
+		Piece removed = pieces[index];
+		pieces[index] = null;
+		pieceFields.remove(removed);
+		this.unhashPiece(pieceKeys[index]);
+		this.removeAttacks(fields[index], removed);
+	}
+
+	private int checkedIndexOf(Field field)
+	{
+		int index = indexOf(field);
+		if(index < 0)
+		{
+			throw new IllegalArgumentException("Field " + field + " is not part of the board!");
+		}
+		return index;
+	}
+
+	@Override
+	public void setPiece(Field field, Piece piece)
+	{
+		ArgumentChecker.checkForNull(field);
+		if(piece != null)
+		{
+			this.place(checkedIndexOf(field), piece);
+		}
+	}
+
+	@Override
+	public Piece movePiece(Piece piece, Field target)
+	{
+		if(piece == null || target == null)
+		{
+			return null;
+		}
+		return this.place(checkedIndexOf(target), piece);
+	}
+
+	@Override
+	public Piece removePiece(Field field)
+	{
+		int index = indexOf(field);
+		if(index < 0 || pieces[index] == null)
+		{
+			return null;
+		}
+
+		Piece removed = pieces[index];
+		this.clear(index);
+		return removed;
+	}
+
+	@Override
+	public IChessboardModel copy()
+	{
+		ArrayChessboardModel board = new ArrayChessboardModel(width, height);
+		// Fields are immutable and can therefore be shared
+		board.fields = fields.clone();
+		board.allFields.addAll(allFields);
+		board.pieceKeys = pieceKeys.clone();
+		board.geometry = this.getGeometry();
+		board.rayFields = rayFields;
+		this.copyStateTo(board);
+		for(int i = 0; i < pieces.length; i++)
+		{
+			if(pieces[i] != null)
+			{
+				Piece copy = pieces[i].copy();
+				board.pieces[i] = copy;
+				board.pieceFields.put(copy, fields[i]);
+			}
+		}
+		return board;
+	}
+}
@@ -0,0 +1,451 @@
+package jchess.gamelogic.models;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.pieces.IPieceBehaviour;
+import jchess.gamelogic.pieces.Piece;
+import jchess.util.Direction;
+
+/**
+ * Number of pieces of each player attacking each field, kept up to date
+ * while pieces are put on and taken off the board. A piece attacks the
+ * fields along its capturing movements up to and including the first
+ * occupied field, whoever that field's piece belongs to.
+ * <p>
+ * When a field changes, only the attacks of the piece on it and those of
+ * the sliding pieces whose rays run through it change. The latter are found
+ * by walking from the field against every sliding direction seen so far, so
+ * no update has to look at all pieces.
+ */
+final class AttackMap
+{
+	private int width;
+	private int height;
+
+	/** Players in the order of their rows in the counts */
+	private List<Player> players = new ArrayList<Player>();
+	/** Attack counts by player row and square (y * width + x) */
+	private int[][] counts = new int[0][];
+	/**
+	 * Capturing directions of the piece on each square, null if the square
+	 * is empty; asking the pieces would create a new set every time
+	 */
+	private Direction[][] squareDirections = new Direction[0][];
+	/** Whether the piece on each square slides */
+	private boolean[] squareSlides = new boolean[0];
+
+	/** Capturing directions of sliding and single step pieces */
+	private Set<Direction> rayDirections = new HashSet<Direction>();
+	private Set<Direction> stepDirections = new HashSet<Direction>();
+
+	/**
+	 * @return Independent copy of the attack counts
+	 */
+	AttackMap copy()
+	{
+		AttackMap copy = new AttackMap();
+		copy.width = width;
+		copy.height = height;
+		copy.players.addAll(players);
+		copy.counts = new int[counts.length][];
+		for(int i = 0; i < counts.length; i++)
+		{
+			copy.counts[i] = counts[i].clone();
+		}
+		copy.squareDirections = squareDirections.clone();
+		copy.squareSlides = squareSlides.clone();
+		copy.rayDirections.addAll(rayDirections);
+		copy.stepDirections.addAll(stepDirections);
+		return copy;
+	}
+
+	/**
+	 * Adds the attacks of a piece put on the board and cuts off the rays
+	 * running through its field. The piece has to be on the board already.
+	 * @param board Board the piece was put on
+	 * @param field Field of the piece
+	 * @param piece Piece put on the board
+	 */
+	void piecePlaced(IChessboardModel board, Field field, Piece piece)
+	{
+		this.updateRaysThrough(board, field, -1);
+		this.updateAttacks(board, field, piece, 1);
+	}
+
+	/**
+	 * Removes the attacks of a piece taken off the board and extends the
+	 * rays it blocked. The piece has to be off the board already.
+	 * @param board Board the piece was taken off
+	 * @param field Previous field of the piece
+	 * @param piece Piece taken off the board
+	 */
+	void pieceRemoved(IChessboardModel board, Field field, Piece piece)
+	{
+		this.updateAttacks(board, field, piece, -1);
+		this.updateRaysThrough(board, field, 1);
+	}
+
+	/**
+	 * @param field Field to look up
+	 * @param player Attacking player
+	 * @return Number of the player's pieces attacking the field
+	 */
+	int getCount(Field field, Player player)
+	{
+		int row = players.indexOf(player);
+		int x = field.getPosX();
+		int y = field.getPosY();
+		if(row < 0 || x >= width || y >= height)
+		{
+			return 0;
+		}
+		return counts[row][y * width + x];
+	}
+
+	/**
+	 * Finds the pieces of a player attacking a field by walking from the
+	 * field against the known capturing directions.
+	 * @param board Board to look at
+	 * @param field Attacked field
+	 * @param player Attacking player
+	 * @return Set of attacking pieces
+	 */
+	Set<Piece> getAttackers(IChessboardModel board, Field field, Player player)
+	{
+		Set<Piece> attackers = new HashSet<Piece>();
+		if(this.getCount(field, player) == 0)
+		{
+			return attackers;
+		}
+
+		for(Direction dir : rayDirections)
+		{
+			Piece attacker = this.findRayOrigin(board, field, dir);
+			if(attacker != null && attacker.getPlayer() == player)
+			{
+				attackers.add(attacker);
+			}
+		}
+		for(Direction dir : stepDirections)
+		{
+			int x = field.getPosX() - dir.getX();
+			int y = field.getPosY() - dir.getY();
+			Field origin = board.getField(x, y);
+			if(origin == null || x >= width || y >= height)
+			{
+				continue;
+			}
+			int square = y * width + x;
+			Piece attacker = board.getPiece(origin);
+			if(attacker != null && attacker.getPlayer() == player && !squareSlides[square]
+					&& contains(squareDirections[square], dir))
+			{
+				attackers.add(attacker);
+			}
+		}
+		return attackers;
+	}
+
+	/**
+	 * Statically evaluates the exchange on a field: the player captures the
+	 * piece on it, then the player and all other players take turns
+	 * capturing there, each with their least valuable attacker, and either
+	 * side may stop when going on would lose material. Sliding pieces behind
+	 * a piece that captured join in (x-rays). All players other than the
+	 * given one count as one side, so the exchange is seen from the view of
+	 * a player who expects everybody else to recapture.
+	 * @param board Board to look at
+	 * @param field Field of the captured piece
+	 * @param player Player capturing first
+	 * @param values Values of the pieces on the field
+	 * @return Material the player wins, negative if the player loses some;
+	 *         0 if the field holds no enemy piece or the player cannot
+	 *         capture it
+	 */
+	int getExchangeValue(IChessboardModel board, Field field, Player player, IPieceEvaluator values)
+	{
+		Piece target = board.getPiece(field);
+		if(target == null || target.getPlayer() == player)
+		{
+			return 0;
+		}
+
+		List<List<Piece>> lanes = this.getAttackLanes(board, field);
+		int[] heads = new int[lanes.size()];
+		Piece attacker = this.takeLeastValuable(lanes, heads, field, player, true, values);
+		if(attacker == null)
+		{
+			return 0;
+		}
+
+		int pieces = 0;
+		for(List<Piece> lane : lanes)
+		{
+			pieces += lane.size();
+		}
+		int[] gains = new int[pieces + 2];
+		int depth = 0;
+		gains[0] = values.evaluate(target, field);
+		boolean own = true;
+		while(attacker != null)
+		{
+			depth++;
+			// Speculative gain if the attacker is captured next
+			gains[depth] = values.evaluate(attacker, field) - gains[depth - 1];
+			if(Math.max(-gains[depth - 1], gains[depth]) < 0)
+			{
+				break;
+			}
+			own = !own;
+			attacker = this.takeLeastValuable(lanes, heads, field, player, own, values);
+		}
+		while(--depth > 0)
+		{
+			gains[depth - 1] = -Math.max(-gains[depth - 1], gains[depth]);
+		}
+		return gains[0];
+	}
+
+	/**
+	 * Collects the attackers of a field by direction. Each lane lists the
+	 * pieces in the order they can capture on the field: the first attacker
+	 * in the direction, then the sliders behind it which attack the field
+	 * once the pieces in front have left.
+	 */
+	private List<List<Piece>> getAttackLanes(IChessboardModel board, Field field)
+	{
+		Set<Direction> directions = new HashSet<Direction>(rayDirections);
+		directions.addAll(stepDirections);
+		Set<Piece> found = new HashSet<Piece>();
+		List<List<Piece>> lanes = new ArrayList<List<Piece>>();
+		for(Direction dir : directions)
+		{
+			List<Piece> lane = new ArrayList<Piece>();
+			int x = field.getPosX();
+			int y = field.getPosY();
+			for(int distance = 1; ; distance++)
+			{
+				x -= dir.getX();
+				y -= dir.getY();
+				if(x < 0 || y < 0 || x >= width || y >= height || board.getField(x, y) == null)
+				{
+					break;
+				}
+				int square = y * width + x;
+				if(squareDirections[square] == null)
+				{
+					continue;
+				}
+				if(!contains(squareDirections[square], dir) || !(squareSlides[square] || distance == 1))
+				{
+					break;
+				}
+				Piece piece = board.getPiece(board.getField(x, y));
+				if(found.add(piece))
+				{
+					lane.add(piece);
+				}
+			}
+			if(!lane.isEmpty())
+			{
+				lanes.add(lane);
+			}
+		}
+		return lanes;
+	}
+
+	/**
+	 * Takes the least valuable attacker of one side from the front of the
+	 * lanes.
+	 * @param own True for the pieces of the player, false for all others
+	 * @return The attacker or null if the side has none left
+	 */
+	private Piece takeLeastValuable(List<List<Piece>> lanes, int[] heads, Field field, Player player, boolean own,
+			IPieceEvaluator values)
+	{
+		int best = -1;
+		int bestValue = 0;
+		for(int i = 0; i < lanes.size(); i++)
+		{
+			if(heads[i] < lanes.get(i).size())
+			{
+				Piece piece = lanes.get(i).get(heads[i]);
+				int value = values.evaluate(piece, field);
+				if((piece.getPlayer() == player) == own && (best < 0 || value < bestValue))
+				{
+					best = i;
+					bestValue = value;
+				}
+			}
+		}
+		if(best < 0)
+		{
+			return null;
+		}
+		return lanes.get(best).get(heads[best]++);
+	}
+
+	/**
+	 * Returns the sliding piece whose ray in the given direction reaches the
+	 * field, i.e. the first piece against the direction, if it slides that
+	 * way.
+	 */
+	private Piece findRayOrigin(IChessboardModel board, Field field, Direction dir)
+	{
+		int x = field.getPosX();
+		int y = field.getPosY();
+		Direction[] directions = null;
+		while(directions == null)
+		{
+			x -= dir.getX();
+			y -= dir.getY();
+			if(x < 0 || y < 0 || x >= width || y >= height || board.getField(x, y) == null)
+			{
+				return null;
+			}
+			directions = squareDirections[y * width + x];
+		}
+
+		if(squareSlides[y * width + x] && contains(directions, dir))
+		{
+			return board.getPiece(board.getField(x, y));
+		}
+		return null;
+	}
+
+	private static boolean contains(Direction[] directions, Direction dir)
+	{
+		for(Direction candidate : directions)
+		{
+			if(candidate.equals(dir))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void updateRaysThrough(IChessboardModel board, Field field, int delta)
+	{
+		for(Direction dir : rayDirections)
+		{
+			Piece origin = this.findRayOrigin(board, field, dir);
+			if(origin != null)
+			{
+				this.updateRay(board, field, dir, true, this.rowOf(origin.getPlayer()), delta);
+			}
+		}
+	}
+
+	private void updateAttacks(IChessboardModel board, Field field, Piece piece, int delta)
+	{
+		this.ensureSize(field.getPosX(), field.getPosY());
+		int square = field.getPosY() * width + field.getPosX();
+		if(delta > 0)
+		{
+			IPieceBehaviour behaviour = piece.getBehaviour();
+			squareDirections[square] = behaviour.getCapturingMovements().toArray(new Direction[0]);
+			squareSlides[square] = behaviour.canMoveMultipleSteps();
+		}
+
+		Direction[] directions = squareDirections[square];
+		boolean slides = squareSlides[square];
+		int row = this.rowOf(piece.getPlayer());
+		for(Direction dir : directions)
+		{
+			if(dir.getX() == 0 && dir.getY() == 0)
+			{
+				continue;
+			}
+			if(delta > 0)
+			{
+				(slides ? rayDirections : stepDirections).add(dir);
+			}
+			this.updateRay(board, field, dir, slides, row, delta);
+		}
+
+		if(delta < 0)
+		{
+			squareDirections[square] = null;
+		}
+	}
+
+	/**
+	 * Adds delta to the fields after the start in the given direction: one
+	 * field for single steps, all fields up to and including the first
+	 * occupied one for slides.
+	 */
+	private void updateRay(IChessboardModel board, Field start, Direction dir, boolean slides, int row, int delta)
+	{
+		int x = start.getPosX();
+		int y = start.getPosY();
+		Field field;
+		do
+		{
+			x += dir.getX();
+			y += dir.getY();
+			field = board.getField(x, y);
+			if(field == null)
+			{
+				return;
+			}
+			this.ensureSize(x, y);
+			counts[row][y * width + x] += delta;
+		} while(slides && squareDirections[y * width + x] == null);
+	}
+
+	private int rowOf(Player player)
+	{
+		int row = players.indexOf(player);
+		if(row < 0)
+		{
+			players.add(player);
+			int[][] grown = new int[counts.length + 1][];
+			System.arraycopy(counts, 0, grown, 0, counts.length);
+			grown[counts.length] = new int[width * height];
+			counts = grown;
+			row = counts.length - 1;
+		}
+		return row;
+	}
+
+	/**
+	 * Grows the counts to cover the given square. Boards do not announce
+	 * their size, so this happens while the first pieces are put on them.
+	 */
+	private void ensureSize(int x, int y)
+	{
+		if(x < width && y < height)
+		{
+			return;
+		}
+
+		int newWidth = Math.max(width, x + 1);
+		int newHeight = Math.max(height, y + 1);
+		for(int row = 0; row < counts.length; row++)
+		{
+			int[] grown = new int[newWidth * newHeight];
+			for(int i = 0; i < height; i++)
+			{
+				System.arraycopy(counts[row], i * width, grown, i * newWidth, width);
+			}
+			counts[row] = grown;
+		}
+		Direction[][] grownDirections = new Direction[newWidth * newHeight][];
+		boolean[] grownSlides = new boolean[newWidth * newHeight];
+		for(int i = 0; i < height; i++)
+		{
+			System.arraycopy(squareDirections, i * width, grownDirections, i * newWidth, width);
+			System.arraycopy(squareSlides, i * width, grownSlides, i * newWidth, width);
+		}
+		squareDirections = grownDirections;
+		squareSlides = grownSlides;
+		width = newWidth;
+		height = newHeight;
+	}
+}
@@ -0,0 +1,220 @@
+package jchess.gamelogic.models;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import jchess.util.Direction;
+
+/**
+ * Precomputed rays of a board shape. For every square and every direction
+ * a piece can move in (the eight adjacent directions and the eight knight
+ * jumps) the geometry holds the ordered squares reached by repeating the
+ * step until the board ends. Squares are numbered y * width + x within the
+ * rectangle around the board; squares of the rectangle which are not part
+ * of the board (e.g. the corners of the four player board) end every ray.
+ * <p>
+ * The shape of a board never changes during a game, so geometries are
+ * shared: {@link #getInstance(int, int, BitSet)} returns the same instance
+ * for every board of the same shape.
+ */
+public final class BoardGeometry
+{
+	/** Directions with precomputed rays; their position is the direction index */
+	public static final Direction[] DIRECTIONS = {
+			Direction.of(1, 0), Direction.of(-1, 0), Direction.of(0, 1), Direction.of(0, -1),
+			Direction.of(1, 1), Direction.of(-1, -1), Direction.of(1, -1), Direction.of(-1, 1),
+			Direction.of(1, 2), Direction.of(2, 1), Direction.of(2, -1), Direction.of(1, -2),
+			Direction.of(-1, -2), Direction.of(-2, -1), Direction.of(-2, 1), Direction.of(-1, 2) };
+
+	/** Maximum component of the directions above */
+	private static final int MAX_STEP = 2;
+	/** Direction index by (y + 2) * 5 + (x + 2) of the step, -1 if none */
+	private static final int[] DIRECTION_INDICES = new int[(2 * MAX_STEP + 1) * (2 * MAX_STEP + 1)];
+	private static final int[] NO_SQUARES = new int[0];
+
+	private static final Map<Shape, BoardGeometry> geometries = new HashMap<Shape, BoardGeometry>();
+
+	static
+	{
+		Arrays.fill(DIRECTION_INDICES, -1);
+		for(int i = 0; i < DIRECTIONS.length; i++)
+		{
+			DIRECTION_INDICES[stepIndex(DIRECTIONS[i].getX(), DIRECTIONS[i].getY())] = i;
+		}
+	}
+
+	private final int width;
+	private final int height;
+	private final BitSet squares;
+	/** Rays by square and direction index */
+	private final int[][][] rays;
+
+	private BoardGeometry(int width, int height, BitSet squares)
+	{
+		this.width = width;
+		this.height = height;
+		this.squares = squares;
+		this.rays = new int[width * height][][];
+
+		int[] buffer = new int[Math.max(width, height)];
+		for(int square = squares.nextSetBit(0); square >= 0; square = squares.nextSetBit(square + 1))
+		{
+			rays[square] = new int[DIRECTIONS.length][];
+			for(int dir = 0; dir < DIRECTIONS.length; dir++)
+			{
+				int length = 0;
+				int x = square % width + DIRECTIONS[dir].getX();
+				int y = square / width + DIRECTIONS[dir].getY();
+				while(this.isOnBoard(x, y))
+				{
+					buffer[length++] = y * width + x;
+					x += DIRECTIONS[dir].getX();
+					y += DIRECTIONS[dir].getY();
+				}
+				rays[square][dir] = (length == 0) ? NO_SQUARES : Arrays.copyOf(buffer, length);
+			}
+		}
+	}
+
+	/**
+	 * Returns the geometry of a board shape, computing it on first use.
+	 * @param width Width of the rectangle around the board
+	 * @param height Height of the rectangle around the board
+	 * @param squares Squares of the rectangle which are part of the board
+	 * @return Shared geometry of the shape
+	 */
+	public static BoardGeometry getInstance(int width, int height, BitSet squares)
+	{
+		if(width <= 0 || height <= 0)
+		{
+			throw new IllegalArgumentException("Board dimensions must be larger than zero!");
+		}
+
+		Shape shape = new Shape(width, height, (BitSet) squares.clone());
+		synchronized(geometries)
+		{
+			BoardGeometry geometry = geometries.get(shape);
+			if(geometry == null)
+			{
+				geometry = new BoardGeometry(width, height, shape.squares);
+				geometries.put(shape, geometry);
+			}
+			return geometry;
+		}
+	}
+
+	/**
+	 * Returns the index of a direction in {@link #DIRECTIONS}.
+	 * @param dir Direction to look up
+	 * @return Index of the direction or -1 if it has no precomputed rays
+	 */
+	public static int indexOf(Direction dir)
+	{
+		int x = dir.getX();
+		int y = dir.getY();
+		if(x < -MAX_STEP || x > MAX_STEP || y < -MAX_STEP || y > MAX_STEP)
+		{
+			return -1;
+		}
+		return DIRECTION_INDICES[stepIndex(x, y)];
+	}
+
+	private static int stepIndex(int x, int y)
+	{
+		return (y + MAX_STEP) * (2 * MAX_STEP + 1) + (x + MAX_STEP);
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * @param x x component
+	 * @param y y component
+	 * @return Square of the coordinates or -1 if they are not on the board
+	 */
+	public int square(int x, int y)
+	{
+		return this.isOnBoard(x, y) ? y * width + x : -1;
+	}
+
+	public int x(int square)
+	{
+		return square % width;
+	}
+
+	public int y(int square)
+	{
+		return square / width;
+	}
+
+	public boolean isOnBoard(int x, int y)
+	{
+		return x >= 0 && y >= 0 && x < width && y < height && squares.get(y * width + x);
+	}
+
+	/**
+	 * Returns the squares reached from a square by repeating a step, closest
+	 * first. The returned array is shared and must not be modified.
+	 * @param square Square of the board to start from
+	 * @param direction Index of the direction in {@link #DIRECTIONS}
+	 * @return Squares of the ray, empty if the first step leaves the board
+	 */
+	public int[] getRay(int square, int direction)
+	{
+		return rays[square][direction];
+	}
+
+	/**
+	 * @param square Square of the board to start from
+	 * @param direction Index of the direction in {@link #DIRECTIONS}
+	 * @return Square one step away or -1 if the step leaves the board
+	 */
+	public int getNeighbor(int square, int direction)
+	{
+		int[] ray = rays[square][direction];
+		return (ray.length == 0) ? -1 : ray[0];
+	}
+
+	/**
+	 * Key of the geometry cache.
+	 */
+	private static class Shape
+	{
+		private final int width;
+		private final int height;
+		private final BitSet squares;
+
+		Shape(int width, int height, BitSet squares)
+		{
+			this.width = width;
+			this.height = height;
+			this.squares = squares;
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return (31 * width + height) * 31 + squares.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object obj)
+		{
+			if(!(obj instanceof Shape))
+			{
+				return false;
+			}
+			Shape other = (Shape) obj;
+			return width == other.width && height == other.height && squares.equals(other.squares);
+		}
+	}
+}
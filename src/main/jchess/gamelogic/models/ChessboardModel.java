@@ -1,6 +1,7 @@
 package jchess.gamelogic.models;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -14,11 +15,15 @@ import jchess.util.ArgumentChecker;
 import jchess.util.BiMap;
 import jchess.util.Direction;
 
-public class ChessboardModel implements IChessboardModel
+public class ChessboardModel extends AbstractChessboardModel
 {
 	private Map<Integer, Map<Integer, Field>> fields;
 	private Set<Field> allFields;
 	private BiMap<Field, Piece> pieces;
+	/** Key contribution of the piece on each field */
+	private Map<Field, Long> pieceKeys;
+	/** Rays of the board's shape, computed once all fields are added */
+	private BoardGeometry geometry;
 	
 	public ChessboardModel()
 	{
@@ -26,6 +31,7 @@ public class ChessboardModel implements IChessboardModel
 		this.fields = new HashMap<Integer, Map<Integer, Field>>();
 		this.allFields = new HashSet<Field>();
 		this.pieces = new BiMap<Field, Piece>();
+		this.pieceKeys = new HashMap<Field, Long>();
 	}
 	
 	@Override
@@ -33,6 +39,7 @@ public class ChessboardModel implements IChessboardModel
 	{
 		if(allFields.add(field))
 		{
+			geometry = null;
 			// Only do expensive lookup when the element is not already present
 			Map<Integer, Field> yMap = fields.get(field.getPosX());
 			if(yMap == null)
@@ -87,13 +94,7 @@ public class ChessboardModel implements IChessboardModel
 	{
 		ArgumentChecker.checkForNull(origin, dir);
 		
-		try
-		{
-			return this.getField(origin.getPosX() + dir.getX(), origin.getPosY() + dir.getY());
-		} catch(ArrayIndexOutOfBoundsException exc)
-		{
-			return null;
-		}
+		return this.getField(origin.getPosX() + dir.getX(), origin.getPosY() + dir.getY());
 	}
 	
 	@Override
@@ -102,6 +103,17 @@ public class ChessboardModel implements IChessboardModel
 		ArgumentChecker.checkForNull(start, dir);
 		
 		List<Field> directionFields = new ArrayList<Field>();
+		int direction = BoardGeometry.indexOf(dir);
+		if(direction >= 0 && this.getField(start.getPosX(), start.getPosY()) != null)
+		{
+			BoardGeometry rays = this.getGeometry();
+			for(int square : rays.getRay(rays.square(start.getPosX(), start.getPosY()), direction))
+			{
+				directionFields.add(this.getField(rays.x(square), rays.y(square)));
+			}
+			return directionFields;
+		}
+		
 		// Iterate through all fields in the given direction (until we hit null
 		// which means we're off the board)
 		Field currField = start;
@@ -113,6 +125,28 @@ public class ChessboardModel implements IChessboardModel
 		return directionFields;
 	}
 	
+	@Override
+	public BoardGeometry getGeometry()
+	{
+		if(geometry == null)
+		{
+			int width = 1;
+			int height = 1;
+			for(Field field : allFields)
+			{
+				width = Math.max(width, field.getPosX() + 1);
+				height = Math.max(height, field.getPosY() + 1);
+			}
+			BitSet squares = new BitSet(width * height);
+			for(Field field : allFields)
+			{
+				squares.set(field.getPosY() * width + field.getPosX());
+			}
+			geometry = BoardGeometry.getInstance(width, height, squares);
+		}
+		return geometry;
+	}
+	
 	@Override
 	public Set<Piece> getPieces()
 	{
@@ -146,35 +180,69 @@ public class ChessboardModel implements IChessboardModel
 	public void setPiece(Field field, Piece piece)
 	{
 		ArgumentChecker.checkForNull(field);
-		pieces.put(field, piece);
+		this.place(field, piece);
 	}
 	
 	@Override
 	public Piece movePiece(Piece piece, Field target)
 	{
-		return pieces.put(target, piece);
+		return this.place(target, piece);
+	}
+	
+	/**
+	 * Puts the piece on the field while keeping the position key and the
+	 * attacks up to date.
+	 * @param field Target field
+	 * @param piece Piece to place
+	 * @return Piece previously on the field
+	 */
+	private Piece place(Field field, Piece piece)
+	{
+		if(field == null || piece == null)
+		{
+			return null;
+		}
+		
+		Field previousField = pieces.inverse().get(piece);
+		if(previousField != null)
+		{
+			this.removePiece(previousField);
+		}
+		Piece replaced = this.removePiece(field);
+		
+		pieces.put(field, piece);
+		pieceKeys.put(field, this.hashPiece(field, piece));
+		this.addAttacks(field, piece);
+		return replaced;
 	}
 	
 	@Override
 	public Piece removePiece(Field field)
 	{
-		return pieces.remove(field);
+		Piece removed = pieces.remove(field);
+		if(removed != null)
+		{
+			this.unhashPiece(pieceKeys.remove(field));
+			this.removeAttacks(field, removed);
+		}
+		return removed;
 	}
 	
 	@Override
 	public IChessboardModel copy()
 	{
 		ChessboardModel board = new ChessboardModel();
+		// Fields are immutable and can be shared between the boards
 		for(Field field : this.getFields())
 		{
-			Field copy = new Field(field);
-			board.addField(copy);
+			board.addField(field);
 			Piece piece = this.getPiece(field);
 			if(piece != null)
 			{
-				board.setPiece(copy, piece.copy());
+				board.setPiece(field, piece.copy());
 			}
 		}
+		this.copyStateTo(board);
 		return board;
 	}
 }
@@ -5,6 +5,7 @@ import java.util.Set;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
 import jchess.gamelogic.pieces.Piece;
 import jchess.util.Copyable;
 import jchess.util.Direction;
@@ -36,8 +37,132 @@ public interface IChessboardModel extends Copyable<IChessboardModel>
 	
 	public List<Field> getFieldsInDirection(Field start, Direction dir);
 	
+	/**
+	 * Returns the precomputed rays of the board's shape. All boards of the
+	 * same shape share one geometry.
+	 * @return Geometry of the board
+	 */
+	public BoardGeometry getGeometry();
+	
 	public Set<Piece> getPieces();
 	
 	public Set<Piece> getPieces(Player player);
 	
+	/**
+	 * Carries out the given move in place. Captured pieces (including pawns
+	 * taken en passant), the rook of a castling move and promotions are
+	 * handled as well. The returned token reverts the move again and has to
+	 * be handed back before any move made afterwards is reverted.
+	 * @param move Move to make
+	 * @return Token to revert the move with
+	 * @throws IllegalArgumentException if there is no piece on the starting
+	 *             field or the target field is not part of the board
+	 */
+	public UndoToken makeMove(Move move);
+	
+	/**
+	 * Reverts a move made with {@link #makeMove(Move)}. This restores
+	 * captured pieces and the moved flags of all pieces involved.
+	 * @param token Token of the move to revert
+	 */
+	public void unmakeMove(UndoToken token);
+	
+	/**
+	 * Returns the Zobrist key of the current position. It covers the pieces
+	 * on their fields, their moved flags (and therefore castling rights), the
+	 * side to move and the en passant state, and is updated incrementally
+	 * with every change to the board.
+	 * @return 64 bit key of the position
+	 */
+	public long getZobristKey();
+	
+	/**
+	 * Sets the evaluator whose values of the pieces are summed up per player.
+	 * The sums are computed once here and kept up to date with every piece
+	 * put on or taken off the board afterwards.
+	 * @param evaluator Evaluator of the pieces or null to stop evaluating
+	 */
+	public void setPieceEvaluator(IPieceEvaluator evaluator);
+	
+	/**
+	 * Returns the sum of the values of the player's pieces given by the
+	 * evaluator of the board. This takes constant time.
+	 * @param player Player to get the score of
+	 * @return Score of the player or 0 if the board has no evaluator
+	 */
+	public int getScore(Player player);
+	
+	/**
+	 * Returns the player whose turn it is in the current position.
+	 * @return Active player or null if not set
+	 */
+	public Player getActivePlayer();
+	
+	/**
+	 * Sets the player whose turn it is. This is part of the position key.
+	 * @param player Active player
+	 */
+	public void setActivePlayer(Player player);
+	
+	/**
+	 * Returns the field of the player's pawn which may be captured en passant,
+	 * i.e. the pawn moved two fields with the player's latest move.
+	 * @param player Player to get the field for
+	 * @return Field of the pawn or null if there is none
+	 */
+	public Field getEnPassantField(Player player);
+	
+	/**
+	 * Sets the field of the player's pawn which may be captured en passant.
+	 * This is done by {@link #makeMove(Move)} automatically.
+	 * @param player Owner of the pawn
+	 * @param field Field of the pawn or null to clear
+	 */
+	public void setEnPassantField(Player player, Field field);
+	
+	/**
+	 * Checks whether a piece of the player attacks the field, i.e. the field
+	 * lies on one of the piece's capturing movements with no other piece in
+	 * between. Pieces do not attack fields occupied by their own player. The
+	 * attacks are updated with every change to the board, so this is a
+	 * lookup.
+	 * @param field Field to check
+	 * @param player Possibly attacking player
+	 * @return True if the field is attacked
+	 */
+	public boolean isAttacked(Field field, Player player);
+	
+	/**
+	 * Returns the number of the player's pieces attacking the field (see
+	 * {@link #isAttacked(Field, Player)}).
+	 * @param field Field to check
+	 * @param player Possibly attacking player
+	 * @return Number of attacking pieces
+	 */
+	public int getAttackCount(Field field, Player player);
+	
+	/**
+	 * Returns the player's pieces attacking the field (see
+	 * {@link #isAttacked(Field, Player)}).
+	 * @param field Field to check
+	 * @param player Possibly attacking player
+	 * @return Set of attacking pieces
+	 */
+	public Set<Piece> getAttackers(Field field, Player player);
+	
+	/**
+	 * Statically evaluates the exchange started by the player capturing the
+	 * piece on the field. The player and all other players then take turns
+	 * capturing on the field with their least valuable attacker, including
+	 * sliding pieces behind those which captured before, and either side
+	 * stops when going on would lose material. Pins and checks are ignored.
+	 * @param field Field of the captured piece
+	 * @param player Player capturing first
+	 * @param values Values of the pieces on the field
+	 * @return Material the player wins, negative if the player loses some; 0
+	 *         if the field holds no enemy piece or the player cannot capture
+	 *         it
+	 */
+	public int getExchangeValue(Field field, Player player, IPieceEvaluator values);
+	
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package jchess.gamelogic.models;
+
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.pieces.Piece;
+
+/**
+ * Values a single piece on a field. Board models sum these values per player
+ * incrementally while pieces are put on and taken off the board (see
+ * {@link IChessboardModel#setPieceEvaluator(IPieceEvaluator)}), so the value
+ * of a piece must depend on nothing but the piece itself and its field.
+ */
+public interface IPieceEvaluator
+{
+	/**
+	 * @param piece Piece on the board
+	 * @param field Field the piece stands on
+	 * @return Value of the piece on the field
+	 */
+	public int evaluate(Piece piece, Field field);
+}
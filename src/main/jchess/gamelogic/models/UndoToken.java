@@ -0,0 +1,62 @@
+package jchess.gamelogic.models;
+
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.pieces.Piece;
+
+/**
+ * Records everything a board model needs to revert a move made with
+ * {@link IChessboardModel#makeMove(Move)}.
+ * Tokens are only valid for the model which issued them and have to be
+ * handed back in reverse order of their creation.
+ */
+public final class UndoToken
+{
+	final Move move;
+
+	final Piece movedPiece;
+	final Field from;
+	final Field to;
+	final boolean movedPieceHadMoved;
+
+	Piece captured;
+	Field capturedField;
+
+	Piece rook;
+	Field rookFrom;
+	Field rookTo;
+	boolean rookHadMoved;
+
+	Piece promoted;
+	boolean promotedHadMoved;
+
+	Field previousEnPassant;
+
+	UndoToken(Move move, Piece movedPiece, Field from, Field to)
+	{
+		this.move = move;
+		this.movedPiece = movedPiece;
+		this.from = from;
+		this.to = to;
+		this.movedPieceHadMoved = movedPiece.hasMoved();
+	}
+
+	/**
+	 * Returns the move this token reverts.
+	 * @return Move made
+	 */
+	public Move getMove()
+	{
+		return move;
+	}
+
+	/**
+	 * Returns the piece which was captured by the move, if any. For en passant
+	 * moves this is the pawn which was passed.
+	 * @return Captured piece or null
+	 */
+	public Piece getCapturedPiece()
+	{
+		return captured;
+	}
+}
@@ -0,0 +1,199 @@
+package jchess.gamelogic.models;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.pieces.IPieceBehaviour;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+/**
+ * Provides the random keys for Zobrist hashing of board positions.
+ * A position's key is the XOR of the keys of all its components (pieces on
+ * their squares, side to move, en passant fields), which allows the board
+ * models to update it incrementally.
+ * The keys are generated from a fixed seed and are therefore stable across
+ * runs. Squares up to 16x16 are served from tables; larger boards fall back
+ * to mixing the coordinates.
+ */
+public final class Zobrist
+{
+	private static final long SEED = 0x4A43686573734CL;
+	private static final int TABLE_DIMENSION = 16;
+	private static final int TABLE_SQUARES = TABLE_DIMENSION * TABLE_DIMENSION;
+
+	private static final int PIECE_CATEGORY = 1;
+	private static final int UNMOVED_CATEGORY = 2;
+	private static final int EN_PASSANT_CATEGORY = 3;
+
+	private static Zobrist instance;
+
+	private final Map<Class<? extends IPieceBehaviour>, Integer> kindIndices;
+	private final int kinds;
+	private final int colors;
+
+	/** Piece keys by kind, color and square */
+	private final long[][][] pieceKeys;
+	/** Additional keys of unmoved pieces; these encode castling rights */
+	private final long[][] unmovedKeys;
+	private final long[][] enPassantKeys;
+	private final long[] sideToMoveKeys;
+
+	private Zobrist()
+	{
+		this.kindIndices = new HashMap<Class<? extends IPieceBehaviour>, Integer>();
+		for(PieceType type : PieceType.values())
+		{
+			kindIndices.put(type.getBehaviour(new Direction(0, 1)).getClass(), type.ordinal());
+		}
+		// Reserve one more kind for behaviours not created by the factory
+		this.kinds = PieceType.values().length + 1;
+		this.colors = Player.Color.values().length;
+
+		Random random = new Random(SEED);
+		this.pieceKeys = new long[kinds][colors][TABLE_SQUARES];
+		this.unmovedKeys = new long[colors][TABLE_SQUARES];
+		this.enPassantKeys = new long[colors][TABLE_SQUARES];
+		this.sideToMoveKeys = new long[colors];
+
+		for(int kind = 0; kind < kinds; kind++)
+		{
+			for(int color = 0; color < colors; color++)
+			{
+				fill(random, pieceKeys[kind][color]);
+			}
+		}
+		for(int color = 0; color < colors; color++)
+		{
+			fill(random, unmovedKeys[color]);
+			fill(random, enPassantKeys[color]);
+		}
+		fill(random, sideToMoveKeys);
+	}
+
+	public static Zobrist getInstance()
+	{
+		if(instance == null)
+		{
+			instance = new Zobrist();
+		}
+		return instance;
+	}
+
+	private static void fill(Random random, long[] keys)
+	{
+		for(int i = 0; i < keys.length; i++)
+		{
+			keys[i] = random.nextLong();
+		}
+	}
+
+	/**
+	 * Returns the table index of the square or -1 if the square lies outside
+	 * of the tables.
+	 */
+	private static int squareIndex(Field field)
+	{
+		int x = field.getPosX();
+		int y = field.getPosY();
+		if(x >= TABLE_DIMENSION || y >= TABLE_DIMENSION)
+		{
+			return -1;
+		}
+		return y * TABLE_DIMENSION + x;
+	}
+
+	/**
+	 * Computes a key for components outside of the tables.
+	 */
+	private static long mixedKey(int category, int kind, int color, Field field)
+	{
+		long key = SEED;
+		key = mix(key ^ category);
+		key = mix(key ^ kind);
+		key = mix(key ^ color);
+		key = mix(key ^ field.getPosX());
+		return mix(key ^ field.getPosY());
+	}
+
+	/**
+	 * Finalizer of the SplitMix64 generator.
+	 */
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private int getKindIndex(Piece piece)
+	{
+		Integer index = kindIndices.get(piece.getBehaviour().getClass());
+		return (index == null) ? kinds - 1 : index;
+	}
+
+	/**
+	 * Returns the key of the piece standing on the given field. This includes
+	 * the piece's moved flag, as castling rights and pawn double steps depend
+	 * on it.
+	 * @param piece Piece on the field
+	 * @param field Field of the piece
+	 * @return Key of the piece
+	 */
+	public long getPieceKey(Piece piece, Field field)
+	{
+		int kind = getKindIndex(piece);
+		int color = piece.getPlayer().getColor().ordinal();
+		int square = squareIndex(field);
+
+		long key;
+		if(square >= 0)
+		{
+			key = pieceKeys[kind][color][square];
+			if(!piece.hasMoved())
+			{
+				key ^= unmovedKeys[color][square];
+			}
+		} else
+		{
+			key = mixedKey(PIECE_CATEGORY, kind, color, field);
+			if(!piece.hasMoved())
+			{
+				key ^= mixedKey(UNMOVED_CATEGORY, 0, color, field);
+			}
+		}
+		return key;
+	}
+
+	/**
+	 * Returns the key of the player being the one to move.
+	 * @param player Active player
+	 * @return Key of the side to move
+	 */
+	public long getSideToMoveKey(Player player)
+	{
+		return sideToMoveKeys[player.getColor().ordinal()];
+	}
+
+	/**
+	 * Returns the key of the player's pawn being capturable en passant on the
+	 * given field.
+	 * @param player Owner of the pawn
+	 * @param field Field of the pawn
+	 * @return Key of the en passant state
+	 */
+	public long getEnPassantKey(Player player, Field field)
+	{
+		int color = player.getColor().ordinal();
+		int square = squareIndex(field);
+		if(square >= 0)
+		{
+			return enPassantKeys[color][square];
+		}
+		return mixedKey(EN_PASSANT_CATEGORY, 0, color, field);
+	}
+}
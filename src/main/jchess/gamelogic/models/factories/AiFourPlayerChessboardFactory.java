@@ -4,7 +4,7 @@ import java.util.List;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.field.Field;
-import jchess.gamelogic.models.ChessboardModel;
+import jchess.gamelogic.models.ArrayChessboardModel;
 import jchess.gamelogic.models.IBoardFactory;
 import jchess.gamelogic.models.IChessboardModel;
 import jchess.gamelogic.pieces.IPieceFactory;
@@ -34,29 +34,29 @@ public class AiFourPlayerChessboardFactory implements IBoardFactory
 			return null;
 		}
 		
-		ChessboardModel board = new ChessboardModel();
+		ArrayChessboardModel board = new ArrayChessboardModel(14, 14);
 		
 		// Create field structure (plus-like shape)
 		for(int x = 0; x < 14; x++)
 		{
 			for(int y = 3; y < 11; y++)
 			{
-				board.addField(new Field(x, y));
+				board.addField(Field.of(x, y));
 			}
 		}
 		for(int y = 0; y < 14; y++)
 		{
 			for(int x = 3; x < 11; x++)
 			{
-				board.addField(new Field(x, y));
+				board.addField(Field.of(x, y));
 			}
 		}
 		
 		IPieceFactory factory = PieceFactory.getInstance();
-		Direction up = new Direction(0, -1);
-		Direction down = new Direction(0, 1);
-		Direction left = new Direction(-1, 0);
-		Direction right = new Direction(1, 0);
+		Direction up = Direction.of(0, -1);
+		Direction down = Direction.of(0, 1);
+		Direction left = Direction.of(-1, 0);
+		Direction right = Direction.of(1, 0);
 		
 		// Regular pieces for all 4 players
 		board.setPiece(board.getField(3, 13), factory.buildPiece(players.get(0), up, PieceType.ROOK));
@@ -0,0 +1,43 @@
+package jchess.gamelogic.models.factories;
+
+import java.util.List;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.bitboard.BitboardPosition;
+import jchess.gamelogic.models.IBoardFactory;
+import jchess.gamelogic.models.IChessboardModel;
+
+/**
+ * Creates two player boards from a position in Forsyth-Edwards notation, e.g.
+ * to set up test positions. The first player of the list plays white.
+ * Controllers always start with their first player, so if black is to move
+ * the controller has to be switched once (see {@link #isBlackToMove()}).
+ */
+public class FenChessboardFactory implements IBoardFactory
+{
+	private final BitboardPosition position;
+
+	/**
+	 * @param fen Position in FEN
+	 * @throws IllegalArgumentException if the notation is malformed
+	 */
+	public FenChessboardFactory(String fen)
+	{
+		this.position = BitboardPosition.fromFen(fen);
+	}
+
+	public boolean isBlackToMove()
+	{
+		return position.getSideToMove() == BitboardPosition.BLACK;
+	}
+
+	@Override
+	public IChessboardModel createChessboard(List<Player> players)
+	{
+		if(players.size() != 2) {
+			return null;
+		}
+
+		return position.toChessboard(players.get(0), players.get(1));
+	}
+}
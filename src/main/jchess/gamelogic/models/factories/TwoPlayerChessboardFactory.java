@@ -4,7 +4,7 @@ import java.util.List;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.field.Field;
-import jchess.gamelogic.models.ChessboardModel;
+import jchess.gamelogic.models.ArrayChessboardModel;
 import jchess.gamelogic.models.IBoardFactory;
 import jchess.gamelogic.models.IChessboardModel;
 import jchess.gamelogic.pieces.IPieceFactory;
@@ -31,17 +31,17 @@ public class TwoPlayerChessboardFactory implements IBoardFactory
 			return null;
 		}
 		
-		IChessboardModel board = new ChessboardModel();
+		IChessboardModel board = new ArrayChessboardModel(8, 8);
 		
 		for(int x = 0; x < 8; x++) {
 			for(int y = 0; y < 8; y++) {
-				board.addField(new Field(x, y));
+				board.addField(Field.of(x, y));
 			}
 		}
 
 		IPieceFactory factory = PieceFactory.getInstance();
-		Direction up = new Direction(0, -1);
-		Direction down = new Direction(0, 1);
+		Direction up = Direction.of(0, -1);
+		Direction down = Direction.of(0, 1);
 		
 		// Regular pieces
 		board.setPiece(board.getField(0, 7), factory.buildPiece(players.get(0), up, PieceType.ROOK));
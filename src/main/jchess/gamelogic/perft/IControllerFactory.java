@@ -0,0 +1,18 @@
+package jchess.gamelogic.perft;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.models.IBoardFactory;
+
+/**
+ * Creates controllers of one variant. Pieces refer to their players by
+ * identity, so a factory has to pass the same players to every controller it
+ * creates for boards of another one to be usable.
+ */
+public interface IControllerFactory
+{
+	/**
+	 * @param boardFactory Factory of the board the controller works on
+	 * @return New controller with its first player active
+	 */
+	public IChessboardController createController(IBoardFactory boardFactory);
+}
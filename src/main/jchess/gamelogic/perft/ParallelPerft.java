@@ -0,0 +1,217 @@
+package jchess.gamelogic.perft;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IBoardFactory;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Parallel version of {@link Perft}. The moves of the first plies are split
+ * into tasks of a {@link ForkJoinPool}; every task works on its own copy of
+ * the board with its own controller, and the subtrees below the split plies
+ * are counted by a sequential {@link Perft}. All tasks share one
+ * {@link PerftHashTable}, so transposed subtrees are only counted once.
+ */
+public class ParallelPerft
+{
+	public static final int DEFAULT_TABLE_BITS = 20;
+
+	private final IChessboardModel board;
+	private final int playerIndex;
+	private final IControllerFactory controllerFactory;
+	private final ForkJoinPool pool;
+	private final PerftHashTable table;
+	private final int splitPlies;
+
+	/**
+	 * Creates a parallel perft using all processors, a table of
+	 * 2^{@value #DEFAULT_TABLE_BITS} slots and splitting at the root only.
+	 * @param controller Controller of the position to count from
+	 * @param controllerFactory Factory creating controllers for copies of the
+	 *            controller's board
+	 */
+	public ParallelPerft(IChessboardController controller, IControllerFactory controllerFactory)
+	{
+		this(controller, controllerFactory, new ForkJoinPool(), new PerftHashTable(DEFAULT_TABLE_BITS), 1);
+	}
+
+	/**
+	 * @param controller Controller of the position to count from
+	 * @param controllerFactory Factory creating controllers for copies of the
+	 *            controller's board
+	 * @param pool Pool to run the tasks in
+	 * @param table Shared table of subtree counts or null
+	 * @param splitPlies Number of plies whose moves are split into tasks, at
+	 *            least 1
+	 */
+	public ParallelPerft(IChessboardController controller, IControllerFactory controllerFactory, ForkJoinPool pool,
+			PerftHashTable table, int splitPlies)
+	{
+		ArgumentChecker.checkForNull(controller, controllerFactory, pool);
+		if(splitPlies < 1)
+		{
+			throw new IllegalArgumentException("At least one ply has to be split, was " + splitPlies + "!");
+		}
+
+		// The tasks copy the board, so the controller stays untouched
+		this.board = controller.getBoard();
+		this.playerIndex = controller.getPlayerIndex(controller.getActivePlayer());
+		this.controllerFactory = controllerFactory;
+		this.pool = pool;
+		this.table = table;
+		this.splitPlies = splitPlies;
+	}
+
+	/**
+	 * Counts the positions reachable with the given number of moves.
+	 * @param depth Number of moves (plies), at least 1
+	 * @return Number of leaf nodes
+	 */
+	public long count(int depth)
+	{
+		Perft.checkDepth(depth);
+		return pool.invoke(new PerftTask(board.copy(), playerIndex, depth, splitPlies));
+	}
+
+	/**
+	 * Counts the leaf nodes separately for each move of the active player.
+	 * The root moves are counted in parallel.
+	 * @param depth Number of moves (plies) including the root move, at least 1
+	 * @return Leaf nodes by root move in generation order
+	 */
+	public Map<Move, Long> divide(final int depth)
+	{
+		Perft.checkDepth(depth);
+
+		final IChessboardModel root = board.copy();
+		return pool.invoke(new RecursiveTask<Map<Move, Long>>()
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected Map<Move, Long> compute()
+			{
+				IChessboardController controller = createController(root, playerIndex);
+				List<Move> moves = Perft.getMoves(controller);
+				List<PerftTask> tasks = createTasks(controller, moves, depth - 1, splitPlies - 1);
+				invokeAll(tasks);
+
+				Map<Move, Long> counts = new LinkedHashMap<Move, Long>();
+				for(int i = 0; i < moves.size(); i++)
+				{
+					counts.put(moves.get(i), tasks.get(i).join());
+				}
+				return counts;
+			}
+		});
+	}
+
+	/**
+	 * Counts the leaf nodes for every depth from 1 to maxDepth and measures
+	 * the time each count takes. Counts of smaller depths stay in the table.
+	 * @param maxDepth Last depth to count
+	 * @return One result per depth
+	 */
+	public List<PerftResult> run(int maxDepth)
+	{
+		Perft.checkDepth(maxDepth);
+
+		List<PerftResult> results = new ArrayList<PerftResult>();
+		for(int depth = 1; depth <= maxDepth; depth++)
+		{
+			long start = System.nanoTime();
+			long nodes = count(depth);
+			results.add(new PerftResult(depth, nodes, System.nanoTime() - start));
+		}
+		return results;
+	}
+
+	private IChessboardController createController(final IChessboardModel position, int activeIndex)
+	{
+		IChessboardController controller = controllerFactory.createController(new IBoardFactory()
+		{
+			@Override
+			public IChessboardModel createChessboard(List<Player> players)
+			{
+				return position;
+			}
+		});
+		for(int i = 0; i < activeIndex; i++)
+		{
+			controller.switchToNextPlayer();
+		}
+		return controller;
+	}
+
+	/**
+	 * Creates one task per move, each with a copy of the board after the
+	 * move. Depth 0 tasks count as a single leaf.
+	 */
+	private List<PerftTask> createTasks(IChessboardController controller, List<Move> moves, int depth, int split)
+	{
+		IChessboardModel position = controller.getBoard();
+		int nextIndex = (controller.getPlayerIndex(controller.getActivePlayer()) + 1) % controller.getPlayerCount();
+		List<PerftTask> tasks = new ArrayList<PerftTask>(moves.size());
+		for(Move move : moves)
+		{
+			UndoToken token = position.makeMove(move);
+			tasks.add(new PerftTask(position.copy(), nextIndex, depth, split));
+			position.unmakeMove(token);
+		}
+		return tasks;
+	}
+
+	private class PerftTask extends RecursiveTask<Long>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final IChessboardModel position;
+		private final int activeIndex;
+		private final int depth;
+		private final int split;
+
+		PerftTask(IChessboardModel position, int activeIndex, int depth, int split)
+		{
+			this.position = position;
+			this.activeIndex = activeIndex;
+			this.depth = depth;
+			this.split = split;
+		}
+
+		@Override
+		protected Long compute()
+		{
+			if(depth == 0)
+			{
+				return 1L;
+			}
+
+			IChessboardController controller = createController(position, activeIndex);
+			if(split <= 0 || depth == 1)
+			{
+				return new Perft(controller, table).count(depth);
+			}
+
+			List<Move> moves = Perft.getMoves(controller);
+			List<PerftTask> tasks = createTasks(controller, moves, depth - 1, split - 1);
+			invokeAll(tasks);
+
+			long nodes = 0;
+			for(PerftTask task : tasks)
+			{
+				nodes += task.join();
+			}
+			return nodes;
+		}
+	}
+}
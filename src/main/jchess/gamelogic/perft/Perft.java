@@ -0,0 +1,232 @@
+package jchess.gamelogic.perft;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.pieces.Piece;
+import jchess.util.ArgumentChecker;
+
+/**
+ * Performance test (perft) of the move generation: enumerates all move paths
+ * of a given length from the current position of a controller and counts the
+ * positions reached. The moves are taken from
+ * {@link IChessboardController#getPossibleMoves(Piece, boolean)}, played with
+ * {@link IChessboardModel#makeMove(Move)} and taken back afterwards, so the
+ * counts check the controller's rules as well as make/unmake, and the time
+ * needed measures their speed.
+ *
+ * The controllers offer a single move per promotion, so counts only match
+ * the usual reference values as long as no pawn promotes.
+ */
+public class Perft
+{
+	private final IChessboardController controller;
+	private final IChessboardModel board;
+	private final PerftHashTable table;
+
+	/**
+	 * @param controller Controller of the position to count from
+	 */
+	public Perft(IChessboardController controller)
+	{
+		this(controller, null);
+	}
+
+	/**
+	 * @param controller Controller of the position to count from
+	 * @param table Table to look up and store subtree counts in or null
+	 */
+	public Perft(IChessboardController controller, PerftHashTable table)
+	{
+		ArgumentChecker.checkForNull(controller);
+		this.controller = controller;
+		this.board = controller.getBoard();
+		this.table = table;
+	}
+
+	/**
+	 * Counts the positions reachable with the given number of moves.
+	 * @param depth Number of moves (plies), at least 1
+	 * @return Number of leaf nodes
+	 */
+	public long count(int depth)
+	{
+		checkDepth(depth);
+		return perft(depth);
+	}
+
+	/**
+	 * Counts the leaf nodes separately for each move of the active player,
+	 * which helps to find the move a wrong total comes from.
+	 * @param depth Number of moves (plies) including the root move, at least 1
+	 * @return Leaf nodes by root move in generation order
+	 */
+	public Map<Move, Long> divide(int depth)
+	{
+		checkDepth(depth);
+
+		Map<Move, Long> counts = new LinkedHashMap<Move, Long>();
+		for(Move move : getMoves(controller))
+		{
+			UndoToken token = board.makeMove(move);
+			controller.switchToNextPlayer();
+			try
+			{
+				counts.put(move, (depth == 1) ? 1L : perft(depth - 1));
+			} finally
+			{
+				controller.switchToPreviousPlayer();
+				board.unmakeMove(token);
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Counts the leaf nodes for every depth from 1 to maxDepth and measures
+	 * the time each count takes.
+	 * @param maxDepth Last depth to count
+	 * @return One result per depth
+	 */
+	public List<PerftResult> run(int maxDepth)
+	{
+		checkDepth(maxDepth);
+
+		List<PerftResult> results = new ArrayList<PerftResult>();
+		for(int depth = 1; depth <= maxDepth; depth++)
+		{
+			long start = System.nanoTime();
+			long nodes = perft(depth);
+			results.add(new PerftResult(depth, nodes, System.nanoTime() - start));
+		}
+		return results;
+	}
+
+	private long perft(int depth)
+	{
+		List<Move> moves = getMoves(controller);
+		if(depth == 1)
+		{
+			return moves.size();
+		}
+
+		long key = board.getZobristKey();
+		if(table != null)
+		{
+			long stored = table.probe(key, depth);
+			if(stored >= 0)
+			{
+				return stored;
+			}
+		}
+
+		long nodes = 0;
+		for(Move move : moves)
+		{
+			UndoToken token = board.makeMove(move);
+			controller.switchToNextPlayer();
+			try
+			{
+				nodes += perft(depth - 1);
+			} finally
+			{
+				controller.switchToPreviousPlayer();
+				board.unmakeMove(token);
+			}
+		}
+
+		if(table != null)
+		{
+			table.store(key, depth, nodes);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Collects the legal moves of the active player.
+	 * @param controller Controller of the position
+	 * @return Moves of all pieces of the active player
+	 */
+	static List<Move> getMoves(IChessboardController controller)
+	{
+		IChessboardModel board = controller.getBoard();
+		List<Move> moves = new ArrayList<Move>();
+		for(Piece piece : board.getPieces(controller.getActivePlayer()))
+		{
+			moves.addAll(controller.getPossibleMoves(piece, true));
+		}
+		return moves;
+	}
+
+	static void checkDepth(int depth)
+	{
+		if(depth < 1)
+		{
+			throw new IllegalArgumentException("Depth must be at least 1, was " + depth + "!");
+		}
+	}
+
+	/**
+	 * Runs perft on one of the {@link PerftPosition}s and compares the counts
+	 * with the expected ones.
+	 * Usage: Perft &lt;position&gt; &lt;depth&gt; [divide] [parallel]
+	 * @param args Name of the position, depth and the options "divide" to
+	 *            count per root move and "parallel" to use all processors
+	 */
+	public static void main(String[] args)
+	{
+		if(args.length < 2)
+		{
+			System.out.println("Usage: Perft <position> <depth> [divide] [parallel]");
+			for(PerftPosition position : PerftPosition.values())
+			{
+				System.out.println("  " + position.name() + ": " + position.getDescription());
+			}
+			return;
+		}
+
+		PerftPosition position = PerftPosition.valueOf(args[0]);
+		int depth = Integer.parseInt(args[1]);
+		List<String> options = Arrays.asList(args).subList(2, args.length);
+
+		IControllerFactory factory = position.createControllerFactory();
+		IChessboardController controller = position.createController(factory);
+		Perft perft = null;
+		ParallelPerft parallelPerft = null;
+		if(options.contains("parallel"))
+		{
+			parallelPerft = new ParallelPerft(controller, factory);
+		} else
+		{
+			perft = new Perft(controller);
+		}
+
+		if(options.contains("divide"))
+		{
+			Map<Move, Long> counts = (perft != null) ? perft.divide(depth) : parallelPerft.divide(depth);
+			long total = 0;
+			for(Map.Entry<Move, Long> entry : counts.entrySet())
+			{
+				System.out.println(entry.getKey() + ": " + entry.getValue());
+				total += entry.getValue();
+			}
+			System.out.println("total: " + total);
+			return;
+		}
+
+		List<PerftResult> results = (perft != null) ? perft.run(depth) : parallelPerft.run(depth);
+		for(PerftResult result : results)
+		{
+			long expected = position.getExpectedCount(result.getDepth());
+			String verdict = (expected < 0) ? "" : (expected == result.getNodes()) ? " OK" : " expected " + expected;
+			System.out.println(result + verdict);
+		}
+	}
+}
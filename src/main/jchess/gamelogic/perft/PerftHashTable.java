@@ -0,0 +1,87 @@
+package jchess.gamelogic.perft;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free table of perft node counts keyed by the Zobrist key of a position
+ * and the remaining depth, shared by all threads of a {@link ParallelPerft}.
+ *
+ * Every slot consists of two words: the data (node count and depth) and the
+ * key XORed with the data. A slot torn by two threads writing concurrently
+ * no longer satisfies key == check ^ data and is treated as a miss, so no
+ * locking is needed. Slots are always replaced.
+ */
+public class PerftHashTable
+{
+	private static final int DEPTH_BITS = 8;
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+
+	private final AtomicLongArray slots;
+	private final int mask;
+
+	/**
+	 * @param sizeBits Base two logarithm of the number of slots
+	 */
+	public PerftHashTable(int sizeBits)
+	{
+		if(sizeBits < 1 || sizeBits > 28)
+		{
+			throw new IllegalArgumentException("Table size must lie within 2^1 and 2^28 slots, was 2^" + sizeBits
+					+ "!");
+		}
+
+		this.slots = new AtomicLongArray(2 << sizeBits);
+		this.mask = (1 << sizeBits) - 1;
+	}
+
+	/**
+	 * Looks up the node count of a position.
+	 * @param key Zobrist key of the position
+	 * @param depth Remaining depth
+	 * @return Node count or -1 if the table does not contain it
+	 */
+	public long probe(long key, int depth)
+	{
+		int index = index(key, depth);
+		long data = slots.get(index + 1);
+		long check = slots.get(index);
+		if((check ^ data) != key || (data & DEPTH_MASK) != depth)
+		{
+			return -1;
+		}
+		return data >>> DEPTH_BITS;
+	}
+
+	/**
+	 * Stores the node count of a position.
+	 * @param key Zobrist key of the position
+	 * @param depth Remaining depth, less than 256
+	 * @param nodes Node count, less than 2^56
+	 */
+	public void store(long key, int depth, long nodes)
+	{
+		long data = (nodes << DEPTH_BITS) | depth;
+		int index = index(key, depth);
+		slots.set(index, key ^ data);
+		slots.set(index + 1, data);
+	}
+
+	/**
+	 * Removes all entries. Must not be called while other threads use the
+	 * table.
+	 */
+	public void clear()
+	{
+		for(int i = 0; i < slots.length(); i++)
+		{
+			slots.set(i, 0L);
+		}
+	}
+
+	private int index(long key, int depth)
+	{
+		// Different depths of the same position go to different slots
+		long mixed = key + depth * 0x9E3779B97F4A7C15L;
+		return ((int) (mixed ^ (mixed >>> 32)) & mask) << 1;
+	}
+}
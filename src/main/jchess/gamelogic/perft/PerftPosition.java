@@ -0,0 +1,192 @@
+package jchess.gamelogic.perft;
+
+import java.util.List;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.AiFourPlayerChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.FourPlayerChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.models.IBoardFactory;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.factories.AiFourPlayerChessboardFactory;
+import jchess.gamelogic.models.factories.FenChessboardFactory;
+import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+/**
+ * Positions with known perft results. The two player counts are the
+ * published reference values; the four player and cat counts were obtained
+ * from the controllers and cross-checked with
+ * {@link jchess.gamelogic.bitboard.WidePosition} where it applies. Only depths
+ * without promotions are listed (see {@link Perft}).
+ */
+public enum PerftPosition
+{
+	START("Two player start position", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -",
+			20, 400, 8902, 197281),
+	KIWIPETE("Castling, en passant and pins", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+			48, 2039, 97862),
+	POSITION_3("Rook endgame with en passant discovered checks", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+			14, 191, 2812, 43238),
+	FOUR_PLAYER_START("Four player start position", null,
+			20, 395, 7880, 155226)
+	{
+		@Override
+		public IControllerFactory createControllerFactory()
+		{
+			final Player white = new Player("p1", Color.WHITE);
+			final Player red = new Player("p2", Color.RED);
+			final Player black = new Player("p3", Color.BLACK);
+			final Player golden = new Player("p4", Color.GOLDEN);
+			return new IControllerFactory()
+			{
+				@Override
+				public IChessboardController createController(IBoardFactory boardFactory)
+				{
+					return new FourPlayerChessboardController(null, boardFactory, white, red, black, golden);
+				}
+			};
+		}
+
+		@Override
+		protected IBoardFactory createBoardFactory()
+		{
+			return FourPlayerChessboardFactory.getInstance();
+		}
+	},
+	CAT_START("Four player start position with the cat in front of white's pawns", null,
+			20, 393, 7840, 154436)
+	{
+		@Override
+		public IControllerFactory createControllerFactory()
+		{
+			final Player white = new Player("p1", Color.WHITE);
+			final Player red = new Player("p2", Color.RED);
+			final Player black = new Player("p3", Color.BLACK);
+			final Player golden = new Player("p4", Color.GOLDEN);
+			final Player special = new Player("cat", Color.SPECIAL);
+			return new IControllerFactory()
+			{
+				@Override
+				public IChessboardController createController(IBoardFactory boardFactory)
+				{
+					return new AiFourPlayerChessboardController(null, boardFactory, white, red, black, golden,
+							special);
+				}
+			};
+		}
+
+		@Override
+		protected IBoardFactory createBoardFactory()
+		{
+			return new IBoardFactory()
+			{
+				@Override
+				public IChessboardModel createChessboard(List<Player> players)
+				{
+					IChessboardModel board = AiFourPlayerChessboardFactory.getInstance().createChessboard(players);
+
+					// The cat AI spawns the cat on a random field, perft needs a fixed one
+					board.setPiece(board.getField(CAT_X, CAT_Y), PieceFactory.getInstance()
+							.buildPiece(players.get(4), Direction.of(0, -1), PieceType.CAT));
+					return board;
+				}
+			};
+		}
+	};
+
+	private static final int CAT_X = 6;
+	private static final int CAT_Y = 11;
+
+	private final String description;
+	private final String fen;
+	private final long[] expectedCounts;
+
+	private PerftPosition(String description, String fen, long... expectedCounts)
+	{
+		this.description = description;
+		this.fen = fen;
+		this.expectedCounts = expectedCounts;
+	}
+
+	public String getDescription()
+	{
+		return description;
+	}
+
+	/**
+	 * @param depth Depth of the count
+	 * @return Expected number of leaf nodes or -1 if it is not known
+	 */
+	public long getExpectedCount(int depth)
+	{
+		if(depth < 1 || depth > expectedCounts.length)
+		{
+			return -1;
+		}
+		return expectedCounts[depth - 1];
+	}
+
+	/**
+	 * @return Deepest depth with a known count
+	 */
+	public int getMaxKnownDepth()
+	{
+		return expectedCounts.length;
+	}
+
+	/**
+	 * Creates a new controller set up with this position and its side to
+	 * move active.
+	 * @return Controller of the position
+	 */
+	public IChessboardController createController()
+	{
+		return createController(createControllerFactory());
+	}
+
+	/**
+	 * Creates a new controller set up with this position and its side to
+	 * move active.
+	 * @param factory Controller factory of this position
+	 * @return Controller of the position
+	 */
+	public IChessboardController createController(IControllerFactory factory)
+	{
+		IChessboardController controller = factory.createController(createBoardFactory());
+		if(fen != null && new FenChessboardFactory(fen).isBlackToMove())
+		{
+			controller.switchToNextPlayer();
+		}
+		return controller;
+	}
+
+	/**
+	 * Creates a factory for controllers of this variant. All controllers of
+	 * one factory share the same players, so they can be used with copies of
+	 * each other's boards (see {@link ParallelPerft}).
+	 * @return Controller factory
+	 */
+	public IControllerFactory createControllerFactory()
+	{
+		final Player white = new Player("p1", Color.WHITE);
+		final Player black = new Player("p2", Color.BLACK);
+		return new IControllerFactory()
+		{
+			@Override
+			public IChessboardController createController(IBoardFactory boardFactory)
+			{
+				return new TwoPlayerChessboardController(null, boardFactory, white, black);
+			}
+		};
+	}
+
+	protected IBoardFactory createBoardFactory()
+	{
+		return new FenChessboardFactory(fen);
+	}
+}
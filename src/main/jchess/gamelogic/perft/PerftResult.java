@@ -0,0 +1,52 @@
+package jchess.gamelogic.perft;
+
+/**
+ * Node count of a single perft run together with the time it took.
+ */
+public class PerftResult
+{
+	private final int depth;
+	private final long nodes;
+	private final long nanos;
+
+	public PerftResult(int depth, long nodes, long nanos)
+	{
+		this.depth = depth;
+		this.nodes = nodes;
+		this.nanos = nanos;
+	}
+
+	public int getDepth()
+	{
+		return depth;
+	}
+
+	public long getNodes()
+	{
+		return nodes;
+	}
+
+	public long getNanos()
+	{
+		return nanos;
+	}
+
+	/**
+	 * @return Leaf nodes counted per second or 0 if no time was measured
+	 */
+	public long getNodesPerSecond()
+	{
+		if(nanos <= 0)
+		{
+			return 0;
+		}
+		return (long) (nodes * 1e9 / nanos);
+	}
+
+	@Override
+	public String toString()
+	{
+		return "depth " + depth + ": " + nodes + " nodes in " + (nanos / 1000000) + " ms (" + getNodesPerSecond()
+				+ " nps)";
+	}
+}
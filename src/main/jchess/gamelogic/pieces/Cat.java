@@ -1,5 +1,6 @@
 package jchess.gamelogic.pieces;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -7,14 +8,21 @@ import jchess.util.Direction;
 
 public class Cat implements IPieceBehaviour
 {
+	private static final Set<Direction> MOVES;
 	
-	@Override
-	public Set<Direction> getNormalMovements()
+	static
 	{
 		Set<Direction> moves = new HashSet<Direction>();
 		moves.addAll(DirectionType.getDiagonalDirections());
 		moves.addAll(DirectionType.getStraightDirections());
-		return moves;
+		MOVES = Collections.unmodifiableSet(moves);
+	}
+	
+	
+	@Override
+	public Set<Direction> getNormalMovements()
+	{
+		return MOVES;
 	}
 	
 	@Override
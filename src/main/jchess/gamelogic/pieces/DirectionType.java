@@ -1,6 +1,7 @@
 package jchess.gamelogic.pieces;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -12,24 +13,29 @@ import jchess.util.Direction;
  */
 public class DirectionType
 {
+	private static final Set<Direction> DIAGONAL = Collections.unmodifiableSet(new HashSet<Direction>(
+			Arrays.asList(new Direction[]{ Direction.of(-1, -1), Direction.of(1, 1),
+		        Direction.of(-1, 1), Direction.of(1, -1) })));
+	private static final Set<Direction> STRAIGHT = Collections.unmodifiableSet(new HashSet<Direction>(
+			Arrays.asList(new Direction[]{ Direction.of(-1, 0), Direction.of(1, 0),
+		        Direction.of(0, -1), Direction.of(0, 1) })));
+
 	/**
 	 * Returns the set of diagonal directions.
-	 * @return Set of directions
+	 * @return Shared, unmodifiable set of directions
 	 */
 	public static final Set<Direction> getDiagonalDirections()
 	{
-		return new HashSet<Direction>(Arrays.asList(new Direction[]{ new Direction(-1, -1), new Direction(1, 1),
-		        new Direction(-1, 1), new Direction(1, -1) }));
+		return DIAGONAL;
 	}
 
 	/**
 	 * Returns the set of straight directions.
-	 * @return Set of directions
+	 * @return Shared, unmodifiable set of directions
 	 */
 	public static final Set<Direction> getStraightDirections()
 	{
-		return new HashSet<Direction>(Arrays.asList(new Direction[]{ new Direction(-1, 0), new Direction(1, 0),
-		        new Direction(0, -1), new Direction(0, 1) }));
+		return STRAIGHT;
 	}
 
 	/**
@@ -48,20 +54,20 @@ public class DirectionType
 		if(cone.getX() != 0)
 		{
 			if(cone.getY() == 0) {
-				moves.add(new Direction(cone.getX(), -1));
-				moves.add(new Direction(cone.getX(), 1));
+				moves.add(Direction.of(cone.getX(), -1));
+				moves.add(Direction.of(cone.getX(), 1));
 			} else {
-				moves.add(new Direction(0, cone.getY()));
-				moves.add(new Direction(cone.getX(), 0));
+				moves.add(Direction.of(0, cone.getY()));
+				moves.add(Direction.of(cone.getX(), 0));
 			}
 		} else
 		{
 			if(cone.getX() == 0) {
-				moves.add(new Direction(-1, cone.getY()));
-				moves.add(new Direction(1, cone.getY()));
+				moves.add(Direction.of(-1, cone.getY()));
+				moves.add(Direction.of(1, cone.getY()));
 			} else {
-				moves.add(new Direction(0, cone.getY()));
-				moves.add(new Direction(cone.getX(), 0));
+				moves.add(Direction.of(0, cone.getY()));
+				moves.add(Direction.of(cone.getX(), 0));
 			}
 		}
 		
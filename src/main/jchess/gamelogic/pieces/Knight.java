@@ -21,6 +21,7 @@
 package jchess.gamelogic.pieces;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -31,14 +32,17 @@ import jchess.util.Direction;
  */
 public class Knight implements IPieceBehaviour
 {
+	private static final Set<Direction> MOVES = Collections.unmodifiableSet(
+			new HashSet<Direction>(Arrays.asList(new Direction[]{
+				Direction.of(-2, -1), Direction.of(-2, 1),
+		        Direction.of(-1, -2), Direction.of(-1, 2),
+		        Direction.of(1, -2), Direction.of(1, 2),
+		        Direction.of(2, -1), Direction.of(2, 1), })));
+	
 	@Override
 	public Set<Direction> getNormalMovements()
 	{
-		return new HashSet<Direction>(Arrays.asList(new Direction[]{
-				new Direction(-2, -1), new Direction(-2, 1),
-		        new Direction(-1, -2), new Direction(-1, 2),
-		        new Direction(1, -2), new Direction(1, 2),
-		        new Direction(2, -1), new Direction(2, 1), }));
+		return MOVES;
 	}
 	
 	@Override
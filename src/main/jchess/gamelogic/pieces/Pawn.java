@@ -20,8 +20,7 @@
  */
 package jchess.gamelogic.pieces;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 
 import jchess.util.Direction;
@@ -35,22 +34,33 @@ import jchess.util.Direction;
 public class Pawn implements IPieceBehaviour
 {
 	private Direction forward;
+	private Set<Direction> normalMovements;
+	private Set<Direction> capturingMovements;
 	
 	public Pawn(Direction forward)
 	{
 		this.forward = forward;
+		this.normalMovements = Collections.singleton(forward);
+		if(forward == null)
+		{
+			// Without a direction there is no cone to capture in
+			this.capturingMovements = Collections.emptySet();
+		} else
+		{
+			this.capturingMovements = Collections.unmodifiableSet(DirectionType.getConeMovement(forward));
+		}
 	}
 	
 	@Override
 	public Set<Direction> getNormalMovements()
 	{
-		return new HashSet<Direction>(Arrays.asList(new Direction[]{ forward }));
+		return normalMovements;
 	}
 	
 	@Override
 	public Set<Direction> getCapturingMovements()
 	{
-		return DirectionType.getConeMovement(forward);
+		return capturingMovements;
 	}
 	
 	public Direction getForwardDirection() {
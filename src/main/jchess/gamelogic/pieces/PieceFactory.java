@@ -1,6 +1,9 @@
 
 package jchess.gamelogic.pieces;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import jchess.gamelogic.Player;
 import jchess.util.Direction;
 
@@ -129,6 +132,17 @@ public class PieceFactory implements IPieceFactory
 	
 	private static PieceFactory instance;
 	
+	private final Map<Class<? extends IPieceBehaviour>, PieceType> types;
+	
+	private PieceFactory()
+	{
+		this.types = new HashMap<Class<? extends IPieceBehaviour>, PieceType>();
+		for(PieceType type : PieceType.values())
+		{
+			types.put(type.getBehaviour(new Direction(0, 1)).getClass(), type);
+		}
+	}
+	
 	public static PieceFactory getInstance()
 	{
 		if(instance == null)
@@ -143,4 +157,15 @@ public class PieceFactory implements IPieceFactory
 		return new Piece(player, type.getSymbol(), type.getBehaviour(forward));
 	}
 	
+	/**
+	 * Returns the type a piece was built with.
+	 * @param piece Piece to look up
+	 * @return Type of the piece or null if its behaviour is not built by
+	 *         this factory
+	 */
+	public PieceType getType(Piece piece)
+	{
+		return types.get(piece.getBehaviour().getClass());
+	}
+	
 }
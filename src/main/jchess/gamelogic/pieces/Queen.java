@@ -20,6 +20,7 @@
  */
 package jchess.gamelogic.pieces;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -30,13 +31,20 @@ import jchess.util.Direction;
  */
 public class Queen implements IPieceBehaviour
 {
-	@Override
-	public Set<Direction> getNormalMovements()
+	private static final Set<Direction> MOVES;
+	
+	static
 	{
 		Set<Direction> moves = new HashSet<Direction>();
 		moves.addAll(DirectionType.getDiagonalDirections());
 		moves.addAll(DirectionType.getStraightDirections());
-		return moves;
+		MOVES = Collections.unmodifiableSet(moves);
+	}
+	
+	@Override
+	public Set<Direction> getNormalMovements()
+	{
+		return MOVES;
 	}
 	
 	@Override
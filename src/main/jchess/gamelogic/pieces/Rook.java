@@ -21,6 +21,7 @@
 
 package jchess.gamelogic.pieces;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -32,12 +33,19 @@ import jchess.util.Direction;
  */
 public class Rook implements IPieceBehaviour
 {
-	@Override
-	public Set<Direction> getNormalMovements()
+	private static final Set<Direction> MOVES;
+	
+	static
 	{
 		Set<Direction> moves = new HashSet<Direction>();
 		moves.addAll(DirectionType.getStraightDirections());
-		return moves;
+		MOVES = Collections.unmodifiableSet(moves);
+	}
+	
+	@Override
+	public Set<Direction> getNormalMovements()
+	{
+		return MOVES;
 	}
 	
 	@Override
@@ -1,6 +1,6 @@
 package jchess.gamelogic.pieces;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 
 import jchess.util.Direction;
@@ -11,9 +11,7 @@ public class SleepingCat implements IPieceBehaviour
 	@Override
 	public Set<Direction> getNormalMovements()
 	{
-
-		Set<Direction> moves = new HashSet<Direction>();
-		return moves;
+		return Collections.emptySet();
 	}
 	
 	@Override
@@ -0,0 +1,129 @@
+package jchess.gamelogic.views;
+
+import java.awt.Dimension;
+import java.awt.GridLayout;
+
+import javax.swing.BorderFactory;
+import javax.swing.BoxLayout;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextArea;
+
+import jchess.Localization;
+import jchess.gamelogic.engine.SearchResult;
+import jchess.gamelogic.field.Move;
+
+/**
+ * Shows the progress of an engine analysing the position of a game: the
+ * depth, the score from the view of the player to move, the speed and the
+ * principal variation.
+ */
+public class AnalysisView extends JPanel implements IRenderable
+{
+	private static final long serialVersionUID = 3630927450618452021L;
+	private static final int WIDTH = 180;
+	private static final int HEIGHT = 160;
+	private static final int LINE_ROWS = 4;
+
+	private JLabel depthLabel;
+	private JLabel scoreLabel;
+	private JLabel speedLabel;
+	private JTextArea lineArea;
+
+	public AnalysisView()
+	{
+		this.setBorder(BorderFactory.createTitledBorder(Localization.getMessage("analysis")));
+		this.setLayout(new BoxLayout(this, BoxLayout.PAGE_AXIS));
+
+		JPanel statistics = new JPanel(new GridLayout(3, 2));
+		this.depthLabel = new JLabel();
+		this.scoreLabel = new JLabel();
+		this.speedLabel = new JLabel();
+		statistics.add(new JLabel(Localization.getMessage("analysis_depth")));
+		statistics.add(this.depthLabel);
+		statistics.add(new JLabel(Localization.getMessage("analysis_score")));
+		statistics.add(this.scoreLabel);
+		statistics.add(new JLabel(Localization.getMessage("analysis_speed")));
+		statistics.add(this.speedLabel);
+		this.add(statistics);
+
+		this.lineArea = new JTextArea(LINE_ROWS, 0);
+		this.lineArea.setEditable(false);
+		this.lineArea.setLineWrap(true);
+		this.lineArea.setWrapStyleWord(true);
+		this.add(new JScrollPane(this.lineArea));
+
+		// The history below takes up the remaining space
+		Dimension size = new Dimension(WIDTH, HEIGHT);
+		this.setMinimumSize(size);
+		this.setPreferredSize(size);
+		this.setMaximumSize(new Dimension(Integer.MAX_VALUE, HEIGHT));
+		this.clear();
+	}
+
+	/**
+	 * Shows the result of a search. Must be called on the event dispatch
+	 * thread.
+	 *
+	 * @param result
+	 *            Result so far of the analysis
+	 */
+	public void showResult(SearchResult result)
+	{
+		this.depthLabel.setText(Integer.toString(result.getDepth()));
+		if(result.isMateScore())
+		{
+			this.scoreLabel.setText((result.getScore() > 0) ? "+M" : "-M");
+		} else
+		{
+			this.scoreLabel.setText(String.format("%+.2f", result.getScore() / 100.0));
+		}
+		this.speedLabel.setText(result.getNodesPerSecond() / 1000 + " kN/s");
+
+		StringBuilder line = new StringBuilder();
+		for(Move move : result.getPrincipalVariation())
+		{
+			if(line.length() > 0)
+			{
+				line.append(' ');
+			}
+			line.append(move);
+		}
+		this.lineArea.setText(line.toString());
+	}
+
+	/**
+	 * Shows that the analysis is paused. Must be called on the event dispatch
+	 * thread.
+	 */
+	public void showPaused()
+	{
+		this.clear();
+		this.lineArea.setText(Localization.getMessage("analysis_paused"));
+	}
+
+	/**
+	 * Clears the results, e.g. when the analysis starts over. Must be called
+	 * on the event dispatch thread.
+	 */
+	public void clear()
+	{
+		this.depthLabel.setText("-");
+		this.scoreLabel.setText("-");
+		this.speedLabel.setText("-");
+		this.lineArea.setText("");
+	}
+
+	@Override
+	public void render()
+	{
+		this.repaint();
+	}
+
+	@Override
+	public void changeSize(int width, int height)
+	{
+		this.setSize(width, height);
+	}
+}
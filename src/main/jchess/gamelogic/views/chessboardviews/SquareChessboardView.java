@@ -1,5 +1,6 @@
 package jchess.gamelogic.views.chessboardviews;
 
+import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics;
@@ -18,10 +19,14 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 
 import jchess.Localization;
+import jchess.gamelogic.Player;
 import jchess.gamelogic.controllers.IBoardActionHandler;
 import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.engine.MaterialEvaluator;
 import jchess.gamelogic.field.Field;
 import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.pieces.King;
 import jchess.gamelogic.pieces.Piece;
 import jchess.gamelogic.views.IChessboardView;
 
@@ -37,10 +42,12 @@ public abstract class SquareChessboardView extends JPanel implements MouseListen
 	private IBoardActionHandler boardActionHandler;
 	
 	private final int MIN_LABEL_HEIGHT = 20;
+	private static final Color HANGING_COLOR = new Color(220, 30, 30, 200);
 	
 	private Field activeField;
 	private boolean renderLabels;
 	private boolean invertedBoard;
+	private boolean showHangingPieces = true;
 	private Image upDownLabel = null;
 	private Image leftRightLabel = null;
 	
@@ -74,6 +81,24 @@ public abstract class SquareChessboardView extends JPanel implements MouseListen
 	
 	protected abstract List<String> getLabelNumbers();
 	
+	public boolean isShowingHangingPieces()
+	{
+		return showHangingPieces;
+	}
+	
+	/**
+	 * Sets whether pieces an enemy can win material by capturing are
+	 * marked.
+	 * 
+	 * @param showHangingPieces
+	 *            True to mark hanging pieces
+	 */
+	public void setShowHangingPieces(boolean showHangingPieces)
+	{
+		this.showHangingPieces = showHangingPieces;
+		this.repaint();
+	}
+	
 	@Override
 	public void render()
 	{
@@ -186,6 +211,45 @@ public abstract class SquareChessboardView extends JPanel implements MouseListen
 		}
 	}
 	
+	/**
+	 * Marks every piece other than a king which some enemy can capture and
+	 * win material by, according to a static exchange evaluation of all
+	 * attackers and defenders of its field.
+	 * 
+	 * @param g2d
+	 *            Graphics object
+	 */
+	private void renderHangingPieces(Graphics2D g2d)
+	{
+		IChessboardModel board = chessboard.getBoard();
+		Point topLeftPoint = this.getChessboardLocation();
+		int inset = Math.max((int) (squareHeight / 16), 1);
+		g2d.setColor(HANGING_COLOR);
+		g2d.setStroke(new BasicStroke(inset));
+		for(Piece piece : board.getPieces())
+		{
+			Field field = board.getField(piece);
+			if(!(piece.getBehaviour() instanceof King) && this.isHanging(board, piece, field))
+			{
+				g2d.drawRect((int) (field.getPosX() * squareHeight) + topLeftPoint.x + inset,
+				        (int) (field.getPosY() * squareHeight) + topLeftPoint.y + inset,
+				        (int) squareHeight - 2 * inset, (int) squareHeight - 2 * inset);
+			}
+		}
+	}
+	
+	private boolean isHanging(IChessboardModel board, Piece piece, Field field)
+	{
+		for(Player enemy : chessboard.getEnemies(piece.getPlayer()))
+		{
+			if(board.getExchangeValue(field, enemy, MaterialEvaluator.getDefault()) > 0)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+	
 	private void renderPossibleThreats(Graphics2D g2d) {
 		if(activeField != null && chessboard != null)
 		{
@@ -308,6 +372,10 @@ public abstract class SquareChessboardView extends JPanel implements MouseListen
 				this.renderPiece(piece, g2d);
 			}
 			
+			if(showHangingPieces)
+			{
+				this.renderHangingPieces(g2d);
+			}
 			this.renderSelectedField(g2d);
 		}
 	}
@@ -119,12 +119,13 @@ public class JChessView extends FrameView
 	}
 	
 	/**
-	 * Removes game from the game list at the specified index.
+	 * Removes game from the game list at the specified index and disposes of
+	 * it.
 	 * 
 	 * @param index
 	 */
 	public void removeGamefromListAt(int index)
 	{
-		this.gameList.remove(index);
+		this.gameList.remove(index).dispose();
 	}
 }
@@ -80,11 +80,15 @@ public class LocalSettingsPanel extends AbstractGridBagPanel implements ActionLi
 	 */
 	private void startGame()
 	{
-		if(!playerNameInputPanel.playerNamesEmpty())
+		int playerCount = playerNumberChoicePanel.getPlayerCount();
+		
+		// Empty seats of four player games are filled with computer players
+		if(!playerNameInputPanel.playerNamesEmpty(playerCount == SettingsAdopter.FOUR_PLAYERS
+				|| playerCount == SettingsAdopter.AI_FOUR_PLAYERS))
 		{
 			playerNameInputPanel.shortenPlayerNames();
 			settingsAdopter.createGameWindow(timerSetterPanel.getTimeLimit(),
-					playerNumberChoicePanel.getPlayerCount(),
+					playerCount,
 					playerNameInputPanel.getPlayerNames());
 			
 			Window parentDialog = SwingUtilities.getWindowAncestor(this);
@@ -91,8 +91,21 @@ public class PlayerNameInputPanel extends AbstractGridBagPanel
 	 */
 	public boolean playerNamesEmpty()
 	{
-		if(this.playerNameTextFields[0].getText().length() == EMPTY
-		        || this.playerNameTextFields[1].getText().length() == EMPTY || additionalTextFieldsActiveAndEmpty())
+		return playerNamesEmpty(false);
+	}
+	
+	/**
+	 * Checks if the text fields have any text inside them.
+	 * 
+	 * @param emptySeatsAllowed
+	 * 				If true, only the first player needs a name; the other seats
+	 * 				are taken by computer players.
+	 * @return
+	 */
+	public boolean playerNamesEmpty(boolean emptySeatsAllowed)
+	{
+		if(this.playerNameTextFields[0].getText().length() == EMPTY || (!emptySeatsAllowed
+		        && (this.playerNameTextFields[1].getText().length() == EMPTY || additionalTextFieldsActiveAndEmpty())))
 		{
 			JOptionPane.showMessageDialog(this, Localization.getMessage("fill_names"));
 			return true;
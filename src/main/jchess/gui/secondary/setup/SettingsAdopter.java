@@ -16,8 +16,9 @@ import jchess.util.FileMapParser;
 public class SettingsAdopter
 {
 	private static final int TWO_PLAYERS = 2;
-	private static final int FOUR_PLAYERS = 4;
-	private static final int AI_FOUR_PLAYERS = 5;
+	static final int FOUR_PLAYERS = 4;
+	static final int AI_FOUR_PLAYERS = 5;
+	private static final String COMPUTER_NAME = "Computer";
 	
 	/**
 	 * Creates the window for the new game with the specified settings.
@@ -41,7 +42,19 @@ public class SettingsAdopter
 			
 			playerNames = extendedPlayerNames;
 		}
-		IGame game = createGameWithSettings(timeLimit, playerNames);
+		// Seats left empty are taken by the computer; the flags are kept
+		// apart from the names, which players may choose freely
+		boolean[] computerSeats = new boolean[playerNames.length];
+		if(playerCount == FOUR_PLAYERS || playerCount == AI_FOUR_PLAYERS) {
+			playerNames = playerNames.clone();
+			for(int i = 0; i < playerNames.length; i++) {
+				if(playerNames[i].isEmpty()) {
+					computerSeats[i] = true;
+					playerNames[i] = COMPUTER_NAME;
+				}
+			}
+		}
+		IGame game = createGameWithSettings(timeLimit, playerNames, computerSeats);
 		String newGameTabTitle = setNewGameTabTitle(playerNames, playerNames.length);
 		
 		JChessApp.view.addNewGameTab(newGameTabTitle, game);
@@ -56,7 +69,7 @@ public class SettingsAdopter
 	 */
 	public void createLoadedGameWindow(FileMapParser parser, String[] playerNames)
 	{
-		IGame game = createGameWithSettings(0, playerNames);
+		IGame game = createGameWithSettings(0, playerNames, new boolean[playerNames.length]);
 		game.load(parser);
 		
 		String newGameTabTitle = setNewGameTabTitle(playerNames, 2);
@@ -93,13 +106,15 @@ public class SettingsAdopter
 	 * 				The amount of opponents playing against each other.
 	 * @param playerNames
 	 * 				The array with all player names.
+	 * @param computerSeats
+	 * 				Whether the computer plays each seat.
 	 * @return new game with the specified settings.
 	 */
-	private IGame createGameWithSettings(int timeLimit, String[] playerNames)
+	private IGame createGameWithSettings(int timeLimit, String[] playerNames, boolean[] computerSeats)
 	{
 		IGameBuilder builder = RegularGameBuilderFactory.getInstance().getBuilder();
 		builder.setProperty("timeLimit", "" + timeLimit);
-		addPlayers(builder, playerNames.length, playerNames);
+		addPlayers(builder, playerNames.length, playerNames, computerSeats);
 		
 		IGame game = builder.create();
 		return game;
@@ -115,8 +130,10 @@ public class SettingsAdopter
 	 * 				The amount of opponents playing against each other.
 	 * @param playerNames
 	 * 				The array with all player names.
+	 * @param computerSeats
+	 * 				Whether the computer plays each seat.
 	 */
-	private void addPlayers(IGameBuilder builder, int playerNumber, String[] playerNames)
+	private void addPlayers(IGameBuilder builder, int playerNumber, String[] playerNames, boolean[] computerSeats)
 	{
 		if(playerNumber == TWO_PLAYERS)
 		{
@@ -125,20 +142,39 @@ public class SettingsAdopter
 		}
 		else if(playerNumber == FOUR_PLAYERS)
 		{
-			builder.addPlayer(new Player(playerNames[0], Color.WHITE));
-			builder.addPlayer(new Player(playerNames[1], Color.RED));
-			builder.addPlayer(new Player(playerNames[2], Color.BLACK));
-			builder.addPlayer(new Player(playerNames[3], Color.GOLDEN));
+			builder.addPlayer(createPlayer(playerNames[0], Color.WHITE, computerSeats[0]));
+			builder.addPlayer(createPlayer(playerNames[1], Color.RED, computerSeats[1]));
+			builder.addPlayer(createPlayer(playerNames[2], Color.BLACK, computerSeats[2]));
+			builder.addPlayer(createPlayer(playerNames[3], Color.GOLDEN, computerSeats[3]));
 		}
 		else if(playerNumber == AI_FOUR_PLAYERS){
-			builder.addPlayer(new Player(playerNames[0], Color.WHITE));
-			builder.addPlayer(new Player(playerNames[1], Color.RED));
-			builder.addPlayer(new Player(playerNames[2], Color.BLACK));
-			builder.addPlayer(new Player(playerNames[3], Color.GOLDEN));
+			builder.addPlayer(createPlayer(playerNames[0], Color.WHITE, computerSeats[0]));
+			builder.addPlayer(createPlayer(playerNames[1], Color.RED, computerSeats[1]));
+			builder.addPlayer(createPlayer(playerNames[2], Color.BLACK, computerSeats[2]));
+			builder.addPlayer(createPlayer(playerNames[3], Color.GOLDEN, computerSeats[3]));
 			builder.addPlayer(new Player("Cat", Color.SPECIAL, Type.COMPUTER));
 		}
 	}
 	
+	/**
+	 * Creates a player of a four player game. Seats left empty in the
+	 * settings are taken by the computer.
+	 * 
+	 * @param name
+	 * 				The player's name.
+	 * @param color
+	 * 				The player's color.
+	 * @param computer
+	 * 				Whether the computer plays the seat.
+	 * @return new player.
+	 */
+	private Player createPlayer(String name, Color color, boolean computer)
+	{
+		if(computer)
+			return new Player(name, color, Type.COMPUTER);
+		return new Player(name, color);
+	}
+	
 	/**
 	 * Renders the game window.
 	 * 
@@ -1,9 +1,42 @@
 package jchess.util;
 
+/**
+ * Immutable step on the board. {@link #of(int, int)} and the operations
+ * below return shared instances for small steps instead of allocating.
+ */
 public class Direction
 {
-	private int x;
-	private int y;
+	/** Largest component of the shared directions */
+	private static final int MAX_CACHED = 7;
+	private static final int CACHE_WIDTH = 2 * MAX_CACHED + 1;
+	private static final Direction[] CACHE = new Direction[CACHE_WIDTH * CACHE_WIDTH];
+	
+	static
+	{
+		for(int i = 0; i < CACHE.length; i++)
+		{
+			CACHE[i] = new Direction(i % CACHE_WIDTH - MAX_CACHED, i / CACHE_WIDTH - MAX_CACHED);
+		}
+	}
+	
+	private final int x;
+	private final int y;
+	
+	/**
+	 * Returns the direction with the given components, shared if both lie
+	 * within [-7, 7].
+	 * @param x x component
+	 * @param y y component
+	 * @return Direction with the components
+	 */
+	public static Direction of(int x, int y)
+	{
+		if(x >= -MAX_CACHED && x <= MAX_CACHED && y >= -MAX_CACHED && y <= MAX_CACHED)
+		{
+			return CACHE[(y + MAX_CACHED) * CACHE_WIDTH + x + MAX_CACHED];
+		}
+		return new Direction(x, y);
+	}
 	
 	public Direction(int x, int y)
 	{
@@ -28,16 +61,16 @@ public class Direction
 	}
 	
 	public Direction signum() {
-		return new Direction((int)Math.signum(x), (int)Math.signum(y));
+		return Direction.of((int)Math.signum(x), (int)Math.signum(y));
 	}
 	
 	/**
 	 * Rotates the direction clockwise by 90 degrees.
-	 * Returns a new Direction instead of modifying the instance.
+	 * Returns another Direction instead of modifying the instance.
 	 * @return Rotated direction
 	 */
 	public Direction rotate90Deg() {
-		return new Direction(y, -x);
+		return Direction.of(y, -x);
 	}
 	
 	/**
@@ -45,22 +78,22 @@ public class Direction
 	 * @return Inverted direction
 	 */
 	public Direction invert() {
-		return new Direction(-x, -y);
+		return Direction.of(-x, -y);
 	}
 	
 	public Direction add(Direction dir)
 	{
-		return new Direction(this.x + dir.x, this.y + dir.y);
+		return Direction.of(this.x + dir.x, this.y + dir.y);
 	}
 	
 	public Direction subtract(Direction dir)
 	{
-		return new Direction(this.x - dir.x, this.y - dir.y);
+		return Direction.of(this.x - dir.x, this.y - dir.y);
 	}
 	
 	public Direction multiply(int factor)
 	{
-		return new Direction(this.x * factor, this.y * factor);
+		return Direction.of(this.x * factor, this.y * factor);
 	}
 	
 	@Override
@@ -3,6 +3,7 @@
  */
 package jchess.gamelogic.ai;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -170,4 +171,47 @@ public class CatAiTest
 		
 	}
 	
+	/**
+	 * Tests that a king next to the cat is left out of its captures while
+	 * other pieces next to it are not.
+	 */
+	@Test
+	public void testKingCapture()
+	{
+		Piece catPiece = null;
+		for(Piece piece : board.getPieces(catPlayer)) {
+			catPiece = piece;
+		}
+		board.movePiece(catPiece, new Field(7, 7));
+		board.setPiece(new Field(6, 7), factory.buildPiece(players[0], null, PieceType.KING));
+		board.setPiece(new Field(8, 7), factory.buildPiece(players[1], null, PieceType.BISHOP));
+		board.setPiece(new Field(7, 8), factory.buildPiece(players[2], null, PieceType.KING));
+		
+		assertTrue(cat.canCapture());
+		for(int i = 0; i < 10; i++) {
+			assertEquals(new Field(8, 7), cat.getRandomThreateningMove());
+		}
+	}
+	
+	/**
+	 * Tests that cats with the same seed spawn and move alike.
+	 */
+	@Test
+	public void testSeed()
+	{
+		CatAi[] cats = new CatAi[2];
+		for(int i = 0; i < cats.length; i++) {
+			IChessboardController otherController = new AiFourPlayerChessboardController(null,
+					AiFourPlayerChessboardFactory.getInstance(),
+					players[0], players[1], players[2], players[3],
+					catPlayer);
+			cats[i] = new CatAi(otherController, catPlayer, new RandomCatPolicy(), 1234);
+		}
+		
+		assertEquals(cats[0].getCurrentPosition(), cats[1].getCurrentPosition());
+		for(int i = 0; i < 10; i++) {
+			assertEquals(cats[0].getRandomNormalMove(), cats[1].getRandomNormalMove());
+		}
+	}
+	
 }
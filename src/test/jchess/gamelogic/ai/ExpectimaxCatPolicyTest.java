@@ -0,0 +1,139 @@
+package jchess.gamelogic.ai;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.AiFourPlayerChessboardController;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.factories.AiFourPlayerChessboardFactory;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+
+public class ExpectimaxCatPolicyTest
+{
+	private Player players[] = {
+			new Player("p1", Color.WHITE),
+			new Player("p2", Color.RED),
+			new Player("p3", Color.BLACK),
+			new Player("p4", Color.GOLDEN),
+			new Player("Cat", Color.SPECIAL)
+	};
+
+	/**
+	 * Tests that the cat prefers a cheap piece of the leading player to a
+	 * more valuable one of another player, and leaves the board unchanged.
+	 */
+	@Test
+	public void testCapturesLeader()
+	{
+		IChessboardController controller = new AiFourPlayerChessboardController(null,
+				AiFourPlayerChessboardFactory.getInstance(), players[0], players[1], players[2], players[3],
+				players[4]);
+		IChessboardModel board = controller.getBoard();
+		PieceFactory factory = PieceFactory.getInstance();
+
+		// Red, black and golden lose their queens, so white leads
+		for(int i = 1; i < 4; i++)
+		{
+			for(Piece piece : board.getPieces(players[i]))
+			{
+				if(factory.getType(piece) == PieceType.QUEEN)
+				{
+					board.removePiece(board.getField(piece));
+				}
+			}
+		}
+		CatAi cat = new CatAi(controller, players[4], new ExpectimaxCatPolicy(), 5);
+		for(Piece piece : board.getPieces(players[4]))
+		{
+			board.movePiece(piece, new Field(7, 7));
+		}
+		board.setPiece(new Field(6, 7), factory.buildPiece(players[0], null, PieceType.KNIGHT));
+		board.setPiece(new Field(8, 7), factory.buildPiece(players[1], null, PieceType.ROOK));
+		long key = board.getZobristKey();
+
+		assertEquals(new Field(6, 7), cat.getRandomThreateningMove());
+		assertEquals(key, board.getZobristKey());
+	}
+
+	/**
+	 * Tests that a quiet move is chosen within the budget and that the same
+	 * seed gives the same choice.
+	 */
+	@Test
+	public void testQuietMoveSeeded()
+	{
+		Field[] targets = new Field[2];
+		for(int i = 0; i < targets.length; i++)
+		{
+			IChessboardController controller = new AiFourPlayerChessboardController(null,
+					AiFourPlayerChessboardFactory.getInstance(), players[0], players[1], players[2], players[3],
+					players[4]);
+			CatAi cat = new CatAi(controller, players[4], new ExpectimaxCatPolicy(50), 99);
+			if(cat.canCapture())
+			{
+				targets[i] = cat.getRandomThreateningMove();
+			} else
+			{
+				targets[i] = cat.getRandomNormalMove();
+			}
+		}
+		assertEquals(targets[0], targets[1]);
+	}
+
+	/**
+	 * Tests that two games with the same seed replay the same cat moves with
+	 * the default budget, although the moves are generated in an order
+	 * depending on hashes.
+	 */
+	@Test
+	public void testReplaySeeded()
+	{
+		for(long seed = 0; seed < 20; seed++)
+		{
+			assertEquals("Seed " + seed, this.replay(seed), this.replay(seed));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegativeBudget()
+	{
+		new ExpectimaxCatPolicy(-1).chooseMove(null, null, null, new Random());
+	}
+
+	/**
+	 * Lets the cat of a new game move three times.
+	 *
+	 * @return Fields the cat moved to
+	 */
+	private String replay(long seed)
+	{
+		Player catPlayer = new Player("Cat", Color.SPECIAL);
+		IChessboardController controller = new AiFourPlayerChessboardController(null,
+				AiFourPlayerChessboardFactory.getInstance(), new Player("p1", Color.WHITE),
+				new Player("p2", Color.RED), new Player("p3", Color.BLACK), new Player("p4", Color.GOLDEN),
+				catPlayer);
+		IChessboardModel board = controller.getBoard();
+		CatAi cat = new CatAi(controller, catPlayer, new ExpectimaxCatPolicy(), seed);
+		StringBuilder moves = new StringBuilder();
+		for(int i = 0; i < 3; i++)
+		{
+			Field target = cat.canCapture() ? cat.getRandomThreateningMove() : cat.getRandomNormalMove();
+			moves.append(cat.getCurrentPosition()).append("->").append(target).append(' ');
+			board.removePiece(target);
+			for(Piece piece : board.getPieces(catPlayer))
+			{
+				board.movePiece(piece, target);
+			}
+		}
+		return moves.toString();
+	}
+}
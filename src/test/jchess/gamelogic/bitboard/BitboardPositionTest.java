@@ -0,0 +1,325 @@
+package jchess.gamelogic.bitboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.gamelogic.pieces.Piece;
+
+public class BitboardPositionTest
+{
+	private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -";
+	private static final String POSITION_3 = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -";
+	private static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq -";
+
+	private long perft(BitboardPosition position, int depth)
+	{
+		int[] moves = new int[BitboardPosition.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		if(depth == 1)
+		{
+			return count;
+		}
+
+		long nodes = 0;
+		for(int i = 0; i < count; i++)
+		{
+			position.makeMove(moves[i]);
+			nodes += perft(position, depth - 1);
+			position.unmakeMove(moves[i]);
+		}
+		return nodes;
+	}
+
+	/**
+	 * Tests the move generator against well-known node counts.
+	 */
+	@Test
+	public void testPerft()
+	{
+		BitboardPosition start = BitboardPosition.startPosition();
+		assertEquals(20, perft(start, 1));
+		assertEquals(400, perft(start, 2));
+		assertEquals(8902, perft(start, 3));
+		assertEquals(197281, perft(start, 4));
+
+		BitboardPosition kiwipete = BitboardPosition.fromFen(KIWIPETE);
+		assertEquals(48, perft(kiwipete, 1));
+		assertEquals(2039, perft(kiwipete, 2));
+		assertEquals(97862, perft(kiwipete, 3));
+
+		BitboardPosition position3 = BitboardPosition.fromFen(POSITION_3);
+		assertEquals(14, perft(position3, 1));
+		assertEquals(191, perft(position3, 2));
+		assertEquals(2812, perft(position3, 3));
+		assertEquals(43238, perft(position3, 4));
+
+		BitboardPosition position4 = BitboardPosition.fromFen(POSITION_4);
+		assertEquals(6, perft(position4, 1));
+		assertEquals(264, perft(position4, 2));
+		assertEquals(9467, perft(position4, 3));
+
+		// Making and unmaking all those moves must restore the position
+		assertEquals(KIWIPETE, kiwipete.toFen());
+	}
+
+	/**
+	 * Tests converting positions to and from FEN.
+	 */
+	@Test
+	public void testFen()
+	{
+		assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq -",
+				BitboardPosition.startPosition().toFen());
+		assertEquals(POSITION_3, BitboardPosition.fromFen(POSITION_3).toFen());
+		String enPassant = "rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b Kq e3";
+		assertEquals(enPassant, BitboardPosition.fromFen(enPassant).toFen());
+	}
+
+	/**
+	 * Plays random games on the controller and the bitboard position in
+	 * parallel and compares the legal moves in every position.
+	 */
+	@Test
+	public void testAgreesWithController()
+	{
+		Player white = new Player("p1", Color.WHITE);
+		Player black = new Player("p2", Color.BLACK);
+		Random random = new Random(42);
+
+		for(int game = 0; game < 3; game++)
+		{
+			TwoPlayerChessboardController controller = new TwoPlayerChessboardController(null,
+					TwoPlayerChessboardFactory.getInstance(), white, black);
+			IChessboardModel board = controller.getBoard();
+			BitboardPosition position = BitboardPosition.fromChessboard(board, white, black, white);
+			int[] moves = new int[BitboardPosition.MAX_MOVES];
+
+			for(int ply = 0; ply < 40; ply++)
+			{
+				int count = position.generateMoves(moves);
+				assertEquals(getControllerMoves(controller), getBitboardMoves(moves, count));
+				if(count == 0)
+				{
+					break;
+				}
+
+				int move = moves[random.nextInt(count)];
+				Move converted = position.toMove(move, board);
+				assertEquals(move, position.fromMove(converted));
+
+				board.makeMove(converted);
+				controller.switchToNextPlayer();
+				position.makeMove(move);
+
+				BitboardPosition reloaded = BitboardPosition.fromChessboard(board, white, black,
+						controller.getActivePlayer());
+				assertEquals(position.toFen(), reloaded.toFen());
+				assertTrue(position.getUnmoved() == reloaded.getUnmoved());
+				assertEquals(reloaded.getKey(), position.getKey());
+			}
+		}
+	}
+
+	/**
+	 * Tests that the incremental key matches a recomputed one, is restored by
+	 * unmaking moves and is equal for transposed move orders.
+	 */
+	@Test
+	public void testKeys()
+	{
+		BitboardPosition position = BitboardPosition
+				.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -");
+		long start = position.getKey();
+		Random random = new Random(3);
+		int[] moves = new int[BitboardPosition.MAX_MOVES];
+		int[] line = new int[30];
+		int length = 0;
+		while(length < line.length)
+		{
+			int count = position.generateMoves(moves);
+			if(count == 0)
+			{
+				break;
+			}
+			line[length] = moves[random.nextInt(count)];
+			position.makeMove(line[length++]);
+			assertEquals(position.computeKey(), position.getKey());
+		}
+		for(int i = length - 1; i >= 0; i--)
+		{
+			position.unmakeMove(line[i]);
+		}
+		assertEquals(start, position.getKey());
+
+		// Nf3 Nf6 Nc3 and Nc3 Nf6 Nf3 reach the same position
+		BitboardPosition first = BitboardPosition.startPosition();
+		BitboardPosition second = BitboardPosition.startPosition();
+		first.makeMove(BitboardPosition.encode(62, 45, BitboardPosition.FLAG_QUIET));
+		first.makeMove(BitboardPosition.encode(6, 21, BitboardPosition.FLAG_QUIET));
+		first.makeMove(BitboardPosition.encode(57, 42, BitboardPosition.FLAG_QUIET));
+		second.makeMove(BitboardPosition.encode(57, 42, BitboardPosition.FLAG_QUIET));
+		second.makeMove(BitboardPosition.encode(6, 21, BitboardPosition.FLAG_QUIET));
+		second.makeMove(BitboardPosition.encode(62, 45, BitboardPosition.FLAG_QUIET));
+		assertEquals(first.getKey(), second.getKey());
+		assertTrue(first.getKey() != BitboardPosition.startPosition().getKey());
+	}
+
+	/**
+	 * Tests that the scores kept with every move and taken back with every
+	 * unmade move equal the scores computed from scratch.
+	 */
+	@Test
+	public void testScores()
+	{
+		int[][] values = new int[12][Bitboards.SQUARES];
+		for(int code = 0; code < values.length; code++)
+		{
+			for(int square = 0; square < Bitboards.SQUARES; square++)
+			{
+				values[code][square] = 100 * (code % 6 + 1) + square;
+			}
+		}
+		BitboardPosition position = BitboardPosition.fromFen(POSITION_4);
+		assertEquals(0, position.getScore(BitboardPosition.WHITE));
+		position.setSquareValues(values);
+		int white = position.getScore(BitboardPosition.WHITE);
+		int black = position.getScore(BitboardPosition.BLACK);
+		assertEquals(position.computeScore(BitboardPosition.WHITE), white);
+
+		Random random = new Random(5);
+		int[] moves = new int[BitboardPosition.MAX_MOVES];
+		int[] line = new int[30];
+		int length = 0;
+		while(length < line.length)
+		{
+			int count = position.generateMoves(moves);
+			if(count == 0)
+			{
+				break;
+			}
+			line[length] = moves[random.nextInt(count)];
+			position.makeMove(line[length++]);
+			assertEquals(position.computeScore(BitboardPosition.WHITE), position.getScore(BitboardPosition.WHITE));
+			assertEquals(position.computeScore(BitboardPosition.BLACK), position.getScore(BitboardPosition.BLACK));
+		}
+		for(int i = length - 1; i >= 0; i--)
+		{
+			position.unmakeMove(line[i]);
+		}
+		assertEquals(white, position.getScore(BitboardPosition.WHITE));
+		assertEquals(black, position.getScore(BitboardPosition.BLACK));
+	}
+
+	/**
+	 * Tests that noisy and quiet moves together are the pseudo-legal moves
+	 * and that moves are checked for being pseudo-legal correctly.
+	 */
+	@Test
+	public void testMoveStages()
+	{
+		for(String fen : new String[] { KIWIPETE, POSITION_3, POSITION_4 })
+		{
+			BitboardPosition position = BitboardPosition.fromFen(fen);
+			int[] moves = new int[BitboardPosition.MAX_MOVES];
+			int count = position.generatePseudoLegalMoves(moves);
+			Set<Integer> all = new HashSet<Integer>();
+			for(int i = 0; i < count; i++)
+			{
+				all.add(moves[i]);
+				assertTrue(position.isPseudoLegal(moves[i]));
+			}
+
+			Set<Integer> staged = new HashSet<Integer>();
+			int noisy = position.generateNoisyMoves(moves);
+			for(int i = 0; i < noisy; i++)
+			{
+				assertTrue(BitboardPosition.isCapture(moves[i]) || BitboardPosition.isPromotion(moves[i]));
+				staged.add(moves[i]);
+			}
+			int quiet = position.generateQuietMoves(moves);
+			for(int i = 0; i < quiet; i++)
+			{
+				assertTrue(!BitboardPosition.isCapture(moves[i]) && !BitboardPosition.isPromotion(moves[i]));
+				staged.add(moves[i]);
+			}
+			assertEquals(count, noisy + quiet);
+			assertEquals(all, staged);
+		}
+
+		BitboardPosition position = BitboardPosition.startPosition();
+		// e2-e4 is a move, e2-e5 and moves of black are not
+		assertTrue(position.isPseudoLegal(BitboardPosition.encode(52, 36, BitboardPosition.FLAG_DOUBLE_PUSH)));
+		assertTrue(!position.isPseudoLegal(BitboardPosition.encode(52, 28, BitboardPosition.FLAG_QUIET)));
+		assertTrue(!position.isPseudoLegal(BitboardPosition.encode(12, 28, BitboardPosition.FLAG_DOUBLE_PUSH)));
+	}
+
+	/**
+	 * Tests static exchanges of undefended and defended pieces and of
+	 * sliders lined up behind each other.
+	 */
+	@Test
+	public void testStaticExchange()
+	{
+		int[] values = { 100, 320, 330, 500, 900, 20000 };
+		// e4xd5 wins a pawn
+		BitboardPosition position = BitboardPosition.fromFen("4k3/8/8/3p4/4P3/8/8/4K3 w - -");
+		assertEquals(100, position.staticExchange(BitboardPosition.encode(36, 27, BitboardPosition.FLAG_CAPTURE),
+				values));
+		// Rd1xd5 loses the rook for a pawn
+		position = BitboardPosition.fromFen("4k3/8/2p5/3p4/8/8/8/3RK3 w - -");
+		assertEquals(-400, position.staticExchange(BitboardPosition.encode(59, 27, BitboardPosition.FLAG_CAPTURE),
+				values));
+		// Rd2xd5, Rd8xd5, Rd1xd5 with the second rook behind the first
+		position = BitboardPosition.fromFen("3rk3/8/8/3p4/8/8/3R4/3RK3 w - -");
+		assertEquals(100, position.staticExchange(BitboardPosition.encode(51, 27, BitboardPosition.FLAG_CAPTURE),
+				values));
+		// The king may only capture undefended pieces
+		position = BitboardPosition.fromFen("4k3/8/8/8/8/8/3p4/4K3 w - -");
+		assertEquals(100, position.staticExchange(BitboardPosition.encode(60, 51, BitboardPosition.FLAG_CAPTURE),
+				values));
+		position = BitboardPosition.fromFen("4k3/8/8/8/8/4p3/3p4/4K3 w - -");
+		assertTrue(position.staticExchange(BitboardPosition.encode(60, 51, BitboardPosition.FLAG_CAPTURE),
+				values) < 0);
+	}
+
+	private Set<String> getControllerMoves(TwoPlayerChessboardController controller)
+	{
+		Set<String> moves = new HashSet<String>();
+		for(Piece piece : controller.getBoard().getPieces(controller.getActivePlayer()))
+		{
+			for(Move move : controller.getPossibleMoves(piece, true))
+			{
+				moves.add(move.getFrom().getPosX() + "," + move.getFrom().getPosY() + "-"
+						+ move.getTo().getPosX() + "," + move.getTo().getPosY());
+			}
+		}
+		return moves;
+	}
+
+	private Set<String> getBitboardMoves(int[] moves, int count)
+	{
+		// The controller does not distinguish promotion choices
+		Set<String> converted = new HashSet<String>();
+		for(int move : Arrays.copyOf(moves, count))
+		{
+			int from = BitboardPosition.getFrom(move);
+			int to = BitboardPosition.getTo(move);
+			converted.add(Bitboards.x(from) + "," + Bitboards.y(from) + "-" + Bitboards.x(to) + ","
+					+ Bitboards.y(to));
+		}
+		return converted;
+	}
+}
@@ -0,0 +1,157 @@
+package jchess.gamelogic.bitboard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.chessboardcontrollers.FourPlayerChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
+import jchess.gamelogic.pieces.Piece;
+
+public class WidePositionTest
+{
+	private Player white = new Player("p1", Color.WHITE);
+	private Player red = new Player("p2", Color.RED);
+	private Player black = new Player("p3", Color.BLACK);
+	private Player golden = new Player("p4", Color.GOLDEN);
+	private List<Player> players = Arrays.asList(white, red, black, golden);
+
+	/**
+	 * Tests the shift helpers and the validity mask.
+	 */
+	@Test
+	public void testWideBitboard()
+	{
+		assertEquals(160, WidePosition.VALID.cardinality());
+
+		WideBitboard corner = new WideBitboard();
+		corner.set(WideBitboard.square(3, 0));
+		// Leaving the plus to the left or top drops the square
+		assertTrue(corner.shift(-1, 0, WidePosition.VALID).isEmpty());
+		assertTrue(corner.shift(0, -1, WidePosition.VALID).isEmpty());
+		assertTrue(corner.shift(1, 1, WidePosition.VALID).get(WideBitboard.square(4, 1)));
+
+		// Shifting across word boundaries
+		WideBitboard edge = new WideBitboard();
+		edge.set(WideBitboard.square(13, 7));
+		assertFalse(edge.shift(0, 4, WidePosition.VALID).get(WideBitboard.square(13, 11)));
+		assertTrue(edge.shift(-2, 3, WidePosition.VALID).get(WideBitboard.square(11, 10)));
+		assertTrue(edge.shift(2, 0, WidePosition.VALID).isEmpty());
+		assertEquals(WideBitboard.square(13, 7), edge.nextSetBit(0));
+		assertEquals(-1, edge.nextSetBit(WideBitboard.square(13, 7) + 1));
+	}
+
+	/**
+	 * Tests the node counts of the start position against the controller and
+	 * that making and unmaking moves restores the position.
+	 */
+	@Test
+	public void testStartPosition()
+	{
+		FourPlayerChessboardController controller = new FourPlayerChessboardController(null,
+				FourPlayerChessboardFactory.getInstance(), white, red, black, golden);
+		IChessboardModel board = controller.getBoard();
+		WidePosition position = WidePosition.fromChessboard(board, players, white);
+
+		int[] moves = new int[WidePosition.MAX_MOVES];
+		int count = position.generateMoves(moves);
+		// 8 pawns with two moves each, 2 knights with two moves each
+		assertEquals(20, count);
+
+		int[] replies = new int[WidePosition.MAX_MOVES];
+		for(int i = 0; i < count; i++)
+		{
+			UndoToken token = board.makeMove(position.toMove(moves[i], board));
+			controller.switchToNextPlayer();
+			position.makeMove(moves[i]);
+
+			assertEquals(1, position.getSideToMove());
+			assertEquals(getControllerMoves(controller).size(), position.generateMoves(replies));
+
+			position.unmakeMove(moves[i]);
+			controller.switchToPreviousPlayer();
+			board.unmakeMove(token);
+		}
+		assertEquals(0, position.getSideToMove());
+		assertEquals(20, position.generateMoves(moves));
+		assertFalse(position.isInCheck(0));
+	}
+
+	/**
+	 * Plays random games on the controller and the wide position in parallel
+	 * and compares the legal moves in every position.
+	 */
+	@Test
+	public void testAgreesWithController()
+	{
+		Random random = new Random(7);
+
+		for(int game = 0; game < 2; game++)
+		{
+			FourPlayerChessboardController controller = new FourPlayerChessboardController(null,
+					FourPlayerChessboardFactory.getInstance(), white, red, black, golden);
+			IChessboardModel board = controller.getBoard();
+			WidePosition position = WidePosition.fromChessboard(board, players, white);
+			int[] moves = new int[WidePosition.MAX_MOVES];
+
+			for(int ply = 0; ply < 24; ply++)
+			{
+				int count = position.generateMoves(moves);
+				assertEquals(getControllerMoves(controller), getWideMoves(moves, count));
+				if(count == 0)
+				{
+					break;
+				}
+
+				int move = moves[random.nextInt(count)];
+				Move converted = position.toMove(move, board);
+				assertEquals(move, position.fromMove(converted));
+
+				board.makeMove(converted);
+				controller.switchToNextPlayer();
+				position.makeMove(move);
+			}
+		}
+	}
+
+	private Set<String> getControllerMoves(FourPlayerChessboardController controller)
+	{
+		Set<String> moves = new HashSet<String>();
+		for(Piece piece : controller.getBoard().getPieces(controller.getActivePlayer()))
+		{
+			for(Move move : controller.getPossibleMoves(piece, true))
+			{
+				moves.add(move.getFrom().getPosX() + "," + move.getFrom().getPosY() + "-"
+						+ move.getTo().getPosX() + "," + move.getTo().getPosY());
+			}
+		}
+		return moves;
+	}
+
+	private Set<String> getWideMoves(int[] moves, int count)
+	{
+		// The controller does not distinguish promotion choices
+		Set<String> converted = new HashSet<String>();
+		for(int i = 0; i < count; i++)
+		{
+			int from = WidePosition.getFrom(moves[i]);
+			int to = WidePosition.getTo(moves[i]);
+			converted.add(WideBitboard.x(from) + "," + WideBitboard.y(from) + "-" + WideBitboard.x(to) + ","
+					+ WideBitboard.y(to));
+		}
+		return converted;
+	}
+}
@@ -0,0 +1,74 @@
+package jchess.gamelogic.book;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.models.factories.FenChessboardFactory;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+
+public class MoveNotationTest
+{
+	/** Two rooks reaching d1 and a pawn about to promote */
+	private static final String FEN = "4k3/1P6/8/8/8/8/8/R4RK1 w - -";
+
+	/**
+	 * Tests that both notations name the same moves, counting the ranks from
+	 * opposite sides.
+	 */
+	@Test
+	public void testNotations() throws IllegalMoveException
+	{
+		IChessboardController controller = PerftPosition.START.createController();
+		int move = MoveNotation.ALGEBRAIC.parse(controller, "Nf3");
+		assertEquals(EncodedMove.square(6, 7), EncodedMove.getFrom(move));
+		assertEquals(EncodedMove.square(5, 5), EncodedMove.getTo(move));
+		assertEquals(move, MoveNotation.SAVED.parse(controller, "Ng8-f6"));
+		assertEquals(MoveNotation.ALGEBRAIC.parse(controller, "e4"), MoveNotation.SAVED.parse(controller, "e7-e5"));
+
+		controller = PerftPosition.KIWIPETE.createController();
+		assertTrue(EncodedMove.hasFlag(MoveNotation.ALGEBRAIC.parse(controller, "O-O"),
+				EncodedMove.FLAG_SHORT_CASTLING));
+		assertTrue(EncodedMove.isCapture(MoveNotation.ALGEBRAIC.parse(controller, "Nxf7!")));
+	}
+
+	/**
+	 * Tests that the piece's file tells moves apart and that a promotion
+	 * without a piece promotes to a queen.
+	 */
+	@Test
+	public void testDisambiguationAndPromotion() throws IllegalMoveException
+	{
+		IChessboardController controller = new TwoPlayerChessboardController(null, new FenChessboardFactory(FEN),
+				new Player("p1", Color.WHITE), new Player("p2", Color.BLACK));
+		int move = MoveNotation.ALGEBRAIC.parse(controller, "Rad1");
+		assertEquals(EncodedMove.square(0, 7), EncodedMove.getFrom(move));
+		assertEquals(move, MoveNotation.SAVED.parse(controller, "Ra8-d8"));
+		assertEquals(EncodedMove.square(5, 7), EncodedMove.getFrom(MoveNotation.ALGEBRAIC.parse(controller, "Rfd1")));
+
+		assertEquals(PieceType.KNIGHT, EncodedMove.getPromotedType(MoveNotation.ALGEBRAIC.parse(controller, "b8=N+")));
+		assertEquals(PieceType.QUEEN, EncodedMove.getPromotedType(MoveNotation.ALGEBRAIC.parse(controller, "b8")));
+	}
+
+	@Test(expected = IllegalMoveException.class)
+	public void testAmbiguousMove() throws IllegalMoveException
+	{
+		IChessboardController controller = new TwoPlayerChessboardController(null, new FenChessboardFactory(FEN),
+				new Player("p1", Color.WHITE), new Player("p2", Color.BLACK));
+		MoveNotation.ALGEBRAIC.parse(controller, "Rd1");
+	}
+
+	@Test(expected = IllegalMoveException.class)
+	public void testIllegalMove() throws IllegalMoveException
+	{
+		MoveNotation.ALGEBRAIC.parse(PerftPosition.START.createController(), "Nd4");
+	}
+}
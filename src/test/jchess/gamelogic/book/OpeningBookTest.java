@@ -0,0 +1,150 @@
+package jchess.gamelogic.book;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.util.FileMapParser;
+
+public class OpeningBookTest
+{
+	private static final String PGN = "[Event \"Test\"]\n[White \"p1\"]\n\n1. e4 e5 2. Nf3 Nc6 3. Bb5 *\n\n"
+			+ "[Event \"Test\"]\n1.e4 {Sicilian} c5 (1... e5 2. Nf3) 2. Nf3 $1 d6 ; comment\n1-0\n"
+			+ "[FEN \"8/8/8/8/8/8/8/K6k w - -\"]\n1. Kb2 *\n"
+			+ "1. d4 d5 1/2-1/2";
+
+	/**
+	 * Tests that the moves of PGN and saved games are counted by position,
+	 * up to the number of plies, and found in the written book.
+	 */
+	@Test
+	public void testBuildAndLookup() throws IOException, IllegalMoveException
+	{
+		OpeningBookBuilder builder = new OpeningBookBuilder(2, 4);
+		assertEquals(3, builder.addPgn(new StringReader(PGN)));
+
+		IChessboardController game = this.createGame();
+		this.play(game, "e4", "e5", "Nf3");
+		assertTrue(builder.addSavedGame(this.save(game, "Game2pTimed")));
+		assertEquals(4, builder.getGameCount());
+		// Start and after e4, e4 e5, e4 e5 Nf3, e4 e5 Nf3 Nc6, e4 c5, e4 c5 Nf3, d4
+		assertEquals(7, builder.getPositionCount());
+
+		OpeningBook book = this.write(builder);
+		assertEquals(2, book.getPlayerCount());
+		assertEquals(9, book.size());
+
+		IChessboardController controller = this.createGame();
+		List<BookMove> moves = book.getMoves(controller);
+		assertEquals(2, moves.size());
+		assertEquals(MoveNotation.ALGEBRAIC.parse(controller, "e4"), moves.get(0).getMove());
+		assertEquals(3, moves.get(0).getWeight());
+		assertEquals(MoveNotation.ALGEBRAIC.parse(controller, "d4"), moves.get(1).getMove());
+		assertEquals(1, moves.get(1).getWeight());
+
+		this.play(controller, "e4", "e5", "Nf3");
+		moves = book.getMoves(controller);
+		assertEquals(1, moves.size());
+		assertEquals(MoveNotation.ALGEBRAIC.parse(controller, "Nc6"), moves.get(0).getMove());
+		assertEquals(1, moves.get(0).getWeight());
+
+		// Beyond the plies of the book
+		this.play(controller, "Nc6");
+		assertTrue(book.getMoves(controller).isEmpty());
+		assertTrue(book.getMoves(0).isEmpty());
+	}
+
+	/**
+	 * Tests that books of two and four players are kept apart.
+	 */
+	@Test
+	public void testVariants() throws IOException, IllegalMoveException
+	{
+		IChessboardController twoPlayers = this.createGame();
+		this.play(twoPlayers, "e4");
+		IChessboardController fourPlayers = PerftPosition.FOUR_PLAYER_START.createController();
+		MoveList legal = new MoveList();
+		fourPlayers.getPossibleMoves(fourPlayers.getActivePlayer(), legal);
+		int first = legal.get(0);
+		fourPlayers.move(EncodedMove.toMove(first, fourPlayers.getBoard()));
+		fourPlayers.switchToNextPlayer();
+
+		OpeningBookBuilder builder = new OpeningBookBuilder(4, 10);
+		assertFalse(builder.addSavedGame(this.save(twoPlayers, "Game2p")));
+		assertTrue(builder.addSavedGame(this.save(fourPlayers, "Game4p")));
+		OpeningBook book = this.write(builder);
+		assertEquals(4, book.getPlayerCount());
+
+		List<BookMove> moves = book.getMoves(PerftPosition.FOUR_PLAYER_START.createController());
+		assertEquals(1, moves.size());
+		assertEquals(first, moves.get(0).getMove());
+
+		try
+		{
+			book.getMoves(this.createGame());
+			throw new AssertionError("A two player game must not use a four player book!");
+		} catch(IllegalArgumentException exc)
+		{
+			// Expected
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testInvalidFile() throws IOException
+	{
+		File file = File.createTempFile("book", ".bin");
+		file.deleteOnExit();
+		new OpeningBook(file);
+	}
+
+	/**
+	 * Creates a two player game set up like the games the book is built from.
+	 */
+	private IChessboardController createGame()
+	{
+		return new TwoPlayerChessboardController(null, TwoPlayerChessboardFactory.getInstance(),
+				new Player("p1", Color.WHITE), new Player("p2", Color.BLACK));
+	}
+
+	private void play(IChessboardController controller, String... moves) throws IllegalMoveException
+	{
+		for(String move : moves)
+		{
+			int encoded = MoveNotation.ALGEBRAIC.parse(controller, move);
+			controller.move(EncodedMove.toMove(encoded, controller.getBoard()));
+			controller.switchToNextPlayer();
+		}
+	}
+
+	private FileMapParser save(IChessboardController controller, String event)
+	{
+		FileMapParser parser = new FileMapParser();
+		parser.setProperty("Event", event);
+		controller.save(parser);
+		return parser;
+	}
+
+	private OpeningBook write(OpeningBookBuilder builder) throws IOException
+	{
+		File file = File.createTempFile("book", ".bin");
+		file.deleteOnExit();
+		builder.write(file);
+		return new OpeningBook(file);
+	}
+}
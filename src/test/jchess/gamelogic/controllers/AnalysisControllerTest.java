@@ -0,0 +1,88 @@
+package jchess.gamelogic.controllers;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.engine.AlphaBetaEngine;
+import jchess.gamelogic.engine.SearchResult;
+import jchess.gamelogic.engine.TranspositionTable;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.perft.PerftPosition;
+
+public class AnalysisControllerTest
+{
+	private static final long TIMEOUT = 10000;
+
+	/**
+	 * Tests that the analysis reports on the position of the game, starts
+	 * over after a move and drops its reports when paused.
+	 */
+	@Test
+	public void testRestartAndPause() throws IllegalMoveException, InterruptedException, InvocationTargetException
+	{
+		IChessboardController controller = PerftPosition.START.createController();
+		AnalysisController analysis = new AnalysisController(controller, new AlphaBetaEngine(new TranspositionTable(1)));
+		assertTrue(analysis.isPaused());
+
+		Player white = controller.getActivePlayer();
+		analysis.resume();
+		assertFalse(analysis.isPaused());
+		SearchResult result = this.waitForReport(analysis, 3);
+		assertSame(white, result.getBestMove().getMovedPiece().getPlayer());
+
+		assertTrue(controller.move(new Field(4, 6), new Field(4, 4)));
+		controller.switchToNextPlayer();
+		this.flushEvents();
+		result = this.waitForReport(analysis, 3);
+		assertSame(controller.getActivePlayer(), result.getBestMove().getMovedPiece().getPlayer());
+
+		analysis.pause();
+		assertTrue(analysis.isPaused());
+		assertNull(analysis.getLatest());
+		Thread.sleep(100);
+		assertNull(analysis.getLatest());
+		analysis.shutdown();
+	}
+
+	/**
+	 * Waits until the analysis reports an iteration of at least the given
+	 * depth.
+	 */
+	private SearchResult waitForReport(AnalysisController analysis, int depth) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while(System.currentTimeMillis() < deadline)
+		{
+			SearchResult result = analysis.getLatest();
+			if(result != null && result.getDepth() >= depth)
+			{
+				return result;
+			}
+			Thread.sleep(5);
+		}
+		throw new AssertionError("No report of depth " + depth + " in time!");
+	}
+
+	/**
+	 * Waits for the events posted to the event dispatch thread so far.
+	 */
+	private void flushEvents() throws InterruptedException, InvocationTargetException
+	{
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+			}
+		});
+	}
+}
@@ -3,6 +3,9 @@
  */
 package jchess.gamelogic.controllers;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -18,6 +21,7 @@ import jchess.gamelogic.field.Move;
 import jchess.gamelogic.models.IChessboardModel;
 import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
 import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.gamelogic.views.HistoryView;
 
 /**
  * @author Florian Bethe
@@ -94,6 +98,24 @@ public class HistoryTest
 
 	}
 	
+	/**
+	 * Tests that moves are recorded before the view is created and that the
+	 * view is created only once.
+	 */
+	@Test
+	public void testLazyView()
+	{
+		twoPlayerHistory.addMove(new Move(new Field(4, 6), new Field(4, 4), twoPlayerBoard.getPiece(new Field(4, 6))));
+		assertEquals(1, twoPlayerHistory.getRowCount());
+		
+		HistoryView view = twoPlayerHistory.getView();
+		assertNotNull(view);
+		assertSame(view, twoPlayerHistory.getView());
+		twoPlayerController.switchToNextPlayer();
+		twoPlayerHistory.addMove(new Move(new Field(4, 1), new Field(4, 3), twoPlayerBoard.getPiece(new Field(4, 1))));
+		assertEquals(1, twoPlayerHistory.getRowCount());
+	}
+	
 	/**
 	 * Test method for {@link jchess.gamelogic.controllers.History#getMovesAsString()}.
 	 */
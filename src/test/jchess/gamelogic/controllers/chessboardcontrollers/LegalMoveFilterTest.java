@@ -0,0 +1,175 @@
+package jchess.gamelogic.controllers.chessboardcontrollers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.models.factories.FenChessboardFactory;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.gamelogic.pieces.Piece;
+
+public class LegalMoveFilterTest
+{
+	private static final int PLIES = 40;
+
+	private Player white = new Player("p1", Color.WHITE);
+	private Player black = new Player("p2", Color.BLACK);
+
+	/**
+	 * Tests that pinned pieces only move along the pin and that checks have
+	 * to be blocked or captured.
+	 */
+	@Test
+	public void testPinsAndChecks()
+	{
+		// Knight pinned by the rook on e4
+		IChessboardController controller = createController("4k3/8/8/8/4r3/8/4N3/4K3 w - -");
+		assertEquals(0, getPossibleMoves(controller, 4, 6).size());
+
+		// Rook pinned on the file may still go to e3 or capture on e4
+		controller = createController("4k3/8/8/8/4r3/8/4R3/4K3 w - -");
+		assertEquals(2, getPossibleMoves(controller, 4, 6).size());
+
+		// Bishop checking from b4: the knight can only block on d2 or c3
+		controller = createController("4k3/8/8/8/1b6/8/8/1N2K3 w - -");
+		Set<Field> targets = new HashSet<Field>();
+		for(Move move : getPossibleMoves(controller, 1, 7))
+		{
+			targets.add(move.getTo());
+		}
+		assertEquals(new HashSet<Field>(Arrays.asList(new Field(2, 5), new Field(3, 6))), targets);
+	}
+
+	/**
+	 * Plays seeded random games on the two player, four player and cat boards
+	 * and compares the legal moves with those found by making every move.
+	 */
+	@Test
+	public void testAgainstSimulation()
+	{
+		for(PerftPosition position : new PerftPosition[] { PerftPosition.KIWIPETE, PerftPosition.FOUR_PLAYER_START,
+				PerftPosition.CAT_START })
+		{
+			for(long seed = 1; seed <= 3; seed++)
+			{
+				this.playRandomGame(position.createController(), new Random(seed));
+			}
+		}
+	}
+
+	private void playRandomGame(IChessboardController controller, Random random)
+	{
+		IChessboardModel board = controller.getBoard();
+		for(int ply = 0; ply < PLIES; ply++)
+		{
+			List<Move> legal = new ArrayList<Move>();
+			for(Piece piece : board.getPieces(controller.getActivePlayer()))
+			{
+				Set<Move> expected = this.getSimulatedMoves(controller, piece);
+				Set<Move> actual = controller.getPossibleMoves(piece, true);
+				assertEquals("Moves of " + piece + " after " + ply + " plies", toStrings(expected), toStrings(actual));
+				legal.addAll(actual);
+			}
+			if(legal.isEmpty())
+			{
+				return;
+			}
+
+			// The order of the pieces depends on the identity hash codes
+			Collections.sort(legal, new Comparator<Move>()
+			{
+				@Override
+				public int compare(Move first, Move second)
+				{
+					return first.toString().compareTo(second.toString());
+				}
+			});
+			board.makeMove(legal.get(random.nextInt(legal.size())));
+			controller.switchToNextPlayer();
+		}
+	}
+
+	/**
+	 * Filters the moves of a piece by making each of them on the board.
+	 */
+	private Set<Move> getSimulatedMoves(IChessboardController controller, Piece piece)
+	{
+		IChessboardModel board = controller.getBoard();
+		Player moving = piece.getPlayer();
+		List<Player> players = new ArrayList<Player>(controller.getEnemies(moving));
+		players.add(moving);
+
+		Map<Player, Set<Piece>> preExistingChecks = new HashMap<Player, Set<Piece>>();
+		for(Player player : players)
+		{
+			preExistingChecks.put(player, controller.getPiecesCheckingPlayer(player));
+		}
+
+		Set<Move> legal = new HashSet<Move>();
+		for(Move move : controller.getPossibleMoves(piece, false))
+		{
+			long key = board.getZobristKey();
+			UndoToken token = board.makeMove(move);
+			boolean isLegal = true;
+			for(Player player : players)
+			{
+				for(Piece checking : controller.getPiecesCheckingPlayer(player))
+				{
+					if(player == moving || (checking.getPlayer() != moving
+							&& !preExistingChecks.get(player).contains(checking)))
+					{
+						isLegal = false;
+					}
+				}
+			}
+			board.unmakeMove(token);
+			assertTrue(key == board.getZobristKey());
+
+			if(isLegal)
+			{
+				legal.add(move);
+			}
+		}
+		return legal;
+	}
+
+	private Set<String> toStrings(Set<Move> moves)
+	{
+		Set<String> converted = new HashSet<String>();
+		for(Move move : moves)
+		{
+			converted.add(move.toString());
+		}
+		return converted;
+	}
+
+	private Set<Move> getPossibleMoves(IChessboardController controller, int x, int y)
+	{
+		IChessboardModel board = controller.getBoard();
+		return controller.getPossibleMoves(board.getPiece(board.getField(x, y)), true);
+	}
+
+	private IChessboardController createController(String fen)
+	{
+		return new TwoPlayerChessboardController(null, new FenChessboardFactory(fen), white, black);
+	}
+}
@@ -3,11 +3,16 @@
  */
 package jchess.gamelogic.controllers.chessboardcontrollers;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -16,6 +21,8 @@ import org.junit.Test;
 
 import jchess.gamelogic.Player;
 import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IMoveHandler;
 import jchess.gamelogic.controllers.IllegalMoveException;
 import jchess.gamelogic.field.Field;
 import jchess.gamelogic.field.Move;
@@ -433,4 +440,37 @@ public class TwoPlayerChessboardControllerTest
 		}
 	}
 	
+	/**
+	 * Tests that moves are handed to the move handler and that copied
+	 * positions have the same player to move but do not share any changes
+	 * with the game.
+	 */
+	@Test
+	public void testCopyPosition() throws IllegalMoveException
+	{
+		final List<Move> moves = new ArrayList<>();
+		controller.setMoveHandler(new IMoveHandler()
+		{
+			@Override
+			public void onMove(Move move)
+			{
+				moves.add(move);
+			}
+		});
+		assertTrue(controller.move(new Field(4, 6), new Field(4, 4)));
+		assertEquals(1, moves.size());
+		assertEquals(new Field(4, 4), moves.get(0).getTo());
+		controller.switchToNextPlayer();
+		
+		IChessboardController copy = controller.copyPosition();
+		long key = board.getZobristKey();
+		assertSame(black, copy.getActivePlayer());
+		assertEquals(key, copy.getBoard().getZobristKey());
+		
+		assertTrue(copy.move(new Field(4, 1), new Field(4, 3)));
+		assertEquals(key, board.getZobristKey());
+		assertNotNull(board.getPiece(new Field(4, 1)));
+		assertEquals(1, moves.size());
+	}
+	
 }
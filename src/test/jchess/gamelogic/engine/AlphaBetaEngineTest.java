@@ -0,0 +1,109 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.factories.FenChessboardFactory;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.gamelogic.pieces.Queen;
+
+public class AlphaBetaEngineTest
+{
+	private Player white = new Player("p1", Color.WHITE);
+	private Player black = new Player("p2", Color.BLACK);
+
+	/**
+	 * Tests that a mate in one is found and announced.
+	 */
+	@Test
+	public void testMateInOne()
+	{
+		IChessboardController controller = createController("6k1/5ppp/8/8/8/8/8/R5K1 w - -");
+		SearchResult result = new AlphaBetaEngine().search(controller, SearchLimits.depth(3));
+
+		assertEquals(new Field(0, 0), result.getBestMove().getTo());
+		assertTrue(result.isMateScore() && result.getScore() > 0);
+	}
+
+	/**
+	 * Tests that an undefended queen is taken and a defended one is not.
+	 */
+	@Test
+	public void testCaptures()
+	{
+		IChessboardController controller = createController("4k3/8/8/3q4/8/8/3R4/4K3 w - -");
+		SearchResult result = new AlphaBetaEngine().search(controller, SearchLimits.depth(2));
+		assertEquals(new Field(3, 3), result.getBestMove().getTo());
+
+		// The pawn on d5 is defended by the one on e6; taking it loses the
+		// rook
+		controller = createController("4k3/8/4p3/3p4/8/8/3R4/4K3 w - -");
+		result = new AlphaBetaEngine().search(controller, SearchLimits.depth(2));
+		assertTrue(!result.getBestMove().getTo().equals(new Field(3, 3)));
+	}
+
+	/**
+	 * Tests that a checkmated player gets no move.
+	 */
+	@Test
+	public void testNoMoveWhenMated()
+	{
+		IChessboardController controller = createController("R5k1/5ppp/8/8/8/8/8/6K1 b - -");
+		controller.switchToNextPlayer();
+		SearchResult result = new AlphaBetaEngine().search(controller, SearchLimits.depth(3));
+
+		assertNull(result.getBestMove());
+		assertTrue(result.getPrincipalVariation().isEmpty());
+		assertTrue(result.getScore() < -SearchResult.MATE_BOUND);
+	}
+
+	/**
+	 * Tests that node limited searches stop in time and still return a move
+	 * which can be carried out by the controller, and that the position is
+	 * left unchanged.
+	 */
+	@Test
+	public void testLimitsAndMove() throws IllegalMoveException
+	{
+		IChessboardController controller = PerftPosition.KIWIPETE.createController();
+		long key = controller.getBoard().getZobristKey();
+		SearchResult result = new AlphaBetaEngine().search(controller, SearchLimits.nodes(20000));
+
+		assertTrue(result.getNodes() < 20000 + 1024);
+		assertEquals(key, controller.getBoard().getZobristKey());
+		assertTrue(result.getPrincipalVariation().size() >= 1);
+		assertTrue(controller.move(result.getBestMove()));
+	}
+
+	/**
+	 * Tests that a promotion chosen by the engine is carried out without
+	 * asking for the piece.
+	 */
+	@Test
+	public void testPromotion() throws IllegalMoveException
+	{
+		IChessboardController controller = createController("8/P6k/8/8/8/8/8/K7 w - -");
+		SearchResult result = new AlphaBetaEngine().search(controller, SearchLimits.depth(3));
+		Move move = result.getBestMove();
+		assertEquals(new Field(0, 0), move.getTo());
+
+		controller.move(move);
+		assertTrue(controller.getBoard().getPiece(move.getTo()).getBehaviour() instanceof Queen);
+	}
+
+	private IChessboardController createController(String fen)
+	{
+		FenChessboardFactory factory = new FenChessboardFactory(fen);
+		return new TwoPlayerChessboardController(null, factory, white, black);
+	}
+}
@@ -0,0 +1,61 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+
+public class EvaluationWeightsTest
+{
+	@Test
+	public void testDefaults()
+	{
+		EvaluationWeights weights = EvaluationWeights.getDefault();
+		assertEquals(100, weights.getValue(PieceType.PAWN));
+		assertEquals(0, weights.getValue(PieceType.CAT));
+		assertTrue(weights.hasTables(8) && weights.hasTables(14));
+		assertFalse(weights.hasTables(10));
+		// Pawns on the seventh rank are worth more than at home
+		assertEquals(50, weights.getSquareValue(PieceType.PAWN, 8, 1, 3));
+		assertEquals(0, weights.getSquareValue(PieceType.CAT, 8, 1, 3));
+	}
+
+	/**
+	 * Tests that a file only overrides the keys it contains.
+	 */
+	@Test
+	public void testLoad() throws IOException
+	{
+		File file = File.createTempFile("evaluation", ".txt");
+		file.deleteOnExit();
+		Properties properties = new Properties();
+		properties.setProperty("value.knight", "300");
+		try(OutputStream outputStream = new FileOutputStream(file))
+		{
+			properties.store(outputStream, null);
+		}
+
+		EvaluationWeights weights = EvaluationWeights.load(file);
+		assertEquals(300, weights.getValue(PieceType.KNIGHT));
+		assertEquals(330, weights.getValue(PieceType.BISHOP));
+		assertEquals(EvaluationWeights.getDefault().getSquareValue(PieceType.KING, 14, 13, 6),
+				weights.getSquareValue(PieceType.KING, 14, 13, 6));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMalformedTable()
+	{
+		Properties properties = new Properties();
+		properties.setProperty("table.8.pawn", "1, 2, 3");
+		EvaluationWeights.fromProperties(properties);
+	}
+}
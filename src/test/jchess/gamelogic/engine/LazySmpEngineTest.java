@@ -0,0 +1,107 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.models.factories.FenChessboardFactory;
+import jchess.gamelogic.perft.PerftPosition;
+
+public class LazySmpEngineTest
+{
+	/**
+	 * Tests that the parallel search finds a mate in one like the single
+	 * threaded one.
+	 */
+	@Test
+	public void testMateInOne()
+	{
+		FenChessboardFactory factory = new FenChessboardFactory("6k1/5ppp/8/8/8/8/8/R5K1 w - -");
+		IChessboardController controller = new TwoPlayerChessboardController(null, factory,
+				new Player("p1", Color.WHITE), new Player("p2", Color.BLACK));
+		LazySmpEngine engine = new LazySmpEngine(4, new TranspositionTable(1));
+		SearchResult result = engine.search(controller, SearchLimits.depth(4));
+
+		assertEquals(4, engine.getThreadCount());
+		assertEquals(new Field(0, 0), result.getBestMove().getTo());
+		assertTrue(result.isMateScore() && result.getScore() > 0);
+	}
+
+	/**
+	 * Tests that the helpers are stopped with the main search, leave the
+	 * board unchanged and that the engine can search again.
+	 */
+	@Test
+	public void testRepeatedSearches() throws IllegalMoveException
+	{
+		IChessboardController controller = PerftPosition.KIWIPETE.createController();
+		long key = controller.getBoard().getZobristKey();
+		LazySmpEngine engine = new LazySmpEngine(3, new TranspositionTable(1));
+
+		for(int i = 0; i < 3; i++)
+		{
+			SearchResult result = engine.search(controller, SearchLimits.nodes(20000));
+			assertEquals(key, controller.getBoard().getZobristKey());
+			assertTrue(result.getNodes() >= 20000);
+			assertTrue(result.getBestMove() != null);
+		}
+		assertTrue(controller.move(engine.search(controller, SearchLimits.depth(2)).getBestMove()));
+	}
+
+	/**
+	 * Tests that shutting the engine down ends a search without limits.
+	 */
+	@Test
+	public void testShutdown() throws InterruptedException
+	{
+		final IChessboardController controller = PerftPosition.KIWIPETE.createController();
+		final LazySmpEngine engine = new LazySmpEngine(3, new TranspositionTable(1));
+		final CountDownLatch started = new CountDownLatch(1);
+		engine.setSearchListener(new ISearchListener()
+		{
+			@Override
+			public void onProgress(SearchResult result)
+			{
+				started.countDown();
+			}
+		});
+		Thread search = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				engine.search(controller, new SearchLimits(0, 0, 0));
+			}
+		});
+		search.start();
+		// A stop request made before the search starts is withdrawn by it
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		engine.shutdown();
+		search.join(10000);
+		assertFalse(search.isAlive());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNoThreads()
+	{
+		new LazySmpEngine(0, new TranspositionTable(1));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testWeightsWithoutTables()
+	{
+		new LazySmpEngine(2, new TranspositionTable(1), EvaluationWeights.fromProperties(new Properties()));
+	}
+}
@@ -0,0 +1,130 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.ai.CatAi;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.AiFourPlayerChessboardController;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.factories.AiFourPlayerChessboardFactory;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+public class MctsEngineTest
+{
+	private Player[] players = {
+			new Player("p1", Color.WHITE),
+			new Player("p2", Color.RED),
+			new Player("p3", Color.BLACK),
+			new Player("p4", Color.GOLDEN),
+			new Player("Cat", Color.SPECIAL)
+	};
+	private IChessboardController controller;
+	private IChessboardModel board;
+
+	@Before
+	public void setUp()
+	{
+		controller = new AiFourPlayerChessboardController(null, AiFourPlayerChessboardFactory.getInstance(),
+				players[0], players[1], players[2], players[3], players[4]);
+		board = controller.getBoard();
+	}
+
+	/**
+	 * Tests that the engine takes a queen left in front of white's pawns and
+	 * leaves the game untouched.
+	 */
+	@Test
+	public void testCapture()
+	{
+		board.setPiece(board.getField(5, 11), PieceFactory.getInstance().buildPiece(players[1], Direction.of(0, 0),
+				PieceType.QUEEN));
+		CatAi catAi = new CatAi(controller, players[4]);
+		long key = board.getZobristKey();
+
+		MctsEngine engine = new MctsEngine(catAi, 1, new CapturePlayoutPolicy(), 42);
+		SearchResult result = engine.search(controller, SearchLimits.nodes(300));
+		assertEquals(new Field(5, 11), result.getBestMove().getTo());
+		assertEquals(300, result.getNodes());
+		assertEquals(key, board.getZobristKey());
+		assertSame(players[0], controller.getActivePlayer());
+	}
+
+	/**
+	 * Tests that several threads share the budget and that the result is a
+	 * move of the player whose turn it is.
+	 */
+	@Test
+	public void testThreads()
+	{
+		CatAi catAi = new CatAi(controller, players[4]);
+		controller.switchToNextPlayer();
+		MctsEngine engine = new MctsEngine(catAi, 3, new CapturePlayoutPolicy(1), 7);
+		SearchResult result = engine.search(controller, SearchLimits.nodes(60));
+
+		assertEquals(3, engine.getThreadCount());
+		assertEquals(60, result.getNodes());
+		assertSame(players[1], board.getPiece(result.getBestMove().getFrom()).getPlayer());
+		assertTrue(result.getScore() > 0 && result.getScore() < MultiPlayerEngine.SCORE_SUM);
+	}
+
+	/**
+	 * Tests that turns of the players and of the cat, including captures of
+	 * the cat and respawns, are taken back completely.
+	 */
+	@Test
+	public void testPlayoutBoardRewind()
+	{
+		new CatAi(controller, players[4]);
+		PlayoutBoard playoutBoard = new PlayoutBoard(controller, PlayoutBoard.SLEEP_TIME, PlayoutBoard.RESPAWN_TIME);
+		IChessboardModel copy = playoutBoard.getBoard();
+		long key = copy.getZobristKey();
+		assertEquals(board.getZobristKey(), key);
+
+		Random random = new Random(3);
+		MoveList moves = new MoveList();
+		for(int game = 0; game < 5; game++)
+		{
+			for(int turn = 0; turn < 25; turn++)
+			{
+				if(playoutBoard.getTurn() == PlayoutBoard.CAT)
+				{
+					playoutBoard.playCatTurn(random);
+				} else
+				{
+					moves.clear();
+					playoutBoard.getMoves(moves);
+					if(moves.isEmpty())
+					{
+						break;
+					}
+					playoutBoard.makeMove(moves.get(random.nextInt(moves.size())));
+				}
+			}
+			playoutBoard.rewind();
+			assertEquals(key, copy.getZobristKey());
+			assertEquals(0, playoutBoard.getTurn());
+			assertEquals(1, copy.getPieces(players[4]).size());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFourPlayers()
+	{
+		new MctsEngine(new CatAi(controller, players[4])).search(PerftPosition.FOUR_PLAYER_START.createController(),
+				SearchLimits.nodes(1));
+	}
+}
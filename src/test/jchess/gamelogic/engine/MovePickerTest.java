@@ -0,0 +1,144 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jchess.gamelogic.field.MoveList;
+
+public class MovePickerTest
+{
+	/**
+	 * Moves 1 to 9: 1 to 3 are captures scored by their number, 4 to 9 quiet
+	 * moves scored by the history.
+	 */
+	private static class TestSource implements MovePicker.MoveSource
+	{
+		private final MoveOrdering ordering;
+		boolean quietGenerated;
+		/** Capture losing material or 0 */
+		int losing;
+
+		TestSource(MoveOrdering ordering)
+		{
+			this.ordering = ordering;
+		}
+
+		@Override
+		public void generateNoisy(MoveList moves)
+		{
+			for(int move = 1; move <= 3; move++)
+			{
+				moves.add(move);
+			}
+		}
+
+		@Override
+		public void generateQuiet(MoveList moves)
+		{
+			quietGenerated = true;
+			for(int move = 4; move <= 9; move++)
+			{
+				moves.add(move);
+			}
+		}
+
+		@Override
+		public boolean isValid(int move)
+		{
+			return move >= 1 && move <= 9;
+		}
+
+		@Override
+		public int scoreNoisy(int move)
+		{
+			return (move == losing) ? -move : move;
+		}
+
+		@Override
+		public int scoreQuiet(int move)
+		{
+			return ordering.getHistory(0, move);
+		}
+	}
+
+	@Test
+	public void testStages()
+	{
+		MoveOrdering ordering = new MoveOrdering(4, 1, 10);
+		ordering.addCutoff(1, 5, 0, 5, 1);
+		ordering.addCutoff(1, 4, 0, 4, 1);
+		ordering.addCutoff(2, 8, 0, 8, 3);
+		ordering.addCutoff(3, 6, 0, 6, 2);
+		ordering.addCutoff(3, 7, 0, 7, 1);
+		TestSource source = new TestSource(ordering);
+		MovePicker picker = new MovePicker(ordering);
+
+		// Best moves, captures, killers and the history, each move once
+		picker.start(source, 1, 2, 42, false);
+		int[] expected = { 2, 3, 1, 4, 5, 8, 6, 7, 9 };
+		for(int move : expected)
+		{
+			assertEquals(move, picker.next());
+		}
+		assertEquals(0, picker.next());
+
+		// Quiet moves are not generated before they are needed
+		source.quietGenerated = false;
+		picker.start(source, 1, 0, 0, false);
+		assertEquals(3, picker.next());
+		assertFalse(source.quietGenerated);
+
+		picker.start(source, 1, 0, 0, true);
+		assertEquals(3, picker.next());
+		assertEquals(2, picker.next());
+		assertEquals(1, picker.next());
+		assertEquals(0, picker.next());
+		assertFalse(source.quietGenerated);
+	}
+
+	/**
+	 * Tests that captures losing material come after the quiet moves and are
+	 * left out when only noisy moves are searched.
+	 */
+	@Test
+	public void testLosingCaptures()
+	{
+		MoveOrdering ordering = new MoveOrdering(4, 1, 10);
+		TestSource source = new TestSource(ordering);
+		source.losing = 3;
+		MovePicker picker = new MovePicker(ordering);
+
+		picker.start(source, 1, 0, 0, false);
+		assertEquals(2, picker.next());
+		assertEquals(1, picker.next());
+		for(int i = 4; i <= 9; i++)
+		{
+			assertTrue(picker.next() >= 4);
+		}
+		assertEquals(3, picker.next());
+		assertEquals(0, picker.next());
+
+		picker.start(source, 1, 0, 0, true);
+		assertEquals(2, picker.next());
+		assertEquals(1, picker.next());
+		assertEquals(0, picker.next());
+	}
+
+	@Test
+	public void testHistory()
+	{
+		MoveOrdering ordering = new MoveOrdering(4, 2, 10);
+		ordering.addCutoff(0, 7, 1, 3, 4);
+		assertEquals(16, ordering.getHistory(1, 3));
+		assertTrue(ordering.isKiller(0, 7));
+
+		ordering.newSearch();
+		assertEquals(8, ordering.getHistory(1, 3));
+		assertFalse(ordering.isKiller(0, 7));
+		assertTrue(MoveOrdering.scoreCapture(900, 1000) > MoveOrdering.scoreCapture(500, 100));
+		assertTrue(MoveOrdering.scoreCapture(500, 100) > MoveOrdering.scoreCapture(500, 320));
+	}
+}
@@ -0,0 +1,85 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.IllegalMoveException;
+import jchess.gamelogic.engine.MultiPlayerEngine.Mode;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+public class MultiPlayerEngineTest
+{
+	/**
+	 * Tests that both algorithms take a queen left in front of white's pawns
+	 * and leave the game untouched.
+	 */
+	@Test
+	public void testCapture()
+	{
+		for(Mode mode : Mode.values())
+		{
+			IChessboardController controller = PerftPosition.FOUR_PLAYER_START.createController();
+			IChessboardModel board = controller.getBoard();
+			board.setPiece(board.getField(5, 11), PieceFactory.getInstance().buildPiece(getPlayer(controller, 1),
+					Direction.of(0, 0), PieceType.QUEEN));
+			Player active = controller.getActivePlayer();
+			long key = board.getZobristKey();
+
+			SearchResult result = new MultiPlayerEngine(mode, new TranspositionTable(1)).search(controller,
+					SearchLimits.depth(2));
+			assertEquals(mode.toString(), new Field(5, 11), result.getBestMove().getTo());
+			assertEquals(2, result.getDepth());
+			assertEquals(key, board.getZobristKey());
+			assertSame(active, controller.getActivePlayer());
+		}
+	}
+
+	/**
+	 * Tests that the engine moves for the player whose turn it is and that
+	 * time limited searches return a move which the controller accepts.
+	 */
+	@Test
+	public void testTurnOrderAndTime() throws IllegalMoveException
+	{
+		IChessboardController controller = PerftPosition.FOUR_PLAYER_START.createController();
+		MultiPlayerEngine engine = new MultiPlayerEngine();
+		for(int i = 0; i < 4; i++)
+		{
+			long start = System.currentTimeMillis();
+			SearchResult result = engine.search(controller, SearchLimits.time(300));
+			assertTrue(System.currentTimeMillis() - start < 2000);
+			assertSame(controller.getActivePlayer(), controller.getBoard().getPiece(result.getBestMove().getFrom())
+					.getPlayer());
+			assertTrue(controller.move(result.getBestMove()));
+			controller.switchToNextPlayer();
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTwoPlayers()
+	{
+		new MultiPlayerEngine().search(PerftPosition.START.createController(), SearchLimits.depth(1));
+	}
+
+	private Player getPlayer(IChessboardController controller, int index)
+	{
+		for(Player player : controller.getEnemies(controller.getActivePlayer()))
+		{
+			if(controller.getPlayerIndex(player) == index)
+			{
+				return player;
+			}
+		}
+		return controller.getActivePlayer();
+	}
+}
@@ -0,0 +1,113 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.EncodedMove;
+import jchess.gamelogic.field.MoveList;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+public class PieceSquareEvaluatorTest
+{
+	/**
+	 * Tests that the pawn tables are turned by the direction of the pawns, so
+	 * that all players score the same at the start.
+	 */
+	@Test
+	public void testOrientation()
+	{
+		PieceSquareEvaluator evaluator = new PieceSquareEvaluator(EvaluationWeights.getDefault(), 14);
+		int value = evaluator.evaluate(PieceType.PAWN, Direction.of(0, -1), 6, 10);
+		assertEquals(value, evaluator.evaluate(PieceType.PAWN, Direction.of(0, 1), 7, 3));
+		assertEquals(value, evaluator.evaluate(PieceType.PAWN, Direction.of(-1, 0), 10, 7));
+		assertEquals(value, evaluator.evaluate(PieceType.PAWN, Direction.of(1, 0), 3, 6));
+
+		IChessboardController controller = PerftPosition.FOUR_PLAYER_START.createController();
+		IChessboardModel board = controller.getBoard();
+		board.setPieceEvaluator(evaluator);
+		Player active = controller.getActivePlayer();
+		for(Player player : controller.getEnemies(active))
+		{
+			assertEquals(board.getScore(active), board.getScore(player));
+		}
+
+		assertEquals(0, this.getScoreDifference(PerftPosition.START.createController()));
+	}
+
+	/**
+	 * Tests that the scores the board keeps with every move and unmade move
+	 * equal the scores computed from scratch.
+	 */
+	@Test
+	public void testIncremental()
+	{
+		IChessboardController controller = PerftPosition.FOUR_PLAYER_START.createController();
+		IChessboardModel board = controller.getBoard();
+		board.setPieceEvaluator(new PieceSquareEvaluator(EvaluationWeights.getDefault(), 14));
+		Player[] players = new Player[4];
+		for(int i = 0; i < players.length; i++)
+		{
+			players[i] = controller.getActivePlayer();
+			controller.switchToNextPlayer();
+		}
+		int[] start = this.getScores(board, players);
+
+		Random random = new Random(11);
+		MoveList moves = new MoveList();
+		UndoToken[] tokens = new UndoToken[40];
+		int length = 0;
+		while(length < tokens.length)
+		{
+			moves.clear();
+			controller.getPossibleMoves(controller.getActivePlayer(), moves);
+			if(moves.isEmpty())
+			{
+				break;
+			}
+			tokens[length++] = board.makeMove(EncodedMove.toMove(moves.get(random.nextInt(moves.size())), board));
+			controller.switchToNextPlayer();
+
+			IChessboardModel copy = board.copy();
+			copy.setPieceEvaluator(new PieceSquareEvaluator(EvaluationWeights.getDefault(), 14));
+			for(Player player : players)
+			{
+				assertEquals(copy.getScore(player), board.getScore(player));
+			}
+		}
+		for(int i = length - 1; i >= 0; i--)
+		{
+			board.unmakeMove(tokens[i]);
+		}
+		for(int i = 0; i < players.length; i++)
+		{
+			assertEquals(start[i], board.getScore(players[i]));
+		}
+	}
+
+	private int[] getScores(IChessboardModel board, Player[] players)
+	{
+		int[] scores = new int[players.length];
+		for(int i = 0; i < players.length; i++)
+		{
+			scores[i] = board.getScore(players[i]);
+		}
+		return scores;
+	}
+
+	private int getScoreDifference(IChessboardController controller)
+	{
+		IChessboardModel board = controller.getBoard();
+		board.setPieceEvaluator(new PieceSquareEvaluator(EvaluationWeights.getDefault(), 8));
+		Player active = controller.getActivePlayer();
+		return board.getScore(active) - board.getScore(controller.getEnemies(active).iterator().next());
+	}
+}
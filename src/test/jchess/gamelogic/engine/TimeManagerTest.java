@@ -0,0 +1,75 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+
+public class TimeManagerTest
+{
+	/** Enough time for iterations to finish well within the budget */
+	private static final long REMAINING = 600000;
+	private static final long BASE = REMAINING / TimeManager.MOVES_TO_GO;
+
+	/**
+	 * Tests that a move gets a base share of the time left and a hard limit
+	 * of a few base shares.
+	 */
+	@Test
+	public void testBudget()
+	{
+		TimeManager manager = new TimeManager();
+		manager.start(REMAINING);
+		assertEquals(BASE, manager.getBudget());
+		assertEquals(TimeManager.MAX_EXTENSION * BASE, manager.getHardLimit());
+		assertEquals(TimeManager.MAX_EXTENSION * BASE, manager.getLimits().getMaxTimeMillis());
+
+		manager.start(1000);
+		assertEquals(TimeManager.MAX_EXTENSION * (1000 / TimeManager.MOVES_TO_GO), manager.getHardLimit());
+		manager.start(0);
+		assertEquals(1, manager.getHardLimit());
+	}
+
+	/**
+	 * Tests that the budget grows while the best move changes, shrinks back
+	 * while it stays the same and is not spent while not timing.
+	 */
+	@Test
+	public void testInstability()
+	{
+		TimeManager manager = new TimeManager();
+		manager.start(REMAINING);
+		assertFalse(manager.onIteration(this.result(4, 4)));
+		assertEquals(BASE, manager.getBudget());
+		assertFalse(manager.onIteration(this.result(3, 4)));
+		assertEquals(2 * BASE, manager.getBudget());
+		assertFalse(manager.onIteration(this.result(4, 4)));
+		assertEquals(2 * BASE + BASE / 2, manager.getBudget());
+		assertFalse(manager.onIteration(this.result(3, 4)));
+		assertEquals(BASE * 11 / 4, manager.getBudget());
+		assertFalse(manager.onIteration(this.result(3, 4)));
+		assertEquals(BASE + BASE * 7 / 8, manager.getBudget());
+
+		manager.reset();
+		assertEquals(BASE, manager.getBudget());
+
+		// Everything is spent at once, but only a timed search is stopped
+		manager.start(0);
+		manager.stopTiming();
+		assertFalse(manager.onIteration(this.result(4, 4)));
+		manager.start(0);
+		assertTrue(manager.onIteration(this.result(4, 4)));
+	}
+
+	private SearchResult result(int x, int y)
+	{
+		Move move = new Move(new Field(x, y), new Field(x, y - 2), null);
+		return new SearchResult(move, 0, 1, 1, 1, Collections.singletonList(move));
+	}
+}
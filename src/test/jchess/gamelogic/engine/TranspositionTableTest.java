@@ -0,0 +1,88 @@
+package jchess.gamelogic.engine;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TranspositionTableTest
+{
+	/** Keys with equal upper halves share a bucket */
+	private static final long KEY = 0x1234567800000001L;
+	private static final long OTHER_KEY = 0x1234567800000002L;
+	private static final long THIRD_KEY = 0x1234567800000003L;
+
+	/**
+	 * Tests that stored entries are found with all their fields and that
+	 * unknown keys are not.
+	 */
+	@Test
+	public void testStoreAndProbe()
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		assertEquals(1024 * 1024 / 16, table.getCapacity());
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(KEY));
+
+		table.store(KEY, 1234, -250, 7, TranspositionTable.BOUND_LOWER, 3);
+		long entry = table.probe(KEY);
+		assertEquals(1234, TranspositionTable.getMove(entry));
+		assertEquals(-250, TranspositionTable.getScore(entry, 3));
+		assertEquals(7, TranspositionTable.getDepth(entry));
+		assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.getBound(entry));
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(OTHER_KEY));
+
+		// Storing without a move keeps the one known
+		table.store(KEY, 0, 10, 8, TranspositionTable.BOUND_EXACT, 3);
+		assertEquals(1234, TranspositionTable.getMove(table.probe(KEY)));
+
+		table.clear();
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(KEY));
+	}
+
+	/**
+	 * Tests that deep results stay in their bucket while shallow ones replace
+	 * each other, and that results of earlier searches are replaced.
+	 */
+	@Test
+	public void testReplacement()
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		table.store(KEY, 1, 0, 10, TranspositionTable.BOUND_EXACT, 0);
+		table.store(OTHER_KEY, 2, 0, 2, TranspositionTable.BOUND_EXACT, 0);
+		table.store(THIRD_KEY, 3, 0, 1, TranspositionTable.BOUND_EXACT, 0);
+		assertEquals(1, TranspositionTable.getMove(table.probe(KEY)));
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(OTHER_KEY));
+		assertEquals(3, TranspositionTable.getMove(table.probe(THIRD_KEY)));
+
+		// A deeper result moves the old one down to the second entry
+		table.store(OTHER_KEY, 2, 0, 12, TranspositionTable.BOUND_EXACT, 0);
+		assertEquals(2, TranspositionTable.getMove(table.probe(OTHER_KEY)));
+		assertEquals(1, TranspositionTable.getMove(table.probe(KEY)));
+		assertEquals(TranspositionTable.NO_ENTRY, table.probe(THIRD_KEY));
+
+		table.newSearch();
+		table.store(THIRD_KEY, 3, 0, 1, TranspositionTable.BOUND_EXACT, 0);
+		assertEquals(3, TranspositionTable.getMove(table.probe(THIRD_KEY)));
+		assertEquals(2, TranspositionTable.getMove(table.probe(OTHER_KEY)));
+	}
+
+	/**
+	 * Tests that mate scores are stored relative to the position.
+	 */
+	@Test
+	public void testMateScores()
+	{
+		TranspositionTable table = new TranspositionTable(1);
+		int mateInTwo = AlphaBetaEngine.MATE - 3;
+		table.store(KEY, 0, mateInTwo, 3, TranspositionTable.BOUND_EXACT, 1);
+		assertEquals(mateInTwo - 2, TranspositionTable.getScore(table.probe(KEY), 3));
+
+		table.store(OTHER_KEY, 0, -mateInTwo, 3, TranspositionTable.BOUND_EXACT, 1);
+		assertEquals(-mateInTwo + 2, TranspositionTable.getScore(table.probe(OTHER_KEY), 3));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSize()
+	{
+		new TranspositionTable(0);
+	}
+}
@@ -0,0 +1,159 @@
+package jchess.gamelogic.field;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.UndoToken;
+import jchess.gamelogic.models.factories.FenChessboardFactory;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.gamelogic.pieces.Queen;
+
+public class EncodedMoveTest
+{
+	private Player white = new Player("p1", Color.WHITE);
+	private Player black = new Player("p2", Color.BLACK);
+
+	/**
+	 * Tests packing and unpacking the parts of a move.
+	 */
+	@Test
+	public void testEncoding()
+	{
+		int from = EncodedMove.square(13, 2);
+		int to = EncodedMove.square(13, 0);
+		int move = EncodedMove.encode(from, to, EncodedMove.FLAG_DOUBLE_PUSH, PieceType.KNIGHT, PieceType.ROOK);
+
+		assertEquals(13, EncodedMove.x(EncodedMove.getFrom(move)));
+		assertEquals(2, EncodedMove.y(EncodedMove.getFrom(move)));
+		assertEquals(to, EncodedMove.getTo(move));
+		assertTrue(EncodedMove.hasFlag(move, EncodedMove.FLAG_DOUBLE_PUSH));
+		assertTrue(EncodedMove.isCapture(move));
+		assertTrue(EncodedMove.isPromotion(move));
+		assertEquals(PieceType.KNIGHT, EncodedMove.getPromotedType(move));
+		assertEquals(PieceType.ROOK, EncodedMove.getCapturedType(move));
+
+		int quiet = EncodedMove.encode(from, to, 0);
+		assertFalse(EncodedMove.isCapture(quiet));
+		assertNull(EncodedMove.getPromotedType(quiet));
+		assertNull(EncodedMove.getCapturedType(quiet));
+	}
+
+	/**
+	 * Tests that all legal moves of positions with castling, en passant and
+	 * promotions survive the conversion to and from {@link Move}.
+	 */
+	@Test
+	public void testConversion()
+	{
+		assertConversion("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -", false);
+		assertConversion("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b Kq e3", true);
+		assertConversion("n1n5/PPPk4/8/8/8/8/4Kppp/5N1N w - -", false);
+	}
+
+	/**
+	 * Tests that promotions are offered for every piece type and promote
+	 * when made.
+	 */
+	@Test
+	public void testPromotions()
+	{
+		IChessboardController controller = createController("8/P6k/8/8/8/8/8/K7 w - -", false);
+		MoveList moves = new MoveList(1);
+		controller.getPossibleMoves(white, moves);
+
+		Set<PieceType> promotions = new HashSet<PieceType>();
+		int queenPromotion = EncodedMove.NONE;
+		for(int i = 0; i < moves.size(); i++)
+		{
+			if(EncodedMove.isPromotion(moves.get(i)))
+			{
+				promotions.add(EncodedMove.getPromotedType(moves.get(i)));
+				if(EncodedMove.getPromotedType(moves.get(i)) == PieceType.QUEEN)
+				{
+					queenPromotion = moves.get(i);
+				}
+			}
+		}
+		assertEquals(4, promotions.size());
+		// 3 king moves, 4 promotions
+		assertEquals(7, moves.size());
+
+		IChessboardModel board = controller.getBoard();
+		board.makeMove(EncodedMove.toMove(queenPromotion, board));
+		assertTrue(board.getPiece(board.getField(0, 0)).getBehaviour() instanceof Queen);
+	}
+
+	/**
+	 * Tests reusing the lists of a {@link MoveListStack}.
+	 */
+	@Test
+	public void testMoveListStack()
+	{
+		MoveListStack stack = new MoveListStack(2);
+		MoveList list = stack.get(0);
+		for(int i = 0; i < 300; i++)
+		{
+			list.add(i);
+		}
+		assertEquals(300, list.size());
+		list.swap(0, 299);
+		assertEquals(299, list.get(0));
+		assertTrue(list.contains(0));
+
+		// Lists are handed out cleared and deeper plies are added on demand
+		assertTrue(stack.get(0) == list);
+		assertTrue(list.isEmpty());
+		assertTrue(stack.get(5).isEmpty());
+	}
+
+	private void assertConversion(String fen, boolean blackToMove)
+	{
+		IChessboardController controller = createController(fen, blackToMove);
+		IChessboardModel board = controller.getBoard();
+		long key = board.getZobristKey();
+
+		for(Piece piece : board.getPieces(controller.getActivePlayer()))
+		{
+			for(Move move : controller.getPossibleMoves(piece, true))
+			{
+				int encoded = EncodedMove.fromMove(move);
+				Move converted = EncodedMove.toMove(encoded, board);
+				assertEquals(move.getFrom(), converted.getFrom());
+				assertEquals(move.getTo(), converted.getTo());
+				assertTrue(move.getTakenPiece() == converted.getTakenPiece());
+				assertEquals(move.getCastlingMove(), converted.getCastlingMove());
+				assertEquals(move.wasEnPassant(), converted.wasEnPassant());
+				assertEquals(move.wasPawnTwoFieldsMove(), converted.wasPawnTwoFieldsMove());
+				assertEquals(encoded, EncodedMove.fromMove(converted));
+
+				UndoToken token = board.makeMove(converted);
+				board.unmakeMove(token);
+				assertEquals(key, board.getZobristKey());
+			}
+		}
+	}
+
+	private IChessboardController createController(String fen, boolean blackToMove)
+	{
+		IChessboardController controller = new TwoPlayerChessboardController(null, new FenChessboardFactory(fen),
+				white, black);
+		if(blackToMove)
+		{
+			controller.switchToNextPlayer();
+		}
+		return controller;
+	}
+}
@@ -98,4 +98,17 @@ public class FieldTest
 		assertTrue(f7 == null);
 	}
 	
+	/**
+	 * Test that fields of supported boards are shared instances.
+	 */
+	@Test
+	public void testOf()
+	{
+		assertTrue(Field.of(3, 5) == Field.of(3, 5));
+		assertTrue(Field.of(3, 5).equals(new Field(3, 5)));
+		assertTrue(Field.getFieldFromDesignation("d6") == Field.of(3, 5));
+		// Beyond the shared fields new instances are created
+		assertTrue(Field.of(100, 2).equals(Field.of(100, 2)));
+	}
+	
 }
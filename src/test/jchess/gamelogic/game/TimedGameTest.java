@@ -0,0 +1,129 @@
+package jchess.gamelogic.game;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.GameClockController;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.engine.AlphaBetaEngine;
+import jchess.gamelogic.engine.IEngine;
+import jchess.gamelogic.engine.ISearchListener;
+import jchess.gamelogic.engine.SearchLimits;
+import jchess.gamelogic.engine.SearchResult;
+import jchess.gamelogic.engine.TranspositionTable;
+import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.gamelogic.views.factories.TwoPlayerChessboardViewFactory;
+
+public class TimedGameTest
+{
+	private static final long TIMEOUT = 10000;
+	/** Clock of each player in seconds */
+	private static final int TIME_LIMIT = 60;
+
+	/**
+	 * Tests that a game pondering on its opponent's time does not hold up
+	 * the engine of another game.
+	 */
+	@Test
+	public void testPonderingDoesNotBlockOtherGames() throws InterruptedException, InvocationTargetException
+	{
+		CountingEngine pondering = new CountingEngine();
+		this.startGame(pondering);
+		// The first search is the computer's move, the second the pondering
+		this.waitFor(pondering.started, 2);
+
+		CountingEngine other = new CountingEngine();
+		this.startGame(other);
+		this.waitFor(other.finished, 1);
+		assertEquals(1, pondering.finished.get());
+
+		pondering.stop();
+		this.waitFor(pondering.finished, 2);
+	}
+
+	/**
+	 * Starts a game of a computer player moving first against a local
+	 * player.
+	 */
+	private void startGame(IEngine engine) throws InterruptedException, InvocationTargetException
+	{
+		Player computer = new Player("p1", Color.WHITE, Player.Type.COMPUTER);
+		Player local = new Player("p2", Color.BLACK, Player.Type.LOCAL);
+		IChessboardController controller = new TwoPlayerChessboardController(
+				TwoPlayerChessboardViewFactory.getInstance(), TwoPlayerChessboardFactory.getInstance(), computer,
+				local);
+		final TimedGame game = new TimedGame(controller, new GameClockController(TIME_LIMIT, computer, local), engine);
+		SwingUtilities.invokeAndWait(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				game.newGame();
+			}
+		});
+	}
+
+	private void waitFor(AtomicInteger counter, int count) throws InterruptedException
+	{
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while(System.currentTimeMillis() < deadline)
+		{
+			if(counter.get() >= count)
+			{
+				return;
+			}
+			Thread.sleep(5);
+		}
+		throw new AssertionError("Only " + counter.get() + " of " + count + " searches in time!");
+	}
+
+	/**
+	 * Engine counting the searches started and finished.
+	 */
+	private static class CountingEngine implements IEngine
+	{
+		final AtomicInteger started = new AtomicInteger();
+		final AtomicInteger finished = new AtomicInteger();
+		private final AlphaBetaEngine engine = new AlphaBetaEngine(new TranspositionTable(1));
+
+		@Override
+		public SearchResult search(IChessboardController controller, SearchLimits limits)
+		{
+			started.incrementAndGet();
+			try
+			{
+				return engine.search(controller, limits);
+			} finally
+			{
+				finished.incrementAndGet();
+			}
+		}
+
+		@Override
+		public void stop()
+		{
+			engine.stop();
+		}
+
+		@Override
+		public void shutdown()
+		{
+			engine.shutdown();
+		}
+
+		@Override
+		public void setSearchListener(ISearchListener listener)
+		{
+			engine.setSearchListener(listener);
+		}
+	}
+}
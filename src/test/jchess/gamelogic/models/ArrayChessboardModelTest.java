@@ -0,0 +1,319 @@
+/**
+ *
+ */
+package jchess.gamelogic.models;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
+import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+public class ArrayChessboardModelTest
+{
+	private ArrayChessboardModel model;
+	private Player[] players = {
+			new Player("p1", Color.WHITE),
+			new Player("p2", Color.BLACK)
+	};
+	private Field[] fields = {
+			new Field(0, 0),
+			new Field(1, 0),
+			new Field(2, 0),
+			new Field(3, 0),
+			new Field(1, 1),
+			new Field(2, 1)
+	};
+	private Piece[] pieces = {
+			PieceFactory.getInstance().buildPiece(players[0],
+					new Direction(0, -1), PieceType.PAWN),
+			PieceFactory.getInstance().buildPiece(players[0],
+					new Direction(0, -1), PieceType.BISHOP),
+			PieceFactory.getInstance().buildPiece(players[0],
+					new Direction(0, -1), PieceType.QUEEN),
+			PieceFactory.getInstance().buildPiece(players[1],
+					new Direction(0, 1), PieceType.KNIGHT),
+			PieceFactory.getInstance().buildPiece(players[1],
+					new Direction(0, 1), PieceType.ROOK)
+	};
+
+	/**
+	 * @throws java.lang.Exception
+	 */
+	@Before
+	public void setUp() throws Exception
+	{
+		// Leave some squares of the rectangle out to test the mask
+		model = new ArrayChessboardModel(4, 3);
+
+		for(Field field : fields) {
+			model.addField(field);
+		}
+
+		model.setPiece(fields[0], pieces[0]);
+		model.setPiece(fields[1], pieces[1]);
+		model.setPiece(fields[2], pieces[2]);
+		model.setPiece(fields[3], pieces[3]);
+		model.setPiece(fields[4], pieces[4]);
+	}
+
+	/**
+	 * Test method for adding and getting the fields.
+	 */
+	@Test
+	public void testAddAndGetField()
+	{
+		assertTrue(model.getField(0, 0).equals(fields[0]));
+		assertTrue(model.getField(1, 0).equals(fields[1]));
+		assertTrue(model.getField(2, 1).equals(fields[5]));
+		// Inside the rectangle, but not part of the board
+		assertTrue(model.getField(0, 1) == null);
+		assertTrue(model.getField(3, 2) == null);
+		// Outside of the rectangle
+		assertTrue(model.getField(4, 0) == null);
+		assertTrue(model.getField(-1, 0) == null);
+		assertTrue(model.getField(1, 3) == null);
+
+		try {
+			model.addField(new Field(4, 0));
+			fail("Field outside of the dimensions was accepted!");
+		} catch(IllegalArgumentException exc) {
+		}
+	}
+
+	/**
+	 * Test method for {@link jchess.gamelogic.models.ArrayChessboardModel#getField(jchess.gamelogic.pieces.Piece)}.
+	 */
+	@Test
+	public void testGetFieldPiece()
+	{
+		for(int i = 0; i < pieces.length; i++) {
+			assertTrue(model.getField(pieces[i]).equals(fields[i]));
+		}
+	}
+
+	/**
+	 * Test method for {@link jchess.gamelogic.models.ArrayChessboardModel#getFieldsInDirection(jchess.gamelogic.field.Field, jchess.util.Direction)}.
+	 */
+	@Test
+	public void testGetFieldsInDirection()
+	{
+		assertTrue(containsExactly(model.getFieldsInDirection(fields[0], new Direction(1, 0)),
+				fields[1], fields[2], fields[3]));
+		assertTrue(containsExactly(model.getFieldsInDirection(fields[1], new Direction(1, 1)),
+				fields[5]));
+		// Masked squares end the direction
+		assertTrue(model.getFieldsInDirection(fields[0], new Direction(0, 1)).isEmpty());
+		assertTrue(model.getFieldInDirection(fields[3], new Direction(0, 1)) == null);
+	}
+
+	/**
+	 * Test method for {@link jchess.gamelogic.models.ArrayChessboardModel#getPieces(jchess.gamelogic.Player)}.
+	 */
+	@Test
+	public void testGetPieces()
+	{
+		assertTrue(containsExactly(model.getPieces(), pieces));
+		assertTrue(containsExactly(model.getPieces(players[0]),
+				pieces[0], pieces[1], pieces[2]));
+		assertTrue(containsExactly(model.getPieces(players[1]),
+				pieces[3], pieces[4]));
+		assertTrue(containsExactly(model.getEmptyFields(), fields[5]));
+	}
+
+	/**
+	 * Test method for {@link jchess.gamelogic.models.ArrayChessboardModel#movePiece(jchess.gamelogic.pieces.Piece, jchess.gamelogic.field.Field)}.
+	 */
+	@Test
+	public void testMovePiece()
+	{
+		assertTrue(model.movePiece(pieces[0], new Field(2, 1)) == null);
+		assertTrue(model.getPiece(fields[0]) == null);
+		assertTrue(model.getPiece(fields[5]).equals(pieces[0]));
+		assertTrue(model.getField(pieces[0]).equals(fields[5]));
+
+		assertTrue(model.movePiece(pieces[0], fields[1]).equals(pieces[1]));
+		assertTrue(model.getPiece(fields[5]) == null);
+		assertTrue(model.getPiece(fields[1]).equals(pieces[0]));
+		assertTrue(model.getField(pieces[0]).equals(fields[1]));
+		assertTrue(model.getField(pieces[1]) == null);
+
+		// Setting a piece which is already on the board moves it
+		model.setPiece(fields[5], pieces[0]);
+		assertTrue(model.getPiece(fields[1]) == null);
+		assertTrue(model.getField(pieces[0]).equals(fields[5]));
+
+		try {
+			model.movePiece(pieces[0], new Field(0, 1));
+			fail("Piece was moved to a masked field!");
+		} catch(IllegalArgumentException exc) {
+		}
+	}
+
+	/**
+	 * Test method for {@link jchess.gamelogic.models.ArrayChessboardModel#removePiece(jchess.gamelogic.field.Field)}.
+	 */
+	@Test
+	public void testRemovePiece()
+	{
+		assertTrue(model.removePiece(fields[0]).equals(pieces[0]));
+		assertTrue(model.getField(pieces[0]) == null);
+		assertTrue(model.getPiece(fields[0]) == null);
+		assertTrue(model.removePiece(fields[0]) == null);
+		assertTrue(model.removePiece(new Field(3, 2)) == null);
+	}
+
+	/**
+	 * Test method for {@link jchess.gamelogic.models.ArrayChessboardModel#copy()}.
+	 */
+	@Test
+	public void testCopy()
+	{
+		IChessboardModel copy = model.copy();
+
+		assertTrue(copy.getFields().size() == model.getFields().size());
+		assertTrue(copy.getPieces().size() == model.getPieces().size());
+		for(Piece piece : model.getPieces()) {
+			assertTrue(copy.getPiece(model.getField(piece)).equals(piece));
+			assertFalse(copy.getPiece(model.getField(piece)) == piece);
+		}
+
+		copy.addField(new Field(0, 2));
+		copy.removePiece(fields[0]);
+
+		assertTrue(model.getField(0, 2) == null);
+		assertTrue(model.getPiece(fields[0]) == pieces[0]);
+	}
+
+	/**
+	 * Tests the plus-shaped layout of the four player board.
+	 */
+	@Test
+	public void testFourPlayerLayout()
+	{
+		IChessboardModel board = FourPlayerChessboardFactory.getInstance().createChessboard(
+				Arrays.asList(new Player("p1", Color.WHITE), new Player("p2", Color.RED),
+						new Player("p3", Color.BLACK), new Player("p4", Color.GOLDEN)));
+
+		assertTrue(board.getFields().size() == 160);
+		assertTrue(board.getPieces().size() == 64);
+		assertTrue(board.getField(0, 0) == null);
+		assertTrue(board.getField(2, 11) == null);
+		assertTrue(board.getField(3, 0) != null);
+		assertTrue(board.getField(13, 10) != null);
+		// Rays stop at the corners of the plus
+		assertTrue(board.getFieldsInDirection(board.getField(3, 3), new Direction(-1, -1)).isEmpty());
+	}
+
+	/**
+	 * Test method for {@link jchess.gamelogic.models.AbstractChessboardModel#makeMove(jchess.gamelogic.field.Move)}
+	 * and {@link jchess.gamelogic.models.AbstractChessboardModel#unmakeMove(UndoToken)} with a capture.
+	 */
+	@Test
+	public void testMakeAndUnmakeCapture()
+	{
+		UndoToken token = model.makeMove(new Move(fields[1], fields[4], pieces[1], pieces[4],
+				CastlingType.NONE, false, null));
+		assertTrue(token.getCapturedPiece() == pieces[4]);
+		assertTrue(model.getPiece(fields[4]) == pieces[1]);
+		assertTrue(model.getPiece(fields[1]) == null);
+		assertTrue(model.getField(pieces[4]) == null);
+		assertTrue(pieces[1].hasMoved());
+
+		model.unmakeMove(token);
+		assertTrue(model.getPiece(fields[1]) == pieces[1]);
+		assertTrue(model.getPiece(fields[4]) == pieces[4]);
+		assertFalse(pieces[1].hasMoved());
+	}
+
+	/**
+	 * Tests making and unmaking castling, en passant and promotion moves.
+	 */
+	@Test
+	public void testMakeAndUnmakeSpecialMoves()
+	{
+		Player white = new Player("p1", Color.WHITE);
+		Player black = new Player("p2", Color.BLACK);
+		IChessboardModel board = TwoPlayerChessboardFactory.getInstance().createChessboard(
+				Arrays.asList(white, black));
+
+		// Clear the way for short castling of white
+		board.removePiece(board.getField(5, 7));
+		board.removePiece(board.getField(6, 7));
+		Piece king = board.getPiece(board.getField(4, 7));
+		Piece rook = board.getPiece(board.getField(7, 7));
+		UndoToken castling = board.makeMove(new Move(board.getField(4, 7), board.getField(6, 7), king, null,
+				CastlingType.SHORT_CASTLING, false, null));
+		assertTrue(board.getPiece(board.getField(6, 7)) == king);
+		assertTrue(board.getPiece(board.getField(5, 7)) == rook);
+		assertTrue(rook.hasMoved());
+		board.unmakeMove(castling);
+		assertTrue(board.getPiece(board.getField(4, 7)) == king);
+		assertTrue(board.getPiece(board.getField(7, 7)) == rook);
+		assertFalse(king.hasMoved());
+		assertFalse(rook.hasMoved());
+
+		// En passant: the captured pawn is not on the target field
+		Piece whitePawn = board.getPiece(board.getField(4, 6));
+		Piece blackPawn = board.getPiece(board.getField(3, 1));
+		board.movePiece(whitePawn, board.getField(4, 3));
+		board.movePiece(blackPawn, board.getField(3, 3));
+		UndoToken enPassant = board.makeMove(new Move(board.getField(4, 3), board.getField(3, 2), whitePawn,
+				blackPawn, CastlingType.NONE, true, null));
+		assertTrue(enPassant.getCapturedPiece() == blackPawn);
+		assertTrue(board.getPiece(board.getField(3, 3)) == null);
+		board.unmakeMove(enPassant);
+		assertTrue(board.getPiece(board.getField(3, 3)) == blackPawn);
+		assertTrue(board.getPiece(board.getField(4, 3)) == whitePawn);
+
+		// Promotion replaces the pawn on the target field
+		board.removePiece(board.getField(3, 0));
+		board.movePiece(whitePawn, board.getField(3, 1));
+		Piece queen = PieceFactory.getInstance().buildPiece(white, new Direction(0, 0), PieceType.QUEEN);
+		UndoToken promotion = board.makeMove(new Move(board.getField(3, 1), board.getField(3, 0), whitePawn,
+				null, CastlingType.NONE, false, queen));
+		assertTrue(board.getPiece(board.getField(3, 0)) == queen);
+		assertTrue(board.getField(whitePawn) == null);
+		board.unmakeMove(promotion);
+		assertTrue(board.getPiece(board.getField(3, 1)) == whitePawn);
+		assertTrue(board.getField(queen) == null);
+		assertTrue(board.getPiece(board.getField(3, 0)) == null);
+	}
+
+	/**
+	 * Checks whether a given collection (e.g. a set) contains exactly the elements specified.
+	 * @param set Collection to check contents of
+	 * @param args Arguments that exactly are in the collection
+	 * @return true if the collections contains exactly args
+	 */
+	@SafeVarargs
+	private final <T> boolean containsExactly(Collection<T> set, T...args) {
+		if(set.size() != args.length) {
+			return false;
+		}
+
+		for(T t : args) {
+			if(!set.contains(t)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,225 @@
+package jchess.gamelogic.models;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.perft.PerftPosition;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+public class AttackMapTest
+{
+	private static final int PLIES = 30;
+
+	/**
+	 * Tests that rays are cut off and extended again when pieces are put on
+	 * and taken off the board.
+	 */
+	@Test
+	public void testBlockingRays()
+	{
+		Player white = new Player("p1", Color.WHITE);
+		Player black = new Player("p2", Color.BLACK);
+		IChessboardModel board = new ArrayChessboardModel(8, 8);
+		for(int x = 0; x < 8; x++)
+		{
+			for(int y = 0; y < 8; y++)
+			{
+				board.addField(new Field(x, y));
+			}
+		}
+
+		Piece rook = PieceFactory.getInstance().buildPiece(white, null, PieceType.ROOK);
+		board.setPiece(board.getField(0, 0), rook);
+		assertTrue(board.isAttacked(board.getField(0, 7), white));
+		assertEquals(1, board.getAttackCount(board.getField(5, 0), white));
+
+		Piece knight = PieceFactory.getInstance().buildPiece(black, null, PieceType.KNIGHT);
+		board.setPiece(board.getField(0, 4), knight);
+		assertTrue(board.isAttacked(board.getField(0, 4), white));
+		assertFalse(board.isAttacked(board.getField(0, 5), white));
+		assertEquals(Collections.singleton(knight), board.getAttackers(board.getField(1, 2), black));
+
+		// Pieces do not attack fields of their own player
+		board.setPiece(board.getField(0, 4), PieceFactory.getInstance().buildPiece(white, null, PieceType.BISHOP));
+		assertFalse(board.isAttacked(board.getField(0, 4), white));
+		assertFalse(board.isAttacked(board.getField(1, 2), black));
+
+		board.removePiece(board.getField(0, 4));
+		assertEquals(Collections.singleton(rook), board.getAttackers(board.getField(0, 7), white));
+	}
+
+	/**
+	 * Tests exchanges with a rook behind another one and with the pieces of
+	 * a third player joining in against the capturing player.
+	 */
+	@Test
+	public void testExchangeValue()
+	{
+		Player white = new Player("p1", Color.WHITE);
+		Player black = new Player("p2", Color.BLACK);
+		Player red = new Player("p3", Color.RED);
+		IChessboardModel board = new ArrayChessboardModel(8, 8);
+		for(int x = 0; x < 8; x++)
+		{
+			for(int y = 0; y < 8; y++)
+			{
+				board.addField(new Field(x, y));
+			}
+		}
+		IPieceEvaluator values = new IPieceEvaluator()
+		{
+			private final int[] material = { 100, 320, 330, 500, 900, 20000 };
+
+			@Override
+			public int evaluate(Piece piece, Field field)
+			{
+				return material[PieceFactory.getInstance().getType(piece).ordinal()];
+			}
+		};
+		PieceFactory factory = PieceFactory.getInstance();
+		Field target = board.getField(0, 4);
+		board.setPiece(target, factory.buildPiece(black, Direction.of(0, 1), PieceType.PAWN));
+		board.setPiece(board.getField(0, 2), factory.buildPiece(white, null, PieceType.ROOK));
+		assertEquals(100, board.getExchangeValue(target, white, values));
+
+		// Rxa4, Rxa4, Rxa4 with the second white rook behind the first
+		board.setPiece(board.getField(0, 7), factory.buildPiece(black, null, PieceType.ROOK));
+		assertEquals(-400, board.getExchangeValue(target, white, values));
+		board.setPiece(board.getField(0, 0), factory.buildPiece(white, null, PieceType.ROOK));
+		assertEquals(100, board.getExchangeValue(target, white, values));
+		assertEquals(0, board.getExchangeValue(target, black, values));
+
+		// A red knight takes the first rook as well
+		board.setPiece(board.getField(2, 5), factory.buildPiece(red, null, PieceType.KNIGHT));
+		assertEquals(-400, board.getExchangeValue(target, white, values));
+	}
+
+	/**
+	 * Plays seeded random games and compares the attacks of every field with
+	 * those found by walking the rays of all pieces, also after taking the
+	 * moves back and on copies of the board.
+	 */
+	@Test
+	public void testAgainstRayWalk()
+	{
+		for(PerftPosition position : new PerftPosition[] { PerftPosition.KIWIPETE, PerftPosition.CAT_START })
+		{
+			IChessboardController controller = position.createController();
+			IChessboardModel board = controller.getBoard();
+			Random random = new Random(7);
+			List<UndoToken> tokens = new ArrayList<UndoToken>();
+
+			for(int ply = 0; ply < PLIES; ply++)
+			{
+				List<Move> moves = getSortedMoves(controller);
+				if(moves.isEmpty())
+				{
+					break;
+				}
+				tokens.add(board.makeMove(moves.get(random.nextInt(moves.size()))));
+				controller.switchToNextPlayer();
+				assertAttacks(controller, board);
+			}
+
+			assertAttacks(controller, board.copy());
+			for(int i = tokens.size() - 1; i >= 0; i--)
+			{
+				board.unmakeMove(tokens.get(i));
+				assertAttacks(controller, board);
+			}
+		}
+	}
+
+	private void assertAttacks(IChessboardController controller, IChessboardModel board)
+	{
+		List<Player> players = new ArrayList<Player>(controller.getEnemies(controller.getActivePlayer()));
+		players.add(controller.getActivePlayer());
+		for(Field field : board.getFields())
+		{
+			for(Player player : players)
+			{
+				Set<Piece> expected = getAttackersByRayWalk(board, field, player);
+				assertEquals(field + " " + player, expected, board.getAttackers(field, player));
+				assertEquals(expected.size(), board.getAttackCount(field, player));
+				assertEquals(!expected.isEmpty(), board.isAttacked(field, player));
+			}
+		}
+	}
+
+	private Set<Piece> getAttackersByRayWalk(IChessboardModel board, Field target, Player player)
+	{
+		Set<Piece> attackers = new HashSet<Piece>();
+		Piece occupant = board.getPiece(target);
+		if(occupant != null && occupant.getPlayer() == player)
+		{
+			return attackers;
+		}
+
+		for(Piece piece : board.getPieces(player))
+		{
+			Field origin = board.getField(piece);
+			for(Direction dir : piece.getBehaviour().getCapturingMovements())
+			{
+				List<Field> ray = new ArrayList<Field>();
+				if(piece.getBehaviour().canMoveMultipleSteps())
+				{
+					ray.addAll(board.getFieldsInDirection(origin, dir));
+				} else if(board.getFieldInDirection(origin, dir) != null)
+				{
+					ray.add(board.getFieldInDirection(origin, dir));
+				}
+
+				for(Field field : ray)
+				{
+					if(field.equals(target))
+					{
+						attackers.add(piece);
+					}
+					if(board.getPiece(field) != null)
+					{
+						break;
+					}
+				}
+			}
+		}
+		return attackers;
+	}
+
+	private List<Move> getSortedMoves(IChessboardController controller)
+	{
+		List<Move> moves = new ArrayList<Move>();
+		for(Piece piece : controller.getBoard().getPieces(controller.getActivePlayer()))
+		{
+			moves.addAll(controller.getPossibleMoves(piece, true));
+		}
+		// The order of the pieces depends on the identity hash codes
+		Collections.sort(moves, new Comparator<Move>()
+		{
+			@Override
+			public int compare(Move first, Move second)
+			{
+				return first.toString().compareTo(second.toString());
+			}
+		});
+		return moves;
+	}
+}
@@ -0,0 +1,96 @@
+package jchess.gamelogic.models;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.Test;
+
+import jchess.gamelogic.field.Field;
+import jchess.util.Direction;
+
+public class BoardGeometryTest
+{
+	/**
+	 * Tests that rays stop at the cut off corners of the four player board.
+	 */
+	@Test
+	public void testFourPlayerRays()
+	{
+		BoardGeometry geometry = BoardGeometry.getInstance(14, 14, getFourPlayerSquares());
+		assertFalse(geometry.isOnBoard(0, 0));
+		assertEquals(-1, geometry.square(2, 2));
+
+		// From (3, 0) to the right the ray runs through to (10, 0)
+		int[] ray = geometry.getRay(geometry.square(3, 0), BoardGeometry.indexOf(new Direction(1, 0)));
+		assertEquals(7, ray.length);
+		assertEquals(geometry.square(10, 0), ray[ray.length - 1]);
+
+		// Diagonally towards the corner the ray ends after one step
+		ray = geometry.getRay(geometry.square(4, 4), BoardGeometry.indexOf(new Direction(-1, -1)));
+		assertArrayEquals(new int[] { geometry.square(3, 3) }, ray);
+		assertEquals(-1, geometry.getNeighbor(geometry.square(3, 0), BoardGeometry.indexOf(new Direction(-1, 0))));
+		assertEquals(geometry.square(5, 2),
+				geometry.getNeighbor(geometry.square(3, 1), BoardGeometry.indexOf(new Direction(2, 1))));
+	}
+
+	/**
+	 * Tests that boards of the same shape share their geometry and that the
+	 * board models return the precomputed rays.
+	 */
+	@Test
+	public void testSharedGeometry()
+	{
+		IChessboardModel first = createBoard(new ArrayChessboardModel(8, 8));
+		IChessboardModel second = createBoard(new ArrayChessboardModel(8, 8));
+		assertSame(first.getGeometry(), second.getGeometry());
+		assertSame(first.getGeometry(), createBoard(new ChessboardModel()).getGeometry());
+		assertSame(first.getGeometry(), first.copy().getGeometry());
+
+		List<Field> expected = new ArrayList<Field>();
+		for(int i = 1; i < 8; i++)
+		{
+			expected.add(new Field(i, i));
+		}
+		assertEquals(expected, first.getFieldsInDirection(first.getField(0, 0), new Direction(1, 1)));
+		assertEquals(expected, createBoard(new ChessboardModel()).getFieldsInDirection(new Field(0, 0),
+				new Direction(1, 1)));
+
+		// Steps without precomputed rays are still walked
+		assertEquals(-1, BoardGeometry.indexOf(new Direction(3, 0)));
+		assertEquals(2, first.getFieldsInDirection(first.getField(0, 0), new Direction(3, 0)).size());
+		assertTrue(first.getFieldsInDirection(first.getField(7, 7), new Direction(1, 1)).isEmpty());
+	}
+
+	private IChessboardModel createBoard(IChessboardModel board)
+	{
+		for(int x = 0; x < 8; x++)
+		{
+			for(int y = 0; y < 8; y++)
+			{
+				board.addField(new Field(x, y));
+			}
+		}
+		return board;
+	}
+
+	private BitSet getFourPlayerSquares()
+	{
+		BitSet squares = new BitSet(14 * 14);
+		for(int x = 0; x < 14; x++)
+		{
+			for(int y = 0; y < 14; y++)
+			{
+				boolean corner = (x < 3 || x > 10) && (y < 3 || y > 10);
+				squares.set(y * 14 + x, !corner);
+			}
+		}
+		return squares;
+	}
+}
@@ -0,0 +1,161 @@
+package jchess.gamelogic.models;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.field.Field;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.field.Move.CastlingType;
+import jchess.gamelogic.models.factories.FourPlayerChessboardFactory;
+import jchess.gamelogic.models.factories.TwoPlayerChessboardFactory;
+import jchess.gamelogic.pieces.Piece;
+import jchess.gamelogic.pieces.PieceFactory;
+import jchess.gamelogic.pieces.PieceFactory.PieceType;
+import jchess.util.Direction;
+
+public class ZobristTest
+{
+	private Player white = new Player("p1", Color.WHITE);
+	private Player black = new Player("p2", Color.BLACK);
+	private IChessboardModel board;
+
+	@Before
+	public void setUp() throws Exception
+	{
+		board = TwoPlayerChessboardFactory.getInstance().createChessboard(Arrays.asList(white, black));
+		board.setActivePlayer(white);
+	}
+
+	private UndoToken move(IChessboardModel model, int fromX, int fromY, int toX, int toY)
+	{
+		Field from = model.getField(fromX, fromY);
+		Field to = model.getField(toX, toY);
+		return model.makeMove(new Move(from, to, model.getPiece(from), model.getPiece(to),
+				CastlingType.NONE, false, null));
+	}
+
+	/**
+	 * Tests that the key is restored after making and unmaking moves.
+	 */
+	@Test
+	public void testUnmakeRestoresKey()
+	{
+		long initial = board.getZobristKey();
+
+		UndoToken first = move(board, 6, 7, 5, 5);
+		assertFalse(board.getZobristKey() == initial);
+		UndoToken second = move(board, 4, 1, 4, 3);
+		UndoToken third = move(board, 5, 5, 4, 3);
+		board.unmakeMove(third);
+		board.unmakeMove(second);
+		board.unmakeMove(first);
+
+		assertTrue(board.getZobristKey() == initial);
+	}
+
+	/**
+	 * Tests that the same position reached by different move orders has the
+	 * same key, and that copies share the key.
+	 */
+	@Test
+	public void testTranspositionsHaveEqualKeys()
+	{
+		IChessboardModel other = board.copy();
+		assertTrue(other.getZobristKey() == board.getZobristKey());
+
+		move(board, 6, 7, 5, 5);
+		move(board, 1, 0, 2, 2);
+		move(board, 1, 7, 2, 5);
+
+		move(other, 1, 7, 2, 5);
+		move(other, 1, 0, 2, 2);
+		move(other, 6, 7, 5, 5);
+
+		assertTrue(other.getZobristKey() == board.getZobristKey());
+	}
+
+	/**
+	 * Tests that side to move, castling rights and en passant state are part
+	 * of the key.
+	 */
+	@Test
+	public void testStateIsPartOfKey()
+	{
+		long initial = board.getZobristKey();
+		board.setActivePlayer(black);
+		assertFalse(board.getZobristKey() == initial);
+		board.setActivePlayer(white);
+		assertTrue(board.getZobristKey() == initial);
+
+		// Moving the rook forth and back loses the castling right
+		board.removePiece(board.getField(7, 6));
+		IChessboardModel unmoved = board.copy();
+		move(board, 7, 7, 7, 5);
+		move(board, 7, 5, 7, 7);
+		assertFalse(board.getZobristKey() == unmoved.getZobristKey());
+
+		// A two field pawn move enables en passant for one move only
+		board = TwoPlayerChessboardFactory.getInstance().createChessboard(Arrays.asList(white, black));
+		move(board, 4, 6, 4, 4);
+		assertTrue(board.getEnPassantField(white).equals(board.getField(4, 4)));
+		long withEnPassant = board.getZobristKey();
+		board.setEnPassantField(white, null);
+		assertFalse(board.getZobristKey() == withEnPassant);
+	}
+
+	/**
+	 * Tests that both board models compute the same keys.
+	 */
+	@Test
+	public void testModelsAgree()
+	{
+		ChessboardModel model = new ChessboardModel();
+		for(Field field : board.getFields())
+		{
+			model.addField(field);
+		}
+		for(Piece piece : board.getPieces())
+		{
+			model.setPiece(board.getField(piece), piece.copy());
+		}
+		model.setActivePlayer(white);
+		assertTrue(model.getZobristKey() == board.getZobristKey());
+
+		move(model, 3, 6, 3, 4);
+		move(board, 3, 6, 3, 4);
+		assertTrue(model.getZobristKey() == board.getZobristKey());
+
+		Piece queen = PieceFactory.getInstance().buildPiece(black, new Direction(0, 1), PieceType.QUEEN);
+		model.setPiece(model.getField(3, 4), queen);
+		board.setPiece(board.getField(3, 4), queen.copy());
+		assertTrue(model.getZobristKey() == board.getZobristKey());
+	}
+
+	/**
+	 * Tests the key on the four player board with all players.
+	 */
+	@Test
+	public void testFourPlayerBoard()
+	{
+		List<Player> players = Arrays.asList(new Player("p1", Color.WHITE), new Player("p2", Color.RED),
+				new Player("p3", Color.BLACK), new Player("p4", Color.GOLDEN));
+		IChessboardModel fourPlayerBoard = FourPlayerChessboardFactory.getInstance().createChessboard(players);
+		long initial = fourPlayerBoard.getZobristKey();
+
+		for(Player player : players)
+		{
+			fourPlayerBoard.setActivePlayer(player);
+			assertFalse(fourPlayerBoard.getZobristKey() == initial);
+		}
+		fourPlayerBoard.setActivePlayer(null);
+		assertTrue(fourPlayerBoard.getZobristKey() == initial);
+	}
+}
@@ -0,0 +1,91 @@
+package jchess.gamelogic.perft;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.field.Move;
+
+public class ParallelPerftTest
+{
+	/**
+	 * Tests storing and looking up counts in the hash table.
+	 */
+	@Test
+	public void testHashTable()
+	{
+		PerftHashTable table = new PerftHashTable(4);
+		assertEquals(-1, table.probe(0x1234L, 3));
+
+		table.store(0x1234L, 3, 8902);
+		assertEquals(8902, table.probe(0x1234L, 3));
+		// Other depths and keys miss
+		assertEquals(-1, table.probe(0x1234L, 2));
+		assertEquals(-1, table.probe(0x1235L, 3));
+
+		table.clear();
+		assertEquals(-1, table.probe(0x1234L, 3));
+	}
+
+	/**
+	 * Tests the parallel counts against the expected ones with different
+	 * split depths.
+	 */
+	@Test
+	public void testExpectedCounts()
+	{
+		ForkJoinPool pool = new ForkJoinPool(4);
+		assertCount(PerftPosition.START, 3, pool, 1);
+		assertCount(PerftPosition.START, 3, pool, 2);
+		assertCount(PerftPosition.KIWIPETE, 2, pool, 2);
+		assertCount(PerftPosition.POSITION_3, 3, pool, 1);
+		assertCount(PerftPosition.CAT_START, 3, pool, 1);
+		pool.shutdown();
+	}
+
+	/**
+	 * Tests that the parallel divide matches the sequential one and leaves
+	 * the position of the controller alone.
+	 */
+	@Test
+	public void testDivide()
+	{
+		PerftPosition position = PerftPosition.FOUR_PLAYER_START;
+		IControllerFactory factory = position.createControllerFactory();
+		IChessboardController controller = position.createController(factory);
+		long key = controller.getBoard().getZobristKey();
+
+		Map<Move, Long> parallel = new ParallelPerft(controller, factory).divide(2);
+		Map<Move, Long> sequential = new Perft(controller).divide(2);
+		// The order of the moves depends on the board copy
+		assertEquals(toStrings(sequential), toStrings(parallel));
+		assertEquals(key, controller.getBoard().getZobristKey());
+	}
+
+	private Map<String, Long> toStrings(Map<Move, Long> counts)
+	{
+		Map<String, Long> converted = new HashMap<String, Long>();
+		for(Map.Entry<Move, Long> entry : counts.entrySet())
+		{
+			converted.put(entry.getKey().toString(), entry.getValue());
+		}
+		return converted;
+	}
+
+	private void assertCount(PerftPosition position, int depth, ForkJoinPool pool, int splitPlies)
+	{
+		IControllerFactory factory = position.createControllerFactory();
+		ParallelPerft perft = new ParallelPerft(position.createController(factory), factory, pool,
+				new PerftHashTable(12), splitPlies);
+		for(PerftResult result : perft.run(depth))
+		{
+			assertEquals(position.name() + " depth " + result.getDepth(),
+					position.getExpectedCount(result.getDepth()), result.getNodes());
+		}
+	}
+}
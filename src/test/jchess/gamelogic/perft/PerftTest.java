@@ -0,0 +1,95 @@
+package jchess.gamelogic.perft;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import jchess.gamelogic.Player;
+import jchess.gamelogic.Player.Color;
+import jchess.gamelogic.bitboard.BitboardPosition;
+import jchess.gamelogic.controllers.IChessboardController;
+import jchess.gamelogic.controllers.chessboardcontrollers.TwoPlayerChessboardController;
+import jchess.gamelogic.field.Move;
+import jchess.gamelogic.models.IChessboardModel;
+import jchess.gamelogic.models.factories.FenChessboardFactory;
+
+public class PerftTest
+{
+	/**
+	 * Tests the controllers against the expected counts at shallow depths.
+	 */
+	@Test
+	public void testExpectedCounts()
+	{
+		assertCounts(PerftPosition.START, 3);
+		assertCounts(PerftPosition.KIWIPETE, 2);
+		assertCounts(PerftPosition.POSITION_3, 3);
+		assertCounts(PerftPosition.FOUR_PLAYER_START, 2);
+		assertCounts(PerftPosition.CAT_START, 2);
+	}
+
+	/**
+	 * Tests that divide adds up to the total count and that the position is
+	 * restored afterwards.
+	 */
+	@Test
+	public void testDivide()
+	{
+		IChessboardController controller = PerftPosition.KIWIPETE.createController();
+		Perft perft = new Perft(controller);
+		long key = controller.getBoard().getZobristKey();
+
+		Map<Move, Long> divide = perft.divide(2);
+		assertEquals(48, divide.size());
+		long total = 0;
+		for(long count : divide.values())
+		{
+			total += count;
+		}
+		assertEquals(2039, total);
+
+		assertEquals(key, controller.getBoard().getZobristKey());
+		assertEquals(PerftPosition.KIWIPETE.getExpectedCount(2), perft.count(2));
+	}
+
+	/**
+	 * Tests that FEN positions with black to move and en passant are set up
+	 * correctly.
+	 */
+	@Test
+	public void testFenSetup()
+	{
+		String fen = "rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b Kq e3";
+		Player white = new Player("p1", Color.WHITE);
+		Player black = new Player("p2", Color.BLACK);
+		FenChessboardFactory factory = new FenChessboardFactory(fen);
+		assertTrue(factory.isBlackToMove());
+
+		IChessboardController controller = new TwoPlayerChessboardController(null, factory, white, black);
+		controller.switchToNextPlayer();
+		IChessboardModel board = controller.getBoard();
+		assertEquals(board.getField(4, 4), board.getEnPassantField(white));
+		assertFalse(board.getPiece(board.getField(4, 7)).hasMoved());
+		assertTrue(board.getPiece(board.getField(0, 7)).hasMoved());
+
+		// The en passant capture is one of black's moves
+		int[] moves = new int[BitboardPosition.MAX_MOVES];
+		assertEquals(BitboardPosition.fromFen(fen).generateMoves(moves), new Perft(controller).count(1));
+	}
+
+	private void assertCounts(PerftPosition position, int depth)
+	{
+		List<PerftResult> results = new Perft(position.createController()).run(depth);
+		assertEquals(depth, results.size());
+		for(PerftResult result : results)
+		{
+			assertEquals(position.name() + " depth " + result.getDepth(),
+					position.getExpectedCount(result.getDepth()), result.getNodes());
+		}
+	}
+}
@@ -148,4 +148,17 @@ public class DirectionTest
 		assertTrue(d5.equals(d6));
 	}
 	
+	/**
+	 * Test method for {@link jchess.util.Direction#of(int, int)}.
+	 */
+	@Test
+	public void testOf()
+	{
+		assertTrue(Direction.of(1, -2) == Direction.of(1, -2));
+		assertTrue(Direction.of(1, -2).equals(new Direction(1, -2)));
+		assertTrue(new Direction(2, 1).rotate90Deg() == Direction.of(1, -2));
+		assertTrue(Direction.of(0, 1).invert() == Direction.of(0, -1));
+		assertTrue(Direction.of(20, 0).equals(new Direction(20, 0)));
+	}
+	
 }